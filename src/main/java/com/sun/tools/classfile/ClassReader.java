@@ -30,6 +30,7 @@ import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  *  <p><b>This is NOT part of any supported API.
@@ -48,12 +49,30 @@ public class ClassReader {
         this.attributeFactory = attributeFactory;
     }
 
+    /**
+     * Creates a reader for a class file that is read lazily from a buffer,
+     * starting at the current position of the buffer. There is no ClassFile
+     * to get the constant pool from, so it is set once it has been read.
+     */
+    ClassReader(ByteBuffer buffer, ConstantPool constant_pool, Attribute.Factory attributeFactory) {
+        // null checks
+        attributeFactory.getClass();
+
+        this.in = new DataInputStream(new ByteBufferInputStream(buffer));
+        this.constant_pool = constant_pool;
+        this.attributeFactory = attributeFactory;
+    }
+
     ClassFile getClassFile() {
         return classFile;
     }
 
-    ConstantPool getConstantPool() {
-        return classFile.constant_pool;
+    public ConstantPool getConstantPool() {
+        return (classFile != null) ? classFile.constant_pool : constant_pool;
+    }
+
+    void setConstantPool(ConstantPool constant_pool) {
+        this.constant_pool = constant_pool;
     }
 
     public Attribute readAttribute() throws IOException {
@@ -105,5 +124,49 @@ public class ClassReader {
 
     private DataInputStream in;
     private ClassFile classFile;
+    private ConstantPool constant_pool;
     private Attribute.Factory attributeFactory;
+
+    /**
+     * An input stream that reads directly from a buffer, which may be
+     * a mapped file, so that the bytes are not copied into another
+     * buffer before they are read.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? (buffer.get() & 0xff) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0)
+                return 0;
+            if (!buffer.hasRemaining())
+                return -1;
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n) {
+            if (n <= 0)
+                return 0;
+            int k = (int) Math.min(n, buffer.remaining());
+            buffer.position(buffer.position() + k);
+            return k;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        private final ByteBuffer buffer;
+    }
 }
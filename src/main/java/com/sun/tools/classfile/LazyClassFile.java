@@ -0,0 +1,294 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  This particular file is
+ * subject to the "Classpath" exception as provided in the LICENSE file
+ * that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.sun.tools.classfile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.sun.tools.classfile.AccessFlags.*;
+
+/**
+ * A class file that is read lazily. The header, the constant pool and
+ * the interfaces are read eagerly, since they are needed to do almost
+ * anything with a class file, and the other sections are only located:
+ * the fields, the methods and each of the class attributes are parsed
+ * when they are first asked for. This makes it cheap to scan many class
+ * files when only their names, flags or a few class attributes are of
+ * interest, such as when looking for annotations or filtering classes
+ * by name before analyzing them.
+ *
+ * The class file is read from a buffer, which may be a mapped file.
+ * A complete ClassFile can be obtained with {@link #getClassFile}.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+public class LazyClassFile {
+    /**
+     * Files at least this big are mapped rather than read; mapping a
+     * small file costs more than copying it.
+     */
+    private static final int MAP_THRESHOLD = 64 * 1024;
+
+    public static LazyClassFile read(Path input)
+            throws IOException, ConstantPoolException {
+        return read(input, new Attribute.Factory());
+    }
+
+    public static LazyClassFile read(Path input, Attribute.Factory attributeFactory)
+            throws IOException, ConstantPoolException {
+        try (FileChannel ch = FileChannel.open(input)) {
+            long size = ch.size();
+            if (size < MAP_THRESHOLD) {
+                return read(ByteBuffer.wrap(Files.readAllBytes(input)), attributeFactory);
+            }
+            return read(ch.map(FileChannel.MapMode.READ_ONLY, 0, size), attributeFactory);
+        }
+    }
+
+    public static LazyClassFile read(InputStream in, Attribute.Factory attributeFactory)
+            throws IOException, ConstantPoolException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            out.write(buf, 0, n);
+        }
+        return read(ByteBuffer.wrap(out.toByteArray()), attributeFactory);
+    }
+
+    public static LazyClassFile read(ByteBuffer buffer)
+            throws IOException, ConstantPoolException {
+        return read(buffer, new Attribute.Factory());
+    }
+
+    /**
+     * Reads a class file from the remaining bytes of a buffer. The
+     * position of the buffer is not changed, and the buffer must not
+     * be modified while the class file is in use.
+     */
+    public static LazyClassFile read(ByteBuffer buffer, Attribute.Factory attributeFactory)
+            throws IOException, ConstantPoolException {
+        return new LazyClassFile(buffer.slice(), attributeFactory);
+    }
+
+    LazyClassFile(ByteBuffer buffer, Attribute.Factory attributeFactory)
+            throws IOException, ConstantPoolException {
+        this.buffer = buffer;
+        this.attributeFactory = attributeFactory;
+
+        ByteBuffer b = buffer.duplicate();
+        ClassReader cr = new ClassReader(b, null, attributeFactory);
+        magic = cr.readInt();
+        minor_version = cr.readUnsignedShort();
+        major_version = cr.readUnsignedShort();
+        constant_pool = new ConstantPool(cr);
+        cr.setConstantPool(constant_pool);
+        access_flags = new AccessFlags(cr);
+        this_class = cr.readUnsignedShort();
+        super_class = cr.readUnsignedShort();
+
+        int interfaces_count = cr.readUnsignedShort();
+        interfaces = new int[interfaces_count];
+        for (int i = 0; i < interfaces_count; i++)
+            interfaces[i] = cr.readUnsignedShort();
+
+        // Locate the remaining sections by their lengths alone, which
+        // also checks that the class file is not truncated, so that
+        // parsing them later only fails if the class file would have
+        // failed to be read eagerly for another reason.
+        try {
+            fieldsOffset = b.position();
+            methodsOffset = skipMembers(fieldsOffset);
+            int offset = skipMembers(methodsOffset);
+            int attrs_count = readUnsignedShort(offset);
+            offset += 2;
+            attributeOffsets = new int[attrs_count];
+            for (int i = 0; i < attrs_count; i++) {
+                attributeOffsets[i] = offset;
+                offset = skipAttribute(offset);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new EOFException();
+        }
+        attrs = new Attribute[attributeOffsets.length];
+    }
+
+    public String getName() throws ConstantPoolException {
+        return constant_pool.getClassInfo(this_class).getName();
+    }
+
+    public String getSuperclassName() throws ConstantPoolException {
+        return constant_pool.getClassInfo(super_class).getName();
+    }
+
+    public String getInterfaceName(int i) throws ConstantPoolException {
+        return constant_pool.getClassInfo(interfaces[i]).getName();
+    }
+
+    public boolean isClass() {
+        return !isInterface();
+    }
+
+    public boolean isInterface() {
+        return access_flags.is(ACC_INTERFACE);
+    }
+
+    public synchronized Field[] getFields() throws IOException {
+        if (fields == null) {
+            ClassReader cr = getReader(fieldsOffset);
+            Field[] fields = new Field[cr.readUnsignedShort()];
+            for (int i = 0; i < fields.length; i++)
+                fields[i] = new Field(cr);
+            this.fields = fields;
+        }
+        return fields;
+    }
+
+    public synchronized Method[] getMethods() throws IOException {
+        if (methods == null) {
+            ClassReader cr = getReader(methodsOffset);
+            Method[] methods = new Method[cr.readUnsignedShort()];
+            for (int i = 0; i < methods.length; i++)
+                methods[i] = new Method(cr);
+            this.methods = methods;
+        }
+        return methods;
+    }
+
+    /**
+     * Returns the class attribute with the given name, or null if there
+     * is none. Only that attribute is parsed.
+     */
+    public synchronized Attribute getAttribute(String name) throws IOException {
+        // as in Attributes, the last attribute with a given name wins
+        int index = -1;
+        for (int i = 0; i < attributeOffsets.length; i++) {
+            try {
+                int name_index = readUnsignedShort(attributeOffsets[i]);
+                if (constant_pool.getUTF8Value(name_index).equals(name))
+                    index = i;
+            } catch (ConstantPoolException e) {
+                // ignore invalid names
+            }
+        }
+        return (index == -1) ? null : getAttribute(index);
+    }
+
+    public synchronized Attributes getAttributes() throws IOException {
+        if (attributes == null) {
+            for (int i = 0; i < attrs.length; i++)
+                getAttribute(i);
+            attributes = new Attributes(constant_pool, attrs);
+        }
+        return attributes;
+    }
+
+    /**
+     * Returns the complete class file, parsing whatever has not been
+     * parsed yet.
+     */
+    public synchronized ClassFile getClassFile() throws IOException {
+        if (classFile == null) {
+            classFile = new ClassFile(magic, minor_version, major_version,
+                    constant_pool, access_flags, this_class, super_class, interfaces,
+                    getFields(), getMethods(), getAttributes());
+        }
+        return classFile;
+    }
+
+    public int byteLength() {
+        return buffer.limit();
+    }
+
+    private Attribute getAttribute(int index) throws IOException {
+        Attribute attr = attrs[index];
+        if (attr == null) {
+            attr = attrs[index] = getReader(attributeOffsets[index]).readAttribute();
+        }
+        return attr;
+    }
+
+    private ClassReader getReader(int offset) {
+        ByteBuffer b = buffer.duplicate();
+        b.position(offset);
+        return new ClassReader(b, constant_pool, attributeFactory);
+    }
+
+    private int readUnsignedShort(int offset) {
+        return buffer.getShort(offset) & 0xffff;
+    }
+
+    /**
+     * Returns the offset following the fields or methods table at
+     * the given offset.
+     */
+    private int skipMembers(int offset) {
+        int count = readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++) {
+            // access_flags, name_index, descriptor_index
+            offset += 6;
+            int attrs_count = readUnsignedShort(offset);
+            offset += 2;
+            for (int j = 0; j < attrs_count; j++)
+                offset = skipAttribute(offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Returns the offset following the attribute at the given offset.
+     */
+    private int skipAttribute(int offset) {
+        int length = buffer.getInt(offset + 2);
+        int end = offset + 6 + length;
+        if (length < 0 || end < 0 || end > buffer.limit())
+            throw new IndexOutOfBoundsException();
+        return end;
+    }
+
+    public final int magic;
+    public final int minor_version;
+    public final int major_version;
+    public final ConstantPool constant_pool;
+    public final AccessFlags access_flags;
+    public final int this_class;
+    public final int super_class;
+    public final int[] interfaces;
+
+    private final ByteBuffer buffer;
+    private final Attribute.Factory attributeFactory;
+    private final int fieldsOffset;
+    private final int methodsOffset;
+    private final int[] attributeOffsets;
+    private final Attribute[] attrs;
+    private Field[] fields;
+    private Method[] methods;
+    private Attributes attributes;
+    private ClassFile classFile;
+}
@@ -3485,11 +3485,31 @@ public class Attr extends JCTree.Visitor {
                      Symbol sym,
                      Env<AttrContext> env,
                      ResultInfo resultInfo) {
+            reportDependence(site, sym, env);
             return (resultInfo.pt.hasTag(FORALL) || resultInfo.pt.hasTag(METHOD)) ?
                     checkMethodId(tree, site, sym, env, resultInfo) :
                     checkIdInternal(tree, site, sym, resultInfo.pt, env, resultInfo);
         }
 
+        /** Report the dependence of the current class on a resolved symbol:
+         *  on the class itself if the symbol is a class, otherwise on the
+         *  class declaring the member and on the class it is selected from,
+         *  whether it is named in the source or only reached through the
+         *  type of an expression.
+         */
+        void reportDependence(Type site, Symbol sym, Env<AttrContext> env) {
+            ClassSymbol from = env.enclClass.sym;
+            if (sym.kind == TYP) {
+                rs.reportDependence(from, sym);
+            } else if ((sym.kind == VAR || sym.kind == MTH) &&
+                       sym.owner.kind == TYP && sym.owner != syms.arrayClass) {
+                rs.reportDependence(from, sym.owner);
+                if (site.hasTag(CLASS) && site.tsym != sym.owner) {
+                    rs.reportDependence(from, site.tsym);
+                }
+            }
+        }
+
         Type checkMethodId(JCTree tree,
                      Type site,
                      Symbol sym,
@@ -35,6 +35,7 @@ import com.sun.tools.javac.code.Type.*;
 import com.sun.tools.javac.comp.Attr.ResultInfo;
 import com.sun.tools.javac.comp.Infer.InferenceContext;
 import com.sun.tools.javac.comp.Resolve.MethodResolutionPhase;
+import com.sun.tools.javac.main.CompileProfiler;
 import com.sun.tools.javac.tree.JCTree.*;
 
 import java.util.ArrayList;
@@ -78,6 +79,7 @@ public class DeferredAttr extends JCTree.Visitor {
     final Flow flow;
     final Names names;
     final TypeEnvs typeEnvs;
+    final CompileProfiler profiler;
 
     public static DeferredAttr instance(Context context) {
         DeferredAttr instance = context.get(deferredAttrKey);
@@ -102,6 +104,7 @@ public class DeferredAttr extends JCTree.Visitor {
         names = Names.instance(context);
         stuckTree = make.Ident(names.empty).setType(Type.stuckType);
         typeEnvs = TypeEnvs.instance(context);
+        profiler = CompileProfiler.instanceIfEnabled(context);
         emptyDeferredAttrContext =
             new DeferredAttrContext(AttrMode.CHECK, null, MethodResolutionPhase.BOX, infer.emptyContext, null, null) {
                 @Override
@@ -176,6 +179,20 @@ public class DeferredAttr extends JCTree.Visitor {
                 boolean matches(MethodResolutionPhase phase) {
                     return resultInfo.checkContext.deferredAttrContext().phase == phase;
                 }
+
+                /**
+                 * Does this entry hold the outcome of a speculative round against
+                 * the same target, under the same kind of check and phase, as the
+                 * given result info?
+                 */
+                boolean matches(ResultInfo other) {
+                    return speculativeTree != stuckTree &&
+                            matches(other.checkContext.deferredAttrContext().phase) &&
+                            resultInfo.pkind == other.pkind &&
+                            resultInfo.checkContext.getClass() == other.checkContext.getClass() &&
+                            isReusable(resultInfo) &&
+                            types.isSameType(resultInfo.pt, other.pt);
+                }
             }
 
             /**
@@ -191,6 +208,30 @@ public class DeferredAttr extends JCTree.Visitor {
                 return null;
             }
 
+            /**
+             * Retrieve a speculative cache entry that can stand in for a new
+             * speculative round with the given result info. This is the case when
+             * an earlier round, for another candidate symbol in the same phase,
+             * used the same target type, and that type mentions no inference
+             * variables - attribution against such a target leaves no bounds
+             * behind, so its outcome depends on the target alone.
+             */
+            Entry get(ResultInfo resultInfo) {
+                if (!isReusable(resultInfo)) return null;
+                for (List<Entry> entries : cache.values()) {
+                    for (Entry e : entries) {
+                        if (e.matches(resultInfo)) return e;
+                    }
+                }
+                return null;
+            }
+
+            private boolean isReusable(ResultInfo resultInfo) {
+                Type pt = resultInfo.pt;
+                return !pt.hasTag(NONE) && !pt.isErroneous() &&
+                        !resultInfo.checkContext.inferenceContext().free(pt);
+            }
+
             /**
              * Stores a speculative cache entry corresponding to given symbol
              * and resolution phase
@@ -274,10 +315,14 @@ public class DeferredAttr extends JCTree.Visitor {
         public Type complete(DeferredType dt, ResultInfo resultInfo, DeferredAttrContext deferredAttrContext) {
             switch (deferredAttrContext.mode) {
                 case SPECULATIVE:
-                    //Note: if a symbol is imported twice we might do two identical
-                    //speculative rounds...
+                    //reuse the outcome of an identical speculative round, e.g. one
+                    //for a symbol imported twice, or for another candidate with
+                    //the same (non-generic) parameter type
                     Assert.check(dt.mode == null || dt.mode == AttrMode.SPECULATIVE);
-                    JCTree speculativeTree = attribSpeculative(dt.tree, dt.env, resultInfo);
+                    DeferredType.SpeculativeCache.Entry e = dt.speculativeCache.get(resultInfo);
+                    JCTree speculativeTree = (e != null) ?
+                            e.speculativeTree :
+                            attribSpeculative(dt.tree, dt.env, resultInfo);
                     dt.speculativeCache.put(speculativeTree, resultInfo);
                     return speculativeTree.type;
                 case CHECK:
@@ -383,6 +428,7 @@ public class DeferredAttr extends JCTree.Visitor {
                 return posScanner.found;
             }
         });
+        long start = (profiler != null) ? System.nanoTime() : 0;
         try {
             attr.attribTree(newTree, speculativeEnv, resultInfo);
             unenterScanner.scan(newTree);
@@ -390,6 +436,10 @@ public class DeferredAttr extends JCTree.Visitor {
         } finally {
             unenterScanner.scan(newTree);
             log.popDiagnosticHandler(deferredDiagnosticHandler);
+            if (profiler != null) {
+                profiler.site("speculative", env.toplevel.sourcefile, tree.pos,
+                        tree.getTag(), System.nanoTime() - start);
+            }
         }
     }
     //where
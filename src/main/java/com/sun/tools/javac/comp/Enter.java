@@ -34,6 +34,7 @@ import com.sun.tools.javac.code.Scope.*;
 import com.sun.tools.javac.code.Symbol.*;
 import com.sun.tools.javac.code.Type.*;
 import com.sun.tools.javac.jvm.*;
+import com.sun.tools.javac.main.CompileProfiler;
 import com.sun.tools.javac.main.Option.PkgInfo;
 import com.sun.tools.javac.tree.*;
 import com.sun.tools.javac.tree.JCTree.*;
@@ -107,6 +108,9 @@ public class Enter extends JCTree.Visitor {
     PkgInfo pkginfoOpt;
     TypeEnvs typeEnvs;
 
+    /** The profiler of the compilation, or null if profiling is not enabled. */
+    private final CompileProfiler profiler;
+
     private final Todo todo;
 
     public static Enter instance(Context context) {
@@ -144,6 +148,7 @@ public class Enter extends JCTree.Visitor {
         Options options = Options.instance(context);
         pkginfoOpt = PkgInfo.get(options);
         typeEnvs = TypeEnvs.instance(context);
+        profiler = CompileProfiler.instanceIfEnabled(context);
     }
 
     /** Accessor for typeEnvs
@@ -483,7 +488,16 @@ public class Enter extends JCTree.Visitor {
 
         try {
             // enter all classes, and construct uncompleted list
-            classEnter(trees, null);
+            for (JCCompilationUnit tree : trees) {
+                CompileProfiler.Span span = (profiler == null) ? null
+                    : profiler.start(CompileProfiler.Phase.ENTER, tree.sourcefile);
+                try {
+                    classEnter(tree, null);
+                } finally {
+                    if (span != null)
+                        profiler.stop(span);
+                }
+            }
 
             // complete all uncompleted classes in memberEnter
             if  (memberEnter.completionEnabled) {
@@ -40,6 +40,7 @@ import com.sun.tools.javac.comp.Infer.GraphSolver.InferenceGraph;
 import com.sun.tools.javac.comp.Infer.GraphSolver.InferenceGraph.Node;
 import com.sun.tools.javac.comp.Resolve.InapplicableMethodException;
 import com.sun.tools.javac.comp.Resolve.VerboseResolutionMode;
+import com.sun.tools.javac.main.CompileProfiler;
 import com.sun.tools.javac.util.GraphUtils.TarjanNode;
 
 import java.util.ArrayList;
@@ -75,6 +76,9 @@ public class Infer {
     /** should the graph solver be used? */
     boolean allowGraphInference;
 
+    /** The profiler of the compilation, or null if profiling is not enabled. */
+    CompileProfiler profiler;
+
     public static Infer instance(Context context) {
         Infer instance = context.get(inferKey);
         if (instance == null)
@@ -95,6 +99,7 @@ public class Infer {
         Options options = Options.instance(context);
         allowGraphInference = Source.instance(context).allowGraphInference()
                 && options.isUnset("useLegacyInference");
+        profiler = CompileProfiler.instanceIfEnabled(context);
     }
 
     /** A value for prototypes that admit any type, including polymorphic ones. */
@@ -155,6 +160,7 @@ public class Infer {
         //-System.err.println("instantiateMethod(" + tvars + ", " + mt + ", " + argtypes + ")"); //DEBUG
         final InferenceContext inferenceContext = new InferenceContext(tvars);  //B0
         inferenceException.clear();
+        long start = (profiler != null) ? System.nanoTime() : 0;
         try {
             DeferredAttr.DeferredAttrContext deferredAttrContext =
                         resolveContext.deferredAttrContext(msym, inferenceContext, resultInfo, warn);
@@ -217,6 +223,10 @@ public class Infer {
                  */
                 inferenceContext.captureTypeCache.clear();
             }
+            if (profiler != null) {
+                profiler.site("infer", env.toplevel.sourcefile, env.tree.pos, msym,
+                        System.nanoTime() - start);
+            }
         }
     }
 
@@ -525,13 +535,18 @@ public class Infer {
 
     // <editor-fold defaultstate="collapsed" desc="Bound checking">
     /**
-     * Check bounds and perform incorporation
+     * Check bounds and perform incorporation. The first round visits all
+     * inference variables; later rounds only revisit the variables whose
+     * bounds changed in the previous round, and the variables whose bounds
+     * mention them, as the incorporation steps of any other variable would
+     * only repeat operations already in the incorporation cache.
      */
     void checkWithinBounds(InferenceContext inferenceContext,
                              Warner warn) throws InferenceException {
         MultiUndetVarListener mlistener = new MultiUndetVarListener(inferenceContext.undetvars);
         List<Type> saved_undet = inferenceContext.save();
         try {
+            List<Type> pending = inferenceContext.undetvars;
             while (true) {
                 mlistener.reset();
                 if (!allowGraphInference) {
@@ -542,7 +557,7 @@ public class Infer {
                         IncorporationStep.CHECK_BOUNDS.apply(uv, inferenceContext, warn);
                     }
                 }
-                for (Type t : inferenceContext.undetvars) {
+                for (Type t : pending) {
                     UndetVar uv = (UndetVar)t;
                     //bound incorporation
                     EnumSet<IncorporationStep> incorporationSteps = allowGraphInference ?
@@ -554,6 +569,7 @@ public class Infer {
                     }
                 }
                 if (!mlistener.changed || !allowGraphInference) break;
+                pending = mlistener.affected(inferenceContext);
             }
         }
         finally {
@@ -575,6 +591,7 @@ public class Infer {
 
             boolean changed;
             List<Type> undetvars;
+            Set<UndetVar> changedVars = new HashSet<UndetVar>();
 
             public MultiUndetVarListener(List<Type> undetvars) {
                 this.undetvars = undetvars;
@@ -588,11 +605,45 @@ public class Infer {
                 //avoid non-termination
                 if (incorporationCache.size() < MAX_INCORPORATION_STEPS) {
                     changed = true;
+                    changedVars.add(uv);
                 }
             }
 
             void reset() {
                 changed = false;
+                changedVars.clear();
+            }
+
+            /**
+             * The inference variables, in declaration order, that need to be
+             * revisited: those that changed, and those with a bound that
+             * mentions one that changed.
+             */
+            List<Type> affected(InferenceContext inferenceContext) {
+                ListBuffer<Type> changedTypes = new ListBuffer<>();
+                for (UndetVar uv : changedVars) {
+                    changedTypes.append(uv.qtype);
+                }
+                List<Type> changedQtypes = changedTypes.toList();
+                ListBuffer<Type> buf = new ListBuffer<>();
+                for (Type t : inferenceContext.undetvars) {
+                    UndetVar uv = (UndetVar)t;
+                    if (changedVars.contains(uv) || mentionsAny(uv, changedQtypes)) {
+                        buf.append(uv);
+                    }
+                }
+                return buf.toList();
+            }
+
+            private boolean mentionsAny(UndetVar uv, List<Type> qtypes) {
+                for (InferenceBound ib : InferenceBound.values()) {
+                    for (Type b : uv.getBounds(ib)) {
+                        if (b.containsAny(qtypes)) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
             }
 
             void detach() {
@@ -35,6 +35,7 @@ import javax.tools.JavaFileObject;
 
 import com.sun.tools.javac.code.*;
 import com.sun.tools.javac.jvm.*;
+import com.sun.tools.javac.main.CompileProfiler;
 import com.sun.tools.javac.tree.*;
 import com.sun.tools.javac.util.*;
 
@@ -88,6 +89,9 @@ public class MemberEnter extends JCTree.Visitor implements Completer {
     private final Lint lint;
     private final TypeEnvs typeEnvs;
 
+    /** The profiler of the compilation, or null if profiling is not enabled. */
+    private final CompileProfiler profiler;
+
     public static MemberEnter instance(Context context) {
         MemberEnter instance = context.get(memberEnterKey);
         if (instance == null)
@@ -115,6 +119,7 @@ public class MemberEnter extends JCTree.Visitor implements Completer {
         deferredLintHandler = DeferredLintHandler.instance(context);
         lint = Lint.instance(context);
         typeEnvs = TypeEnvs.instance(context);
+        profiler = CompileProfiler.instanceIfEnabled(context);
         allowTypeAnnos = source.allowTypeAnnotations();
         allowRepeatedAnnos = source.allowRepeatedAnnotations();
     }
@@ -1025,6 +1030,8 @@ public class MemberEnter extends JCTree.Visitor implements Completer {
 
             JavaFileObject prev = log.useSource(env.toplevel.sourcefile);
             DiagnosticPosition prevLintPos = deferredLintHandler.setPos(tree.pos());
+            CompileProfiler.Span span = (profiler == null) ? null
+                : profiler.start(CompileProfiler.Phase.ENTER, env.toplevel.sourcefile);
             try {
                 // Save class environment for later member enter (2) processing.
                 halfcompleted.append(env);
@@ -1186,6 +1193,8 @@ public class MemberEnter extends JCTree.Visitor implements Completer {
             } catch (CompletionFailure ex) {
                 chk.completionError(tree.pos(), ex);
             } finally {
+                if (span != null)
+                    profiler.stop(span);
                 deferredLintHandler.setPos(prevLintPos);
                 log.useSource(prev);
             }
@@ -1196,10 +1205,17 @@ public class MemberEnter extends JCTree.Visitor implements Completer {
                 try {
                     while (halfcompleted.nonEmpty()) {
                         Env<AttrContext> toFinish = halfcompleted.next();
-                        finish(toFinish);
-                        if (allowTypeAnnos) {
-                            typeAnnotations.organizeTypeAnnotationsSignatures(toFinish, (JCClassDecl)toFinish.tree);
-                            typeAnnotations.validateTypeAnnotationsSignatures(toFinish, (JCClassDecl)toFinish.tree);
+                        CompileProfiler.Span finishSpan = (profiler == null) ? null
+                            : profiler.start(CompileProfiler.Phase.ENTER, toFinish.toplevel.sourcefile);
+                        try {
+                            finish(toFinish);
+                            if (allowTypeAnnos) {
+                                typeAnnotations.organizeTypeAnnotationsSignatures(toFinish, (JCClassDecl)toFinish.tree);
+                                typeAnnotations.validateTypeAnnotationsSignatures(toFinish, (JCClassDecl)toFinish.tree);
+                            }
+                        } finally {
+                            if (finishSpan != null)
+                                profiler.stop(finishSpan);
                         }
                     }
                 } finally {
@@ -27,14 +27,19 @@ package com.sun.tools.javac.file;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.io.OutputStreamWriter;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -89,7 +94,15 @@ public class JavacFileManager extends BaseFileManager implements StandardJavaFil
     private final Set<JavaFileObject.Kind> sourceOrClass =
         EnumSet.of(JavaFileObject.Kind.SOURCE, JavaFileObject.Kind.CLASS);
 
+    /** Whether files that are not small are read by mapping them into
+     *  memory, rather than by copying them into a heap buffer.
+     */
     protected boolean mmappedIO;
+
+    /** The smallest file that is mapped when mmappedIO is set; below this
+     *  size setting up the mapping costs more than copying the file.
+     */
+    private static final long MIN_MAPPED_SIZE = 64 * 1024;
     protected boolean symbolFileEnabled;
 
     protected enum SortFiles implements Comparator<File> {
@@ -157,6 +170,27 @@ public class JavacFileManager extends BaseFileManager implements StandardJavaFil
         symbolFileEnabled = b;
     }
 
+    /**
+     * Make a byte buffer holding the contents of a file.
+     */
+    public ByteBuffer makeByteBuffer(File file) throws IOException {
+        if (mmappedIO && file.length() >= MIN_MAPPED_SIZE) {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                FileChannel ch = raf.getChannel();
+                return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            } finally {
+                raf.close();
+            }
+        }
+        InputStream in = new FileInputStream(file);
+        try {
+            return makeByteBuffer(in);
+        } finally {
+            in.close();
+        }
+    }
+
     @Override
     public boolean isDefaultBootClassPath() {
         return locations.isDefaultBootClassPath();
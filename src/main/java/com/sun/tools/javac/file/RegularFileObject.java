@@ -109,21 +109,16 @@ class RegularFileObject extends BaseFileObject {
     public CharBuffer getCharContent(boolean ignoreEncodingErrors) throws IOException {
         CharBuffer cb = fileManager.getCachedContent(this);
         if (cb == null) {
-            InputStream in = new FileInputStream(file);
+            ByteBuffer bb = fileManager.makeByteBuffer(file);
+            JavaFileObject prev = fileManager.log.useSource(this);
             try {
-                ByteBuffer bb = fileManager.makeByteBuffer(in);
-                JavaFileObject prev = fileManager.log.useSource(this);
-                try {
-                    cb = fileManager.decode(bb, ignoreEncodingErrors);
-                } finally {
-                    fileManager.log.useSource(prev);
-                }
-                fileManager.recycleByteBuffer(bb);
-                if (!ignoreEncodingErrors) {
-                    fileManager.cache(this, cb);
-                }
+                cb = fileManager.decode(bb, ignoreEncodingErrors);
             } finally {
-                in.close();
+                fileManager.log.useSource(prev);
+            }
+            fileManager.recycleByteBuffer(bb);
+            if (!ignoreEncodingErrors) {
+                fileManager.cache(this, cb);
             }
         }
         return cb;
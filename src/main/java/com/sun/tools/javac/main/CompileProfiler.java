@@ -0,0 +1,447 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  This particular file is
+ * subject to the "Classpath" exception as provided in the LICENSE file
+ * that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.sun.tools.javac.main;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.tools.JavaFileObject;
+
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.DiagnosticSource;
+import com.sun.tools.javac.util.Log;
+import com.sun.tools.javac.util.Options;
+
+/**
+ * Records where a compilation spends its time, and writes a report of
+ * it in JSON when the compiler is closed.
+ *
+ * The profiler is enabled by "{@code -XDphaseProfile}", which prints the
+ * report on the log, or "{@code -XDphaseProfile=<file>}", which writes it
+ * to a file. For each phase, parse, enter, attr, flow, desugar and
+ * generate, the report gives the wall clock time, the CPU time and the
+ * memory allocated, in total and for each compilation unit. The times are
+ * exclusive: when one phase runs another, as desugar attributes and
+ * analyzes the supertypes of the class it lowers, the time of the inner
+ * phase is not counted for the outer one. The report also lists the
+ * slowest inference and speculative attribution sites, and the time of
+ * each round of annotation processing. The profiler is called directly
+ * rather than through a task listener, which would keep the compiler
+ * from parsing and writing class files in parallel.
+ *
+ * The profiler is shared by the contexts of all the rounds of annotation
+ * processing. Spans are tracked per thread, so that files parsed on worker
+ * threads are measured as well.
+ *
+ * <p><b>This is NOT part of any supported API.
+ * If you write code that depends on this, you do so at your own risk.
+ * This code and its internal interfaces are subject to change or
+ * deletion without notice.</b>
+ */
+public class CompileProfiler {
+    /** The context key for the profiler. */
+    public static final Context.Key<CompileProfiler> profilerKey =
+        new Context.Key<CompileProfiler>();
+
+    /** Get the CompileProfiler instance for this context. */
+    public static CompileProfiler instance(Context context) {
+        CompileProfiler instance = context.get(profilerKey);
+        if (instance == null)
+            instance = new CompileProfiler(context);
+        return instance;
+    }
+
+    /** Get the CompileProfiler instance for this context, or null if
+     *  profiling is not enabled.
+     */
+    public static CompileProfiler instanceIfEnabled(Context context) {
+        return Options.instance(context).isSet("phaseProfile") ? instance(context) : null;
+    }
+
+    /** The phases that are measured.
+     */
+    public enum Phase {
+        PARSE("parse"),
+        ENTER("enter"),
+        PROCESS("process"),
+        ATTR("attr"),
+        FLOW("flow"),
+        DESUGAR("desugar"),
+        GENERATE("generate");
+
+        final String text;
+
+        Phase(String text) {
+            this.text = text;
+        }
+    }
+
+    /** The number of sites listed in the report.
+     */
+    static final int MAX_SITES = 20;
+
+    /** Where the report is written, or null for the log.
+     */
+    private final String reportFile;
+
+    private final ThreadMXBean threads;
+    private final boolean cpuTime;
+    private final com.sun.management.ThreadMXBean allocation;
+
+    /** The totals of each phase, and of each phase for each compilation unit.
+     */
+    private final Map<Phase, Totals> phaseTotals = new EnumMap<Phase, Totals>(Phase.class);
+    private final Map<JavaFileObject, Map<Phase, Totals>> fileTotals =
+        new LinkedHashMap<JavaFileObject, Map<Phase, Totals>>();
+
+    /** The inference and speculative attribution sites, by kind, file and position.
+     */
+    private final Map<String, Site> sites = new HashMap<String, Site>();
+
+    /** The wall clock time of each round of annotation processing.
+     */
+    private final java.util.List<Long> rounds = new ArrayList<Long>();
+    private Span round;
+    private long roundStart;
+
+    /** The innermost span being measured on each thread.
+     */
+    private final ThreadLocal<Span> current = new ThreadLocal<Span>();
+
+    private final long startNanos;
+    private boolean reported;
+
+    protected CompileProfiler(Context context) {
+        context.put(profilerKey, this);
+        String file = Options.instance(context).get("phaseProfile");
+        reportFile = (file == null || file.isEmpty() || file.equals("phaseProfile")) ? null : file;
+        threads = ManagementFactory.getThreadMXBean();
+        cpuTime = threads.isCurrentThreadCpuTimeSupported();
+        if (cpuTime && !threads.isThreadCpuTimeEnabled())
+            threads.setThreadCpuTimeEnabled(true);
+        com.sun.management.ThreadMXBean alloc = null;
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            alloc = (com.sun.management.ThreadMXBean) threads;
+            if (!alloc.isThreadAllocatedMemorySupported())
+                alloc = null;
+            else if (!alloc.isThreadAllocatedMemoryEnabled())
+                alloc.setThreadAllocatedMemoryEnabled(true);
+        }
+        allocation = alloc;
+        startNanos = System.nanoTime();
+    }
+
+    /** The time spent, and memory allocated, in a phase.
+     */
+    static class Totals {
+        long wall;
+        long cpu;
+        long alloc;
+        int count;
+    }
+
+    /** A phase being measured on the current thread. Only the time since
+     *  the span was last started or resumed is pending; earlier time has
+     *  already been added to the totals.
+     */
+    public static class Span {
+        final Phase phase;
+        final JavaFileObject file;
+        final Span outer;
+        long wall;
+        long cpu;
+        long alloc;
+
+        Span(Phase phase, JavaFileObject file, Span outer) {
+            this.phase = phase;
+            this.file = file;
+            this.outer = outer;
+        }
+    }
+
+    /** An inference or speculative attribution site.
+     */
+    static class Site {
+        final String kind;
+        final JavaFileObject file;
+        final int pos;
+        final String what;
+        long wall;
+        int count;
+
+        Site(String kind, JavaFileObject file, int pos, String what) {
+            this.kind = kind;
+            this.file = file;
+            this.pos = pos;
+            this.what = what;
+        }
+    }
+
+    /** Start measuring a phase on the current thread, pausing the phase
+     *  that encloses it.
+     *  @param file the compilation unit, or null if the phase is not
+     *              for a single compilation unit.
+     */
+    public Span start(Phase phase, JavaFileObject file) {
+        Span outer = current.get();
+        Span span = new Span(phase, file, outer);
+        mark(span);
+        if (outer != null)
+            add(outer, span);
+        current.set(span);
+        return span;
+    }
+
+    /** Stop measuring a phase, and resume measuring the enclosing phase.
+     */
+    public void stop(Span span) {
+        Span end = new Span(span.phase, span.file, null);
+        mark(end);
+        add(span, end);
+        synchronized (this) {
+            phaseTotals.get(span.phase).count++;
+        }
+        current.set(span.outer);
+        if (span.outer != null) {
+            span.outer.wall = end.wall;
+            span.outer.cpu = end.cpu;
+            span.outer.alloc = end.alloc;
+        }
+    }
+
+    /** Record the time spent at an inference or speculative attribution site.
+     */
+    public synchronized void site(String kind, JavaFileObject file, int pos, Object what, long nanos) {
+        String key = kind + ":" + (file == null ? "" : file.getName()) + ":" + pos + ":" + what;
+        Site s = sites.get(key);
+        if (s == null) {
+            s = new Site(kind, file, pos, String.valueOf(what));
+            sites.put(key, s);
+        }
+        s.wall += nanos;
+        s.count++;
+    }
+
+    private void mark(Span span) {
+        span.wall = System.nanoTime();
+        span.cpu = cpuTime ? threads.getCurrentThreadCpuTime() : 0;
+        span.alloc = (allocation != null)
+                ? allocation.getThreadAllocatedBytes(Thread.currentThread().getId())
+                : 0;
+    }
+
+    /** Add the time between the marks of from and to to the totals of from.
+     */
+    private synchronized void add(Span from, Span to) {
+        long wall = to.wall - from.wall;
+        long cpu = to.cpu - from.cpu;
+        long alloc = to.alloc - from.alloc;
+        addTo(totals(phaseTotals, from.phase), wall, cpu, alloc);
+        if (from.file != null) {
+            Map<Phase, Totals> m = fileTotals.get(from.file);
+            if (m == null) {
+                m = new EnumMap<Phase, Totals>(Phase.class);
+                fileTotals.put(from.file, m);
+            }
+            addTo(totals(m, from.phase), wall, cpu, alloc);
+        }
+    }
+
+    private static Totals totals(Map<Phase, Totals> m, Phase phase) {
+        Totals t = m.get(phase);
+        if (t == null) {
+            t = new Totals();
+            m.put(phase, t);
+        }
+        return t;
+    }
+
+    private static void addTo(Totals t, long wall, long cpu, long alloc) {
+        t.wall += wall;
+        t.cpu += cpu;
+        t.alloc += alloc;
+    }
+
+    /** Start measuring a round of annotation processing.
+     */
+    public void startRound() {
+        roundStart = System.nanoTime();
+        round = start(Phase.PROCESS, null);
+    }
+
+    /** Stop measuring the current round of annotation processing.
+     */
+    public void finishRound() {
+        if (round != null) {
+            Span r = round;
+            round = null;
+            stop(r);
+            synchronized (this) {
+                rounds.add(System.nanoTime() - roundStart);
+            }
+        }
+    }
+
+    /** Write the report, unless it has already been written.
+     */
+    public void report(Log log) {
+        synchronized (this) {
+            if (reported)
+                return;
+            reported = true;
+        }
+        if (reportFile == null) {
+            PrintWriter out = log.getWriter(Log.WriterKind.NOTICE);
+            writeReport(out, log);
+            out.flush();
+            return;
+        }
+        try {
+            PrintWriter out = new PrintWriter(new FileWriter(reportFile));
+            try {
+                writeReport(out, log);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            log.printLines(Log.WriterKind.ERROR, Log.PrefixKind.JAVAC,
+                           "err.error.writing.file", reportFile, e.getMessage());
+        }
+    }
+
+    private synchronized void writeReport(PrintWriter out, Log log) {
+        out.println("{");
+        out.println("  \"wallNanos\": " + (System.nanoTime() - startNanos) + ",");
+        out.println("  \"phases\": [");
+        String sep = "";
+        for (Map.Entry<Phase, Totals> e : phaseTotals.entrySet()) {
+            out.print(sep + "    {\"phase\": \"" + e.getKey().text + "\", ");
+            writeTotals(out, e.getValue());
+            out.print(", \"count\": " + e.getValue().count + "}");
+            sep = ",\n";
+        }
+        out.println();
+        out.println("  ],");
+
+        // the compilation units, slowest first
+        java.util.List<Map.Entry<JavaFileObject, Map<Phase, Totals>>> files =
+            new ArrayList<Map.Entry<JavaFileObject, Map<Phase, Totals>>>(fileTotals.entrySet());
+        Collections.sort(files, new Comparator<Map.Entry<JavaFileObject, Map<Phase, Totals>>>() {
+            public int compare(Map.Entry<JavaFileObject, Map<Phase, Totals>> a,
+                               Map.Entry<JavaFileObject, Map<Phase, Totals>> b) {
+                return Long.compare(wall(b.getValue()), wall(a.getValue()));
+            }
+        });
+        out.println("  \"files\": [");
+        sep = "";
+        for (Map.Entry<JavaFileObject, Map<Phase, Totals>> e : files) {
+            out.print(sep + "    {\"file\": " + quote(e.getKey().getName())
+                      + ", \"wallNanos\": " + wall(e.getValue()) + ", \"phases\": {");
+            String psep = "";
+            for (Map.Entry<Phase, Totals> p : e.getValue().entrySet()) {
+                out.print(psep + "\"" + p.getKey().text + "\": {");
+                writeTotals(out, p.getValue());
+                out.print("}");
+                psep = ", ";
+            }
+            out.print("}}");
+            sep = ",\n";
+        }
+        out.println();
+        out.println("  ],");
+
+        // the slowest sites
+        java.util.List<Site> slowest = new ArrayList<Site>(sites.values());
+        Collections.sort(slowest, new Comparator<Site>() {
+            public int compare(Site a, Site b) {
+                return Long.compare(b.wall, a.wall);
+            }
+        });
+        out.println("  \"sites\": [");
+        sep = "";
+        for (Site s : slowest.subList(0, Math.min(MAX_SITES, slowest.size()))) {
+            String file = (s.file == null) ? null : s.file.getName();
+            int line = (s.file == null || s.pos < 0)
+                ? -1 : new DiagnosticSource(s.file, log).getLineNumber(s.pos);
+            out.print(sep + "    {\"kind\": \"" + s.kind + "\", \"file\": " + quote(file)
+                      + ", \"line\": " + line + ", \"what\": " + quote(s.what)
+                      + ", \"count\": " + s.count + ", \"wallNanos\": " + s.wall + "}");
+            sep = ",\n";
+        }
+        out.println();
+        out.println("  ],");
+
+        out.print("  \"processingRounds\": [");
+        sep = "";
+        for (Long r : rounds) {
+            out.print(sep + r);
+            sep = ", ";
+        }
+        out.println("]");
+        out.println("}");
+    }
+
+    private void writeTotals(PrintWriter out, Totals t) {
+        out.print("\"wallNanos\": " + t.wall
+                  + ", \"cpuNanos\": " + (cpuTime ? t.cpu : -1)
+                  + ", \"allocBytes\": " + (allocation != null ? t.alloc : -1));
+    }
+
+    private static long wall(Map<Phase, Totals> m) {
+        long w = 0;
+        for (Totals t : m.values())
+            w += t.wall;
+        return w;
+    }
+
+    /** Quote a string for JSON.
+     */
+    private static String quote(String s) {
+        if (s == null)
+            return "null";
+        StringBuilder b = new StringBuilder(s.length() + 2);
+        b.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+            case '"':  b.append("\\\""); break;
+            case '\\': b.append("\\\\"); break;
+            case '\n': b.append("\\n"); break;
+            case '\r': b.append("\\r"); break;
+            case '\t': b.append("\\t"); break;
+            default:
+                if (c < 0x20)
+                    b.append(String.format("\\u%04x", (int) c));
+                else
+                    b.append(c);
+            }
+        }
+        b.append('"');
+        return b.toString();
+    }
+}
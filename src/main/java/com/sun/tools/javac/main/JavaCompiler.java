@@ -30,11 +30,20 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.Locale;
 import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.Queue;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import javax.annotation.processing.Processor;
 import javax.lang.model.SourceVersion;
@@ -166,7 +175,15 @@ public class JavaCompiler {
          * Means output might be generated for some classes in a compilation unit
          * and not others.
          */
-        BY_TODO;
+        BY_TODO,
+
+        /**
+         * Like {@code BY_TODO}, but source files are parsed and class files
+         * are written on a pool of worker threads. Attribution, flow analysis,
+         * desugaring and code generation still run on the compiler thread,
+         * so diagnostics are reported in the same order as for {@code BY_TODO}.
+         */
+        PARALLEL;
 
         static CompilePolicy decode(String option) {
             if (option == null)
@@ -181,6 +198,8 @@ public class JavaCompiler {
                 return BY_FILE;
             else if (option.equals("bytodo"))
                 return BY_TODO;
+            else if (option.equals("parallel"))
+                return PARALLEL;
             else
                 return DEFAULT_COMPILE_POLICY;
         }
@@ -296,6 +315,10 @@ public class JavaCompiler {
      */
     protected MultiTaskListener taskListener;
 
+    /** The profiler of the phases, or null if profiling is not enabled.
+     */
+    protected CompileProfiler profiler;
+
     /**
      * Annotation processing may require and provide a new instance
      * of the compiler to be used for the analyze and generate phases.
@@ -376,6 +399,7 @@ public class JavaCompiler {
         annotate = Annotate.instance(context);
         types = Types.instance(context);
         taskListener = MultiTaskListener.instance(context);
+        profiler = CompileProfiler.instanceIfEnabled(context);
 
         reader.sourceCompleter = thisCompleter;
 
@@ -414,6 +438,11 @@ public class JavaCompiler {
         else
             compilePolicy = CompilePolicy.decode(options.get("compilePolicy"));
 
+        if (options.isSet("parallelThreads"))
+            workerCount = Math.max(1, Integer.parseInt(options.get("parallelThreads")));
+        else
+            workerCount = Runtime.getRuntime().availableProcessors();
+
         implicitSourcePolicy = ImplicitSourcePolicy.decode(options.get("-implicit"));
 
         completionFailureName =
@@ -517,6 +546,22 @@ public class JavaCompiler {
      */
     protected CompilePolicy compilePolicy;
 
+    /**
+     * The number of worker threads used by the {@code PARALLEL} compile policy.
+     */
+    protected int workerCount;
+
+    /**
+     * The worker threads, created when first needed.
+     */
+    private ExecutorService workers;
+
+    /**
+     * Class files whose contents have been handed to a worker thread
+     * and are not yet known to have been written.
+     */
+    private ListBuffer<PendingWrite> pendingWrites = new ListBuffer<>();
+
     /**
      * The policy for what to do with implicitly read source files
      */
@@ -611,6 +656,17 @@ public class JavaCompiler {
      *  @param content      The characters to be parsed.
      */
     protected JCCompilationUnit parse(JavaFileObject filename, CharSequence content) {
+        CompileProfiler.Span span = (profiler == null) ? null
+            : profiler.start(CompileProfiler.Phase.PARSE, filename);
+        try {
+            return parse0(filename, content);
+        } finally {
+            if (span != null)
+                profiler.stop(span);
+        }
+    }
+
+    private JCCompilationUnit parse0(JavaFileObject filename, CharSequence content) {
         long msec = now();
         JCCompilationUnit tree = make.TopLevel(List.<JCTree.JCAnnotation>nil(),
                                       null, List.<JCTree>nil());
@@ -741,9 +797,23 @@ public class JavaCompiler {
      *  @param cdef   The class definition from which code is generated.
      */
     JavaFileObject genCode(Env<AttrContext> env, JCClassDecl cdef) throws IOException {
+        return genCode(env, cdef, false);
+    }
+
+    /** Generate code and emit a class file for a given class.
+     *  If {@code writeLater} is set, only the contents of the class file
+     *  are produced here; writing them is left to a worker thread, and
+     *  any error is reported by {@link #finishClassWrites}.
+     */
+    JavaFileObject genCode(Env<AttrContext> env, JCClassDecl cdef, boolean writeLater) throws IOException {
+        CompileProfiler.Span span = (profiler == null) ? null
+            : profiler.start(CompileProfiler.Phase.GENERATE, env.toplevel.sourcefile);
         try {
-            if (gen.genClass(env, cdef) && (errorCount() == 0))
+            if (gen.genClass(env, cdef) && (errorCount() == 0)) {
+                if (writeLater)
+                    return writeClassLater(env, cdef);
                 return writer.writeClass(cdef.sym);
+            }
         } catch (ClassWriter.PoolOverflow ex) {
             log.error(cdef.pos(), "limit.pool");
         } catch (ClassWriter.StringOverflow ex) {
@@ -751,10 +821,145 @@ public class JavaCompiler {
                       ex.value.substring(0, 20));
         } catch (CompletionFailure ex) {
             chk.completionError(cdef.pos(), ex);
+        } finally {
+            if (span != null)
+                profiler.stop(span);
         }
         return null;
     }
 
+    /** Emit the contents of the class file for a given class and hand
+     *  them to a worker thread to be written.
+     */
+    private JavaFileObject writeClassLater(Env<AttrContext> env, JCClassDecl cdef)
+            throws IOException, ClassWriter.PoolOverflow, ClassWriter.StringOverflow {
+        ClassSymbol c = cdef.sym;
+        JavaFileObject outFile
+            = fileManager.getJavaFileForOutput(CLASS_OUTPUT,
+                                               c.flatname.toString(),
+                                               JavaFileObject.Kind.CLASS,
+                                               c.sourcefile);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writer.writeClassFile(bytes, c);
+        // the file is opened here: opening it may update the state of the
+        // file manager, which is not safe to do on another thread
+        OutputStream out = outFile.openOutputStream();
+        Future<?> done = workers().submit(new ClassFileWrite(outFile, out, bytes.toByteArray()));
+        JavaFileObject source = env.enclClass.sym.sourcefile != null ?
+                                env.enclClass.sym.sourcefile :
+                                env.toplevel.sourcefile;
+        pendingWrites.append(new PendingWrite(source, cdef, outFile, done));
+        return outFile;
+    }
+
+    /** Wait for all class files handed to worker threads to be written,
+     *  reporting any that could not be written in the order in which
+     *  they were generated.
+     */
+    public void finishClassWrites() {
+        while (pendingWrites.nonEmpty()) {
+            PendingWrite w = pendingWrites.next();
+            JavaFileObject prev = log.useSource(w.source);
+            try {
+                w.done.get();
+                if (verbose)
+                    log.printVerbose("wrote.file", w.outFile);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                log.error(w.cdef.pos(), "class.cant.write",
+                          w.cdef.sym, cause.getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new Abort(ex);
+            } finally {
+                log.useSource(prev);
+            }
+        }
+    }
+
+    /** A class file that has been handed to a worker thread.
+     */
+    private static class PendingWrite {
+        final JavaFileObject source;
+        final JCClassDecl cdef;
+        final JavaFileObject outFile;
+        final Future<?> done;
+
+        PendingWrite(JavaFileObject source, JCClassDecl cdef,
+                     JavaFileObject outFile, Future<?> done) {
+            this.source = source;
+            this.cdef = cdef;
+            this.outFile = outFile;
+            this.done = done;
+        }
+    }
+
+    /** A job that writes the contents of a class file, deleting the
+     *  file if they cannot be written.
+     */
+    private static class ClassFileWrite implements Callable<Void> {
+        final JavaFileObject outFile;
+        final OutputStream out;
+        final byte[] bytes;
+
+        ClassFileWrite(JavaFileObject outFile, OutputStream out, byte[] bytes) {
+            this.outFile = outFile;
+            this.out = out;
+            this.bytes = bytes;
+        }
+
+        public Void call() throws IOException {
+            boolean ok = false;
+            try {
+                out.write(bytes);
+                ok = true;
+            } finally {
+                out.close();
+                if (!ok)
+                    outFile.delete();
+            }
+            return null;
+        }
+    }
+
+    /** The worker threads, creating them if necessary.
+     */
+    private ExecutorService workers() {
+        if (workers == null) {
+            workers = Executors.newFixedThreadPool(workerCount, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "javac-worker");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return workers;
+    }
+
+    /** Wait for a job on a worker thread, rethrowing any unchecked
+     *  exception it threw.
+     */
+    private static <T> T join(Future<T> job) {
+        try {
+            return job.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new Abort(ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new Abort(cause);
+        }
+    }
+
     /** Complete compiling a source file that has been accessed
      *  by the class file reader.
      *  @param c          The class the source file of which needs to be compiled.
@@ -897,6 +1102,7 @@ public class JavaCompiler {
                 break;
 
             case BY_TODO:
+            case PARALLEL:
                 while (!todo.isEmpty())
                     generate(desugar(flow(attribute(todo.remove()))));
                 break;
@@ -907,6 +1113,8 @@ public class JavaCompiler {
         } catch (Abort ex) {
             if (devVerbose)
                 ex.printStackTrace(System.err);
+        } finally {
+            finishClassWrites();
         }
 
         if (verbose) {
@@ -941,6 +1149,18 @@ public class JavaCompiler {
        if (shouldStop(CompileState.PARSE))
            return List.nil();
 
+        if (parallelParse()) {
+            ListBuffer<JavaFileObject> files = new ListBuffer<>();
+            Set<JavaFileObject> filesSoFar = new HashSet<JavaFileObject>();
+            for (JavaFileObject fileObject : fileObjects) {
+                if (filesSoFar.add(fileObject))
+                    files.append(fileObject);
+            }
+            if (files.size() > 1)
+                return parseFilesInParallel(files.toList());
+            fileObjects = files;
+        }
+
         //parse all files
         ListBuffer<JCCompilationUnit> trees = new ListBuffer<>();
         Set<JavaFileObject> filesSoFar = new HashSet<JavaFileObject>();
@@ -953,6 +1173,160 @@ public class JavaCompiler {
         return trees.toList();
     }
 
+    /**
+     * Can source files be parsed on worker threads? Doc comments are parsed
+     * lazily, long after the parser has gone, and task listeners expect
+     * their events on the compiler thread, so both force a sequential parse.
+     * So does a name table that is not thread-safe, which the context has
+     * if its names were created before the compile policy was set.
+     */
+    private boolean parallelParse() {
+        return compilePolicy == CompilePolicy.PARALLEL
+                && workerCount > 1
+                && taskListener.isEmpty()
+                && !keepComments()
+                && names.table instanceof ConcurrentNameTable;
+    }
+
+    /**
+     * Parses a list of distinct files on the worker threads. The sources
+     * are read on the compiler thread, in order. Each worker has its own
+     * parser factory and log; the diagnostics it reports are deferred and
+     * replayed into the compiler's log in the order of the files, so the
+     * output is the same as that of a sequential parse.
+     */
+    private List<JCCompilationUnit> parseFilesInParallel(List<JavaFileObject> files) {
+        int n = Math.min(workerCount, files.size());
+        BlockingQueue<ParserWorker> idle = new ArrayBlockingQueue<ParserWorker>(n);
+        for (int i = 0; i < n; i++)
+            idle.add(new ParserWorker());
+
+        ListBuffer<Future<ParsedFile>> jobs = new ListBuffer<>();
+        for (JavaFileObject file : files) {
+            JavaFileObject prev = log.useSource(file);
+            try {
+                jobs.append(workers().submit(new ParseJob(idle, file, readSource(file))));
+            } finally {
+                log.useSource(prev);
+            }
+        }
+
+        ListBuffer<JCCompilationUnit> trees = new ListBuffer<>();
+        for (Future<ParsedFile> job : jobs) {
+            ParsedFile parsed = join(job);
+            JCCompilationUnit tree = parsed.tree;
+            JavaFileObject prev = log.useSource(tree.sourcefile);
+            try {
+                if (verbose && parsed.parsed)
+                    log.printVerbose("parsing.started", tree.sourcefile);
+                for (JCDiagnostic d : parsed.diagnostics)
+                    log.report(d);
+                if (verbose && parsed.parsed)
+                    log.printVerbose("parsing.done", Long.toString(parsed.elapsed));
+                if (tree.endPositions != null)
+                    log.setEndPosTable(tree.sourcefile, tree.endPositions);
+            } finally {
+                log.useSource(prev);
+            }
+            trees.append(tree);
+        }
+        return trees.toList();
+    }
+
+    /** The result of parsing a file on a worker thread.
+     */
+    private static class ParsedFile {
+        final JCCompilationUnit tree;
+        final Queue<JCDiagnostic> diagnostics;
+        final boolean parsed;
+        final long elapsed;
+
+        ParsedFile(JCCompilationUnit tree, Queue<JCDiagnostic> diagnostics,
+                   boolean parsed, long elapsed) {
+            this.tree = tree;
+            this.diagnostics = diagnostics;
+            this.parsed = parsed;
+            this.elapsed = elapsed;
+        }
+    }
+
+    /**
+     * The per-thread state needed to parse a file: a parser factory with
+     * its own log and tree maker, sharing the name table, tokens and
+     * options of the compiler. Workers are created on the compiler thread
+     * and handed from one job to the next through a queue, so that at most
+     * one thread uses a given worker at a time.
+     */
+    private class ParserWorker {
+        final Log log;
+        final TreeMaker make;
+        final ParserFactory parserFactory;
+
+        ParserWorker() {
+            Context c = new Context();
+            c.put(Names.namesKey, names);
+            c.put(Options.optionsKey, options);
+            c.put(Tokens.tokensKey, Tokens.instance(context));
+            Locale locale = context.get(Locale.class);
+            if (locale != null)
+                c.put(Locale.class, locale);
+            log = Log.instance(c);
+            make = JavaCompiler.this.make.forToplevel(null);
+            parserFactory = JavaCompiler.this.parserFactory.fork(c);
+        }
+
+        ParsedFile parse(JavaFileObject filename, CharSequence content) {
+            long msec = now();
+            CompileProfiler.Span span = (profiler == null) ? null
+                : profiler.start(CompileProfiler.Phase.PARSE, filename);
+            Log.DeferredDiagnosticHandler diags = new Log.DeferredDiagnosticHandler(log);
+            JavaFileObject prev = log.useSource(filename);
+            try {
+                JCCompilationUnit tree;
+                if (content != null) {
+                    Parser parser = parserFactory.newParser(content, false, genEndPos, lineDebugInfo);
+                    tree = parser.parseCompilationUnit();
+                    if (tree.endPositions != null)
+                        log.setEndPosTable(filename, tree.endPositions);
+                } else {
+                    tree = make.TopLevel(List.<JCTree.JCAnnotation>nil(),
+                                         null, List.<JCTree>nil());
+                }
+                tree.sourcefile = filename;
+                return new ParsedFile(tree, diags.getDiagnostics(),
+                                      content != null, elapsed(msec));
+            } finally {
+                log.useSource(prev);
+                log.popDiagnosticHandler(diags);
+                if (span != null)
+                    profiler.stop(span);
+            }
+        }
+    }
+
+    /** A job that parses one file using whichever worker is idle.
+     */
+    private static class ParseJob implements Callable<ParsedFile> {
+        final BlockingQueue<ParserWorker> idle;
+        final JavaFileObject filename;
+        final CharSequence content;
+
+        ParseJob(BlockingQueue<ParserWorker> idle, JavaFileObject filename, CharSequence content) {
+            this.idle = idle;
+            this.filename = filename;
+            this.content = content;
+        }
+
+        public ParsedFile call() throws InterruptedException {
+            ParserWorker worker = idle.take();
+            try {
+                return worker.parse(filename, content);
+            } finally {
+                idle.put(worker);
+            }
+        }
+    }
+
     /**
      * Enter the symbols found in a list of parse trees if the compilation
      * is expected to proceed beyond anno processing into attr.
@@ -979,7 +1353,14 @@ public class JavaCompiler {
             }
         }
 
-        enter.main(roots);
+        CompileProfiler.Span span = (profiler == null) ? null
+            : profiler.start(CompileProfiler.Phase.ENTER, null);
+        try {
+            enter.main(roots);
+        } finally {
+            if (span != null)
+                profiler.stop(span);
+        }
 
         if (!taskListener.isEmpty()) {
             for (JCCompilationUnit unit: roots) {
@@ -1244,6 +1625,8 @@ public class JavaCompiler {
                                   env.enclClass.sym.sourcefile != null ?
                                   env.enclClass.sym.sourcefile :
                                   env.toplevel.sourcefile);
+        CompileProfiler.Span span = (profiler == null) ? null
+            : profiler.start(CompileProfiler.Phase.ATTR, env.toplevel.sourcefile);
         try {
             attr.attrib(env);
             if (errorCount() > 0 && !shouldStop(CompileState.ATTR)) {
@@ -1261,6 +1644,8 @@ public class JavaCompiler {
         }
         finally {
             log.useSource(prev);
+            if (span != null)
+                profiler.stop(span);
         }
 
         return env;
@@ -1321,6 +1706,8 @@ public class JavaCompiler {
                                                 env.enclClass.sym.sourcefile != null ?
                                                 env.enclClass.sym.sourcefile :
                                                 env.toplevel.sourcefile);
+            CompileProfiler.Span span = (profiler == null) ? null
+                : profiler.start(CompileProfiler.Phase.FLOW, env.toplevel.sourcefile);
             try {
                 make.at(Position.FIRSTPOS);
                 TreeMaker localMake = make.forToplevel(env.toplevel);
@@ -1334,6 +1721,8 @@ public class JavaCompiler {
             }
             finally {
                 log.useSource(prev);
+                if (span != null)
+                    profiler.stop(span);
             }
         }
         finally {
@@ -1447,6 +1836,8 @@ public class JavaCompiler {
         JavaFileObject prev = log.useSource(env.enclClass.sym.sourcefile != null ?
                                   env.enclClass.sym.sourcefile :
                                   env.toplevel.sourcefile);
+        CompileProfiler.Span span = (profiler == null) ? null
+            : profiler.start(CompileProfiler.Phase.DESUGAR, env.toplevel.sourcefile);
         try {
             //save tree prior to rewriting
             JCTree untranslated = env.tree;
@@ -1523,6 +1914,8 @@ public class JavaCompiler {
         }
         finally {
             log.useSource(prev);
+            if (span != null)
+                profiler.stop(span);
         }
 
     }
@@ -1541,6 +1934,10 @@ public class JavaCompiler {
             return;
 
         boolean usePrintSource = (stubOutput || sourceOutput || printFlat);
+        boolean writeLater = compilePolicy == CompilePolicy.PARALLEL
+                && workerCount > 1
+                && results == null
+                && taskListener.isEmpty();
 
         for (Pair<Env<AttrContext>, JCClassDecl> x: queue) {
             Env<AttrContext> env = x.fst;
@@ -1569,7 +1966,7 @@ public class JavaCompiler {
                             && jniWriter.needsHeader(cdef.sym)) {
                         jniWriter.write(cdef.sym);
                     }
-                    file = genCode(env, cdef);
+                    file = genCode(env, cdef, writeLater);
                 }
                 if (results != null && file != null)
                     results.add(file);
@@ -1679,6 +2076,11 @@ public class JavaCompiler {
     }
 
     public void close(boolean disposeNames) {
+        finishClassWrites();
+        if (workers != null) {
+            workers.shutdown();
+            workers = null;
+        }
         rootClasses = null;
         reader = null;
         make = null;
@@ -1699,6 +2101,8 @@ public class JavaCompiler {
         annotate = null;
         types = null;
 
+        if (profiler != null && disposeNames)
+            profiler.report(log);
         log.flush();
         try {
             fileManager.flush();
@@ -348,6 +348,12 @@ public class JavaTokenizer {
     private void scanIdent() {
         boolean isJavaIdentifierPart;
         char high;
+        Name n = reader.scanAsciiName();
+        if (n != null) {
+            name = n;
+            tk = tokens.lookupKind(name);
+            return;
+        }
         reader.putChar(true);
         do {
             switch (reader.ch) {
@@ -80,6 +80,36 @@ public class ParserFactory {
         this.locale = context.get(Locale.class);
     }
 
+    /**
+     * Create a parser factory for use on a thread other than the one
+     * that owns {@code parent}. The new factory shares the name table,
+     * tokens, source level and options of its parent, but builds trees
+     * with its own tree maker and reports diagnostics to the log of the
+     * given context. It does not support parsing of doc comments.
+     */
+    protected ParserFactory(ParserFactory parent, Context context) {
+        super();
+        this.F = parent.F.forToplevel(null);
+        this.docTreeMaker = parent.docTreeMaker;
+        this.log = Log.instance(context);
+        this.names = parent.names;
+        this.tokens = parent.tokens;
+        this.source = parent.source;
+        this.options = parent.options;
+        this.scannerFactory = ScannerFactory.instance(context);
+        this.locale = parent.locale;
+    }
+
+    /**
+     * Return a parser factory that may be used concurrently with this one.
+     * The context must provide its own log; it must share this factory's
+     * names, tokens and options.
+     * @see #ParserFactory(ParserFactory, Context)
+     */
+    public ParserFactory fork(Context context) {
+        return new ParserFactory(this, context);
+    }
+
     public JavacParser newParser(CharSequence input, boolean keepDocComments, boolean keepEndPos, boolean keepLineMap) {
         Lexer lexer = scannerFactory.newScanner(input, keepDocComments);
         return new JavacParser(this, lexer, keepDocComments, keepLineMap, keepEndPos);
@@ -151,6 +151,32 @@ public class UnicodeReader {
         return new String(sbuf, 0, sp);
     }
 
+    /** Scan an identifier made of ASCII characters only, starting at the
+     *  current character, and make its name directly from the input buffer
+     *  instead of from characters saved in sbuf. This is only done if no
+     *  characters have been saved, and if neither the identifier nor the
+     *  character that ends it needs any translation: a unicode escape or an
+     *  identifier-ignorable character. Otherwise null is returned and the
+     *  reader is left unchanged.
+     */
+    protected Name scanAsciiName() {
+        if (sp != 0 || isUnicode())
+            return null;
+        int start = bp;
+        int end = bp;
+        char c = buf[end];
+        while ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') ||
+               (c >= '0' && c <= '9') || c == '_' || c == '$') {
+            c = buf[++end];
+        }
+        if (end == start || c >= '\u0080' || c == '\\' || c == '\u007F' ||
+                (c < '\u001C' && !(c >= '\t' && c <= '\r')))
+            return null;
+        bp = end;
+        ch = c;
+        return names.fromChars(buf, start, end - start);
+    }
+
     /** Convert unicode escape; bp points to initial '\' character
      *  (Spec 3.3).
      */
@@ -55,6 +55,7 @@ import com.sun.tools.javac.file.FSInfo;
 import com.sun.tools.javac.file.JavacFileManager;
 import com.sun.tools.javac.jvm.*;
 import com.sun.tools.javac.jvm.ClassReader.BadClassFile;
+import com.sun.tools.javac.main.CompileProfiler;
 import com.sun.tools.javac.main.JavaCompiler;
 import com.sun.tools.javac.model.JavacElements;
 import com.sun.tools.javac.model.JavacTypes;
@@ -152,6 +153,10 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
 
     private MultiTaskListener taskListener;
 
+    /** The profiler of the compilation, or null if profiling is not enabled.
+     */
+    private CompileProfiler profiler;
+
     private Context context;
 
     /** Get the JavacProcessingEnvironment instance for this context. */
@@ -192,6 +197,7 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
         unmatchedProcessorOptions = initUnmatchedProcessorOptions();
         messages = JavacMessages.instance(context);
         taskListener = MultiTaskListener.instance(context);
+        profiler = CompileProfiler.instanceIfEnabled(context);
         initProcessorClassLoader();
     }
 
@@ -1021,6 +1027,8 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
 
             if (!taskListener.isEmpty())
                 taskListener.started(new TaskEvent(TaskEvent.Kind.ANNOTATION_PROCESSING_ROUND));
+            if (profiler != null)
+                profiler.startRound();
 
             try {
                 if (lastRound) {
@@ -1042,6 +1050,8 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
                 log.popDiagnosticHandler(deferredDiagnosticHandler);
                 throw t;
             } finally {
+                if (profiler != null)
+                    profiler.finishRound();
                 if (!taskListener.isEmpty())
                     taskListener.finished(new TaskEvent(TaskEvent.Kind.ANNOTATION_PROCESSING_ROUND));
             }
@@ -1103,6 +1113,10 @@ public class JavacProcessingEnvironment implements ProcessingEnvironment, Closea
             if (mtl != null)
                 next.put(MultiTaskListener.taskListenerKey, mtl);
 
+            CompileProfiler profiler = context.get(CompileProfiler.profilerKey);
+            if (profiler != null)
+                next.put(CompileProfiler.profilerKey, profiler);
+
             FSInfo fsInfo = context.get(FSInfo.class);
             if (fsInfo != null)
                 next.put(FSInfo.class, fsInfo);
@@ -213,6 +213,10 @@ public abstract class BaseFileManager {
             return (CharBuffer)CharBuffer.allocate(1).flip();
         }
 
+        CharBuffer ascii = decodeAscii(inbuf, decoder.charset());
+        if (ascii != null)
+            return ascii;
+
         // slightly overestimate the buffer size to avoid reallocation.
         float factor =
             decoder.averageCharsPerByte() * 0.8f +
@@ -265,6 +269,41 @@ public abstract class BaseFileManager {
         // unreached
     }
 
+    /**
+     * Decode input that holds ASCII characters only, in an encoding that
+     * agrees with ASCII on them, by widening its bytes, without going
+     * through a decoder. Most source files are such. Returns null, leaving
+     * the input unchanged, if the encoding or any byte is not ASCII.
+     */
+    private static CharBuffer decodeAscii(ByteBuffer inbuf, Charset cs) {
+        String name = cs.name();
+        if (!name.equals("UTF-8") && !name.equals("US-ASCII") && !name.equals("ISO-8859-1"))
+            return null;
+        int pos = inbuf.position();
+        int len = inbuf.remaining();
+        // make sure there is at least one extra character, as decode does
+        char[] dest = new char[len + 1];
+        if (inbuf.hasArray()) {
+            byte[] src = inbuf.array();
+            int off = inbuf.arrayOffset() + pos;
+            for (int i = 0; i < len; i++) {
+                byte b = src[off + i];
+                if (b < 0)
+                    return null;
+                dest[i] = (char)b;
+            }
+        } else {
+            for (int i = 0; i < len; i++) {
+                byte b = inbuf.get(pos + i);
+                if (b < 0)
+                    return null;
+                dest[i] = (char)b;
+            }
+        }
+        inbuf.position(pos + len);
+        return CharBuffer.wrap(dest, 0, len);
+    }
+
     public CharsetDecoder getDecoder(String encodingName, boolean ignoreEncodingErrors) {
         Charset cs = (this.charset == null)
             ? Charset.forName(encodingName)
@@ -309,7 +348,9 @@ public abstract class BaseFileManager {
     }
 
     public void recycleByteBuffer(ByteBuffer bb) {
-        byteBufferCache.put(bb);
+        // a mapped buffer cannot be reused for reading
+        if (bb.hasArray())
+            byteBufferCache.put(bb);
     }
 
     /**
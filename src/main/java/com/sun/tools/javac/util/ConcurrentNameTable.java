@@ -0,0 +1,242 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  This particular file is
+ * subject to the "Classpath" exception as provided in the LICENSE file
+ * that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.sun.tools.javac.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Implementation of Name.Table that can be used by several threads at
+ * once without locking. The hash table has a fixed number of buckets, each
+ * a list of names that is only ever prepended to, by a compare and set of
+ * its head; lookups never block, and an insertion that loses a race only
+ * has to scan the names that were added in the meantime.
+ *
+ * The bytes of the names are appended to fixed size chunks, which unlike
+ * the single array of a SharedNameTable are never grown or copied, so the
+ * bytes of a name do not move once the name has been published.
+ *
+ * The table is selected with "-XDuseConcurrentTable", and is the default
+ * for the parallel compile policy.
+ *
+ *  <p><b>This is NOT part of any supported API.
+ *  If you write code that depends on this, you do so at your own risk.
+ *  This code and its internal interfaces are subject to change or
+ *  deletion without notice.</b>
+ */
+public class ConcurrentNameTable extends Name.Table {
+    static public Name.Table create(Names names) {
+        return new ConcurrentNameTable(names);
+    }
+
+    /** The hash table for names.
+     */
+    private final AtomicReferenceArray<NameImpl> hashes;
+
+    /** The mask to be used for hashing
+     */
+    private final int hashMask;
+
+    /** The size of the chunks holding the bytes of the names.
+     */
+    private final int chunkSize;
+
+    /** The chunk that new names are currently appended to.
+     */
+    private final AtomicReference<Chunk> chunk;
+
+    /** Index counter for names in this table. A name is given its index
+     *  before it is added to its bucket, so the indices are unique but not
+     *  dense: a name that loses the race to be added leaves a gap. Tokens
+     *  only needs them unique, and small for the keywords, which are
+     *  entered first by a single thread.
+     */
+    private final AtomicInteger index = new AtomicInteger();
+
+    /** The thread that created the table, usually the compiler thread,
+     *  and its buffer for converting chars to Utf8, which it uses without
+     *  the cost of looking up a thread local.
+     */
+    private final Thread owner = Thread.currentThread();
+    private byte[] ownerBuf = new byte[256];
+
+    /** A buffer per thread for converting chars to Utf8, for the other
+     *  threads.
+     */
+    private final ThreadLocal<byte[]> utfBuf = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[256];
+        }
+    };
+
+    /** Allocator
+     *  @param names The main name table
+     *  @param hashSize the (constant) size to be used for the hash table
+     *                  needs to be a power of two.
+     *  @param chunkSize the size of each chunk of name bytes.
+     */
+    public ConcurrentNameTable(Names names, int hashSize, int chunkSize) {
+        super(names);
+        hashMask = hashSize - 1;
+        hashes = new AtomicReferenceArray<NameImpl>(hashSize);
+        this.chunkSize = chunkSize;
+        chunk = new AtomicReference<Chunk>(new Chunk(chunkSize));
+    }
+
+    public ConcurrentNameTable(Names names) {
+        this(names, 0x8000, 0x10000);
+    }
+
+    @Override
+    public Name fromChars(char[] cs, int start, int len) {
+        boolean owned = Thread.currentThread() == owner;
+        byte[] buf = owned ? ownerBuf : utfBuf.get();
+        if (buf.length < len * 3) {
+            buf = new byte[Integer.highestOneBit(len * 3) << 1];
+            if (owned)
+                ownerBuf = buf;
+            else
+                utfBuf.set(buf);
+        }
+        int nbytes = Convert.chars2utf(cs, start, buf, 0, len);
+        return fromUtf(buf, 0, nbytes);
+    }
+
+    @Override
+    public Name fromUtf(byte[] cs, int start, int len) {
+        int h = hashValue(cs, start, len) & hashMask;
+        NameImpl head = hashes.get(h);
+        NameImpl n = lookup(head, null, cs, start, len);
+        if (n != null) {
+            return n;
+        }
+        NameImpl added = newName(cs, start, len);
+        for (;;) {
+            added.next = head;
+            if (hashes.compareAndSet(h, head, added)) {
+                return added;
+            }
+            // Another thread got there first; check the names it added.
+            NameImpl newHead = hashes.get(h);
+            n = lookup(newHead, head, cs, start, len);
+            if (n != null) {
+                return n;
+            }
+            head = newHead;
+        }
+    }
+
+    /** Find a name in a bucket, scanning from n up to but not including stop.
+     */
+    private static NameImpl lookup(NameImpl n, NameImpl stop, byte[] cs, int start, int len) {
+        while (n != stop) {
+            if (n.length == len && equals(n.bytes, n.offset, cs, start, len)) {
+                return n;
+            }
+            n = n.next;
+        }
+        return null;
+    }
+
+    /** Create a name, copying its bytes into the current chunk. A new chunk
+     *  is started when the current one is full, and long names get an
+     *  array of their own.
+     */
+    private NameImpl newName(byte[] cs, int start, int len) {
+        if (len > chunkSize >> 4) {
+            byte[] bytes = new byte[len];
+            System.arraycopy(cs, start, bytes, 0, len);
+            return new NameImpl(this, bytes, 0, len, index.getAndIncrement());
+        }
+        for (;;) {
+            Chunk c = chunk.get();
+            int offset = c.top.getAndAdd(len);
+            if (offset + len <= c.bytes.length) {
+                System.arraycopy(cs, start, c.bytes, offset, len);
+                return new NameImpl(this, c.bytes, offset, len, index.getAndIncrement());
+            }
+            chunk.compareAndSet(c, new Chunk(chunkSize));
+        }
+    }
+
+    @Override
+    public void dispose() {
+        for (int i = 0; i <= hashMask; i++) {
+            hashes.set(i, null);
+        }
+    }
+
+    /** A chunk of name bytes, filled from the start.
+     */
+    static class Chunk {
+        final byte[] bytes;
+        final AtomicInteger top = new AtomicInteger();
+
+        Chunk(int size) {
+            bytes = new byte[size];
+        }
+    }
+
+    static class NameImpl extends Name {
+        NameImpl(ConcurrentNameTable table, byte[] bytes, int offset, int length, int index) {
+            super(table);
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+            this.index = index;
+        }
+
+        /** The next name occupying the same hash bucket. It is set
+         *  before the name is published, and not changed after that.
+         */
+        NameImpl next;
+
+        final byte[] bytes;
+        final int offset;
+        final int length;
+        final int index;
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public int getByteLength() {
+            return length;
+        }
+
+        @Override
+        public byte getByteAt(int i) {
+            return bytes[offset + i];
+        }
+
+        @Override
+        public byte[] getByteArray() {
+            return bytes;
+        }
+
+        @Override
+        public int getByteOffset() {
+            return offset;
+        }
+    }
+}
@@ -317,9 +317,16 @@ public class Names {
     }
 
     protected Name.Table createTable(Options options) {
+        // the parallel compile policy parses on worker threads, which
+        // share the table, and only the concurrent table is thread-safe
         boolean useUnsharedTable = options.isSet("useUnsharedTable");
-        if (useUnsharedTable)
+        boolean useConcurrentTable = options.isSet("useConcurrentTable");
+        if ("parallel".equals(options.get("compilePolicy")))
+            return new ConcurrentNameTable(this);
+        else if (useUnsharedTable)
             return new UnsharedNameTable(this);
+        else if (useConcurrentTable)
+            return new ConcurrentNameTable(this);
         else
             return new SharedNameTable(this);
     }
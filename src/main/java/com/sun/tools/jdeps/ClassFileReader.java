@@ -24,10 +24,15 @@
  */
 package com.sun.tools.jdeps;
 
+import com.sun.tools.classfile.Attribute;
 import com.sun.tools.classfile.ClassFile;
+import com.sun.tools.classfile.ClassReader;
 import com.sun.tools.classfile.ConstantPoolException;
+import com.sun.tools.classfile.DefaultAttribute;
+import com.sun.tools.classfile.LazyClassFile;
 import com.sun.tools.classfile.Dependencies.ClassFileError;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -68,6 +73,40 @@ public class ClassFileReader {
         return new JarFileReader(path, jf);
     }
 
+    /**
+     * An attribute factory that only parses the attributes that jdeps
+     * looks at, and keeps every other attribute, in particular the Code
+     * attribute and the attributes nested in it, as unparsed bytes.
+     */
+    static class DependencyAttributeFactory extends Attribute.Factory {
+        private static final Set<String> parsedAttributes = new HashSet<>(Arrays.asList(
+            Attribute.Exceptions,
+            Attribute.RuntimeInvisibleAnnotations,
+            Attribute.RuntimeVisibleAnnotations,
+            Attribute.RuntimeVisibleParameterAnnotations,
+            Attribute.Signature));
+
+        DependencyAttributeFactory() {
+            // initialize eagerly so that the factory can be shared by threads
+            init();
+        }
+
+        @Override
+        public Attribute createAttribute(ClassReader cr, int name_index, byte[] data)
+                throws IOException {
+            try {
+                if (parsedAttributes.contains(cr.getConstantPool().getUTF8Value(name_index))) {
+                    return super.createAttribute(cr, name_index, data);
+                }
+            } catch (ConstantPoolException e) {
+                // fall through and keep the attribute unparsed
+            }
+            return new DefaultAttribute(cr.getConstantPool(), name_index, data);
+        }
+    }
+
+    static final Attribute.Factory attributeFactory = new DependencyAttributeFactory();
+
     protected final Path path;
     protected final String baseFileName;
     protected final List<String> skippedEntries = new ArrayList<>();
@@ -115,11 +154,46 @@ public class ClassFileReader {
         };
     }
 
+    /**
+     * Returns the class files to be read lazily, so that classes can be
+     * selected by their name or flags, or by a class attribute, without
+     * parsing the rest of the class file.
+     */
+    public Iterable<LazyClassFile> getLazyClassFiles() throws IOException {
+        List<Path> paths = baseFileName.endsWith(".class")
+                               ? Collections.singletonList(path)
+                               : Collections.<Path>emptyList();
+        return new LazyFileIterable(paths);
+    }
+
+    /**
+     * Returns the ClassFile of a class file returned by getLazyClassFiles,
+     * parsing the rest of it.
+     */
+    public ClassFile getClassFile(LazyClassFile cf) {
+        try {
+            return cf.getClassFile();
+        } catch (IOException e) {
+            throw new ClassFileError(e);
+        }
+    }
+
+    protected LazyClassFile readLazyClassFile(Path p) throws IOException {
+        // Each class is read once and dropped, so it is read into the heap
+        // rather than mapped, which would keep the mapping until the buffer
+        // is collected, long after the class has been analyzed.
+        try {
+            return LazyClassFile.read(ByteBuffer.wrap(Files.readAllBytes(p)), attributeFactory);
+        } catch (ConstantPoolException e) {
+            throw new ClassFileError(e);
+        }
+    }
+
     protected ClassFile readClassFile(Path p) throws IOException {
         InputStream is = null;
         try {
             is = Files.newInputStream(p);
-            return ClassFile.read(is);
+            return ClassFile.read(is, attributeFactory);
         } catch (ConstantPoolException e) {
             throw new ClassFileError(e);
         } finally {
@@ -156,6 +230,35 @@ public class ClassFileReader {
         }
     }
 
+    class LazyFileIterable implements Iterable<LazyClassFile> {
+        private final List<Path> paths;
+        LazyFileIterable(List<Path> paths) {
+            this.paths = paths;
+        }
+
+        public Iterator<LazyClassFile> iterator() {
+            final Iterator<Path> iter = paths.iterator();
+            return new Iterator<LazyClassFile>() {
+                public boolean hasNext() {
+                    return iter.hasNext();
+                }
+
+                public LazyClassFile next() {
+                    Path p = iter.next();
+                    try {
+                        return readLazyClassFile(p);
+                    } catch (IOException e) {
+                        throw new ClassFileError(e);
+                    }
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException("Not supported yet.");
+                }
+            };
+        }
+    }
+
     public boolean isMultiReleaseJar() throws IOException { return false; }
 
     public String toString() {
@@ -197,6 +300,10 @@ public class ClassFileReader {
             };
         }
 
+        public Iterable<LazyClassFile> getLazyClassFiles() throws IOException {
+            return new LazyFileIterable(walkTree(path));
+        }
+
         private List<Path> walkTree(Path dir) throws IOException {
             final List<Path> files = new ArrayList<Path>();
             Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
@@ -277,7 +384,20 @@ public class ClassFileReader {
             InputStream is = null;
             try {
                 is = jarfile.getInputStream(e);
-                return ClassFile.read(is);
+                return ClassFile.read(is, attributeFactory);
+            } catch (ConstantPoolException ex) {
+                throw new ClassFileError(ex);
+            } finally {
+                if (is != null)
+                    is.close();
+            }
+        }
+
+        protected LazyClassFile readLazyClassFile(JarFile jarfile, JarEntry e) throws IOException {
+            InputStream is = null;
+            try {
+                is = jarfile.getInputStream(e);
+                return LazyClassFile.read(is, attributeFactory);
             } catch (ConstantPoolException ex) {
                 throw new ClassFileError(ex);
             } finally {
@@ -286,6 +406,46 @@ public class ClassFileReader {
             }
         }
 
+        /**
+         * The class file last returned by a LazyJarFileIterator, and its entry.
+         */
+        LazyClassFile lastLazyClassFile;
+        JarEntry lastLazyEntry;
+
+        /**
+         * Returns the ClassFile of a lazily read class file, or null if
+         * it is malformed, in which case its entry is skipped, as it
+         * would have been had it been read eagerly.
+         */
+        @Override
+        public ClassFile getClassFile(LazyClassFile cf) {
+            try {
+                return cf.getClassFile();
+            } catch (IOException e) {
+                String name;
+                if (cf == lastLazyClassFile) {
+                    name = lastLazyEntry.getName();
+                } else {
+                    try {
+                        name = cf.getName() + ".class";
+                    } catch (ConstantPoolException ex) {
+                        throw new ClassFileError(e);
+                    }
+                }
+                skippedEntries.add(name);
+                return null;
+            }
+        }
+
+        public Iterable<LazyClassFile> getLazyClassFiles() throws IOException {
+            final Iterator<LazyClassFile> iter = new LazyJarFileIterator(this, jarfile);
+            return new Iterable<LazyClassFile>() {
+                public Iterator<LazyClassFile> iterator() {
+                    return iter;
+                }
+            };
+        }
+
         public Iterable<ClassFile> getClassFiles() throws IOException {
             final Iterator<ClassFile> iter = new JarFileIterator(this, jarfile);
             return new Iterable<ClassFile>() {
@@ -306,16 +466,17 @@ public class ClassFileReader {
         }
     }
 
-    class JarFileIterator implements Iterator<ClassFile> {
+    /**
+     * Iterates over the class files of a jar file, skipping the entries
+     * that cannot be read.
+     */
+    abstract class JarEntryIterator<T> implements Iterator<T> {
         protected final JarFileReader reader;
         protected Enumeration<JarEntry> entries;
         protected JarFile jf;
         protected JarEntry nextEntry;
-        protected ClassFile cf;
-        JarFileIterator(JarFileReader reader) {
-            this(reader, null);
-        }
-        JarFileIterator(JarFileReader reader, JarFile jarfile) {
+        protected T cf;
+        JarEntryIterator(JarFileReader reader, JarFile jarfile) {
             this.reader = reader;
             setJarFile(jarfile);
         }
@@ -328,13 +489,18 @@ public class ClassFileReader {
             this.nextEntry = nextEntry();
         }
 
+        /**
+         * Reads the class file of an entry.
+         */
+        protected abstract T read(JarEntry e) throws IOException;
+
         public boolean hasNext() {
             if (nextEntry != null && cf != null) {
                 return true;
             }
             while (nextEntry != null) {
                 try {
-                    cf = reader.readClassFile(jf, nextEntry);
+                    cf = read(nextEntry);
                     return true;
                 } catch (ClassFileError | IOException ex) {
                     skippedEntries.add(nextEntry.getName());
@@ -344,16 +510,23 @@ public class ClassFileReader {
             return false;
         }
 
-        public ClassFile next() {
+        public T next() {
             if (!hasNext()) {
                 throw new NoSuchElementException();
             }
-            ClassFile classFile = cf;
+            T classFile = cf;
             cf = null;
+            returned(classFile, nextEntry);
             nextEntry = nextEntry();
             return classFile;
         }
 
+        /**
+         * Called with each class file as it is returned, and its entry.
+         */
+        protected void returned(T classFile, JarEntry e) {
+        }
+
         protected JarEntry nextEntry() {
             while (entries.hasMoreElements()) {
                 JarEntry e = entries.nextElement();
@@ -369,4 +542,39 @@ public class ClassFileReader {
             throw new UnsupportedOperationException("Not supported yet.");
         }
     }
+
+    class JarFileIterator extends JarEntryIterator<ClassFile> {
+        JarFileIterator(JarFileReader reader) {
+            this(reader, null);
+        }
+        JarFileIterator(JarFileReader reader, JarFile jarfile) {
+            super(reader, jarfile);
+        }
+
+        protected ClassFile read(JarEntry e) throws IOException {
+            return reader.readClassFile(jf, e);
+        }
+    }
+
+    /**
+     * Iterates over the class files of a jar file, reading each lazily.
+     * The entry of the class file last returned is remembered, so that
+     * it can be skipped if the rest of the class file turns out to be
+     * malformed when it is parsed.
+     */
+    class LazyJarFileIterator extends JarEntryIterator<LazyClassFile> {
+        LazyJarFileIterator(JarFileReader reader, JarFile jarfile) {
+            super(reader, jarfile);
+        }
+
+        protected LazyClassFile read(JarEntry e) throws IOException {
+            return reader.readLazyClassFile(jf, e);
+        }
+
+        @Override
+        protected void returned(LazyClassFile classFile, JarEntry e) {
+            reader.lastLazyClassFile = classFile;
+            reader.lastLazyEntry = e;
+        }
+    }
 }
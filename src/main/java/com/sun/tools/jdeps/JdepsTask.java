@@ -31,6 +31,7 @@ import com.sun.tools.classfile.Dependencies;
 import com.sun.tools.classfile.Dependencies.ClassFileError;
 import com.sun.tools.classfile.Dependency;
 import com.sun.tools.classfile.Dependency.Location;
+import com.sun.tools.classfile.LazyClassFile;
 import com.sun.tools.jdeps.PlatformClassPath.JDKArchive;
 import static com.sun.tools.jdeps.Analyzer.Type.*;
 import java.io.*;
@@ -40,6 +41,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 /**
@@ -250,6 +255,18 @@ class JdepsTask {
                 }
             }
         },
+        new HiddenOption(true, "-threads") {
+            void process(JdepsTask task, String opt, String arg) throws BadArgs {
+                try {
+                    task.options.threads = Integer.parseInt(arg);
+                } catch (NumberFormatException e) {
+                    throw new BadArgs("err.invalid.arg.for.option", opt);
+                }
+                if (task.options.threads < 1) {
+                    throw new BadArgs("err.invalid.arg.for.option", opt);
+                }
+            }
+        },
     };
 
     private static final String PROGNAME = "jdeps";
@@ -481,10 +498,97 @@ class JdepsTask {
         }
     }
 
+    /**
+     * The dependencies of a parsed class file, and the archive it was
+     * found in.  The class file itself is not retained.
+     */
+    private static class ParsedClass {
+        final Archive archive;
+        final String name;
+        final Iterable<? extends Dependency> dependencies;
+        final Boolean jdkExported;  // @jdk.Exported value of a JDK class
+
+        ParsedClass(Archive archive, String name,
+                    Iterable<? extends Dependency> dependencies,
+                    Boolean jdkExported) {
+            this.archive = archive;
+            this.name = name;
+            this.dependencies = dependencies;
+            this.jdkExported = jdkExported;
+        }
+    }
+
+    /*
+     * Returns a new dependency finder.  A finder caches the locations
+     * it creates and so is confined to a single thread.
+     */
+    private Dependency.Finder newFinder() {
+        return options.apiOnly ? Dependencies.getAPIFinder(AccessFlags.ACC_PROTECTED)
+                               : Dependencies.getClassDependencyFinder();
+    }
+
+    private static String getClassName(ClassFile cf) {
+        try {
+            return cf.getName();
+        } catch (ConstantPoolException e) {
+            throw new ClassFileError(e);
+        }
+    }
+
+    private static String getClassName(LazyClassFile cf) {
+        try {
+            return cf.getName();
+        } catch (ConstantPoolException e) {
+            throw new ClassFileError(e);
+        }
+    }
+
+    private static Boolean getJdkExported(ClassFile cf) {
+        try {
+            return JDKArchive.isJdkExported(cf);
+        } catch (ConstantPoolException e) {
+            throw new ClassFileError(e);
+        }
+    }
+
+    /*
+     * Runs the given tasks on the pool and returns their results in
+     * the order of the tasks, so that the results can be merged in the
+     * same order whatever the order in which the tasks completed.
+     */
+    private static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> tasks)
+            throws IOException
+    {
+        List<T> results = new ArrayList<>(tasks.size());
+        for (Future<T> f : pool.invokeAll(tasks)) {
+            try {
+                results.add(f.get());
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException(e.getMessage());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException)
+                    throw (IOException) cause;
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw new IOException(cause);
+            }
+        }
+        return results;
+    }
+
     private void findDependencies() throws IOException {
-        Dependency.Finder finder =
-            options.apiOnly ? Dependencies.getAPIFinder(AccessFlags.ACC_PROTECTED)
-                            : Dependencies.getClassDependencyFinder();
+        ForkJoinPool pool = new ForkJoinPool(options.threads);
+        try {
+            findDependencies(pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void findDependencies(ForkJoinPool pool) throws IOException {
         Dependency.Filter filter = new DependencyFilter();
 
         List<Archive> archives = new ArrayList<>();
@@ -505,7 +609,7 @@ class JdepsTask {
         }
         sourceLocations.addAll(archives);
 
-        List<Archive> classpaths = new ArrayList<>(); // for class file lookup
+        final List<Archive> classpaths = new ArrayList<>(); // for class file lookup
         classpaths.addAll(getClassPathArchives(options.classpath, paths));
         if (options.includePattern != null) {
             archives.addAll(classpaths);
@@ -526,31 +630,48 @@ class JdepsTask {
         // Entries will be unique, and for classes that do not yet have
         // dependencies in the results map.
         Deque<String> deque = new LinkedList<>();
+        Set<String> queued = new HashSet<>();   // the names in deque
         Set<String> doneClasses = new HashSet<>();
 
-        // get the immediate dependencies of the input files
-        for (Archive a : archives) {
-            for (ClassFile cf : a.reader().getClassFiles()) {
-                String classFileName;
-                try {
-                    classFileName = cf.getName();
-                } catch (ConstantPoolException e) {
-                    throw new ClassFileError(e);
-                }
-
-                // tests if this class matches the -include or -apiOnly option if specified
-                if (!matches(classFileName, cf.access_flags)) {
-                    continue;
+        // get the immediate dependencies of the input files; the archives
+        // are scanned concurrently and the results merged in archive order
+        List<Callable<List<ParsedClass>>> scans = new ArrayList<>();
+        for (final Archive a : archives) {
+            scans.add(new Callable<List<ParsedClass>>() {
+                public List<ParsedClass> call() throws IOException {
+                    Dependency.Finder finder = newFinder();
+                    List<ParsedClass> result = new ArrayList<>();
+                    for (LazyClassFile lcf : a.reader().getLazyClassFiles()) {
+                        String classFileName = getClassName(lcf);
+
+                        // tests if this class matches the -include or -apiOnly option if specified;
+                        // the rest of the class file is only parsed if it does
+                        if (!matches(classFileName, lcf.access_flags)) {
+                            continue;
+                        }
+                        ClassFile cf = a.reader().getClassFile(lcf);
+                        if (cf == null) {
+                            continue;  // skipped as malformed
+                        }
+                        result.add(new ParsedClass(a, classFileName,
+                                                   finder.findDependencies(cf), null));
+                    }
+                    return result;
                 }
-
-                if (!doneClasses.contains(classFileName)) {
-                    doneClasses.add(classFileName);
+            });
+        }
+        List<List<ParsedClass>> scanned = invokeAll(pool, scans);
+        for (int i = 0; i < archives.size(); i++) {
+            Archive a = archives.get(i);
+            for (ParsedClass pc : scanned.get(i)) {
+                if (!doneClasses.contains(pc.name)) {
+                    doneClasses.add(pc.name);
                 }
 
-                for (Dependency d : finder.findDependencies(cf)) {
+                for (Dependency d : pc.dependencies) {
                     if (filter.accepts(d)) {
                         String cn = d.getTarget().getName();
-                        if (!doneClasses.contains(cn) && !deque.contains(cn)) {
+                        if (!doneClasses.contains(cn) && queued.add(cn)) {
                             deque.add(cn);
                         }
                         a.addClass(d.getOrigin(), d.getTarget());
@@ -559,66 +680,82 @@ class JdepsTask {
                         a.addClass(d.getOrigin());
                     }
                 }
-                for (String name : a.reader().skippedEntries()) {
-                    warning("warn.skipped.entry", name, a.getPathName());
-                }
+            }
+            for (String name : a.reader().skippedEntries()) {
+                warning("warn.skipped.entry", name, a.getPathName());
             }
         }
 
         // add Archive for looking up classes from the classpath
-        // for transitive dependency analysis
+        // for transitive dependency analysis; the classes of each level
+        // are looked up and parsed concurrently, and merged in queue order
         Deque<String> unresolved = roots;
         int depth = options.depth > 0 ? options.depth : Integer.MAX_VALUE;
         do {
+            List<String> names = new ArrayList<>();
+            List<Callable<ParsedClass>> lookups = new ArrayList<>();
             String name;
             while ((name = unresolved.poll()) != null) {
                 if (doneClasses.contains(name)) {
                     continue;
                 }
-                ClassFile cf = null;
-                for (Archive a : classpaths) {
-                    cf = a.reader().getClassFile(name);
-                    if (cf != null) {
-                        String classFileName;
-                        try {
-                            classFileName = cf.getName();
-                        } catch (ConstantPoolException e) {
-                            throw new ClassFileError(e);
-                        }
-                        if (!doneClasses.contains(classFileName)) {
-                            // if name is a fully-qualified class name specified
-                            // from command-line, this class might already be parsed
-                            doneClasses.add(classFileName);
-                            // process @jdk.Exported for JDK classes
-                            if (isJDKArchive(a)) {
-                                ((JDKArchive)a).processJdkExported(cf);
-                            }
-                            for (Dependency d : finder.findDependencies(cf)) {
-                                if (depth == 0) {
-                                    // ignore the dependency
-                                    a.addClass(d.getOrigin());
-                                    break;
-                                } else if (filter.accepts(d)) {
-                                    a.addClass(d.getOrigin(), d.getTarget());
-                                    String cn = d.getTarget().getName();
-                                    if (!doneClasses.contains(cn) && !deque.contains(cn)) {
-                                        deque.add(cn);
-                                    }
-                                } else {
-                                    // ensure that the parsed class is added the archive
-                                    a.addClass(d.getOrigin());
-                                }
+                final String cn = name;
+                names.add(cn);
+                lookups.add(new Callable<ParsedClass>() {
+                    public ParsedClass call() throws IOException {
+                        for (Archive a : classpaths) {
+                            ClassFile cf = a.reader().getClassFile(cn);
+                            if (cf != null) {
+                                return new ParsedClass(a, getClassName(cf),
+                                                       newFinder().findDependencies(cf),
+                                                       isJDKArchive(a) ? getJdkExported(cf) : null);
                             }
                         }
-                        break;
+                        return null;
                     }
+                });
+            }
+            List<ParsedClass> found = invokeAll(pool, lookups);
+            for (int i = 0; i < names.size(); i++) {
+                name = names.get(i);
+                if (doneClasses.contains(name)) {
+                    continue;
                 }
-                if (cf == null) {
+                ParsedClass pc = found.get(i);
+                if (pc == null) {
                     doneClasses.add(name);
+                    continue;
+                }
+                Archive a = pc.archive;
+                if (!doneClasses.contains(pc.name)) {
+                    // if name is a fully-qualified class name specified
+                    // from command-line, this class might already be parsed
+                    doneClasses.add(pc.name);
+                    // process @jdk.Exported for JDK classes
+                    if (isJDKArchive(a)) {
+                        ((JDKArchive)a).processJdkExported(pc.name, pc.jdkExported);
+                    }
+                    for (Dependency d : pc.dependencies) {
+                        if (depth == 0) {
+                            // ignore the dependency
+                            a.addClass(d.getOrigin());
+                            break;
+                        } else if (filter.accepts(d)) {
+                            a.addClass(d.getOrigin(), d.getTarget());
+                            String cn = d.getTarget().getName();
+                            if (!doneClasses.contains(cn) && queued.add(cn)) {
+                                deque.add(cn);
+                            }
+                        } else {
+                            // ensure that the parsed class is added the archive
+                            a.addClass(d.getOrigin());
+                        }
+                    }
                 }
             }
             unresolved = deque;
             deque = new LinkedList<>();
+            queued = new HashSet<>();
         } while (!unresolved.isEmpty() && depth-- > 0);
     }
 
@@ -729,6 +866,7 @@ class JdepsTask {
         String dotOutputDir;
         String classpath = "";
         int depth = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
         Set<String> packageNames = new HashSet<>();
         String regex;             // apply to the dependences
         Pattern includePattern;   // apply to classes
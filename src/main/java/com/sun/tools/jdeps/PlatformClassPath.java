@@ -174,7 +174,7 @@ class PlatformClassPath {
         }
 
         private static final String JDK_EXPORTED_ANNOTATION = "Ljdk/Exported;";
-        private Boolean isJdkExported(ClassFile cf) throws ConstantPoolException {
+        static Boolean isJdkExported(ClassFile cf) throws ConstantPoolException {
             RuntimeAnnotations_attribute attr = (RuntimeAnnotations_attribute)
                     cf.attributes.get(RuntimeVisibleAnnotations);
             if (attr != null) {
@@ -197,12 +197,14 @@ class PlatformClassPath {
             return null;
         }
 
-        void processJdkExported(ClassFile cf) throws IOException {
+        /**
+         * Records the @jdk.Exported value of the given class, as returned
+         * by {@link #isJdkExported}, and of its package.
+         */
+        void processJdkExported(String cn, Boolean b) throws IOException {
             try {
-                String cn = cf.getName();
                 String pn = cn.substring(0, cn.lastIndexOf('/')).replace('/', '.');
 
-                Boolean b = isJdkExported(cf);
                 if (b != null) {
                     exportedTypes.put(cn.replace('/', '.'), b);
                 }
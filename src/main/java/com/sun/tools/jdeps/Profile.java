@@ -27,9 +27,9 @@ package com.sun.tools.jdeps;
 import com.sun.tools.classfile.Annotation;
 import com.sun.tools.classfile.Annotation.*;
 import com.sun.tools.classfile.Attribute;
-import com.sun.tools.classfile.ClassFile;
 import com.sun.tools.classfile.ConstantPool.*;
 import com.sun.tools.classfile.ConstantPoolException;
+import com.sun.tools.classfile.LazyClassFile;
 import com.sun.tools.classfile.RuntimeAnnotations_attribute;
 import java.io.FileReader;
 import java.io.IOException;
@@ -98,10 +98,11 @@ enum Profile {
                     }
                     Path ctsym = home.resolve("lib").resolve("ct.sym");
                     if (Files.exists(ctsym)) {
-                        // parse ct.sym and load information about profiles
+                        // parse ct.sym and load information about profiles;
+                        // only the class annotations are read
                         try (JarFile jf = new JarFile(ctsym.toFile())) {
                             ClassFileReader reader = ClassFileReader.newInstance(ctsym, jf);
-                            for (ClassFile cf : reader.getClassFiles()) {
+                            for (LazyClassFile cf : reader.getLazyClassFiles()) {
                                 findProfile(cf);
                             }
                         }
@@ -131,9 +132,10 @@ enum Profile {
         }
         private static final String PROFILE_ANNOTATION = "Ljdk/Profile+Annotation;";
         private static final String PROPRIETARY_ANNOTATION = "Lsun/Proprietary+Annotation;";
-        private static Profile findProfile(ClassFile cf) throws ConstantPoolException {
+        private static Profile findProfile(LazyClassFile cf)
+                throws IOException, ConstantPoolException {
             RuntimeAnnotations_attribute attr = (RuntimeAnnotations_attribute)
-                cf.attributes.get(Attribute.RuntimeInvisibleAnnotations);
+                cf.getAttribute(Attribute.RuntimeInvisibleAnnotations);
             int index = 0;
             boolean proprietary = false;
             if (attr != null) {
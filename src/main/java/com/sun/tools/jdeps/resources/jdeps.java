@@ -34,6 +34,7 @@ public final class jdeps extends java.util.ListResourceBundle {
             { "warn.mrjar.usejdk9", "{0} is a multi-release jar file.\nAll versioned entries are analyzed. To analyze the entries for a specific\nversion, use a newer version of jdeps (JDK 9 or later) \"--multi-release\" option." },
             { "warn.prefix", "Warning:" },
             { "warn.replace.useJDKInternals", "JDK internal APIs are unsupported and private to JDK implementation that are\nsubject to be removed or changed incompatibly and could break your application.\nPlease modify your code to eliminate dependency on any JDK internal APIs.\nFor the most recent update on JDK internal API replacements, please check:\n{0}" },
+            { "warn.skipped.entry", "{0} is skipped in {1}: not a valid class file" },
             { "warn.split.package", "package {0} defined in {1} {2}" },
         };
     }
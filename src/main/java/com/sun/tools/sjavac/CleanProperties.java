@@ -62,6 +62,7 @@ public class CleanProperties implements Transformer
                              URI destRoot,
                              Map<String,Set<URI>>    packageArtifacts,
                              Map<String,Set<String>> packageDependencies,
+                             Map<String,Set<String>> packageClassDependencies,
                              Map<String,String>      packagePublicApis,
                              int debugLevel,
                              boolean incremental,
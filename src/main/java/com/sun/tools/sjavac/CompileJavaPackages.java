@@ -71,6 +71,7 @@ public class CompileJavaPackages implements Transformer {
                              URI destRoot,
                              final Map<String,Set<URI>>    packageArtifacts,
                              final Map<String,Set<String>> packageDependencies,
+                             final Map<String,Set<String>> packageClassDependencies,
                              final Map<String,String>      packagePubapis,
                              int debugLevel,
                              boolean incremental,
@@ -215,13 +216,15 @@ public class CompileJavaPackages implements Transformer {
             final CompileChunk cc = compileChunks[i];
 
             // Pass the num_cores and the id (appended with the chunk number) to the server.
-            final String cleanedServerSettings = psServerSettings+",poolsize="+numCores+",id="+id+"-"+ii;
+            final String chunkId = id+"-"+ii;
+            final String cleanedServerSettings = psServerSettings+",poolsize="+numCores+",id="+chunkId;
             final PrintStream fout = out;
             final PrintStream ferr = err;
 
             requests[ii] = new Thread() {
                 @Override
                 public void run() {
+                                        SysInfo chunkinfo = new SysInfo(-1, -1);
                                         rn[ii] = JavacServer.useServer(cleanedServerSettings,
                                                            Main.removeWrapperArgs(args),
                                                                cc.srcs,
@@ -229,9 +232,13 @@ public class CompileJavaPackages implements Transformer {
                                                            fvisible_classes,
                                                            packageArtifacts,
                                                            packageDependencies,
+                                                           packageClassDependencies,
                                                            packagePubapis,
-                                                           null,
+                                                           chunkinfo,
                                                            fout, ferr);
+                                        if (chunkinfo.timing != null) {
+                                            Log.debug("Server timing for "+chunkId+": "+chunkinfo.timing);
+                                        }
                 }
             };
 
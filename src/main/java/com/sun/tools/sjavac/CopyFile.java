@@ -55,6 +55,7 @@ public class CopyFile implements Transformer {
                              URI destRoot,
                              Map<String,Set<URI>>    packageArtifacts,
                              Map<String,Set<String>> packageDependencies,
+                             Map<String,Set<String>> packageClassDependencies,
                              Map<String,String>      packagePubapis,
                              int debugLevel,
                              boolean incremental,
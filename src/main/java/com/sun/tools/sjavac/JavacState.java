@@ -80,6 +80,10 @@ public class JavacState
     // Any packages where the pubapi differ are added to this set.
     // Later we use this set and the dependency information to taint dependent packages.
     private Set<String> packagesWithChangedPublicApis;
+    // For the packages with changed pubapis, the classes whose pubapi changed.
+    // A package is missing here if the changed classes are not known, for example
+    // when a class was added. Then all packages depending on it are tainted.
+    private Map<String,Set<String>> changedClassesInPackages;
     // When a module-info.java file is changed, taint the module,
     // then taint all modules that depend on that that module.
     // A module dependency can occur directly through a require, or
@@ -160,6 +164,7 @@ public class JavacState
         taintedPackages = new HashSet<String>();
         recompiledPackages = new HashSet<String>();
         packagesWithChangedPublicApis = new HashSet<String>();
+        changedClassesInPackages = new HashMap<String,Set<String>>();
     }
 
     public BuildState prev() { return prev; }
@@ -283,6 +288,7 @@ public class JavacState
             b.append("# G C generated_source timestamp\n");
             b.append("# A artifact timestamp\n");
             b.append("# D dependency\n");
+            b.append("# C class dependency\n");
             b.append("# I pubapi\n");
             b.append("# R arguments\n");
             b.append("R ").append(theArgs).append("\n");
@@ -329,6 +335,10 @@ public class JavacState
                         if (lastModule == null || lastPackage == null) { syntaxError = true; break; }
                         lastPackage.loadDependency(l);
                     } else
+                    if (c == 'C') {
+                        if (lastModule == null || lastPackage == null) { syntaxError = true; break; }
+                        lastPackage.loadClassDependency(l);
+                    } else
                     if (c == 'I') {
                         if (lastModule == null || lastPackage == null) { syntaxError = true; break; }
                         lastPackage.loadPubapi(l);
@@ -493,11 +503,18 @@ public class JavacState
     /**
      * Propagate recompilation through the dependency chains.
      * Avoid re-tainting packages that have already been compiled.
+     * A package that does not use any of the classes whose pubapi
+     * changed is not tainted.
      */
     public void taintPackagesDependingOnChangedPackages(Set<String> pkgs, Set<String> recentlyCompiled) {
         for (Package pkg : prev.packages().values()) {
             for (String dep : pkg.dependencies()) {
                 if (pkgs.contains(dep) && !recentlyCompiled.contains(pkg.name())) {
+                    Set<String> changed = changedClassesInPackages.get(dep);
+                    if (changed != null && !pkg.dependsOnAnyClass(changed)) {
+                        Log.debug("Not tainting "+pkg.name()+" since it uses none of the changed classes in "+dep);
+                        continue;
+                    }
                     taintPackage(pkg.name(), " its depending on "+dep);
                 }
             }
@@ -670,6 +687,7 @@ public class JavacState
         boolean again = !packagesWithChangedPublicApis.isEmpty();
         taintPackagesDependingOnChangedPackages(packagesWithChangedPublicApis, recentlyCompiled);
         packagesWithChangedPublicApis = new HashSet<String>();
+        changedClassesInPackages = new HashMap<String,Set<String>>();
         return again && rcValue[0];
     }
 
@@ -714,6 +732,7 @@ public class JavacState
             // These maps need to be synchronized since multiple threads will be writing results into them.
             Map<String,Set<URI>> packageArtifacts = Collections.synchronizedMap(new HashMap<String,Set<URI>>());
             Map<String,Set<String>> packageDependencies = Collections.synchronizedMap(new HashMap<String,Set<String>>());
+            Map<String,Set<String>> packageClassDependencies = Collections.synchronizedMap(new HashMap<String,Set<String>>());
             Map<String,String> packagePublicApis = Collections.synchronizedMap(new HashMap<String,String>());
 
             boolean  r = t.transform(srcs,
@@ -723,6 +742,7 @@ public class JavacState
                                      outputDir.toURI(),
                                      packageArtifacts,
                                      packageDependencies,
+                                     packageClassDependencies,
                                      packagePublicApis,
                                      0,
                                      isIncremental(),
@@ -745,6 +765,11 @@ public class JavacState
                 Module mnow = now.findModuleFromPackageName(a.getKey());
                 mnow.setDependencies(a.getKey(), deps);
             }
+            // Extract the class dependencies and store the info into the Package objects.
+            for (Map.Entry<String,Set<String>> a : packageClassDependencies.entrySet()) {
+                Module mnow = now.findModuleFromPackageName(a.getKey());
+                mnow.setClassDependencies(a.getKey(), a.getValue());
+            }
             // Extract all the pubapis and store the info into the Package objects.
             for (Map.Entry<String,String> a : packagePublicApis.entrySet()) {
                 Module mprev = prev.findModuleFromPackageName(a.getKey());
@@ -758,6 +783,10 @@ public class JavacState
                         // This is an incremental compile! The pubapi
                         // did change. Trigger recompilation of dependents.
                         packagesWithChangedPublicApis.add(a.getKey());
+                        Set<String> changed = mprev.changedClasses(a.getKey(), pubapi);
+                        if (changed != null) {
+                            changedClassesInPackages.put(a.getKey(), changed);
+                        }
                         Log.info("The pubapi of "+Util.justPackageName(a.getKey())+" has changed!");
                     }
                 }
@@ -129,6 +129,16 @@ public class Module implements Comparable<Module> {
         p.setDependencies(deps);
     }
 
+    public void setClassDependencies(String pkg, Set<String> deps) {
+        Package p = lookupPackage(pkg);
+        p.setClassDependencies(deps);
+    }
+
+    public Set<String> changedClasses(String pkg, List<String> ps) {
+        Package p = lookupPackage(pkg);
+        return p.changedClasses(ps);
+    }
+
     public void setPubapi(String pkg, List<String> ps) {
         Package p = lookupPackage(pkg);
         p.setPubapi(ps);
@@ -54,6 +54,10 @@ import java.util.Set;
  * the visible recompilation of the dependent packages indicates how much circular
  * dependencies your code has.
  *
+ * To avoid recompiling dependents that cannot be affected by a change, the classes
+ * in other packages that this package uses are tracked as well. A dependent package
+ * is only recompiled when the api of one of the classes it uses has changed.
+ *
  * <p><b>This is NOT part of any supported API.
  * If you write code that depends on this, you do so at your own
  * risk.  This code and its internal interfaces are subject to change
@@ -72,6 +76,8 @@ public class Package implements Comparable<Package> {
     private String dirname;
     // This package depends on these packages.
     private Set<String> dependencies = new HashSet<String>();
+    // This package depends on these classes in other packages.
+    private Set<String> classDependencies = new HashSet<String>();
     // This package has the following dependents, that depend on this package.
     private Set<String> dependents = new HashSet<String>();
     // This is the public api of this package.
@@ -102,6 +108,7 @@ public class Package implements Comparable<Package> {
     public List<String> pubapi() { return pubapi; }
 
     public Set<String> dependencies() { return dependencies; }
+    public Set<String> classDependencies() { return classDependencies; }
     public Set<String> dependents() { return dependents; }
 
     @Override
@@ -127,6 +134,10 @@ public class Package implements Comparable<Package> {
         dependencies.add(d);
     }
 
+    public void addClassDependency(String d) {
+        classDependencies.add(d);
+    }
+
     public void addDependent(String d) {
         dependents.add(d);
     }
@@ -181,6 +192,70 @@ public class Package implements Comparable<Package> {
         return false;
     }
 
+    /**
+     * Split a pubapi into the pubapis of its top level classes,
+     * keyed on the fully qualified class name.
+     */
+    public static Map<String,List<String>> pubapiPerClass(List<String> ps) {
+        Map<String,List<String>> r = new HashMap<String,List<String>>();
+        List<String> current = null;
+        for (String l : ps) {
+            if (l.startsWith("TYPE ")) {
+                current = new ArrayList<String>();
+                r.put(l.substring(5), current);
+            }
+            if (current != null) {
+                current.add(l);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Find the top level classes whose pubapi differ between the stored pubapi
+     * and the new pubapi. Returns null if a class has been added, since a new
+     * class can change how names resolve in the dependent packages, for example
+     * through an on demand import. Then every dependent must be recompiled.
+     */
+    public Set<String> changedClasses(List<String> ps) {
+        Map<String,List<String>> before = pubapiPerClass(pubapi);
+        Map<String,List<String>> after = pubapiPerClass(ps);
+        Set<String> changed = new HashSet<String>();
+        for (Map.Entry<String,List<String>> e : after.entrySet()) {
+            List<String> b = before.get(e.getKey());
+            if (b == null) {
+                Log.debug("New class "+e.getKey()+" in pubapi for package "+name);
+                return null;
+            }
+            if (!b.equals(e.getValue())) {
+                changed.add(e.getKey());
+            }
+        }
+        for (String c : before.keySet()) {
+            if (!after.containsKey(c)) {
+                changed.add(c);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Check if this package uses any of the given classes. If no class
+     * dependencies are known, for example when the javac_state was written
+     * by an older sjavac, then assume that it does.
+     */
+    public boolean dependsOnAnyClass(Set<String> cs) {
+        if (classDependencies.isEmpty()) {
+            return true;
+        }
+        for (String c : cs) {
+            if (classDependencies.contains(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void setPubapi(List<String> ps) {
         pubapi = ps;
     }
@@ -189,10 +264,15 @@ public class Package implements Comparable<Package> {
         dependencies = ds;
     }
 
+    public void setClassDependencies(Set<String> ds) {
+        classDependencies = ds;
+    }
+
     public void save(StringBuilder b) {
         b.append("P ").append(name).append("\n");
         Source.saveSources(sources, b);
         saveDependencies(b);
+        saveClassDependencies(b);
         savePubapi(b);
         saveArtifacts(b);
     }
@@ -207,6 +287,11 @@ public class Package implements Comparable<Package> {
         addDependency(n);
     }
 
+    public void loadClassDependency(String l) {
+        String n = l.substring(2);
+        addClassDependency(n);
+    }
+
     public void loadPubapi(String l) {
         String pi = l.substring(2);
         addPubapi(pi);
@@ -223,6 +308,17 @@ public class Package implements Comparable<Package> {
         }
     }
 
+    public void saveClassDependencies(StringBuilder b) {
+        List<String> sorted_dependencies = new ArrayList<String>();
+        for (String key : classDependencies) {
+            sorted_dependencies.add(key);
+        }
+        Collections.sort(sorted_dependencies);
+        for (String a : sorted_dependencies) {
+            b.append("C "+a+"\n");
+        }
+    }
+
     public void savePubapi(StringBuilder b) {
         for (String l : pubapi) {
             b.append("I "+l+"\n");
@@ -50,6 +50,7 @@ public interface Transformer
      * The transform implementation must:
      *    store the names of the generated artifacts for each package into package_artifacts
      *    store found dependencies to other packages into the supplied set package_dependencies
+     *    store found dependencies to classes in other packages into the supplied set package_class_dependencies
      *    store the public api for a package into the supplied set package_pubapis
      *
      * Any benign messages as a result of running the transform
@@ -87,6 +88,7 @@ public interface Transformer
                       URI destRoot,
                       Map<String,Set<URI>>    packageArtifacts,
                       Map<String,Set<String>> packageDependencies,
+                      Map<String,Set<String>> packageClassDependencies,
                       Map<String,String>      packagePublicApis,
                       int debugLevel,
                       boolean incremental,
@@ -33,7 +33,12 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import com.sun.tools.javac.code.Kinds;
+import com.sun.tools.javac.code.Symbol;
 import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.CompletionFailure;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.TypeTag;
 import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.Log;
 import com.sun.tools.javac.util.Name;
@@ -54,6 +59,9 @@ public class Dependencies {
     protected Log log;
     // Map from package name to packages that the package depends upon.
     protected Map<Name,Set<Name>> deps;
+    // Map from package name to the classes in other packages that the package
+    // depends upon. Only outermost classes are recorded.
+    protected Map<Name,Set<Name>> classDeps;
     // This is the set of all packages that are supplied
     // through the java files at the command line.
     protected Set<Name> explicitPackages;
@@ -78,6 +86,7 @@ public class Dependencies {
     public void reset()
     {
         deps = new HashMap<Name, Set<Name>>();
+        classDeps = new HashMap<Name, Set<Name>>();
         explicitPackages = new HashSet<Name>();
         publicApiPerClass = new HashMap<Name,StringBuffer>();
     }
@@ -108,6 +117,28 @@ public class Dependencies {
         return new_deps;
     }
 
+    /**
+     * Fetch the class level dependencies of the packages that were
+     * explicitly compiled: for each package, the fully qualified names
+     * of the classes in other packages that it depends upon.
+     */
+    public Map<String,Set<String>> getClassDependencies() {
+        Map<String,Set<String>> new_deps = new HashMap<String,Set<String>>();
+        if (explicitPackages == null) return new_deps;
+        for (Name pkg : explicitPackages) {
+            Set<Name> set = classDeps.get(pkg);
+            if (set != null) {
+                Set<String> new_set = new HashSet<String>();
+                for (Name d : set) {
+                    new_set.add(d.toString());
+                }
+                // Modules beware....
+                new_deps.put(":"+pkg.toString(), new_set);
+            }
+        }
+        return new_deps;
+    }
+
     static class CompareNames implements Comparator<Name> {
          public int compare(Name a, Name b) {
              return a.toString().compareTo(b.toString());
@@ -182,4 +213,65 @@ public class Dependencies {
             theset.add(depPkg);
         }
     }
+
+    /**
+     * Collect a class level dependency. The package of from is marked as
+     * depending on the outermost class of to, and on the supertypes of
+     * that class, since a change to the api of a supertype changes the
+     * api inherited by the class.
+     */
+    public void collectClass(Symbol from, Symbol to) {
+        ClassSymbol c = outermostClass(to);
+        if (c != null) {
+            collectClass(from.packge().fullname, c);
+        }
+    }
+
+    /**
+     * The outermost class owning sym, or null if sym is not owned by
+     * a proper class, as for primitive types and the array class.
+     */
+    private static ClassSymbol outermostClass(Symbol sym) {
+        Symbol prev = null;
+        while (sym != null && sym.kind != Kinds.PCK) {
+            prev = sym;
+            sym = sym.owner;
+        }
+        if (sym == null || !(prev instanceof ClassSymbol) || !prev.type.hasTag(TypeTag.CLASS)) {
+            return null;
+        }
+        return (ClassSymbol) prev;
+    }
+
+    private void collectClass(Name currPkg, ClassSymbol c) {
+        if (currPkg.equals(c.packge().fullname)) {
+            return;
+        }
+        Set<Name> theset = classDeps.get(currPkg);
+        if (theset==null) {
+            theset = new HashSet<Name>();
+            classDeps.put(currPkg, theset);
+        }
+        if (!theset.add(c.fullname)) {
+            return;
+        }
+        try {
+            collectSupertype(currPkg, c.getSuperclass());
+            for (Type t : c.getInterfaces()) {
+                collectSupertype(currPkg, t);
+            }
+        } catch (CompletionFailure ex) {
+            // The class itself is recorded; a missing supertype is reported
+            // by the compiler.
+        }
+    }
+
+    private void collectSupertype(Name currPkg, Type t) {
+        if (t.tsym instanceof ClassSymbol) {
+            ClassSymbol c = outermostClass(t.tsym);
+            if (c != null) {
+                collectClass(currPkg, c);
+            }
+        }
+    }
 }
@@ -24,10 +24,18 @@
  */
 package com.sun.tools.sjavac.comp;
 
+import java.util.Queue;
 import java.util.StringTokenizer;
+import javax.tools.JavaFileObject;
 
+import com.sun.tools.javac.comp.AttrContext;
+import com.sun.tools.javac.comp.Env;
 import com.sun.tools.javac.main.JavaCompiler;
+import com.sun.tools.javac.tree.JCTree.JCClassDecl;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
 import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.List;
+import com.sun.tools.javac.util.Pair;
 import com.sun.tools.javac.code.Symbol.ClassSymbol;
 import com.sun.tools.sjavac.server.CompilerThread;
 import java.io.File;
@@ -46,6 +54,13 @@ public class JavaCompilerWithDeps extends JavaCompiler {
     protected Dependencies deps;
     protected CompilerThread compilerThread;
 
+    /** The phase being timed, and when it, or the phase nested within it,
+     *  was last entered or left. The phases nest, since desugar attributes
+     *  and flow analyzes the supertypes of a class before lowering it.
+     */
+    private String phase;
+    private long phaseStart;
+
     public JavaCompilerWithDeps(Context context, CompilerThread t) {
         super(context);
         deps = Dependencies.instance(context);
@@ -63,6 +78,89 @@ public class JavaCompilerWithDeps extends JavaCompiler {
         });
     }
 
+    /** Start timing a phase, pausing the enclosing phase if any.
+     *  @return the enclosing phase, to be passed to leavePhase.
+     */
+    private String enterPhase(String p) {
+        long now = System.nanoTime();
+        if (phase != null) {
+            compilerThread.addTime(phase, now - phaseStart);
+        }
+        String enclosing = phase;
+        phase = p;
+        phaseStart = now;
+        return enclosing;
+    }
+
+    /** Stop timing the current phase and resume the enclosing phase.
+     */
+    private void leavePhase(String enclosing) {
+        long now = System.nanoTime();
+        compilerThread.addTime(phase, now - phaseStart);
+        phase = enclosing;
+        phaseStart = now;
+    }
+
+    @Override
+    public List<JCCompilationUnit> parseFiles(Iterable<JavaFileObject> fileObjects) {
+        String enclosing = enterPhase("parse");
+        try {
+            return super.parseFiles(fileObjects);
+        } finally {
+            leavePhase(enclosing);
+        }
+    }
+
+    @Override
+    public List<JCCompilationUnit> enterTrees(List<JCCompilationUnit> roots) {
+        String enclosing = enterPhase("enter");
+        try {
+            return super.enterTrees(roots);
+        } finally {
+            leavePhase(enclosing);
+        }
+    }
+
+    @Override
+    public Env<AttrContext> attribute(Env<AttrContext> env) {
+        String enclosing = enterPhase("attr");
+        try {
+            return super.attribute(env);
+        } finally {
+            leavePhase(enclosing);
+        }
+    }
+
+    @Override
+    protected void flow(Env<AttrContext> env, Queue<Env<AttrContext>> results) {
+        String enclosing = enterPhase("flow");
+        try {
+            super.flow(env, results);
+        } finally {
+            leavePhase(enclosing);
+        }
+    }
+
+    @Override
+    public Queue<Pair<Env<AttrContext>, JCClassDecl>> desugar(Queue<Env<AttrContext>> envs) {
+        String enclosing = enterPhase("desugar");
+        try {
+            return super.desugar(envs);
+        } finally {
+            leavePhase(enclosing);
+        }
+    }
+
+    @Override
+    public void generate(Queue<Pair<Env<AttrContext>, JCClassDecl>> queue, Queue<JavaFileObject> results) {
+        String enclosing = enterPhase("generate");
+        try {
+            super.generate(queue, results);
+        } finally {
+            leavePhase(enclosing);
+        }
+    }
+
     /** Collect the public apis of classes supplied explicitly for compilation.
      * @param sym The class to visit.
      */
@@ -63,5 +63,7 @@ public class ResolveWithDeps extends Resolve {
     public void reportDependence(Symbol from, Symbol to) {
         // Capture dependencies between the packages.
         deps.collect(from.packge().fullname, to.packge().fullname);
+        // And between the package and the classes it uses.
+        deps.collectClass(from, to);
     }
 }
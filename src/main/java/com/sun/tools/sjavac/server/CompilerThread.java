@@ -38,6 +38,7 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
 import java.util.Map;
@@ -83,6 +84,9 @@ public class CompilerThread implements Runnable {
     // If true, then this thread is serving a request.
     private boolean inUse = false;
 
+    // The time in nanoseconds spent in each stage of the current request.
+    private Map<String,Long> timings;
+
     CompilerThread(CompilerPool cp) {
         compilerPool = cp;
         javacServer = cp.getJavacServer();
@@ -109,6 +113,26 @@ public class CompilerThread implements Runnable {
         return c;
     }
 
+    /**
+     * Add to the time spent in a stage of the current request.
+     */
+    public synchronized void addTime(String stage, long nanos) {
+        Long t = timings.get(stage);
+        timings.put(stage, (t == null ? 0 : t) + nanos);
+    }
+
+    /**
+     * Describe the time spent in each stage of the current request.
+     */
+    private synchronized String timingString() {
+        StringBuilder b = new StringBuilder();
+        for (Map.Entry<String,Long> e : timings.entrySet()) {
+            if (b.length() > 0) b.append(' ');
+            b.append(e.getKey()).append('=').append(e.getValue() / 1000000).append("ms");
+        }
+        return b.toString();
+    }
+
     /**
      * Use this socket for the upcoming request.
      */
@@ -132,6 +156,7 @@ public class CompilerThread implements Runnable {
         ResolveWithDeps.preRegister(context);
         JavaCompilerWithDeps.preRegister(context, this);
         subTasks = new ArrayList<Future<?>>();
+        timings = new LinkedHashMap<String,Long>();
     }
 
     /**
@@ -146,6 +171,7 @@ public class CompilerThread implements Runnable {
         smartFileManager = null;
         context = null;
         subTasks = null;
+        timings = null;
     }
 
     /**
@@ -185,6 +211,7 @@ public class CompilerThread implements Runnable {
         int numClasses = 0;
         StringBuilder compiledPkgs = new StringBuilder();
         use();
+        long stageStart = System.nanoTime();
 
         PrintWriter out = null;
         try {
@@ -281,6 +308,7 @@ public class CompilerThread implements Runnable {
             }
 
             // A completed request has been received.
+            addTime("read", System.nanoTime() - stageStart);
 
             // Now setup the actual compilation....
             // First deal with explicit source files on cmdline and in at file.
@@ -314,6 +342,7 @@ public class CompilerThread implements Runnable {
             com.sun.tools.javac.main.Main.Result rc = com.sun.tools.javac.main.Main.Result.OK;
             try {
                 if (compilationUnits.size() > 0) {
+                    stageStart = System.nanoTime();
                     // Bind the new logger to the existing context.
                     context.put(Log.outKey, stderr);
                     Log.instance(context).setWriter(Log.WriterKind.NOTICE, stdout);
@@ -326,18 +355,23 @@ public class CompilerThread implements Runnable {
                     smartFileManager.cleanArtifacts();
                     smartFileManager.setLog(stdout);
                     Dependencies.instance(context).reset();
+                    addTime("setup", System.nanoTime() - stageStart);
 
                     com.sun.tools.javac.main.Main ccompiler = new com.sun.tools.javac.main.Main("javacTask", stderr);
                     String[] aa = the_options.toArray(new String[0]);
 
-                    // Do the compilation!
+                    // Do the compilation! The compiler adds the time spent in its phases.
                     rc = ccompiler.compile(aa, context, compilationUnits.toList(), null);
 
+                    stageStart = System.nanoTime();
                     while (numActiveSubTasks()>0) {
                         try { Thread.sleep(1000); } catch (InterruptedException e) { }
                     }
+                    addTime("subtasks", System.nanoTime() - stageStart);
 
+                    stageStart = System.nanoTime();
                     smartFileManager.flush();
+                    addTime("flush", System.nanoTime() - stageStart);
                 }
             } catch (Exception e) {
                 stderr.println(e.getMessage());
@@ -371,6 +405,14 @@ public class CompilerThread implements Runnable {
                     out.println(" "+d);
                 }
             }
+            out.println(JavacServer.PROTOCOL_CLASS_DEPENDENCIES);
+            Map<String,Set<String>> cd = deps.getClassDependencies();
+            for (String aPkgName : cd.keySet()) {
+                out.println("+"+aPkgName);
+                for (String d : cd.get(aPkgName)) {
+                    out.println(" "+d);
+                }
+            }
             out.println(JavacServer.PROTOCOL_PACKAGE_PUBLIC_APIS);
             Map<String,String> pp = deps.getPubapis();
             for (String aPkgName : pp.keySet()) {
@@ -383,6 +425,7 @@ public class CompilerThread implements Runnable {
             out.println(JavacServer.PROTOCOL_SYSINFO);
             out.println("num_cores=" + Runtime.getRuntime().availableProcessors());
             out.println("max_memory=" + Runtime.getRuntime().maxMemory());
+            out.println("timing=" + timingString());
             out.println(JavacServer.PROTOCOL_RETURN_CODE);
 
             // Errors from sjavac that affect compilation status!
@@ -411,7 +454,7 @@ public class CompilerThread implements Runnable {
             javacServer.addBuildTime(duration);
             float classpersec = ((float)numClasses)*(((float)1000.0)/((float)duration));
             javacServer.log(id+" <"+thisRequest+"> "+compiledPkgs+" duration " + duration+ " ms    num_classes="+numClasses+
-                             "     classpersec="+classpersec+" subtasks="+subTasks.size());
+                             "     classpersec="+classpersec+" subtasks="+subTasks.size()+" "+timingString());
             javacServer.flushLog();
             unuse();
             compilerPool.returnCompilerThread(this);
@@ -75,7 +75,7 @@ public class JavacServer {
     private static Map<String, Long> maxServerMemory;
     final static int ERROR_FATAL = -1;
     final static int ERROR_BUT_TRY_AGAIN = -4712;
-    final static String PROTOCOL_COOKIE_VERSION = "----THE-COOKIE-V2----";
+    final static String PROTOCOL_COOKIE_VERSION = "----THE-COOKIE-V3----";
     final static String PROTOCOL_CWD = "----THE-CWD----";
     final static String PROTOCOL_ID = "----THE-ID----";
     final static String PROTOCOL_ARGS = "----THE-ARGS----";
@@ -86,6 +86,7 @@ public class JavacServer {
     final static String PROTOCOL_STDERR = "----THE-STDERR----";
     final static String PROTOCOL_PACKAGE_ARTIFACTS = "----THE-PACKAGE_ARTIFACTS----";
     final static String PROTOCOL_PACKAGE_DEPENDENCIES = "----THE-PACKAGE_DEPENDENCIES----";
+    final static String PROTOCOL_CLASS_DEPENDENCIES = "----THE-CLASS-DEPENDENCIES----";
     final static String PROTOCOL_PACKAGE_PUBLIC_APIS = "----THE-PACKAGE-PUBLIC-APIS----";
     final static String PROTOCOL_SYSINFO = "----THE-SYSINFO----";
     final static String PROTOCOL_RETURN_CODE = "----THE-RETURN-CODE----";
@@ -226,6 +227,7 @@ public class JavacServer {
      * The server return meta data about the build in the following parameters.
      * @param package_artifacts, map from package name to set of created artifacts for that package.
      * @param package_dependencies, map from package name to set of packages that it depends upon.
+     * @param package_class_dependencies, map from package name to set of classes in other packages that it depends upon.
      * @param package_pubapis, map from package name to unique string identifying its pub api.
      */
     public static int useServer(String settings, String[] args,
@@ -234,6 +236,7 @@ public class JavacServer {
             Map<URI, Set<String>> visibleClasses,
             Map<String, Set<URI>> packageArtifacts,
             Map<String, Set<String>> packageDependencies,
+            Map<String, Set<String>> packageClassDependencies,
             Map<String, String> packagePubapis,
             SysInfo sysinfo,
             PrintStream out,
@@ -297,7 +300,8 @@ public class JavacServer {
                     }
                 }
                 rc = connectAndCompile(port_file, id, args, sourcesToCompile, visibleSources,
-                        packageArtifacts, packageDependencies, packagePubapis, sysinfo,
+                        packageArtifacts, packageDependencies, packageClassDependencies,
+                        packagePubapis, sysinfo,
                         out, err);
                 // Try again until we manage to connect. Any error after that
                 // will cause the compilation to fail.
@@ -441,6 +445,7 @@ public class JavacServer {
                     new HashMap<URI, Set<String>>(),
                     new HashMap<String, Set<URI>>(),
                     new HashMap<String, Set<String>>(),
+                    new HashMap<String, Set<String>>(),
                     new HashMap<String, String>(),
                     sysinfo, out, err);
         } catch (Exception e) {
@@ -458,6 +463,7 @@ public class JavacServer {
             Set<URI> visibleSources,
             Map<String, Set<URI>> packageArtifacts,
             Map<String, Set<String>> packageDependencies,
+            Map<String, Set<String>> packageClassDependencies,
             Map<String, String> packagePublicApis,
             SysInfo sysinfo,
             PrintStream out,
@@ -580,7 +586,7 @@ public class JavacServer {
                 if (l == null) {
                     return ERROR_FATAL;
                 }
-                if (l.equals(PROTOCOL_PACKAGE_PUBLIC_APIS)) {
+                if (l.equals(PROTOCOL_CLASS_DEPENDENCIES)) {
                     break;
                 }
                 if (l.length() > 1 && l.charAt(0) == '+') {
@@ -591,6 +597,24 @@ public class JavacServer {
                     lastPackageSet.add(l.substring(1));
                 }
             }
+            // Load class dependencies
+            Set<String> lastClassSet = null;
+            for (;;) {
+                String l = in.readLine();
+                if (l == null) {
+                    return ERROR_FATAL;
+                }
+                if (l.equals(PROTOCOL_PACKAGE_PUBLIC_APIS)) {
+                    break;
+                }
+                if (l.length() > 1 && l.charAt(0) == '+') {
+                    String pkg = l.substring(1);
+                    lastClassSet = new HashSet<String>();
+                    packageClassDependencies.put(pkg, lastClassSet);
+                } else if (l.length() > 1 && lastClassSet != null) {
+                    lastClassSet.add(l.substring(1));
+                }
+            }
             // Load package pubapis
             Map<String, StringBuffer> tmp = new HashMap<String, StringBuffer>();
             StringBuffer lastPublicApi = null;
@@ -631,6 +655,9 @@ public class JavacServer {
                 if (l.startsWith("max_memory=") && sysinfo != null) {
                     sysinfo.maxMemory = Long.parseLong(l.substring(11));
                 }
+                if (l.startsWith("timing=") && sysinfo != null) {
+                    sysinfo.timing = l.substring(7);
+                }
             }
             String l = in.readLine();
             if (l == null) {
@@ -37,6 +37,8 @@ package com.sun.tools.sjavac.server;
 public class SysInfo {
     public int numCores;
     public long maxMemory;
+    // The time spent in each stage of the last request, as reported by the server.
+    public String timing;
 
     public SysInfo(int nc, long mm) {
         numCores = nc;
@@ -245,6 +245,17 @@ public class ObjectInputStream
             new ReferenceQueue<>();
     }
 
+    /**
+     * true if class descriptors read from different streams may be bound
+     * to the same shared ObjectStreamClass instance.  This only affects
+     * reading: every stream must still carry its own class descriptors,
+     * and ObjectOutputStream writes them in full to each stream.
+     */
+    private static final boolean sharedDescriptors =
+        AccessController.doPrivileged(
+            new sun.security.action.GetBooleanAction(
+                "jdk.serialSharedDescriptors")).booleanValue();
+
     static {
         /* Setup access so sun.misc can invoke package private functions. */
         JavaOISAccess javaOISAccess = new JavaOISAccess() {
@@ -1882,7 +1893,17 @@ public class ObjectInputStream
         try {
             totalObjectRefs++;
             depth++;
-            desc.initNonProxy(readDesc, cl, resolveEx, readClassDesc(false));
+            ObjectStreamClass superDesc = readClassDesc(false);
+            ObjectStreamClass sharedDesc = (sharedDescriptors && resolveEx == null) ?
+                ObjectStreamClass.lookupStreamDesc(readDesc, cl, superDesc) : null;
+            if (sharedDesc != null) {
+                desc = sharedDesc;
+                if (!unshared) {
+                    handles.setObject(descHandle, desc);
+                }
+            } else {
+                desc.initNonProxy(readDesc, cl, resolveEx, superDesc);
+            }
         } finally {
             depth--;
         }
@@ -214,6 +214,14 @@ public class ObjectStreamClass implements Serializable {
     /** true if, and only if, the object has been correctly initialized */
     private boolean initialized;
 
+    /** true if this stream descriptor is shared by ObjectInputStreams */
+    private boolean shared;
+    /** shared stream descriptors bound to this local class descriptor */
+    private volatile ConcurrentMap<StreamDescKey,ObjectStreamClass> streamDescs;
+
+    /** maximum number of distinct stream descriptors shared per class */
+    private static final int MAX_SHARED_STREAM_DESCS = 8;
+
     /**
      * Initializes native code.
      */
@@ -756,6 +764,97 @@ public class ObjectStreamClass implements Serializable {
         initialized = true;
     }
 
+    /**
+     * Returns a descriptor equivalent to a blank one initialized by
+     * initNonProxy(model, cl, null, superDesc), shared by every stream
+     * which reads a descriptor with the same contents for the same class
+     * and superclass descriptor.  This saves rebinding the stream fields
+     * to local fields for each stream, and lets the data layout be
+     * computed once.  Returns null if the descriptor cannot be shared, in
+     * which case the caller should initialize a descriptor of its own.
+     */
+    static ObjectStreamClass lookupStreamDesc(ObjectStreamClass model,
+                                              Class<?> cl,
+                                              ObjectStreamClass superDesc)
+        throws InvalidClassException
+    {
+        // Only chains of shared descriptors are shared, so that the cache
+        // cannot fill up with per-stream superclass descriptors.
+        if (cl == null || (superDesc != null && !superDesc.shared)) {
+            return null;
+        }
+        ObjectStreamClass osc = lookup(cl, true);
+        ConcurrentMap<StreamDescKey,ObjectStreamClass> descs = osc.streamDescs;
+        if (descs == null) {
+            synchronized (osc) {
+                descs = osc.streamDescs;
+                if (descs == null) {
+                    osc.streamDescs = descs = new ConcurrentHashMap<>();
+                }
+            }
+        }
+        StreamDescKey key = new StreamDescKey(model, superDesc);
+        ObjectStreamClass desc = descs.get(key);
+        if (desc == null) {
+            if (descs.size() >= MAX_SHARED_STREAM_DESCS) {
+                return null;
+            }
+            desc = new ObjectStreamClass();
+            desc.initNonProxy(model, cl, null, superDesc);
+            desc.shared = true;
+            ObjectStreamClass prev = descs.putIfAbsent(key, desc);
+            if (prev != null) {
+                desc = prev;
+            }
+        }
+        return desc;
+    }
+
+    /**
+     * Key identifying a shared stream descriptor: the contents read from
+     * the stream, plus the (shared) superclass descriptor it was bound to.
+     */
+    private static class StreamDescKey {
+        private final String contents;
+        private final ObjectStreamClass superDesc;
+        private final int hash;
+
+        StreamDescKey(ObjectStreamClass model, ObjectStreamClass superDesc) {
+            StringBuilder sb = new StringBuilder(64);
+            sb.append(model.name).append(' ').append(model.suid);
+            sb.append(model.isEnum ? 'E' : '-');
+            sb.append(model.serializable ? 'S' : '-');
+            sb.append(model.externalizable ? 'X' : '-');
+            sb.append(model.hasWriteObjectData ? 'W' : '-');
+            sb.append(model.hasBlockExternalData ? 'B' : '-');
+            for (ObjectStreamField f : model.fields) {
+                sb.append(' ').append(f.getName().length())
+                  .append(':').append(f.getName())
+                  .append(':').append(f.getSignature());
+            }
+            this.contents = sb.toString();
+            this.superDesc = superDesc;
+            this.hash = contents.hashCode() * 31 +
+                System.identityHashCode(superDesc);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj instanceof StreamDescKey) {
+                StreamDescKey other = (StreamDescKey) obj;
+                return superDesc == other.superDesc &&
+                       contents.equals(other.contents);
+            }
+            return false;
+        }
+    }
+
     /**
      * Reads non-proxy class descriptor information from given input stream.
      * The resulting class descriptor is not fully functional; it can only be
@@ -2050,13 +2149,20 @@ public class ObjectStreamClass implements Serializable {
 
     /**
      * Class for setting and retrieving serializable field values in batch.
+     *
+     * The primitive fields are compiled into a per-class plan when the
+     * reflector is built: their keys and offsets are regrouped by type, so
+     * that getting or setting them runs one tight loop per primitive type
+     * rather than dispatching on the type code of every field.
      */
-    // REMIND: dynamically generate these?
     private static class FieldReflector {
 
         /** handle for performing unsafe operations */
         private static final Unsafe unsafe = Unsafe.getUnsafe();
 
+        /** primitive type codes, in the order primitive fields are grouped */
+        private static final String PRIM_TYPE_CODES = "ZBCSIFJD";
+
         /** fields to operate on */
         private final ObjectStreamField[] fields;
         /** number of primitive fields */
@@ -2071,6 +2177,14 @@ public class ObjectStreamClass implements Serializable {
         private final char[] typeCodes;
         /** field types */
         private final Class<?>[] types;
+        /** primitive field read keys, grouped by type */
+        private final long[] primReadKeys;
+        /** primitive field write keys, grouped by type */
+        private final long[] primWriteKeys;
+        /** primitive field data offsets, grouped by type */
+        private final int[] primOffsets;
+        /** end index into the grouped arrays of each primitive type */
+        private final int[] primEnds;
 
         /**
          * Constructs FieldReflector capable of setting/getting values from the
@@ -2107,6 +2221,27 @@ public class ObjectStreamClass implements Serializable {
 
             types = typeList.toArray(new Class<?>[typeList.size()]);
             numPrimFields = nfields - types.length;
+
+            primReadKeys = new long[numPrimFields];
+            primWriteKeys = new long[numPrimFields];
+            primOffsets = new int[numPrimFields];
+            primEnds = new int[PRIM_TYPE_CODES.length()];
+            int n = 0;
+            for (int t = 0; t < primEnds.length; t++) {
+                char tcode = PRIM_TYPE_CODES.charAt(t);
+                for (int i = 0; i < numPrimFields; i++) {
+                    if (typeCodes[i] == tcode) {
+                        primReadKeys[n] = readKeys[i];
+                        primWriteKeys[n] = writeKeys[i];
+                        primOffsets[n] = offsets[i];
+                        n++;
+                    }
+                }
+                primEnds[t] = n;
+            }
+            if (n != numPrimFields) {
+                throw new InternalError();
+            }
         }
 
         /**
@@ -2132,45 +2267,33 @@ public class ObjectStreamClass implements Serializable {
              * descriptor this FieldReflector was obtained from, no field keys
              * in array should be equal to Unsafe.INVALID_FIELD_OFFSET.
              */
-            for (int i = 0; i < numPrimFields; i++) {
-                long key = readKeys[i];
-                int off = offsets[i];
-                switch (typeCodes[i]) {
-                    case 'Z':
-                        Bits.putBoolean(buf, off, unsafe.getBoolean(obj, key));
-                        break;
-
-                    case 'B':
-                        buf[off] = unsafe.getByte(obj, key);
-                        break;
-
-                    case 'C':
-                        Bits.putChar(buf, off, unsafe.getChar(obj, key));
-                        break;
-
-                    case 'S':
-                        Bits.putShort(buf, off, unsafe.getShort(obj, key));
-                        break;
-
-                    case 'I':
-                        Bits.putInt(buf, off, unsafe.getInt(obj, key));
-                        break;
-
-                    case 'F':
-                        Bits.putFloat(buf, off, unsafe.getFloat(obj, key));
-                        break;
-
-                    case 'J':
-                        Bits.putLong(buf, off, unsafe.getLong(obj, key));
-                        break;
-
-                    case 'D':
-                        Bits.putDouble(buf, off, unsafe.getDouble(obj, key));
-                        break;
-
-                    default:
-                        throw new InternalError();
-                }
+            final long[] keys = primReadKeys;
+            final int[] offs = primOffsets;
+            final int[] ends = primEnds;
+            int i = 0;
+            for (int end = ends[0]; i < end; i++) {
+                Bits.putBoolean(buf, offs[i], unsafe.getBoolean(obj, keys[i]));
+            }
+            for (int end = ends[1]; i < end; i++) {
+                buf[offs[i]] = unsafe.getByte(obj, keys[i]);
+            }
+            for (int end = ends[2]; i < end; i++) {
+                Bits.putChar(buf, offs[i], unsafe.getChar(obj, keys[i]));
+            }
+            for (int end = ends[3]; i < end; i++) {
+                Bits.putShort(buf, offs[i], unsafe.getShort(obj, keys[i]));
+            }
+            for (int end = ends[4]; i < end; i++) {
+                Bits.putInt(buf, offs[i], unsafe.getInt(obj, keys[i]));
+            }
+            for (int end = ends[5]; i < end; i++) {
+                Bits.putFloat(buf, offs[i], unsafe.getFloat(obj, keys[i]));
+            }
+            for (int end = ends[6]; i < end; i++) {
+                Bits.putLong(buf, offs[i], unsafe.getLong(obj, keys[i]));
+            }
+            for (int end = ends[7]; i < end; i++) {
+                Bits.putDouble(buf, offs[i], unsafe.getDouble(obj, keys[i]));
             }
         }
 
@@ -2183,48 +2306,42 @@ public class ObjectStreamClass implements Serializable {
             if (obj == null) {
                 throw new NullPointerException();
             }
-            for (int i = 0; i < numPrimFields; i++) {
-                long key = writeKeys[i];
-                if (key == Unsafe.INVALID_FIELD_OFFSET) {
-                    continue;           // discard value
-                }
-                int off = offsets[i];
-                switch (typeCodes[i]) {
-                    case 'Z':
-                        unsafe.putBoolean(obj, key, Bits.getBoolean(buf, off));
-                        break;
-
-                    case 'B':
-                        unsafe.putByte(obj, key, buf[off]);
-                        break;
-
-                    case 'C':
-                        unsafe.putChar(obj, key, Bits.getChar(buf, off));
-                        break;
-
-                    case 'S':
-                        unsafe.putShort(obj, key, Bits.getShort(buf, off));
-                        break;
-
-                    case 'I':
-                        unsafe.putInt(obj, key, Bits.getInt(buf, off));
-                        break;
-
-                    case 'F':
-                        unsafe.putFloat(obj, key, Bits.getFloat(buf, off));
-                        break;
-
-                    case 'J':
-                        unsafe.putLong(obj, key, Bits.getLong(buf, off));
-                        break;
-
-                    case 'D':
-                        unsafe.putDouble(obj, key, Bits.getDouble(buf, off));
-                        break;
-
-                    default:
-                        throw new InternalError();
-                }
+            final long[] keys = primWriteKeys;
+            final int[] offs = primOffsets;
+            final int[] ends = primEnds;
+            final long none = Unsafe.INVALID_FIELD_OFFSET;
+            int i = 0;
+            for (int end = ends[0]; i < end; i++) {
+                if (keys[i] != none)
+                    unsafe.putBoolean(obj, keys[i], Bits.getBoolean(buf, offs[i]));
+            }
+            for (int end = ends[1]; i < end; i++) {
+                if (keys[i] != none)
+                    unsafe.putByte(obj, keys[i], buf[offs[i]]);
+            }
+            for (int end = ends[2]; i < end; i++) {
+                if (keys[i] != none)
+                    unsafe.putChar(obj, keys[i], Bits.getChar(buf, offs[i]));
+            }
+            for (int end = ends[3]; i < end; i++) {
+                if (keys[i] != none)
+                    unsafe.putShort(obj, keys[i], Bits.getShort(buf, offs[i]));
+            }
+            for (int end = ends[4]; i < end; i++) {
+                if (keys[i] != none)
+                    unsafe.putInt(obj, keys[i], Bits.getInt(buf, offs[i]));
+            }
+            for (int end = ends[5]; i < end; i++) {
+                if (keys[i] != none)
+                    unsafe.putFloat(obj, keys[i], Bits.getFloat(buf, offs[i]));
+            }
+            for (int end = ends[6]; i < end; i++) {
+                if (keys[i] != none)
+                    unsafe.putLong(obj, keys[i], Bits.getLong(buf, offs[i]));
+            }
+            for (int end = ends[7]; i < end; i++) {
+                if (keys[i] != none)
+                    unsafe.putDouble(obj, keys[i], Bits.getDouble(buf, offs[i]));
             }
         }
 
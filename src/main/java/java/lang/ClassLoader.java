@@ -27,6 +27,9 @@ package java.lang;
 import java.io.InputStream;
 import java.io.IOException;
 import java.io.File;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
@@ -237,8 +240,23 @@ public abstract class ClassLoader {
     // class loader is parallel capable.
     // Note: VM also uses this field to decide if the current class loader
     // is parallel capable and the appropriate lock object for class loading.
+    // The values are ParallelLock references, so that the lock of a class
+    // can be collected once no thread is loading it; the stale entries are
+    // expunged as new locks are handed out.
     private final ConcurrentHashMap<String, Object> parallelLockMap;
 
+    // Queue of the collected locks of parallelLockMap
+    private final ReferenceQueue<Object> parallelLockQueue;
+
+    private static final class ParallelLock extends WeakReference<Object> {
+        final String className;
+
+        ParallelLock(String className, Object lock, ReferenceQueue<Object> q) {
+            super(lock, q);
+            this.className = className;
+        }
+    }
+
     // Hashtable that maps packages to certs
     private final Map <String, Certificate[]> package2certs;
 
@@ -280,6 +298,7 @@ public abstract class ClassLoader {
         this.parent = parent;
         if (ParallelLoaders.isRegistered(this.getClass())) {
             parallelLockMap = new ConcurrentHashMap<>();
+            parallelLockQueue = new ReferenceQueue<>();
             package2certs = new ConcurrentHashMap<>();
             domains =
                 Collections.synchronizedSet(new HashSet<ProtectionDomain>());
@@ -287,6 +306,7 @@ public abstract class ClassLoader {
         } else {
             // no finer-grained lock; lock on the classloader instance
             parallelLockMap = null;
+            parallelLockQueue = null;
             package2certs = new Hashtable<>();
             domains = new HashSet<>();
             assertionLock = this;
@@ -459,15 +479,41 @@ public abstract class ClassLoader {
     protected Object getClassLoadingLock(String className) {
         Object lock = this;
         if (parallelLockMap != null) {
-            Object newLock = new Object();
-            lock = parallelLockMap.putIfAbsent(className, newLock);
-            if (lock == null) {
-                lock = newLock;
+            expungeStaleLocks();
+            // A lock is strongly reachable from every thread holding or
+            // about to hold it, so all of them get the same one.
+            for (;;) {
+                Object ref = parallelLockMap.get(className);
+                if (ref != null) {
+                    lock = ((ParallelLock) ref).get();
+                    if (lock != null) {
+                        return lock;
+                    }
+                    lock = new Object();
+                    if (parallelLockMap.replace(className, ref,
+                            new ParallelLock(className, lock, parallelLockQueue))) {
+                        return lock;
+                    }
+                } else {
+                    lock = new Object();
+                    if (parallelLockMap.putIfAbsent(className,
+                            new ParallelLock(className, lock, parallelLockQueue)) == null) {
+                        return lock;
+                    }
+                }
             }
         }
         return lock;
     }
 
+    // Removes the entries of the collected locks from parallelLockMap
+    private void expungeStaleLocks() {
+        Reference<?> ref;
+        while ((ref = parallelLockQueue.poll()) != null) {
+            parallelLockMap.remove(((ParallelLock) ref).className, ref);
+        }
+    }
+
     // This method is invoked by the virtual machine to load a class.
     private Class<?> loadClassInternal(String name)
         throws ClassNotFoundException
@@ -1471,6 +1517,7 @@ public abstract class ClassLoader {
                 }
             }
             sclSet = true;
+            VM.systemLoaderInited();
         }
     }
 
@@ -0,0 +1,369 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  This particular file is
+ * subject to the "Classpath" exception as provided in the LICENSE file
+ * that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package java.lang;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import sun.reflect.CallerSensitive;
+import sun.reflect.Reflection;
+
+/**
+ * A stack walker for the current thread.
+ *
+ * <p> Unlike {@link Throwable#getStackTrace()}, which creates a
+ * {@link StackTraceElement} for every frame on the stack, a stack walker
+ * only captures the stack once its frames are traversed, and only
+ * resolves the frames actually visited.  The {@link #walk walk}
+ * method opens a sequential stream of frames, starting from the caller
+ * of {@code walk}, that may be filtered and short-circuited; for example,
+ * to find the first frame outside of a library:
+ *
+ * <pre>{@code
+ * Optional<StackFrame> frame = StackWalker.getInstance().walk(s ->
+ *     s.filter(f -> !f.getClassName().startsWith("com.foo.")).findFirst());
+ * }</pre>
+ *
+ * <p> By default, the frames of {@link java.lang.reflect.Method#invoke
+ * Method.invoke}, {@link java.lang.reflect.Constructor#newInstance
+ * Constructor.newInstance} and their implementation are hidden, as they
+ * are from {@link #getCallerClass getCallerClass}.
+ *
+ * <p> A stack walker only gives access to the {@code Class} objects of
+ * the frames, through {@link #getCallerClass getCallerClass}, if it is
+ * configured with {@link Option#RETAIN_CLASS_REFERENCE}.  Obtaining such a
+ * walker requires {@code RuntimePermission("getStackWalkerWithClassReference")}
+ * when a security manager is installed.
+ *
+ * <p> {@code StackWalker} is immutable and safe for use by multiple
+ * threads; each call walks the stack of the thread calling it.
+ */
+public final class StackWalker {
+
+    /**
+     * A frame of the stack, as seen by a {@code StackWalker}.
+     */
+    public static interface StackFrame {
+        /**
+         * Returns the fully qualified name of the class declaring the
+         * method of this frame.
+         *
+         * @return the class name
+         */
+        String getClassName();
+
+        /**
+         * Returns the name of the method of this frame.
+         *
+         * @return the method name
+         */
+        String getMethodName();
+
+        /**
+         * Returns the name of the source file of this frame, or null if
+         * it is unavailable.
+         *
+         * @return the file name, or null
+         */
+        String getFileName();
+
+        /**
+         * Returns the line number of this frame, or a negative number if
+         * it is unavailable; -2 indicates a native method.
+         *
+         * @return the line number
+         */
+        int getLineNumber();
+
+        /**
+         * Returns true if the method of this frame is native.
+         *
+         * @return true if this frame is a native method
+         */
+        boolean isNativeMethod();
+
+        /**
+         * Returns a {@code StackTraceElement} describing this frame.
+         *
+         * @return a stack trace element
+         */
+        StackTraceElement toStackTraceElement();
+    }
+
+    /**
+     * Options configuring which frames a {@code StackWalker} reports.
+     */
+    public static enum Option {
+        /**
+         * Retains the {@code Class} objects of the frames, so that
+         * {@link StackWalker#getCallerClass getCallerClass} may be used.
+         */
+        RETAIN_CLASS_REFERENCE,
+
+        /**
+         * Reports the frames of reflective invocations, which are
+         * otherwise hidden.
+         */
+        SHOW_REFLECT_FRAMES
+    }
+
+    private static final StackWalker DEFAULT_WALKER =
+        new StackWalker(false, false);
+
+    private final boolean retainClassRef;
+    private final boolean showReflectFrames;
+
+    private StackWalker(boolean retainClassRef, boolean showReflectFrames) {
+        this.retainClassRef = retainClassRef;
+        this.showReflectFrames = showReflectFrames;
+    }
+
+    /**
+     * Returns a stack walker that hides reflection frames.
+     *
+     * @return a {@code StackWalker}
+     */
+    public static StackWalker getInstance() {
+        return DEFAULT_WALKER;
+    }
+
+    /**
+     * Returns a stack walker configured with the given option.
+     *
+     * @param option the option
+     * @return a {@code StackWalker}
+     * @throws NullPointerException if {@code option} is null
+     * @throws SecurityException if a security manager is installed, the
+     *         option is {@link Option#RETAIN_CLASS_REFERENCE} and the
+     *         security manager denies
+     *         {@code RuntimePermission("getStackWalkerWithClassReference")}
+     */
+    public static StackWalker getInstance(Option option) {
+        return getInstance(EnumSet.of(Objects.requireNonNull(option)));
+    }
+
+    /**
+     * Returns a stack walker configured with the given options.
+     *
+     * @param options the options, which may be empty
+     * @return a {@code StackWalker}
+     * @throws NullPointerException if {@code options} or any of its
+     *         elements is null
+     * @throws SecurityException if a security manager is installed, the
+     *         options include {@link Option#RETAIN_CLASS_REFERENCE} and the
+     *         security manager denies
+     *         {@code RuntimePermission("getStackWalkerWithClassReference")}
+     */
+    public static StackWalker getInstance(Set<Option> options) {
+        boolean retainClassRef = options.contains(Option.RETAIN_CLASS_REFERENCE);
+        boolean showReflectFrames = options.contains(Option.SHOW_REFLECT_FRAMES);
+        if (retainClassRef) {
+            SecurityManager sm = System.getSecurityManager();
+            if (sm != null) {
+                sm.checkPermission(
+                    new RuntimePermission("getStackWalkerWithClassReference"));
+            }
+        }
+        if (!retainClassRef && !showReflectFrames)
+            return DEFAULT_WALKER;
+        return new StackWalker(retainClassRef, showReflectFrames);
+    }
+
+    /**
+     * Applies the given function to a stream of the frames of the current
+     * thread, starting from the caller of this method, and returns its
+     * result.  The stack is captured when the stream is first traversed
+     * and frames are resolved as they are reached; the stream is closed
+     * when this method returns and must not be used afterward, nor by
+     * another thread.
+     *
+     * @param <T> the type of the result
+     * @param function the function to apply to the stream of frames
+     * @return the result of applying the function
+     * @throws NullPointerException if {@code function} is null
+     */
+    public <T> T walk(Function<? super Stream<StackFrame>, ? extends T> function) {
+        Objects.requireNonNull(function);
+        FrameSpliterator frames = new FrameSpliterator(showReflectFrames);
+        try {
+            return function.apply(StreamSupport.stream(frames, false));
+        } finally {
+            frames.close();
+        }
+    }
+
+    /**
+     * Performs the given action on each frame of the current thread,
+     * starting from the caller of this method.
+     *
+     * @param action the action to perform
+     * @throws NullPointerException if {@code action} is null
+     */
+    public void forEach(Consumer<? super StackFrame> action) {
+        Objects.requireNonNull(action);
+        new FrameSpliterator(showReflectFrames).forEachRemaining(action);
+    }
+
+    /**
+     * Returns the class of the caller of the method calling this method,
+     * ignoring reflection frames regardless of the options of this walker.
+     * No stack trace is captured, only the classes of the frames.
+     *
+     * @return the class of the caller of the caller of this method, or
+     *         null if that method is the bottom frame of the stack
+     * @throws UnsupportedOperationException if this walker is not
+     *         configured with {@link Option#RETAIN_CLASS_REFERENCE}
+     */
+    @CallerSensitive
+    public Class<?> getCallerClass() {
+        if (!retainClassRef) {
+            throw new UnsupportedOperationException(
+                "This stack walker does not have RETAIN_CLASS_REFERENCE access");
+        }
+        return ClassContext.INSTANCE.callerOf(Reflection.getCallerClass());
+    }
+
+    /**
+     * Gives access to the classes of the frames of the current thread.
+     * This security manager is never installed, only instantiated.
+     */
+    private static final class ClassContext extends SecurityManager {
+        static final ClassContext INSTANCE = AccessController.doPrivileged(
+            new PrivilegedAction<ClassContext>() {
+                public ClassContext run() {
+                    return new ClassContext();
+                }
+            });
+
+        /**
+         * Returns the class of the frame below the topmost frame of the
+         * given class, skipping reflection frames, or null if there is
+         * none.  The frames above it are those of the stack walker.
+         */
+        Class<?> callerOf(Class<?> caller) {
+            Class<?>[] context = getClassContext();
+            for (int i = 0; i < context.length - 1; i++) {
+                if (context[i] == caller) {
+                    return context[i + 1];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A frame backed by an element of a captured backtrace.
+     */
+    private static final class StackFrameInfo implements StackFrame {
+        private final StackTraceElement ste;
+
+        StackFrameInfo(StackTraceElement ste) {
+            this.ste = ste;
+        }
+
+        public String getClassName()   { return ste.getClassName(); }
+        public String getMethodName()  { return ste.getMethodName(); }
+        public String getFileName()    { return ste.getFileName(); }
+        public int getLineNumber()     { return ste.getLineNumber(); }
+        public boolean isNativeMethod() { return ste.isNativeMethod(); }
+        public StackTraceElement toStackTraceElement() { return ste; }
+
+        public String toString() {
+            return ste.toString();
+        }
+    }
+
+    /**
+     * Traverses the backtrace of a throwable one element at a time, so that
+     * only the visited elements are ever created.  The backtrace is only
+     * captured when the first frame is requested.
+     */
+    private static final class FrameSpliterator
+        extends Spliterators.AbstractSpliterator<StackFrame> {
+        private final Thread thread;
+        private final boolean showReflectFrames;
+        private Throwable backtrace;    // lazily captured
+        private int depth;
+        private int index;
+        private boolean closed;
+
+        FrameSpliterator(boolean showReflectFrames) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL |
+                                  Spliterator.IMMUTABLE);
+            this.thread = Thread.currentThread();
+            this.showReflectFrames = showReflectFrames;
+        }
+
+        void close() {
+            closed = true;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StackFrame> action) {
+            Objects.requireNonNull(action);
+            if (closed) {
+                throw new IllegalStateException("stack walk is closed");
+            }
+            if (thread != Thread.currentThread()) {
+                throw new IllegalStateException("stack walk is not on the walking thread");
+            }
+            if (backtrace == null) {
+                backtrace = new Throwable();
+                depth = backtrace.getStackTraceDepth();
+                // skip the frames of the stream and of the function given
+                // to walk, up to and including the walk itself
+                while (index < depth &&
+                       !isWalkFrame(backtrace.getStackTraceElement(index++))) {
+                }
+            }
+            while (index < depth) {
+                StackTraceElement ste = backtrace.getStackTraceElement(index++);
+                if (showReflectFrames || !isReflectionFrame(ste)) {
+                    action.accept(new StackFrameInfo(ste));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isWalkFrame(StackTraceElement ste) {
+            String mname = ste.getMethodName();
+            return ste.getClassName().equals("java.lang.StackWalker") &&
+                   (mname.equals("walk") || mname.equals("forEach"));
+        }
+
+        private static boolean isReflectionFrame(StackTraceElement ste) {
+            String cname = ste.getClassName();
+            if (cname.startsWith("sun.reflect.")) {
+                return true;
+            }
+            String mname = ste.getMethodName();
+            return (cname.equals("java.lang.reflect.Method") && mname.equals("invoke")) ||
+                   (cname.equals("java.lang.reflect.Constructor") && mname.equals("newInstance"));
+        }
+    }
+}
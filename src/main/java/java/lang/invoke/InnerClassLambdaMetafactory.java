@@ -94,6 +94,9 @@ import static jdk.internal.org.objectweb.asm.Opcodes.*;
         dumper = (null == path) ? null : ProxyClassesDumper.getInstance(path);
     }
 
+    // For reusing classes spun by earlier runs, see LambdaClassArchive
+    private static final LambdaClassArchive archive = LambdaClassArchive.getInstance();
+
     // See context values in AbstractValidatingLambdaMetafactory
     private final String implMethodClassName;        // Name of type containing implementation "CC"
     private final String implMethodName;             // Name of implementation method "impl"
@@ -247,6 +250,15 @@ import static jdk.internal.org.objectweb.asm.Opcodes.*;
      * is not found
      */
     private Class<?> spinInnerClass() throws LambdaConversionException {
+        String archiveKey = null;
+        if (archive != null) {
+            archiveKey = archiveKey();
+            byte[] archived = archive.lookup(LambdaClassArchive.LAMBDA_PROXY, archiveKey);
+            if (archived != null) {
+                return UNSAFE.defineAnonymousClass(targetClass, archived, null);
+            }
+        }
+
         String[] interfaces;
         String samIntf = samBase.getName().replace('.', '/');
         boolean accidentallySerializable = !isSerializable && Serializable.class.isAssignableFrom(samBase);
@@ -323,9 +335,41 @@ import static jdk.internal.org.objectweb.asm.Opcodes.*;
             new PropertyPermission("user.dir", "read"));
         }
 
+        if (archiveKey != null) {
+            archive.record(LambdaClassArchive.LAMBDA_PROXY, archiveKey, classBytes);
+        }
+
         return UNSAFE.defineAnonymousClass(targetClass, classBytes, null);
     }
 
+    /**
+     * Describe everything the spun class is generated from.  Classes are
+     * identified by name only, which is all the class file refers to; the
+     * generated name itself is left out since the class is anonymous.
+     */
+    private String archiveKey() {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(targetClass.getName())
+          .append('|').append(invokedType.toMethodDescriptorString())
+          .append('|').append(samMethodName)
+          .append('|').append(samMethodType.toMethodDescriptorString())
+          .append('|').append(implInfo.getReferenceKind())
+          .append('|').append(implMethodClassName)
+          .append('|').append(implMethodName)
+          .append('|').append(implMethodDesc)
+          .append('|').append(instantiatedMethodType.toMethodDescriptorString())
+          .append('|').append(isSerializable);
+        for (Class<?> markerInterface : markerInterfaces) {
+            sb.append('|').append(markerInterface.getName());
+        }
+        if (additionalBridges != null) {
+            for (MethodType mt : additionalBridges) {
+                sb.append('|').append(mt.toMethodDescriptorString());
+            }
+        }
+        return sb.toString();
+    }
+
     /**
      * Generate the factory method for the class
      */
@@ -615,7 +615,66 @@ class InvokerBytecodeGenerator {
      */
     static MemberName generateCustomizedCode(LambdaForm form, MethodType invokerType) {
         InvokerBytecodeGenerator g = new InvokerBytecodeGenerator("MH", form, invokerType);
-        return g.loadMethod(g.generateCustomizedCodeBytes());
+        LambdaClassArchive archive = LambdaClassArchive.getInstance();
+        // Forms customized for a particular MethodHandle embed it as a
+        // constant and cannot be shared across runs.
+        if (archive == null || form.customized != null) {
+            return g.loadMethod(g.generateCustomizedCodeBytes());
+        }
+        String key = archiveKey(form, invokerType);
+        byte[] classFile = archive.lookup(LambdaClassArchive.LAMBDA_FORM, key);
+        if (classFile != null) {
+            Class<?> invokerClass = loadAndInitializeInvokerClass(classFile, null);
+            return resolveInvokerMember(invokerClass, g.invokerName, invokerType);
+        }
+        classFile = g.generateCustomizedCodeBytes();
+        if (g.cpPatches.isEmpty()) {
+            // Only self-contained class files can be archived; patched
+            // constant pool entries refer to objects of this run.
+            archive.record(LambdaClassArchive.LAMBDA_FORM, key, classFile);
+        }
+        return g.loadMethod(classFile);
+    }
+
+    /**
+     * Describe a LambdaForm for LambdaClassArchive.  A form whose compiled
+     * class needs no constant pool patches only refers to statically
+     * invocable members and to constants emitted inline, so their names
+     * and values identify the generated code.
+     */
+    private static String archiveKey(LambdaForm form, MethodType invokerType) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(invokerType.toMethodDescriptorString())
+          .append('|').append(form.debugName)
+          .append('|').append(form.arity)
+          .append('|').append(form.result)
+          .append('|').append(form.forceInline);
+        for (int i = form.arity; i < form.names.length; i++) {
+            Name name = form.names[i];
+            sb.append('|').append(name.type.basicTypeChar()).append('=');
+            MemberName member = name.function.member;
+            if (member != null) {
+                sb.append(member.getDeclaringClass().getName())
+                  .append('.').append(member.getName())
+                  .append(member.getMethodType().toMethodDescriptorString())
+                  .append('/').append(member.getReferenceKind());
+            } else {
+                sb.append(name.function.methodType().toMethodDescriptorString());
+            }
+            sb.append('(');
+            for (Object arg : name.arguments) {
+                if (arg instanceof Name) {
+                    sb.append('@').append(((Name) arg).index());
+                } else if (arg == null) {
+                    sb.append("null");
+                } else {
+                    sb.append(arg.getClass().getName()).append(':').append(arg);
+                }
+                sb.append(',');
+            }
+            sb.append(')');
+        }
+        return sb.toString();
     }
 
     /** Generates code to check that actual receiver and LambdaForm matches */
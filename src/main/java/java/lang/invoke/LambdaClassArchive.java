@@ -0,0 +1,211 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  This particular file is
+ * subject to the "Classpath" exception as provided in the LICENSE file
+ * that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package java.lang.invoke;
+
+import sun.security.action.GetPropertyAction;
+import sun.util.logging.PlatformLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilePermission;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Map;
+import java.util.PropertyPermission;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Archive of class files spun by InnerClassLambdaMetafactory and
+ * InvokerBytecodeGenerator, keyed by a description of what they were
+ * generated from.
+ *
+ * <p> When the {@code jdk.internal.lambda.archive} system property names
+ * a file, the archive is read from it at startup and generated bytes are
+ * looked up there before running ASM.  Classes that had to be generated
+ * during the run are added to the archive, which is written back when the
+ * VM exits, so the first run populates the file and later runs reuse it.
+ * The archive is discarded if it was written by a different runtime or
+ * for a different class path.
+ *
+ * <p> The bytes are defined with the privileges of their host class, so
+ * the archive file must be as trusted as the runtime itself.
+ *
+ * @implNote
+ * <p> Like ProxyClassesDumper, this class is used by LambdaMetafactory
+ * and must not use lambdas or method references itself.
+ */
+final class LambdaClassArchive {
+    private static final int MAGIC = 0x4C434152;  // "LCAR"
+    private static final int VERSION = 1;
+
+    /** Kind of an entry: a lambda proxy class or a compiled LambdaForm. */
+    static final byte LAMBDA_PROXY = 0;
+    static final byte LAMBDA_FORM  = 1;
+
+    private static final LambdaClassArchive INSTANCE;
+
+    static {
+        final String key = "jdk.internal.lambda.archive";
+        String path = AccessController.doPrivileged(
+                new GetPropertyAction(key), null,
+                new PropertyPermission(key , "read"));
+        INSTANCE = (null == path || path.trim().isEmpty())
+                ? null : new LambdaClassArchive(new File(path.trim()));
+    }
+
+    /** Returns the archive in use, or null if archiving is disabled. */
+    static LambdaClassArchive getInstance() {
+        return INSTANCE;
+    }
+
+    private final File file;
+    private final String stamp;
+    private final Map<String, byte[]> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private LambdaClassArchive(final File file) {
+        this.file = file;
+        this.stamp = AccessController.doPrivileged(new PrivilegedAction<String>() {
+            @Override
+            public String run() {
+                return System.getProperty("java.runtime.version") + '|' +
+                       System.getProperty("java.class.path");
+            }
+        });
+        AccessController.doPrivileged(new PrivilegedAction<Void>() {
+            @Override
+            public Void run() {
+                load();
+                return null;
+            }
+        }, null, new FilePermission(file.getPath(), "read"));
+    }
+
+    /**
+     * Returns the archived bytes for the given entry, or null if none.
+     */
+    byte[] lookup(byte kind, String key) {
+        return entries.get(kind + key);
+    }
+
+    /**
+     * Records bytes generated during this run.  The first class recorded
+     * schedules the archive to be written on exit.
+     */
+    void record(byte kind, String key, byte[] classBytes) {
+        if (entries.putIfAbsent(kind + key, classBytes) == null &&
+                dirty.compareAndSet(false, true)) {
+            AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                @Override
+                public Void run() {
+                    try {
+                        Runtime.getRuntime().addShutdownHook(
+                                new Thread("Lambda Class Archive Writer") {
+                            @Override
+                            public void run() {
+                                save();
+                            }
+                        });
+                    } catch (IllegalStateException e) {
+                        // shutdown in progress; this run's classes are lost
+                    }
+                    return null;
+                }
+            });
+        }
+    }
+
+    private void load() {
+        if (!file.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION ||
+                    !stamp.equals(readString(in))) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = readString(in);
+                byte[] classBytes = new byte[in.readInt()];
+                in.readFully(classBytes);
+                entries.put(key, classBytes);
+            }
+        } catch (IOException | RuntimeException e) {
+            // a truncated or corrupt archive is regenerated
+            entries.clear();
+            PlatformLogger.getLogger(LambdaClassArchive.class.getName())
+                          .warning("Ignoring unreadable lambda class archive " + file);
+        }
+    }
+
+    private void save() {
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(out, stamp);
+                // Snapshot first; classes may still be spun by other hooks
+                Object[] snapshot = entries.entrySet().toArray();
+                out.writeInt(snapshot.length);
+                for (Object o : snapshot) {
+                    @SuppressWarnings("unchecked")
+                    Map.Entry<String, byte[]> e = (Map.Entry<String, byte[]>) o;
+                    writeString(out, e.getKey());
+                    out.writeInt(e.getValue().length);
+                    out.write(e.getValue());
+                }
+            }
+            if (!tmp.renameTo(file)) {
+                file.delete();
+                if (!tmp.renameTo(file)) {
+                    throw new IOException("rename failed");
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            tmp.delete();
+            PlatformLogger.getLogger(LambdaClassArchive.class.getName())
+                          .warning("Exception writing lambda class archive " + file);
+        }
+    }
+
+    // Keys describing LambdaForms can exceed the 64K limit of writeUTF
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] b = new byte[in.readInt()];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+}
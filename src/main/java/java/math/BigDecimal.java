@@ -31,6 +31,7 @@ package java.math;
 
 import static java.math.BigInteger.LONG_MASK;
 import java.util.Arrays;
+import sun.misc.SharedSecrets;
 
 /**
  * Immutable, arbitrary-precision signed decimal numbers.  A
@@ -2445,7 +2446,9 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
                 if ((rs = longMultiplyPowerTen(rs, raise)) != INFLATED) {
                     return valueOf(rs,newScale);
                 }
-                BigInteger rb = bigMultiplyPowerTen(raise);
+                BigInteger rb = (raise < LONG_TEN_POWERS_TABLE.length) ?
+                    bigMultiply(this.intCompact, LONG_TEN_POWERS_TABLE[raise]) :
+                    bigMultiplyPowerTen(raise);
                 return new BigDecimal(rb, INFLATED, newScale, (precision > 0) ? precision + raise : 0);
             } else {
                 // newScale < oldScale -- drop some digits
@@ -2975,12 +2978,10 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
                 buf.append('0');
             return buf.toString();
         }
-        String str ;
         if(intCompact!=INFLATED) {
-            str = Long.toString(Math.abs(intCompact));
-        } else {
-            str = intVal.abs().toString();
+            return layoutCompactPlain(intCompact, scale);
         }
+        String str = intVal.abs().toString();
         return getValueString(signum(), str, scale);
     }
 
@@ -3458,14 +3459,10 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
             return (intCompact != INFLATED) ?
                 Long.toString(intCompact):
                 intVal.toString();
-        if (scale == 2  &&
-            intCompact >= 0 && intCompact < Integer.MAX_VALUE) {
-            // currency fast path
-            int lowInt = (int)intCompact % 100;
-            int highInt = (int)intCompact / 100;
-            return (Integer.toString(highInt) + '.' +
-                    StringBuilderHelper.DIGIT_TENS[lowInt] +
-                    StringBuilderHelper.DIGIT_ONES[lowInt]) ;
+        if (scale > 0 && intCompact != INFLATED &&
+            scale - longDigitLength(intCompact) <= 5) {
+            // plain compact number, including the common currency case
+            return layoutCompactPlain(intCompact, scale);
         }
 
         StringBuilderHelper sbHelper = threadLocalStringBuilderHelper.get();
@@ -3553,6 +3550,40 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
         return buf.toString();
     }
 
+    /**
+     * Lays out a compact value with a positive scale without an exponent.
+     * The characters are written right to left into an array of the exact
+     * length, which the String then takes over without copying it.
+     *
+     * @param  val the unscaled value, not {@code INFLATED}
+     * @param  scale the scale, greater than zero
+     * @return the plain string representation
+     */
+    private static String layoutCompactPlain(long val, int scale) {
+        assert val != INFLATED && scale > 0;
+        boolean negative = val < 0;
+        long v = Math.abs(val);
+        int coeffLen = longDigitLength(v);
+        int len = Math.max(coeffLen, scale + 1) + 1 + (negative ? 1 : 0);
+        char[] buf = new char[len];
+        int pos = len;
+        for (int i = 0; i < scale; i++) {
+            long q = v / 10;
+            buf[--pos] = (char) ('0' + (int) (v - q * 10));
+            v = q;
+        }
+        buf[--pos] = '.';
+        do {
+            long q = v / 10;
+            buf[--pos] = (char) ('0' + (int) (v - q * 10));
+            v = q;
+        } while (v != 0);
+        if (negative)
+            buf[--pos] = '-';
+        assert pos == 0;
+        return SharedSecrets.getJavaLangAccess().newStringUnsafe(buf);
+    }
+
     /**
      * Return 10 to the power n, as a {@code BigInteger}.
      *
@@ -3720,6 +3751,22 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
         return intVal;
     }
 
+    /**
+     * Returns the compact unscaled value, or {@code INFLATED} if the
+     * unscaled value is only held as a BigInteger.
+     */
+    long compactValue() {
+        return intCompact;
+    }
+
+    /**
+     * Returns the unscaled value as a BigInteger if it is not compact,
+     * otherwise {@code null}.
+     */
+    BigInteger inflatedValue() {
+        return (intCompact == INFLATED) ? intVal : null;
+    }
+
     /**
      * Match the scales of two {@code BigDecimal}s to align their
      * least significant digits.
@@ -4470,6 +4517,8 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
             long scaledX = longMultiplyPowerTen(xs, raise);
             if (scaledX != INFLATED) {
                 return add(scaledX, ys, scale2);
+            } else if (raise < LONG_TEN_POWERS_TABLE.length) {
+                return multiplyAdd128(xs, LONG_TEN_POWERS_TABLE[raise], ys, scale2);
             } else {
                 BigInteger bigsum = bigMultiplyPowerTen(xs,raise).add(ys);
                 return ((xs^ys)>=0) ? // same sign test
@@ -4481,6 +4530,8 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
             long scaledY = longMultiplyPowerTen(ys, raise);
             if (scaledY != INFLATED) {
                 return add(xs, scaledY, scale1);
+            } else if (raise < LONG_TEN_POWERS_TABLE.length) {
+                return multiplyAdd128(ys, LONG_TEN_POWERS_TABLE[raise], xs, scale1);
             } else {
                 BigInteger bigsum = bigMultiplyPowerTen(ys,raise).add(xs);
                 return ((xs^ys)>=0) ?
@@ -4490,6 +4541,34 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
         }
     }
 
+    /**
+     * Returns {@code x * tenPower + y} with the given scale.  The sum is
+     * computed in 128 bits, so it is only inflated when it does not fit
+     * in a long, and then without intermediate BigIntegers.
+     */
+    private static BigDecimal multiplyAdd128(long x, long tenPower, long y, int scale) {
+        assert tenPower > 0;
+        long ax = Math.abs(x);
+        long hi = unsignedMultiplyHigh(ax, tenPower);
+        long lo = ax * tenPower;
+        if (x < 0) {
+            lo = -lo;
+            hi = (lo == 0) ? -hi : ~hi;
+        }
+        long sum = lo + y;
+        hi += (y >> 63) + ((sum + Long.MIN_VALUE < lo + Long.MIN_VALUE) ? 1 : 0);
+        if (hi == (sum >> 63)) {
+            return valueOf(sum, scale);
+        }
+        int sign = 1;
+        if (hi < 0) {
+            sign = -1;
+            sum = -sum;
+            hi = (sum == 0) ? -hi : ~hi;
+        }
+        return new BigDecimal(bigIntegerOf128(hi, sum, sign), INFLATED, scale, 0);
+    }
+
     private static BigDecimal add(final long xs, int scale1, BigInteger snd, int scale2) {
         int rscale = scale1;
         long sdiff = (long)rscale - scale2;
@@ -5063,7 +5142,49 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
         if(product!=INFLATED) {
             return valueOf(product,scale);
         }
-        return new BigDecimal(BigInteger.valueOf(x).multiply(y),INFLATED,scale,0);
+        return new BigDecimal(bigMultiply(x, y),INFLATED,scale,0);
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product of two
+     * longs.
+     */
+    static long unsignedMultiplyHigh(long x, long y) {
+        long x0 = x & LONG_MASK;
+        long x1 = x >>> 32;
+        long y0 = y & LONG_MASK;
+        long y1 = y >>> 32;
+        long p01 = x0 * y1;
+        long middle = x1 * y0 + ((x0 * y0) >>> 32) + (p01 & LONG_MASK);
+        return x1 * y1 + (middle >>> 32) + (p01 >>> 32);
+    }
+
+    /**
+     * Returns the exact product of two longs, building the BigInteger
+     * from the 128-bit product instead of multiplying BigIntegers.
+     */
+    private static BigInteger bigMultiply(long x, long y) {
+        // Math.abs(Long.MIN_VALUE) is 2^63 when read as unsigned.
+        long ax = Math.abs(x);
+        long ay = Math.abs(y);
+        return bigIntegerOf128(unsignedMultiplyHigh(ax, ay), ax * ay,
+                               ((x ^ y) < 0) ? -1 : 1);
+    }
+
+    /**
+     * Returns a BigInteger with the given sign and the unsigned 128-bit
+     * magnitude {@code hi:lo}.
+     */
+    static BigInteger bigIntegerOf128(long hi, long lo, int sign) {
+        int[] mag = {(int)(hi >>> 32), (int)hi, (int)(lo >>> 32), (int)lo};
+        int keep = 0;
+        while (keep < mag.length && mag[keep] == 0)
+            keep++;
+        if (keep == mag.length)
+            return BigInteger.ZERO;
+        if (keep > 0)
+            mag = Arrays.copyOfRange(mag, keep, mag.length);
+        return new BigInteger(mag, sign);
     }
 
     private static BigDecimal multiply(long x, BigInteger y, int scale) {
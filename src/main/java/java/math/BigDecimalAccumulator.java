@@ -0,0 +1,269 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  This particular file is
+ * subject to the "Classpath" exception as provided in the LICENSE file
+ * that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package java.math;
+
+/**
+ * A mutable running sum of {@code BigDecimal} values.  Adding a sequence
+ * of values with {@link BigDecimal#add(BigDecimal)} creates a new
+ * {@code BigDecimal} for every partial sum; this class keeps the partial
+ * sum as a 128-bit unscaled value and a scale instead, so that adding
+ * values whose unscaled values fit in 128 bits does not allocate.  Once
+ * the sum no longer fits, it is carried on as a {@code BigDecimal}.
+ *
+ * <p>The value returned by {@link #toBigDecimal()} is equal, with the same
+ * scale, to the result of adding all the values in turn to
+ * {@link BigDecimal#ZERO} with {@code BigDecimal.add}.  In particular the
+ * scale of the sum is the largest of zero and the scales of the values
+ * added.
+ *
+ * <p>This class is not safe for use by multiple threads without external
+ * synchronization.
+ *
+ * @see BigDecimal#add(BigDecimal)
+ */
+public final class BigDecimalAccumulator {
+
+    /** Largest power of ten that fits in a long. */
+    private static final int MAX_LONG_TEN_POWER = 18;
+
+    // The sum as a two's complement 128-bit unscaled value hi:lo and a
+    // scale, used while overflow is null.
+    private long hi;
+    private long lo;
+    private int scale;
+
+    // The sum once it no longer fits in 128 bits.
+    private BigDecimal overflow;
+
+    // Result of the last successful multiplyPowerTen.
+    private long productHi;
+    private long productLo;
+
+    /**
+     * Creates a new accumulator with a sum of zero.
+     */
+    public BigDecimalAccumulator() {
+    }
+
+    /**
+     * Adds a value to the sum.
+     *
+     * @param  augend value to be added.
+     * @return this accumulator.
+     */
+    public BigDecimalAccumulator add(BigDecimal augend) {
+        return add(augend, false);
+    }
+
+    /**
+     * Subtracts a value from the sum.
+     *
+     * @param  subtrahend value to be subtracted.
+     * @return this accumulator.
+     */
+    public BigDecimalAccumulator subtract(BigDecimal subtrahend) {
+        return add(subtrahend, true);
+    }
+
+    /**
+     * Adds the value <tt>(unscaledVal &times; 10<sup>-scale</sup>)</tt> to the sum,
+     * without creating a {@code BigDecimal} for it.
+     *
+     * @param  unscaledVal unscaled value of the value to be added.
+     * @param  scale scale of the value to be added.
+     * @return this accumulator.
+     */
+    public BigDecimalAccumulator add(long unscaledVal, int scale) {
+        if (overflow != null) {
+            overflow = overflow.add(BigDecimal.valueOf(unscaledVal, scale));
+        } else {
+            add128(unscaledVal >> 63, unscaledVal, scale);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the sum as a {@code BigDecimal}.
+     *
+     * @return the sum of the values added so far.
+     */
+    public BigDecimal toBigDecimal() {
+        if (overflow != null) {
+            return overflow;
+        }
+        return valueOf128(hi, lo, scale);
+    }
+
+    /**
+     * Resets the sum to zero.
+     */
+    public void reset() {
+        hi = 0;
+        lo = 0;
+        scale = 0;
+        overflow = null;
+    }
+
+    /**
+     * Returns the string representation of the sum, as given by
+     * {@link BigDecimal#toString()}.
+     *
+     * @return the string representation of the sum.
+     */
+    @Override
+    public String toString() {
+        return toBigDecimal().toString();
+    }
+
+    private BigDecimalAccumulator add(BigDecimal val, boolean negate) {
+        if (overflow != null) {
+            overflow = negate ? overflow.subtract(val) : overflow.add(val);
+            return this;
+        }
+        long vhi, vlo;
+        long compact = val.compactValue();
+        if (compact != BigDecimal.INFLATED) {
+            vhi = compact >> 63;
+            vlo = compact;
+        } else {
+            BigInteger v = val.inflatedValue();
+            int[] mag = v.mag;
+            if (mag.length > 4 || (mag.length == 4 && mag[0] < 0)) {
+                // Does not fit in a signed 128-bit value.
+                overflow = valueOf128(hi, lo, scale);
+                overflow = negate ? overflow.subtract(val) : overflow.add(val);
+                return this;
+            }
+            vhi = 0;
+            vlo = 0;
+            for (int i = 0; i < mag.length; i++) {
+                vhi = (vhi << 32) | (vlo >>> 32);
+                vlo = (vlo << 32) | (mag[i] & BigInteger.LONG_MASK);
+            }
+            if (v.signum < 0) {
+                vlo = -vlo;
+                vhi = (vlo == 0) ? -vhi : ~vhi;
+            }
+        }
+        if (negate) {
+            vlo = -vlo;
+            vhi = (vlo == 0) ? -vhi : ~vhi;
+        }
+        add128(vhi, vlo, val.scale());
+        return this;
+    }
+
+    /**
+     * Adds the 128-bit value vhi:vlo with the given scale to the sum,
+     * switching to the BigDecimal representation on overflow.
+     */
+    private void add128(long vhi, long vlo, int vscale) {
+        long diff = (long) vscale - scale;
+        if (diff > 0) {
+            // Bring the sum to the larger scale.
+            if (!multiplyPowerTen(hi, lo, diff)) {
+                inflate(vhi, vlo, vscale);
+                return;
+            }
+            hi = productHi;
+            lo = productLo;
+            scale = vscale;
+        } else if (diff < 0) {
+            // Bring the value to the scale of the sum.
+            if (!multiplyPowerTen(vhi, vlo, -diff)) {
+                inflate(vhi, vlo, vscale);
+                return;
+            }
+            vhi = productHi;
+            vlo = productLo;
+        }
+        long sum = lo + vlo;
+        long carry = (sum + Long.MIN_VALUE < lo + Long.MIN_VALUE) ? 1 : 0;
+        long h = hi + vhi + carry;
+        if (((h ^ hi) & (h ^ vhi)) < 0) {
+            inflate(vhi, vlo, scale);
+            return;
+        }
+        hi = h;
+        lo = sum;
+    }
+
+    /**
+     * Multiplies the 128-bit value xhi:xlo by 10^n, n > 0, and leaves the
+     * result in productHi:productLo.  Returns false if the result does not
+     * fit in 128 bits.
+     */
+    private boolean multiplyPowerTen(long xhi, long xlo, long n) {
+        boolean negative = xhi < 0;
+        if (negative) {
+            xlo = -xlo;
+            xhi = (xlo == 0) ? -xhi : ~xhi;
+        }
+        while (n > 0 && (xhi != 0 || xlo != 0)) {
+            int k = (int) Math.min(n, MAX_LONG_TEN_POWER);
+            long p = tenToThe(k);
+            // xhi:xlo * p; the high half must stay below 2^63
+            long lhi = BigDecimal.unsignedMultiplyHigh(xlo, p);
+            long hhi = BigDecimal.unsignedMultiplyHigh(xhi, p);
+            long hlo = xhi * p;
+            long rhi = hlo + lhi;
+            if (hhi != 0 || rhi + Long.MIN_VALUE < hlo + Long.MIN_VALUE || rhi < 0) {
+                return false;
+            }
+            xhi = rhi;
+            xlo = xlo * p;
+            n -= k;
+        }
+        if (negative) {
+            xlo = -xlo;
+            xhi = (xlo == 0) ? -xhi : ~xhi;
+        }
+        productHi = xhi;
+        productLo = xlo;
+        return true;
+    }
+
+    private static long tenToThe(int n) {
+        long p = 1;
+        while (n-- > 0) {
+            p *= 10;
+        }
+        return p;
+    }
+
+    /**
+     * Switches to the BigDecimal representation, with the value vhi:vlo at
+     * the given scale added to the current sum.
+     */
+    private void inflate(long vhi, long vlo, int vscale) {
+        overflow = valueOf128(hi, lo, scale).add(valueOf128(vhi, vlo, vscale));
+    }
+
+    private static BigDecimal valueOf128(long hi, long lo, int scale) {
+        if (hi == (lo >> 63)) {
+            return BigDecimal.valueOf(lo, scale);
+        }
+        int sign = 1;
+        if (hi < 0) {
+            sign = -1;
+            lo = -lo;
+            hi = (lo == 0) ? -hi : ~hi;
+        }
+        return new BigDecimal(BigDecimal.bigIntegerOf128(hi, lo, sign), scale);
+    }
+}
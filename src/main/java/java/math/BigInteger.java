@@ -35,6 +35,9 @@ import java.io.ObjectOutputStream;
 import java.io.ObjectStreamField;
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
 import sun.misc.DoubleConsts;
 import sun.misc.FloatConsts;
@@ -284,6 +287,30 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      */
     private static final int MONTGOMERY_INTRINSIC_THRESHOLD = 512;
 
+    /**
+     * The threshold value for using Schoenhage-Strassen multiplication.
+     * If the number of ints in both mag arrays are greater than this
+     * number, then Schoenhage-Strassen multiplication will be used instead
+     * of Toom-Cook.  This value is found experimentally to work well.
+     */
+    private static final int SCHOENHAGE_STRASSEN_THRESHOLD = 1 << 14;
+
+    /**
+     * The threshold value for using recursive base conversion when parsing
+     * a String.  If the number of digits in the String is larger than this
+     * value, the digits are split in halves which are converted separately
+     * and combined with one multiplication.
+     */
+    private static final int SCHOENHAGE_PARSE_THRESHOLD = 1 << 11;
+
+    /**
+     * The threshold value for converting the halves of a number to or from
+     * a String in parallel.  If the number of ints in the number are larger
+     * than this value and the common pool has more than one thread, the
+     * halves of the recursive base conversion are processed concurrently.
+     */
+    private static final int PARALLEL_RADIX_CONVERSION_THRESHOLD = 1 << 13;
+
 
     // Constructors
 
@@ -459,6 +486,18 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
         if (numBits + 31 >= (1L << 32)) {
             reportOverflow();
         }
+
+        // Very long inputs are converted recursively, which is
+        // subquadratic.  Invalid input takes the path below so that it
+        // fails with the usual exception.
+        if (numDigits >= SCHOENHAGE_PARSE_THRESHOLD &&
+            isValidDigits(val, cursor, len, radix)) {
+            mag = parse(val, cursor, len, radix).mag;
+            if (mag.length >= MAX_MAG_LENGTH) {
+                checkRange();
+            }
+            return;
+        }
         int numWords = (int) (numBits + 31) >>> 5;
         int[] magnitude = new int[numWords];
 
@@ -488,6 +527,19 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
         }
     }
 
+    /**
+     * Returns true if every character of {@code val[from, to)} is a digit
+     * in the given radix.
+     */
+    private static boolean isValidDigits(String val, int from, int to, int radix) {
+        for (int i = from; i < to; i++) {
+            if (Character.digit(val.charAt(i), radix) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /*
      * Constructs a new BigInteger using a char array with radix=10.
      * Sign is precalculated outside and not allowed in the val.
@@ -1490,7 +1542,33 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * @return {@code this * val}
      */
     public BigInteger multiply(BigInteger val) {
-        return multiply(val, false);
+        return multiply(val, false, false, 0);
+    }
+
+    /**
+     * Returns a BigInteger whose value is {@code (this * val)}.
+     * When both {@code this} and {@code val} are large, typically
+     * in the thousands of bits, parallel multiply might be used.
+     * This method returns the exact same mathematical result as
+     * {@link #multiply}.
+     *
+     * @implNote This implementation may offer better algorithmic
+     * performance when {@code val == this}.
+     *
+     * @implNote Compared to {@link #multiply}, an implementation's
+     * parallel multiplication algorithm would typically use more
+     * CPU resources to compute the result faster, and may do so
+     * with a slight increase in memory consumption.  The subproducts
+     * are computed in the {@link ForkJoinPool#commonPool() common pool},
+     * or in the pool of the calling thread if it is a
+     * {@link ForkJoinWorkerThread}.
+     *
+     * @param  val value to be multiplied by this BigInteger.
+     * @return {@code this * val}
+     * @see #multiply
+     */
+    public BigInteger parallelMultiply(BigInteger val) {
+        return multiply(val, false, true, 0);
     }
 
     /**
@@ -1499,16 +1577,19 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      *
      * @param  val value to be multiplied by this BigInteger.
      * @param  isRecursion whether this is a recursive invocation
+     * @param  parallel whether the subproducts may be computed in parallel
+     * @param  depth the recursion depth, used to limit forking
      * @return {@code this * val}
      */
-    private BigInteger multiply(BigInteger val, boolean isRecursion) {
+    private BigInteger multiply(BigInteger val, boolean isRecursion,
+                                boolean parallel, int depth) {
         if (val.signum == 0 || signum == 0)
             return ZERO;
 
         int xlen = mag.length;
 
         if (val == this && xlen > MULTIPLY_SQUARE_THRESHOLD) {
-            return square();
+            return square(isRecursion, parallel, depth);
         }
 
         int ylen = val.mag.length;
@@ -1586,11 +1667,128 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
                     }
                 }
 
-                return multiplyToomCook3(this, val);
+                if ((xlen >= SCHOENHAGE_STRASSEN_THRESHOLD) &&
+                    (ylen >= SCHOENHAGE_STRASSEN_THRESHOLD)) {
+                    return multiplySchoenhageStrassen(this, val, parallel, depth);
+                }
+                return multiplyToomCook3(this, val, parallel, depth);
             }
         }
     }
 
+    /**
+     * A task computing part of a parallel multiplication or base
+     * conversion.  Tasks are only forked while the recursion depth is
+     * below a limit derived from the parallelism of the pool; beyond it,
+     * or when not running in parallel, they are computed directly.
+     */
+    @SuppressWarnings("serial")
+    private static abstract class RecursiveOp<V> extends RecursiveTask<V> {
+        /**
+         * The maximum recursion depth at which subproducts are forked to
+         * the common pool.  Every level of Toom-Cook recursion multiplies
+         * the number of tasks by five, so the depth only needs to grow
+         * with the logarithm of the parallelism.
+         */
+        private static final int PARALLEL_FORK_DEPTH_THRESHOLD =
+            calculateMaximumDepth(ForkJoinPool.getCommonPoolParallelism());
+
+        private static int calculateMaximumDepth(int parallelism) {
+            return 32 - Integer.numberOfLeadingZeros(parallelism);
+        }
+
+        private static int getParallelForkDepthThreshold() {
+            Thread t = Thread.currentThread();
+            if (t instanceof ForkJoinWorkerThread) {
+                return calculateMaximumDepth(
+                    ((ForkJoinWorkerThread) t).getPool().getParallelism());
+            }
+            return PARALLEL_FORK_DEPTH_THRESHOLD;
+        }
+
+        /**
+         * Returns true if base conversions of numbers with the given
+         * number of ints should process their halves in parallel.
+         */
+        static boolean parallelConversion(int ints) {
+            return ints >= PARALLEL_RADIX_CONVERSION_THRESHOLD &&
+                ForkJoinPool.getCommonPoolParallelism() > 1;
+        }
+
+        private final boolean parallel;
+        private final int depth;
+
+        RecursiveOp(boolean parallel, int depth) {
+            this.parallel = parallel;
+            this.depth = depth;
+        }
+
+        final RecursiveTask<V> forkOrInvoke() {
+            if (parallel && depth <= getParallelForkDepthThreshold()) {
+                fork();
+            } else {
+                invoke();
+            }
+            return this;
+        }
+
+        static RecursiveTask<BigInteger> multiply(final BigInteger a,
+                                                  final BigInteger b,
+                                                  boolean parallel,
+                                                  int depth) {
+            return new RecursiveOp<BigInteger>(parallel, depth) {
+                private static final long serialVersionUID = 0L;
+
+                @Override
+                protected BigInteger compute() {
+                    return a.multiply(b, true, parallel, depth);
+                }
+            }.forkOrInvoke();
+        }
+
+        static RecursiveTask<BigInteger> square(final BigInteger a,
+                                                boolean parallel,
+                                                int depth) {
+            return new RecursiveOp<BigInteger>(parallel, depth) {
+                private static final long serialVersionUID = 0L;
+
+                @Override
+                protected BigInteger compute() {
+                    return a.square(true, parallel, depth);
+                }
+            }.forkOrInvoke();
+        }
+
+        static RecursiveTask<String> convertToString(final BigInteger u,
+                                                     final int radix,
+                                                     final int digits) {
+            return new RecursiveOp<String>(true, 0) {
+                private static final long serialVersionUID = 0L;
+
+                @Override
+                protected String compute() {
+                    StringBuilder sb = new StringBuilder();
+                    BigInteger.toString(u, sb, radix, digits);
+                    return sb.toString();
+                }
+            }.forkOrInvoke();
+        }
+
+        static RecursiveTask<BigInteger> convertFromString(final String val,
+                                                       final int from,
+                                                       final int to,
+                                                       final int radix) {
+            return new RecursiveOp<BigInteger>(true, 0) {
+                private static final long serialVersionUID = 0L;
+
+                @Override
+                protected BigInteger compute() {
+                    return BigInteger.parse(val, from, to, radix);
+                }
+            }.forkOrInvoke();
+        }
+    }
+
     private static BigInteger multiplyByInt(int[] x, int y, int sign) {
         if (Integer.bitCount(y) == 1) {
             return new BigInteger(shiftLeft(x,Integer.numberOfTrailingZeros(y)), sign);
@@ -1762,7 +1960,8 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * LNCS #4547. Springer, Madrid, Spain, June 21-22, 2007.
      *
      */
-    private static BigInteger multiplyToomCook3(BigInteger a, BigInteger b) {
+    private static BigInteger multiplyToomCook3(BigInteger a, BigInteger b,
+                                                boolean parallel, int depth) {
         int alen = a.mag.length;
         int blen = b.mag.length;
 
@@ -1786,16 +1985,26 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
 
         BigInteger v0, v1, v2, vm1, vinf, t1, t2, tm1, da1, db1;
 
-        v0 = a0.multiply(b0, true);
+        // The five subproducts are independent; all but v0 are forked
+        // when multiplying in parallel and v0 is computed meanwhile.
         da1 = a2.add(a0);
         db1 = b2.add(b0);
-        vm1 = da1.subtract(a1).multiply(db1.subtract(b1), true);
+        RecursiveTask<BigInteger> vm1Task = RecursiveOp.multiply(
+            da1.subtract(a1), db1.subtract(b1), parallel, depth + 1);
         da1 = da1.add(a1);
         db1 = db1.add(b1);
-        v1 = da1.multiply(db1, true);
-        v2 = da1.add(a2).shiftLeft(1).subtract(a0).multiply(
-             db1.add(b2).shiftLeft(1).subtract(b0), true);
-        vinf = a2.multiply(b2, true);
+        RecursiveTask<BigInteger> v1Task = RecursiveOp.multiply(
+            da1, db1, parallel, depth + 1);
+        RecursiveTask<BigInteger> v2Task = RecursiveOp.multiply(
+            da1.add(a2).shiftLeft(1).subtract(a0),
+            db1.add(b2).shiftLeft(1).subtract(b0), parallel, depth + 1);
+        RecursiveTask<BigInteger> vinfTask = RecursiveOp.multiply(
+            a2, b2, parallel, depth + 1);
+        v0 = a0.multiply(b0, true, parallel, depth + 1);
+        vm1 = vm1Task.join();
+        v1 = v1Task.join();
+        v2 = v2Task.join();
+        vinf = vinfTask.join();
 
         // The algorithm requires two divisions by 2 and one by 3.
         // All divisions are known to be exact, that is, they do not produce
@@ -1824,6 +2033,206 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
     }
 
 
+    /**
+     * Multiplies two BigIntegers using the Schoenhage-Strassen algorithm.
+     * Each number is cut into pieces which are treated as the coefficients
+     * of a polynomial; the polynomials are multiplied by a number-theoretic
+     * transform modulo a Fermat number {@code 2^n + 1}, where multiplying
+     * by a root of unity is a shift.  The cost is about
+     * O(n log n log log n), asymptotically better than Toom-Cook, but the
+     * transforms only pay for themselves on very large numbers.
+     *
+     * The pointwise products are independent and are forked when
+     * multiplying in parallel.  Squaring is recognized by {@code a == b}
+     * and transforms only once.
+     *
+     * See: Schoenhage, A. and Strassen, V., "Schnelle Multiplikation
+     * grosser Zahlen", Computing 7 (1971), pp. 281-292.
+     */
+    private static BigInteger multiplySchoenhageStrassen(BigInteger a, BigInteger b,
+                                                         boolean parallel, int depth) {
+        boolean square = (a == b);
+        int alen = a.mag.length;
+        int blen = b.mag.length;
+
+        // Use 2^k pieces of pieceInts ints each.  Each number uses at most
+        // half of the pieces, so the cyclic convolution does not wrap.
+        long productBits = 32L * (alen + blen);
+        int k = (64 - Long.numberOfLeadingZeros(productBits)) / 2 - 1;
+        int pieces = 1 << k;
+        int pieceInts = (Math.max(alen, blen) + (pieces >>> 1) - 1) / (pieces >>> 1);
+
+        // The coefficients of the product are less than
+        // 2^(64*pieceInts + k - 1) and must fit below 2^n + 1. For 2 to
+        // have order 2n, a multiple of the number of pieces, n must also
+        // be a multiple of pieces / 2.
+        int unit = Math.max(32, pieces >>> 1);
+        int n = (64 * pieceInts + k + unit - 1) / unit * unit;
+        int nInts = n >>> 5;
+        BigInteger fermat = ONE.shiftLeft(n).add(ONE);
+        int omega = 2 * n / pieces;  // 2^omega is a primitive root of unity
+
+        BigInteger[] ca = getFermatPieces(a.mag, pieceInts, pieces);
+        fermatTransform(ca, omega, n, false, fermat);
+        BigInteger[] cb;
+        if (square) {
+            cb = ca;
+        } else {
+            cb = getFermatPieces(b.mag, pieceInts, pieces);
+            fermatTransform(cb, omega, n, false, fermat);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        RecursiveTask<BigInteger>[] tasks = new RecursiveTask[pieces];
+        for (int i = 0; i < pieces; i++) {
+            tasks[i] = square ?
+                RecursiveOp.square(ca[i], parallel, depth + 1) :
+                RecursiveOp.multiply(ca[i], cb[i], parallel, depth + 1);
+        }
+        BigInteger[] c = new BigInteger[pieces];
+        for (int i = 0; i < pieces; i++) {
+            BigInteger p = tasks[i].join();
+            c[i] = fermatNormalize(p.getLower(nInts).subtract(p.getUpper(nInts)), fermat);
+        }
+        fermatTransform(c, omega, n, true, fermat);
+
+        // Divide by the number of pieces and add up the coefficients.
+        int[] result = new int[alen + blen];
+        for (int i = 0; i < pieces; i++) {
+            BigInteger ci = fermatShift(c[i], 2 * n - k, nInts, fermat);
+            if (ci.signum != 0) {
+                addShifted(result, ci.mag, i * pieceInts);
+            }
+        }
+        result = trustedStripLeadingZeroInts(result);
+        return new BigInteger(result, a.signum == b.signum ? 1 : -1);
+    }
+
+    /**
+     * Cuts a magnitude into {@code count} pieces of {@code pieceInts} ints,
+     * the least significant first.
+     */
+    private static BigInteger[] getFermatPieces(int[] mag, int pieceInts, int count) {
+        BigInteger[] pieces = new BigInteger[count];
+        int len = mag.length;
+        for (int i = 0; i < count; i++) {
+            int to = len - i * pieceInts;
+            if (to <= 0) {
+                pieces[i] = ZERO;
+            } else {
+                int[] slice = Arrays.copyOfRange(mag, Math.max(0, to - pieceInts), to);
+                pieces[i] = new BigInteger(trustedStripLeadingZeroInts(slice), 1);
+            }
+        }
+        return pieces;
+    }
+
+    /**
+     * In-place iterative number-theoretic transform of residues modulo
+     * {@code fermat = 2^n + 1}, with {@code 2^omega} as the root of unity.
+     * The inverse transform is not scaled.
+     */
+    private static void fermatTransform(BigInteger[] a, int omega, int n,
+                                        boolean inverse, BigInteger fermat) {
+        int len = a.length;
+        int nInts = n >>> 5;
+
+        // Bit-reversal permutation.
+        for (int i = 1, j = 0; i < len; i++) {
+            int bit = len >>> 1;
+            for (; (j & bit) != 0; bit >>>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                BigInteger t = a[i];
+                a[i] = a[j];
+                a[j] = t;
+            }
+        }
+
+        for (int m = 2; m <= len; m <<= 1) {
+            int half = m >>> 1;
+            int step = (len / m) * omega;
+            for (int s = 0; s < len; s += m) {
+                for (int j = 0; j < half; j++) {
+                    int e = j * step;
+                    if (inverse && e != 0) {
+                        e = 2 * n - e;
+                    }
+                    BigInteger u = a[s + j];
+                    BigInteger t = a[s + j + half];
+                    if (e != 0) {
+                        t = fermatShift(t, e, nInts, fermat);
+                    }
+                    a[s + j] = fermatNormalize(u.add(t), fermat);
+                    a[s + j + half] = fermatNormalize(u.subtract(t), fermat);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns {@code x * 2^s mod fermat}, where {@code fermat = 2^n + 1},
+     * {@code n = 32 * nInts}, {@code 0 <= x < fermat} and
+     * {@code 0 <= s < 2n}.
+     */
+    private static BigInteger fermatShift(BigInteger x, int s, int nInts,
+                                          BigInteger fermat) {
+        if (x.signum == 0) {
+            return x;
+        }
+        int n = nInts << 5;
+        boolean negate = false;
+        if (s >= n) {
+            // 2^n is -1 modulo 2^n + 1
+            s -= n;
+            negate = true;
+        }
+        BigInteger y = x.shiftLeft(s);
+        BigInteger r = y.getLower(nInts).subtract(y.getUpper(nInts));
+        if (r.signum < 0) {
+            r = r.add(fermat);
+        }
+        if (negate && r.signum != 0) {
+            r = fermat.subtract(r);
+        }
+        return r;
+    }
+
+    /**
+     * Brings {@code -fermat < x < 2 * fermat} into the range
+     * {@code [0, fermat)}.
+     */
+    private static BigInteger fermatNormalize(BigInteger x, BigInteger fermat) {
+        if (x.signum < 0) {
+            return x.add(fermat);
+        }
+        if (x.compareTo(fermat) >= 0) {
+            return x.subtract(fermat);
+        }
+        return x;
+    }
+
+    /**
+     * Adds the magnitude {@code x} shifted left by {@code offset} ints to
+     * the magnitude {@code result} in place.  The sum must fit.
+     */
+    private static void addShifted(int[] result, int[] x, int offset) {
+        int i = result.length - 1 - offset;
+        long carry = 0;
+        for (int j = x.length - 1; j >= 0; j--, i--) {
+            long sum = (result[i] & LONG_MASK) + (x[j] & LONG_MASK) + carry;
+            result[i] = (int) sum;
+            carry = sum >>> 32;
+        }
+        for (; carry != 0; i--) {
+            long sum = (result[i] & LONG_MASK) + carry;
+            result[i] = (int) sum;
+            carry = sum >>> 32;
+        }
+    }
+
     /**
      * Returns a slice of a BigInteger for use in Toom-Cook multiplication.
      *
@@ -1961,7 +2370,7 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * @return {@code this<sup>2</sup>}
      */
     private BigInteger square() {
-        return square(false);
+        return square(false, false, 0);
     }
 
     /**
@@ -1969,9 +2378,11 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * the invocation is recursive certain overflow checks are skipped.
      *
      * @param isRecursion whether this is a recursive invocation
+     * @param parallel whether the subproducts may be computed in parallel
+     * @param depth the recursion depth, used to limit forking
      * @return {@code this<sup>2</sup>}
      */
-    private BigInteger square(boolean isRecursion) {
+    private BigInteger square(boolean isRecursion, boolean parallel, int depth) {
         if (signum == 0) {
             return ZERO;
         }
@@ -1993,7 +2404,10 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
                     }
                 }
 
-                return squareToomCook3();
+                if (len >= SCHOENHAGE_STRASSEN_THRESHOLD) {
+                    return multiplySchoenhageStrassen(this, this, parallel, depth);
+                }
+                return squareToomCook3(parallel, depth);
             }
         }
     }
@@ -2126,7 +2540,7 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
      * that has better asymptotic performance than the algorithm used in
      * squareToLen or squareKaratsuba.
      */
-    private BigInteger squareToomCook3() {
+    private BigInteger squareToomCook3(boolean parallel, int depth) {
         int len = mag.length;
 
         // k is the size (in ints) of the lower-order slices.
@@ -2143,13 +2557,21 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
         a0 = getToomSlice(k, r, 2, len);
         BigInteger v0, v1, v2, vm1, vinf, t1, t2, tm1, da1;
 
-        v0 = a0.square(true);
         da1 = a2.add(a0);
-        vm1 = da1.subtract(a1).square(true);
+        RecursiveTask<BigInteger> vm1Task = RecursiveOp.square(
+            da1.subtract(a1), parallel, depth + 1);
         da1 = da1.add(a1);
-        v1 = da1.square(true);
-        vinf = a2.square(true);
-        v2 = da1.add(a2).shiftLeft(1).subtract(a0).square(true);
+        RecursiveTask<BigInteger> v1Task = RecursiveOp.square(
+            da1, parallel, depth + 1);
+        RecursiveTask<BigInteger> vinfTask = RecursiveOp.square(
+            a2, parallel, depth + 1);
+        RecursiveTask<BigInteger> v2Task = RecursiveOp.square(
+            da1.add(a2).shiftLeft(1).subtract(a0), parallel, depth + 1);
+        v0 = a0.square(true, parallel, depth + 1);
+        vm1 = vm1Task.join();
+        v1 = v1Task.join();
+        vinf = vinfTask.join();
+        v2 = v2Task.join();
 
         // The algorithm requires two divisions by 2 and one by 3.
         // All divisions are known to be exact, that is, they do not produce
@@ -3877,8 +4299,8 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
             String s = u.smallToString(radix);
 
             // Pad with internal zeros if necessary.
-            // Don't pad if we're at the beginning of the string.
-            if ((s.length() < digits) && (sb.length() > 0)) {
+            // The leading part always has digits <= 0 and is not padded.
+            if (s.length() < digits) {
                 for (int i=s.length(); i < digits; i++) { // May be a faster way to
                     sb.append('0');                    // do this?
                 }
@@ -3901,9 +4323,43 @@ public class BigInteger extends Number implements Comparable<BigInteger> {
 
         int expectedDigits = 1 << n;
 
-        // Now recursively build the two halves of each number.
-        toString(results[0], sb, radix, digits-expectedDigits);
-        toString(results[1], sb, radix, expectedDigits);
+        // Now recursively build the two halves of each number, the
+        // lower half concurrently if the number is large enough.
+        if (RecursiveOp.parallelConversion(u.mag.length)) {
+            RecursiveTask<String> lower =
+                RecursiveOp.convertToString(results[1], radix, expectedDigits);
+            toString(results[0], sb, radix, digits-expectedDigits);
+            sb.append(lower.join());
+        } else {
+            toString(results[0], sb, radix, digits-expectedDigits);
+            toString(results[1], sb, radix, expectedDigits);
+        }
+    }
+
+    /**
+     * Parses the digits {@code val[from, to)}, which are known to be valid
+     * in the given radix, into a non-negative BigInteger.  Large inputs are
+     * split so that the lower part has {@code 2^n} digits; the halves are
+     * converted recursively and combined as {@code upper * radix^(2^n) +
+     * lower}, the reverse of the Schoenhage conversion in toString.
+     */
+    private static BigInteger parse(String val, int from, int to, int radix) {
+        int numDigits = to - from;
+        if (numDigits < SCHOENHAGE_PARSE_THRESHOLD) {
+            return new BigInteger(val.substring(from, to), radix);
+        }
+
+        int n = 31 - Integer.numberOfLeadingZeros(numDigits - 1);
+        int mid = to - (1 << n);
+        BigInteger power = getRadixConversionCache(radix, n);
+        if (RecursiveOp.parallelConversion(power.mag.length)) {
+            RecursiveTask<BigInteger> lower =
+                RecursiveOp.convertFromString(val, mid, to, radix);
+            BigInteger upper = parse(val, from, mid, radix);
+            return upper.parallelMultiply(power).add(lower.join());
+        }
+        BigInteger upper = parse(val, from, mid, radix);
+        return upper.multiply(power).add(parse(val, mid, to, radix));
     }
 
     /**
@@ -25,14 +25,20 @@
 
 package java.net;
 
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Random;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.security.AccessController;
 import java.io.ObjectStreamException;
 import java.io.ObjectStreamField;
@@ -734,13 +740,16 @@ class InetAddress implements java.io.Serializable {
 
     private static Cache negativeCache = new Cache(Cache.Type.Negative);
 
-    private static boolean addressCacheInit = false;
+    private static volatile boolean addressCacheInit = false;
 
     static InetAddress[]    unknown_array; // put THIS in cache
 
     static InetAddressImpl  impl;
 
-    private static final HashMap<String, Void> lookupTable = new HashMap<>();
+    // lookups in progress, a thread that finds a lookup of the same host in
+    // progress waits for its result rather than doing the lookup itself
+    private static final ConcurrentHashMap<String, CompletableFuture<InetAddress[]>>
+        lookupTable = new ConcurrentHashMap<>();
 
     /**
      * Represents a cache entry
@@ -752,17 +761,19 @@ class InetAddress implements java.io.Serializable {
             this.expiration = expiration;
         }
 
-        InetAddress[] addresses;
-        long expiration;
+        final InetAddress[] addresses;
+        final long expiration;
     }
 
     /**
      * A cache that manages entries based on a policy specified
-     * at creation time.
+     * at creation time. Lookups do not lock, expired entries are
+     * purged at most once a second when entries are added.
      */
     static final class Cache {
-        private LinkedHashMap<String, CacheEntry> cache;
-        private Type type;
+        private final ConcurrentHashMap<String, CacheEntry> cache;
+        private final Type type;
+        private volatile long nextPurge;
 
         enum Type {Positive, Negative};
 
@@ -771,7 +782,7 @@ class InetAddress implements java.io.Serializable {
          */
         public Cache(Type type) {
             this.type = type;
-            cache = new LinkedHashMap<String, CacheEntry>();
+            cache = new ConcurrentHashMap<String, CacheEntry>();
         }
 
         private int getPolicy() {
@@ -782,6 +793,15 @@ class InetAddress implements java.io.Serializable {
             }
         }
 
+        // the time, in milliseconds, that an expired entry may still be used
+        private long getStalePeriod() {
+            if (type == Type.Positive) {
+                return InetAddressCachePolicy.getStale() * 1000L;
+            } else {
+                return 0L;
+            }
+        }
+
         /**
          * Add an entry to the cache. If there's already an
          * entry then for this host then the entry will be
@@ -793,38 +813,30 @@ class InetAddress implements java.io.Serializable {
                 return this;
             }
 
-            // purge any expired entries
-
-            if (policy != InetAddressCachePolicy.FOREVER) {
-
-                // As we iterate in insertion order we can
-                // terminate when a non-expired entry is found.
-                LinkedList<String> expired = new LinkedList<>();
-                long now = System.currentTimeMillis();
-                for (String key : cache.keySet()) {
-                    CacheEntry entry = cache.get(key);
+            long now = System.currentTimeMillis();
 
-                    if (entry.expiration >= 0 && entry.expiration < now) {
-                        expired.add(key);
-                    } else {
-                        break;
+            // purge any expired entries
+            if (policy != InetAddressCachePolicy.FOREVER && now >= nextPurge) {
+                nextPurge = now + 1000L;
+                long stale = getStalePeriod();
+                Iterator<CacheEntry> i = cache.values().iterator();
+                while (i.hasNext()) {
+                    CacheEntry entry = i.next();
+                    if (entry.expiration >= 0 && entry.expiration + stale < now) {
+                        i.remove();
                     }
                 }
-
-                for (String key : expired) {
-                    cache.remove(key);
-                }
             }
 
             // create new entry and add it to the cache
-            // -- as a HashMap replaces existing entries we
+            // -- as a map replaces existing entries we
             //    don't need to explicitly check if there is
             //    already an entry for this host.
             long expiration;
             if (policy == InetAddressCachePolicy.FOREVER) {
                 expiration = -1;
             } else {
-                expiration = System.currentTimeMillis() + (policy * 1000);
+                expiration = now + (policy * 1000L);
             }
             CacheEntry entry = new CacheEntry(addresses, expiration);
             cache.put(host, entry);
@@ -833,9 +845,12 @@ class InetAddress implements java.io.Serializable {
 
         /**
          * Query the cache for the specific host. If found then
-         * return its CacheEntry, or null if not found.
+         * return its CacheEntry, or null if not found. An entry
+         * that has expired, at time {@code now}, within the stale
+         * period is returned and it is the caller's responsibility
+         * to refresh it.
          */
-        public CacheEntry get(String host) {
+        public CacheEntry get(String host, long now) {
             int policy = getPolicy();
             if (policy == InetAddressCachePolicy.NEVER) {
                 return null;
@@ -845,8 +860,8 @@ class InetAddress implements java.io.Serializable {
             // check if entry has expired
             if (entry != null && policy != InetAddressCachePolicy.FOREVER) {
                 if (entry.expiration >= 0 &&
-                    entry.expiration < System.currentTimeMillis()) {
-                    cache.remove(host);
+                    entry.expiration + getStalePeriod() < now) {
+                    cache.remove(host, entry);
                     entry = null;
                 }
             }
@@ -860,17 +875,21 @@ class InetAddress implements java.io.Serializable {
      * unknown array with no expiry.
      */
     private static void cacheInitIfNeeded() {
-        assert Thread.holdsLock(addressCache);
         if (addressCacheInit) {
             return;
         }
-        unknown_array = new InetAddress[1];
-        unknown_array[0] = impl.anyLocalAddress();
+        synchronized (addressCache) {
+            if (addressCacheInit) {
+                return;
+            }
+            unknown_array = new InetAddress[1];
+            unknown_array[0] = impl.anyLocalAddress();
 
-        addressCache.put(impl.anyLocalAddress().getHostName(),
-                         unknown_array);
+            addressCache.put(impl.anyLocalAddress().getHostName(),
+                             unknown_array);
 
-        addressCacheInit = true;
+            addressCacheInit = true;
+        }
     }
 
     /*
@@ -880,42 +899,123 @@ class InetAddress implements java.io.Serializable {
                                        InetAddress[] addresses,
                                        boolean success) {
         hostname = hostname.toLowerCase();
-        synchronized (addressCache) {
-            cacheInitIfNeeded();
-            if (success) {
-                addressCache.put(hostname, addresses);
-            } else {
-                negativeCache.put(hostname, addresses);
-            }
+        cacheInitIfNeeded();
+        if (success) {
+            addressCache.put(hostname, addresses);
+        } else {
+            negativeCache.put(hostname, addresses);
         }
     }
 
     /*
      * Lookup hostname in cache (positive & negative cache). If
-     * found return addresses, null if not found.
+     * found return addresses, null if not found. An expired entry
+     * that may still be used is returned and looked up again in
+     * the background.
      */
     private static InetAddress[] getCachedAddresses(String hostname) {
-        hostname = hostname.toLowerCase();
+        String key = hostname.toLowerCase();
 
         // search both positive & negative caches
 
-        synchronized (addressCache) {
-            cacheInitIfNeeded();
+        cacheInitIfNeeded();
 
-            CacheEntry entry = addressCache.get(hostname);
-            if (entry == null) {
-                entry = negativeCache.get(hostname);
-            }
+        // the same time decides whether the entry may be used and whether
+        // it needs to be refreshed
+        long now = System.currentTimeMillis();
+        CacheEntry entry = addressCache.get(key, now);
+        if (entry == null) {
+            entry = negativeCache.get(key, now);
+        }
 
-            if (entry != null) {
-                return entry.addresses;
+        if (entry != null) {
+            if (entry.expiration >= 0 && entry.expiration < now) {
+                // refresh in the background, unless already in progress;
+                // keep using the expired entry until it is purged
+                lookupAsync(hostname);
             }
+            return entry.addresses;
         }
 
         // not found
         return null;
     }
 
+    /*
+     * Returns the lookup of the given host that is in progress, or starts
+     * one on a resolver thread. The returned future completes with the
+     * addresses, or unknown_array if the host is not known, once they
+     * have been cached.
+     */
+    private static CompletableFuture<InetAddress[]> lookupAsync(final String host) {
+        final CompletableFuture<InetAddress[]> lookup = new CompletableFuture<>();
+        CompletableFuture<InetAddress[]> other = lookupTable.putIfAbsent(host, lookup);
+        if (other != null) {
+            return other;
+        }
+        try {
+            Resolver.execute(new Runnable() {
+                public void run() {
+                    // the name services may need permissions that the
+                    // resolver thread does not have
+                    AccessController.doPrivileged(
+                        new java.security.PrivilegedAction<Void>() {
+                            public Void run() {
+                                try {
+                                    lookupAddresses(host, null, lookup);
+                                } catch (UnknownHostException | RuntimeException | Error x) {
+                                    // the lookup has completed with the failure
+                                }
+                                return null;
+                            }
+                        });
+                }
+            });
+        } catch (RejectedExecutionException x) {
+            lookupTable.remove(host, lookup);
+            lookup.completeExceptionally(x);
+        }
+        return lookup;
+    }
+
+    /*
+     * Threads that do lookups in the background. Their number is bounded,
+     * further lookups wait in the queue; idle threads exit.
+     */
+    private static class Resolver {
+        private static final int MAX_THREADS = 8;
+
+        private static final ThreadPoolExecutor executor =
+            new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+                                   60L, TimeUnit.SECONDS,
+                                   new LinkedBlockingQueue<Runnable>(),
+                                   new ThreadFactory() {
+                public Thread newThread(final Runnable r) {
+                    return AccessController.doPrivileged(
+                        new java.security.PrivilegedAction<Thread>() {
+                            public Thread run() {
+                                Thread t;
+                                if (System.getSecurityManager() == null) {
+                                    t = new Thread(r, "InetAddress Resolver");
+                                } else {
+                                    t = new sun.misc.InnocuousThread(r);
+                                }
+                                t.setDaemon(true);
+                                return t;
+                            }
+                        });
+                }
+            });
+
+        static {
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        static void execute(Runnable task) {
+            executor.execute(task);
+        }
+    }
+
     private static NameService createNSProvider(String provider) {
         if (provider == null)
             return null;
@@ -1127,6 +1227,79 @@ class InetAddress implements java.io.Serializable {
         return getAllByName(host, null);
     }
 
+    /**
+     * Given the name of a host, asynchronously looks up its IP addresses,
+     * based on the configured name service on the system.
+     *
+     * <p> This method works in the same manner as {@link
+     * #getAllByName(String)} except that the lookup does not block the
+     * calling thread. If {@code host} is {@code null}, empty, or a literal IP
+     * address, or if the addresses of the host are cached, then the returned
+     * {@code CompletableFuture} is already completed. Otherwise the name
+     * service is queried by a background thread, and concurrent lookups of
+     * the same host share a single query.
+     *
+     * <p> If the lookup fails then the {@code CompletableFuture} completes
+     * exceptionally with an {@code UnknownHostException}.
+     *
+     * <p> If there is a security manager and {@code host} is not
+     * null and {@code host.length() } is not equal to zero, the
+     * security manager's
+     * {@code checkConnect} method is called, by the calling thread,
+     * with the hostname and {@code -1}
+     * as its arguments to see if the operation is allowed.
+     *
+     * @param      host   the name of the host, or {@code null}.
+     * @return     a {@code CompletableFuture} that completes with an array
+     *             of all the IP addresses for the given host name.
+     *
+     * @exception  SecurityException  if a security manager exists and its
+     *               {@code checkConnect} method doesn't allow the operation.
+     *
+     * @see #getAllByName(String)
+     * @see SecurityManager#checkConnect
+     */
+    public static CompletableFuture<InetAddress[]> getAllByNameAsync(final String host) {
+        // literal addresses are not looked up
+        if (host == null || host.length() == 0 || host.charAt(0) == '['
+            || host.indexOf(':') >= 0 || IPAddressUtil.isIPv4LiteralAddress(host)) {
+            CompletableFuture<InetAddress[]> result = new CompletableFuture<>();
+            try {
+                result.complete(getAllByName(host));
+            } catch (UnknownHostException x) {
+                result.completeExceptionally(x);
+            }
+            return result;
+        }
+
+        SecurityManager security = System.getSecurityManager();
+        if (security != null) {
+            security.checkConnect(host, -1);
+        }
+
+        InetAddress[] addresses = getCachedAddresses(host);
+        if (addresses != null) {
+            CompletableFuture<InetAddress[]> result = new CompletableFuture<>();
+            if (addresses == unknown_array) {
+                result.completeExceptionally(new UnknownHostException(host));
+            } else {
+                result.complete(addresses.clone());
+            }
+            return result;
+        }
+
+        // share the lookup in progress, if any, rather than wait for it
+        return lookupAsync(host).thenApply(
+            new Function<InetAddress[], InetAddress[]>() {
+                public InetAddress[] apply(InetAddress[] addresses) {
+                    if (addresses == unknown_array) {
+                        throw new CompletionException(new UnknownHostException(host));
+                    }
+                    return addresses.clone();
+                }
+            });
+    }
+
     private static InetAddress[] getAllByName(String host, InetAddress reqAddr)
         throws UnknownHostException {
 
@@ -1286,139 +1459,113 @@ class InetAddress implements java.io.Serializable {
     private static InetAddress[] getAddressesFromNameService(String host, InetAddress reqAddr)
         throws UnknownHostException
     {
-        InetAddress[] addresses = null;
-        boolean success = false;
-        UnknownHostException ex = null;
-
         // Check whether the host is in the lookupTable.
-        // 1) If the host isn't in the lookupTable when
-        //    checkLookupTable() is called, checkLookupTable()
-        //    would add the host in the lookupTable and
-        //    return null. So we will do the lookup.
-        // 2) If the host is in the lookupTable when
-        //    checkLookupTable() is called, the current thread
-        //    would be blocked until the host is removed
-        //    from the lookupTable. Then this thread
-        //    should try to look up the addressCache.
-        //     i) if it found the addresses in the
-        //        addressCache, checkLookupTable()  would
-        //        return the addresses.
-        //     ii) if it didn't find the addresses in the
-        //         addressCache for any reason,
-        //         it should add the host in the
-        //         lookupTable and return null so the
-        //         following code would do  a lookup itself.
-        if ((addresses = checkLookupTable(host)) == null) {
+        // 1) If the host isn't in the lookupTable, add it with a
+        //    pending result and do the lookup.
+        // 2) If the host is in the lookupTable, another thread is
+        //    looking up the addresses of this host. This thread
+        //    waits for, and uses, the result of that lookup. A
+        //    failed lookup results in unknown_array.
+        CompletableFuture<InetAddress[]> lookup = new CompletableFuture<>();
+        CompletableFuture<InetAddress[]> other = lookupTable.putIfAbsent(host, lookup);
+        if (other != null) {
             try {
-                // This is the first thread which looks up the addresses
-                // this host or the cache entry for this host has been
-                // expired so this thread should do the lookup.
-                for (NameService nameService : nameServices) {
-                    try {
-                        /*
-                         * Do not put the call to lookup() inside the
-                         * constructor.  if you do you will still be
-                         * allocating space when the lookup fails.
-                         */
-
-                        addresses = nameService.lookupAllHostAddr(host);
-                        success = true;
-                        break;
-                    } catch (UnknownHostException uhe) {
-                        if (host.equalsIgnoreCase("localhost")) {
-                            InetAddress[] local = new InetAddress[] { impl.loopbackAddress() };
-                            addresses = local;
-                            success = true;
-                            break;
-                        }
-                        else {
-                            addresses = unknown_array;
-                            success = false;
-                            ex = uhe;
-                        }
-                    }
-                }
-
-                // More to do?
-                if (reqAddr != null && addresses.length > 1 && !addresses[0].equals(reqAddr)) {
-                    // Find it?
-                    int i = 1;
-                    for (; i < addresses.length; i++) {
-                        if (addresses[i].equals(reqAddr)) {
-                            break;
-                        }
-                    }
-                    // Rotate
-                    if (i < addresses.length) {
-                        InetAddress tmp, tmp2 = reqAddr;
-                        for (int j = 0; j < i; j++) {
-                            tmp = addresses[j];
-                            addresses[j] = tmp2;
-                            tmp2 = tmp;
-                        }
-                        addresses[i] = tmp2;
-                    }
-                }
-                // Cache the address.
-                cacheAddresses(host, addresses, success);
-
-                if (!success && ex != null)
-                    throw ex;
-
-            } finally {
-                // Delete host from the lookupTable and notify
-                // all threads waiting on the lookupTable monitor.
-                updateLookupTable(host);
+                return other.join();
+            } catch (CompletionException x) {
+                Throwable cause = x.getCause();
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException)cause;
+                if (cause instanceof Error)
+                    throw (Error)cause;
+                throw x;
             }
         }
 
-        return addresses;
+        return lookupAddresses(host, reqAddr, lookup);
     }
 
+    /*
+     * Looks up the addresses of the given host with the name services and
+     * caches them. The caller has put the given lookup in the lookupTable,
+     * it is completed and removed from the table when done.
+     */
+    private static InetAddress[] lookupAddresses(String host, InetAddress reqAddr,
+                                                 CompletableFuture<InetAddress[]> lookup)
+        throws UnknownHostException
+    {
+        InetAddress[] addresses = null;
+        boolean success = false;
+        UnknownHostException ex = null;
 
-    private static InetAddress[] checkLookupTable(String host) {
-        synchronized (lookupTable) {
-            // If the host isn't in the lookupTable, add it in the
-            // lookuptable and return null. The caller should do
-            // the lookup.
-            if (lookupTable.containsKey(host) == false) {
-                lookupTable.put(host, null);
-                return null;
-            }
-
-            // If the host is in the lookupTable, it means that another
-            // thread is trying to look up the addresses of this host.
-            // This thread should wait.
-            while (lookupTable.containsKey(host)) {
+        try {
+            // This is the first thread which looks up the addresses
+            // this host or the cache entry for this host has been
+            // expired so this thread should do the lookup.
+            for (NameService nameService : nameServices) {
                 try {
-                    lookupTable.wait();
-                } catch (InterruptedException e) {
+                    /*
+                     * Do not put the call to lookup() inside the
+                     * constructor.  if you do you will still be
+                     * allocating space when the lookup fails.
+                     */
+
+                    addresses = nameService.lookupAllHostAddr(host);
+                    success = true;
+                    break;
+                } catch (UnknownHostException uhe) {
+                    if (host.equalsIgnoreCase("localhost")) {
+                        InetAddress[] local = new InetAddress[] { impl.loopbackAddress() };
+                        addresses = local;
+                        success = true;
+                        break;
+                    }
+                    else {
+                        addresses = unknown_array;
+                        success = false;
+                        ex = uhe;
+                    }
                 }
             }
-        }
 
-        // The other thread has finished looking up the addresses of
-        // the host. This thread should retry to get the addresses
-        // from the addressCache. If it doesn't get the addresses from
-        // the cache, it will try to look up the addresses itself.
-        InetAddress[] addresses = getCachedAddresses(host);
-        if (addresses == null) {
-            synchronized (lookupTable) {
-                lookupTable.put(host, null);
-                return null;
+            // More to do?
+            if (reqAddr != null && addresses.length > 1 && !addresses[0].equals(reqAddr)) {
+                // Find it?
+                int i = 1;
+                for (; i < addresses.length; i++) {
+                    if (addresses[i].equals(reqAddr)) {
+                        break;
+                    }
+                }
+                // Rotate
+                if (i < addresses.length) {
+                    InetAddress tmp, tmp2 = reqAddr;
+                    for (int j = 0; j < i; j++) {
+                        tmp = addresses[j];
+                        addresses[j] = tmp2;
+                        tmp2 = tmp;
+                    }
+                    addresses[i] = tmp2;
+                }
             }
+            // Cache the address.
+            cacheAddresses(host, addresses, success);
+            lookup.complete(addresses);
+
+            if (!success && ex != null)
+                throw ex;
+
+        } catch (RuntimeException | Error x) {
+            lookup.completeExceptionally(x);
+            throw x;
+        } finally {
+            // Delete host from the lookupTable, threads waiting
+            // on the result have been released.
+            lookupTable.remove(host, lookup);
         }
 
         return addresses;
     }
 
-    private static void updateLookupTable(String host) {
-        synchronized (lookupTable) {
-            lookupTable.remove(host);
-            lookupTable.notifyAll();
-        }
-    }
-
     /**
      * Returns an {@code InetAddress} object given the raw IP address .
      * The argument is in network byte order: the highest order
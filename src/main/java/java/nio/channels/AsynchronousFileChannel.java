@@ -776,4 +776,187 @@ public abstract class AsynchronousFileChannel
      *          If this channel was not opened for writing
      */
     public abstract Future<Integer> write(ByteBuffer src, long position);
+
+    /**
+     * Reads a sequence of bytes from this channel into a subsequence of the
+     * given buffers, starting at the given file position.
+     *
+     * <p> This method initiates a <em>scattering</em> read of a sequence of
+     * bytes from this channel into the given buffers, starting at the given
+     * file position. The result of the read is the number of bytes read or
+     * {@code -1} if the given position is greater than or equal to the file's
+     * size at the time that the read is attempted. Bytes are transferred into
+     * each buffer, in turn, up to its limit before the next buffer is filled.
+     * The read may complete with fewer bytes than the total number of bytes
+     * remaining in the buffers.
+     *
+     * <p> Several outstanding reads on the same file may be serviced by a
+     * single read of the file when their regions are adjacent.
+     *
+     * <p> The default implementation of this method throws {@code
+     * UnsupportedOperationException}.
+     *
+     * @param   <A>
+     *          The type of the attachment
+     * @param   dsts
+     *          The buffers into which bytes are to be transferred
+     * @param   offset
+     *          The offset within the buffer array of the first buffer into
+     *          which bytes are to be transferred; must be non-negative and no
+     *          larger than {@code dsts.length}
+     * @param   length
+     *          The maximum number of buffers to be accessed; must be
+     *          non-negative and no larger than {@code dsts.length - offset}
+     * @param   position
+     *          The file position at which the transfer is to begin;
+     *          must be non-negative
+     * @param   attachment
+     *          The object to attach to the I/O operation; can be {@code null}
+     * @param   handler
+     *          The handler for consuming the result
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the pre-conditions for the {@code offset}  and {@code length}
+     *          parameter aren't met
+     * @throws  IllegalArgumentException
+     *          If the position is negative or a buffer is read-only
+     * @throws  NonReadableChannelException
+     *          If this channel was not opened for reading
+     * @throws  UnsupportedOperationException
+     *          If this channel does not support scattering reads
+     */
+    public <A> void read(ByteBuffer[] dsts,
+                         int offset,
+                         int length,
+                         long position,
+                         A attachment,
+                         CompletionHandler<Long,? super A> handler)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Reads a sequence of bytes from this channel into the given buffers,
+     * starting at the given file position.
+     *
+     * <p> This method works in the same manner as the {@link
+     * #read(ByteBuffer[],int,int,long,Object,CompletionHandler)} method,
+     * except that it reads into all of the given buffers and returns a {@code
+     * Future} representing the pending result of the operation. The {@code
+     * Future}'s {@link Future#get() get} method returns the number of bytes
+     * read or {@code -1} if the given position is greater than or equal to
+     * the file's size at the time that the read is attempted.
+     *
+     * <p> The default implementation of this method throws {@code
+     * UnsupportedOperationException}.
+     *
+     * @param   dsts
+     *          The buffers into which bytes are to be transferred
+     * @param   position
+     *          The file position at which the transfer is to begin;
+     *          must be non-negative
+     *
+     * @return  A {@code Future} object representing the pending result
+     *
+     * @throws  IllegalArgumentException
+     *          If the position is negative or a buffer is read-only
+     * @throws  NonReadableChannelException
+     *          If this channel was not opened for reading
+     * @throws  UnsupportedOperationException
+     *          If this channel does not support scattering reads
+     */
+    public Future<Long> read(ByteBuffer[] dsts, long position) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Writes a sequence of bytes to this channel from a subsequence of the
+     * given buffers, starting at the given file position.
+     *
+     * <p> This method initiates a <em>gathering</em> write of a sequence of
+     * bytes to this channel from the given buffers, starting at the given file
+     * position. The result of the write is the number of bytes written. Bytes
+     * are transferred from each buffer, in turn, up to its limit before the
+     * next buffer is accessed. If the given position is greater than the
+     * file's size, at the time that the write is attempted, then the file will
+     * be grown to accommodate the new bytes; the values of any bytes between
+     * the previous end-of-file and the newly-written bytes are unspecified.
+     *
+     * <p> Several outstanding writes on the same file may be serviced by a
+     * single write to the file when their regions are adjacent.
+     *
+     * <p> The default implementation of this method throws {@code
+     * UnsupportedOperationException}.
+     *
+     * @param   <A>
+     *          The type of the attachment
+     * @param   srcs
+     *          The buffers from which bytes are to be transferred
+     * @param   offset
+     *          The offset within the buffer array of the first buffer from
+     *          which bytes are to be transferred; must be non-negative and no
+     *          larger than {@code srcs.length}
+     * @param   length
+     *          The maximum number of buffers to be accessed; must be
+     *          non-negative and no larger than {@code srcs.length - offset}
+     * @param   position
+     *          The file position at which the transfer is to begin;
+     *          must be non-negative
+     * @param   attachment
+     *          The object to attach to the I/O operation; can be {@code null}
+     * @param   handler
+     *          The handler for consuming the result
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the pre-conditions for the {@code offset}  and {@code length}
+     *          parameter aren't met
+     * @throws  IllegalArgumentException
+     *          If the position is negative
+     * @throws  NonWritableChannelException
+     *          If this channel was not opened for writing
+     * @throws  UnsupportedOperationException
+     *          If this channel does not support gathering writes
+     */
+    public <A> void write(ByteBuffer[] srcs,
+                          int offset,
+                          int length,
+                          long position,
+                          A attachment,
+                          CompletionHandler<Long,? super A> handler)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Writes a sequence of bytes to this channel from the given buffers,
+     * starting at the given file position.
+     *
+     * <p> This method works in the same manner as the {@link
+     * #write(ByteBuffer[],int,int,long,Object,CompletionHandler)} method,
+     * except that it writes from all of the given buffers and returns a {@code
+     * Future} representing the pending result of the operation. The {@code
+     * Future}'s {@link Future#get() get} method returns the number of bytes
+     * written.
+     *
+     * <p> The default implementation of this method throws {@code
+     * UnsupportedOperationException}.
+     *
+     * @param   srcs
+     *          The buffers from which bytes are to be transferred
+     * @param   position
+     *          The file position at which the transfer is to begin;
+     *          must be non-negative
+     *
+     * @return  A {@code Future} object representing the pending result
+     *
+     * @throws  IllegalArgumentException
+     *          If the position is negative
+     * @throws  NonWritableChannelException
+     *          If this channel was not opened for writing
+     * @throws  UnsupportedOperationException
+     *          If this channel does not support gathering writes
+     */
+    public Future<Long> write(ByteBuffer[] srcs, long position) {
+        throw new UnsupportedOperationException();
+    }
 }
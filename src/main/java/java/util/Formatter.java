@@ -47,6 +47,7 @@ import java.text.DateFormatSymbols;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -2498,32 +2499,32 @@ public final class Formatter implements Closeable, Flushable {
         // last ordinary index
         int lasto = -1;
 
-        FormatString[] fsa = parse(format);
+        FormatString[] fsa = parsePrototypes(format);
         for (int i = 0; i < fsa.length; i++) {
             FormatString fs = fsa[i];
             int index = fs.index();
             try {
                 switch (index) {
                 case -2:  // fixed string, "%n", or "%%"
-                    fs.print(null, l);
+                    print(fs, null, l);
                     break;
                 case -1:  // relative index
                     if (last < 0 || (args != null && last > args.length - 1))
                         throw new MissingFormatArgumentException(fs.toString());
-                    fs.print((args == null ? null : args[last]), l);
+                    print(fs, (args == null ? null : args[last]), l);
                     break;
                 case 0:  // ordinary index
                     lasto++;
                     last = lasto;
                     if (args != null && lasto > args.length - 1)
                         throw new MissingFormatArgumentException(fs.toString());
-                    fs.print((args == null ? null : args[lasto]), l);
+                    print(fs, (args == null ? null : args[lasto]), l);
                     break;
                 default:  // explicit index
                     last = index - 1;
                     if (args != null && last > args.length - 1)
                         throw new MissingFormatArgumentException(fs.toString());
-                    fs.print((args == null ? null : args[last]), l);
+                    print(fs, (args == null ? null : args[last]), l);
                     break;
                 }
             } catch (IOException x) {
@@ -2533,12 +2534,345 @@ public final class Formatter implements Closeable, Flushable {
         return this;
     }
 
+    /**
+     * Prints a parsed format string, which may belong to another formatter,
+     * to this formatter's destination.
+     */
+    private void print(FormatString fs, Object arg, Locale l)
+        throws IOException
+    {
+        if (fs instanceof FixedString) {
+            a.append(((FixedString)fs).s);
+        } else {
+            new FormatSpecifier((FormatSpecifier)fs).print(arg, l);
+        }
+    }
+
+    /**
+     * Returns a template for the given format string, which is parsed once
+     * and may then be used to format any number of argument lists, as if by
+     * {@link #format(Locale,String,Object...) format}.
+     *
+     * @param  format
+     *         A format string as described in <a href="#syntax">Format string
+     *         syntax</a>
+     *
+     * @throws  IllegalFormatException
+     *          If the format string contains an illegal syntax or a format
+     *          specifier that is incompatible with itself.
+     *
+     * @return  The template
+     *
+     * @see Template
+     */
+    public static Template compile(String format) {
+        return new Template(format, parsePrototypes(format));
+    }
+
+    /**
+     * A format string compiled by {@link Formatter#compile compile}.
+     *
+     * <p> Formatting with a template gives the same results, and throws the
+     * same exceptions for the arguments, as formatting with its format string.
+     * The {@code %d}, {@code %s} and {@code %x} conversions without flags,
+     * width or precision are printed directly to the destination, without
+     * creating a formatter, when their argument is an integral type (or, for
+     * {@code %s}, not {@link Formattable}) and, for {@code %d}, the locale
+     * uses ASCII digits.  Other conversions are printed as by a formatter.
+     *
+     * <p> Templates are immutable and safe for use by multiple threads.
+     */
+    public static final class Template {
+        private static final byte GENERAL = 0;
+        private static final byte TEXT = 1;
+        private static final byte DECIMAL = 2;
+        private static final byte STRING = 3;
+        private static final byte HEX = 4;
+
+        private static final char[] HEX_DIGITS = {
+            '0', '1', '2', '3', '4', '5', '6', '7',
+            '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+        };
+
+        private final String format;
+        private final FormatString[] fsa;
+        private final byte[] kinds;
+        private final String[] texts;
+
+        private Template(String format, FormatString[] fsa) {
+            this.format = format;
+            this.fsa = fsa;
+            this.kinds = new byte[fsa.length];
+            this.texts = new String[fsa.length];
+            for (int i = 0; i < fsa.length; i++) {
+                FormatString fs = fsa[i];
+                if (fs instanceof FixedString) {
+                    kinds[i] = TEXT;
+                    texts[i] = ((FixedString)fs).s;
+                    continue;
+                }
+                FormatSpecifier sp = (FormatSpecifier)fs;
+                if (sp.dt || sp.width != -1 || sp.precision != -1
+                    || sp.f.valueOf() != 0)
+                    continue;
+                switch (sp.c) {
+                case Conversion.PERCENT_SIGN:
+                    kinds[i] = TEXT;
+                    texts[i] = "%";
+                    break;
+                case Conversion.LINE_SEPARATOR:
+                    kinds[i] = TEXT;
+                    texts[i] = System.lineSeparator();
+                    break;
+                case Conversion.DECIMAL_INTEGER:
+                    kinds[i] = DECIMAL;
+                    break;
+                case Conversion.STRING:
+                    kinds[i] = STRING;
+                    break;
+                case Conversion.HEXADECIMAL_INTEGER:
+                    kinds[i] = HEX;
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Returns a formatted string using this template, the {@linkplain
+         * Locale#getDefault(Locale.Category) default locale} for {@linkplain
+         * Locale.Category#FORMAT formatting}, and the given arguments.
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments, or there are insufficient arguments
+         *
+         * @return  A formatted string
+         */
+        public String format(Object ... args) {
+            return format(Locale.getDefault(Locale.Category.FORMAT), args);
+        }
+
+        /**
+         * Returns a formatted string using this template and the given
+         * locale and arguments.
+         *
+         * @param  l
+         *         The {@linkplain java.util.Locale locale} to apply during
+         *         formatting.  If {@code l} is {@code null} then no
+         *         localization is applied.
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments, or there are insufficient arguments
+         *
+         * @return  A formatted string
+         */
+        public String format(Locale l, Object ... args) {
+            return formatTo(new StringBuilder(), l, args).toString();
+        }
+
+        /**
+         * Appends the result of formatting the given arguments with this
+         * template and the given locale to a string builder.
+         *
+         * @param  sb
+         *         The destination
+         *
+         * @param  l
+         *         The {@linkplain java.util.Locale locale} to apply during
+         *         formatting.  If {@code l} is {@code null} then no
+         *         localization is applied.
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments, or there are insufficient arguments
+         *
+         * @return  The string builder
+         */
+        public StringBuilder formatTo(StringBuilder sb, Locale l, Object ... args) {
+            try {
+                print(sb, l, args);
+            } catch (IOException x) {
+                throw new AssertionError(x);  // StringBuilder does not throw
+            }
+            return sb;
+        }
+
+        /**
+         * Appends the result of formatting the given arguments with this
+         * template and the given locale to an {@code Appendable}.
+         *
+         * @param  a
+         *         The destination
+         *
+         * @param  l
+         *         The {@linkplain java.util.Locale locale} to apply during
+         *         formatting.  If {@code l} is {@code null} then no
+         *         localization is applied.
+         *
+         * @param  args
+         *         Arguments referenced by the format specifiers
+         *
+         * @throws  IllegalFormatException
+         *          If a format specifier is incompatible with the given
+         *          arguments, or there are insufficient arguments
+         *
+         * @throws  IOException
+         *          If the destination throws an {@code IOException}
+         *
+         * @return  The destination
+         */
+        public <A extends Appendable> A formatTo(A a, Locale l, Object ... args)
+            throws IOException
+        {
+            Objects.requireNonNull(a);
+            print(a, l, args);
+            return a;
+        }
+
+        private void print(Appendable a, Locale l, Object[] args)
+            throws IOException
+        {
+            Formatter fmt = null;
+            char zero = 0;
+            // index of last argument referenced
+            int last = -1;
+            // last ordinary index
+            int lasto = -1;
+
+            for (int i = 0; i < fsa.length; i++) {
+                if (kinds[i] == TEXT) {
+                    a.append(texts[i]);
+                    continue;
+                }
+                FormatString fs = fsa[i];
+                int index = fs.index();
+                switch (index) {
+                case -2:  // "%n" or "%%" with flags or width
+                    break;
+                case -1:  // relative index
+                    if (last < 0 || (args != null && last > args.length - 1))
+                        throw new MissingFormatArgumentException(fs.toString());
+                    break;
+                case 0:  // ordinary index
+                    lasto++;
+                    last = lasto;
+                    if (args != null && lasto > args.length - 1)
+                        throw new MissingFormatArgumentException(fs.toString());
+                    break;
+                default:  // explicit index
+                    last = index - 1;
+                    if (args != null && last > args.length - 1)
+                        throw new MissingFormatArgumentException(fs.toString());
+                    break;
+                }
+                Object arg = (index == -2 || args == null) ? null : args[last];
+                switch (kinds[i]) {
+                case DECIMAL:
+                    if (zero == 0)
+                        zero = (l == null || l.equals(Locale.US)) ? '0' : getZero(l);
+                    if (zero == '0' && isIntegral(arg)) {
+                        long v = ((Number)arg).longValue();
+                        if (a instanceof StringBuilder)
+                            ((StringBuilder)a).append(v);
+                        else
+                            a.append(Long.toString(v));
+                        continue;
+                    }
+                    break;
+                case STRING:
+                    if (!(arg instanceof Formattable)) {
+                        a.append(String.valueOf(arg));
+                        continue;
+                    }
+                    break;
+                case HEX:
+                    if (isIntegral(arg)) {
+                        appendHex(a, arg);
+                        continue;
+                    }
+                    break;
+                }
+                if (fmt == null)
+                    fmt = new Formatter(l, a);
+                fmt.print(fs, arg, l);
+            }
+        }
+
+        private static boolean isIntegral(Object arg) {
+            return arg instanceof Integer || arg instanceof Long
+                || arg instanceof Short || arg instanceof Byte;
+        }
+
+        // Negative values are printed as their two's complement, in the
+        // number of bits of their type, as by Formatter.
+        private static void appendHex(Appendable a, Object arg)
+            throws IOException
+        {
+            long v;
+            if (arg instanceof Integer)
+                v = ((Integer)arg).intValue() & 0xffffffffL;
+            else if (arg instanceof Long)
+                v = ((Long)arg).longValue();
+            else if (arg instanceof Short)
+                v = ((Short)arg).shortValue() & 0xffffL;
+            else
+                v = ((Byte)arg).byteValue() & 0xffL;
+            int digits = Math.max(1, (67 - Long.numberOfLeadingZeros(v)) >> 2);
+            for (int shift = (digits - 1) << 2; shift >= 0; shift -= 4)
+                a.append(HEX_DIGITS[(int)(v >>> shift) & 0xf]);
+        }
+
+        /**
+         * Returns the format string of this template.
+         *
+         * @return  The format string
+         */
+        public String toString() {
+            return format;
+        }
+    }
+
     // %[argument_index$][flags][width][.precision][t]conversion
     private static final String formatSpecifier
         = "%(\\d+\\$)?([-#+ 0,(\\<]*)?(\\d+)?(\\.\\d+)?([tT])?([a-zA-Z%])";
 
     private static Pattern fsPattern = Pattern.compile(formatSpecifier);
 
+    // Parsed format strings are shared by all formatters; the parsed
+    // objects belong to this formatter, which never prints anything.
+    private static final Formatter PROTOTYPE =
+        new Formatter((Locale) null, new StringBuilder());
+
+    private static final int MAX_PARSED_FORMATS = 256;
+
+    private static final ConcurrentHashMap<String, FormatString[]> parsedFormats =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Returns the parsed form of the format string, parsing it only if it
+     * is not among the recently used ones.
+     */
+    private static FormatString[] parsePrototypes(String s) {
+        FormatString[] fsa = parsedFormats.get(s);
+        if (fsa == null) {
+            fsa = PROTOTYPE.parse(s);
+            if (parsedFormats.size() >= MAX_PARSED_FORMATS)
+                parsedFormats.clear();
+            parsedFormats.put(s, fsa);
+        }
+        return fsa;
+    }
+
     /**
      * Finds format specifiers in the format string.
      */
@@ -2735,6 +3069,16 @@ public final class Formatter implements Closeable, Flushable {
                 throw new UnknownFormatConversionException(String.valueOf(c));
         }
 
+        // Binds a specifier parsed by another formatter to this one
+        FormatSpecifier(FormatSpecifier fs) {
+            index = fs.index;
+            f = fs.f;
+            width = fs.width;
+            precision = fs.precision;
+            dt = fs.dt;
+            c = fs.c;
+        }
+
         public void print(Object arg, Locale l) throws IOException {
             if (dt) {
                 printDateTime(arg, l);
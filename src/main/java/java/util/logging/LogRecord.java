@@ -27,11 +27,11 @@ package java.util.logging;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 import java.io.*;
 
-import sun.misc.JavaLangAccess;
-import sun.misc.SharedSecrets;
-
 /**
  * LogRecord objects are used to pass logging requests between
  * the logging framework and individual log Handlers.
@@ -541,40 +541,48 @@ public class LogRecord implements java.io.Serializable {
     // Private method to infer the caller's class and method names
     private void inferCaller() {
         needToInferCaller = false;
-        JavaLangAccess access = SharedSecrets.getJavaLangAccess();
-        Throwable throwable = new Throwable();
-        int depth = access.getStackTraceDepth(throwable);
-
-        boolean lookingForLogger = true;
-        for (int ix = 0; ix < depth; ix++) {
-            // Calling getStackTraceElement directly prevents the VM
-            // from paying the cost of building the entire stack frame.
-            StackTraceElement frame =
-                access.getStackTraceElement(throwable, ix);
-            String cname = frame.getClassName();
-            boolean isLoggerImpl = isLoggerImplFrame(cname);
+        // Only the frames up to the caller are resolved; reflection
+        // frames are hidden by the walker.
+        StackWalker.StackFrame frame =
+            StackWalker.getInstance().walk(new CallerFinder());
+        if (frame != null) {
+            setSourceClassName(frame.getClassName());
+            setSourceMethodName(frame.getMethodName());
+        }
+        // Otherwise we haven't found a suitable frame, so just punt.  This
+        // is OK as we are only committed to making a "best effort" here.
+    }
+
+    /*
+     * Finds the first frame after the logger frames.  A class rather than
+     * a lambda, since logging may be used while lambdas are bootstrapped.
+     */
+    private static final class CallerFinder
+        implements Function<Stream<StackWalker.StackFrame>, StackWalker.StackFrame>,
+                   Predicate<StackWalker.StackFrame> {
+        private boolean lookingForLogger = true;
+
+        @Override
+        public StackWalker.StackFrame apply(Stream<StackWalker.StackFrame> frames) {
+            return frames.filter(this).findFirst().orElse(null);
+        }
+
+        @Override
+        public boolean test(StackWalker.StackFrame frame) {
+            boolean isLoggerImpl = isLoggerImplFrame(frame.getClassName());
             if (lookingForLogger) {
                 // Skip all frames until we have found the first logger frame.
                 if (isLoggerImpl) {
                     lookingForLogger = false;
                 }
-            } else {
-                if (!isLoggerImpl) {
-                    // skip reflection call
-                    if (!cname.startsWith("java.lang.reflect.") && !cname.startsWith("sun.reflect.")) {
-                       // We've found the relevant frame.
-                       setSourceClassName(cname);
-                       setSourceMethodName(frame.getMethodName());
-                       return;
-                    }
-                }
+                return false;
             }
+            // We've found the relevant frame.
+            return !isLoggerImpl;
         }
-        // We haven't found a suitable frame, so just punt.  This is
-        // OK as we are only committed to making a "best effort" here.
     }
 
-    private boolean isLoggerImplFrame(String cname) {
+    private static boolean isLoggerImplFrame(String cname) {
         // the log record could be created for a platform logger
         return (cname.equals("java.util.logging.Logger") ||
                 cname.startsWith("java.util.logging.LoggingProxyImpl") ||
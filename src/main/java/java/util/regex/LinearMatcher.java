@@ -0,0 +1,1792 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  This particular file is
+ * subject to the "Classpath" exception as provided in the LICENSE file
+ * that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package java.util.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The linear-time matching engine used by patterns compiled with the
+ * {@link Pattern#DFA} flag.
+ *
+ * <p> A pattern is accepted by this engine only if it is built from
+ * constructs that an automaton can recognize without backtracking: literal
+ * characters, simple character classes, groups, alternation, greedy and
+ * reluctant quantifiers and the boundary matchers.  Such a pattern is
+ * translated into a small program for a Thompson-style NFA.  Patterns
+ * without boundary matchers are matched by lazily built DFAs whose states
+ * are cached and shared by all matchers of the pattern: a forward DFA
+ * finds the end of the leftmost match and a DFA for the reversed pattern
+ * finds its start.  Capturing groups, and patterns with boundary matchers,
+ * are handled by a Pike VM that simulates the NFA one input character at a
+ * time and keeps the thread priorities of the backtracking engine, so that
+ * both engines report the same match.  The boundary matchers delegate to
+ * the corresponding nodes of {@link Pattern}.
+ *
+ * <p> Like the backtracking engine, this engine reads the input one code
+ * point at a time: a surrogate pair is read as one character and an
+ * unpaired surrogate as itself, while a search tries every char index,
+ * including the one between the two halves of a pair, as the start of a
+ * match.  The only input it gives up on is a surrogate pair split by the
+ * end of the region, which the backtracking engine reads as a whole; the
+ * match operation is then performed by the backtracking engine instead.
+ */
+final class LinearMatcher {
+
+    /** The match operation failed. */
+    static final int NO_MATCH = 0;
+
+    /** The match operation succeeded. */
+    static final int MATCH = 1;
+
+    /** The match operation must be performed by the backtracking engine. */
+    static final int FALLBACK = -1;
+
+    // Instruction opcodes
+    private static final int SET       = 0; // consume a char in sets[x]
+    private static final int SPLIT     = 1; // fork to x (preferred) and y
+    private static final int JMP       = 2; // continue at x
+    private static final int SAVE      = 3; // record position in slot x
+    private static final int LOOP      = 4; // greedy loop back to y
+    private static final int LAZY_LOOP = 5; // reluctant loop back to y
+    private static final int ASSERT    = 6; // zero-width test asserts[x]
+    private static final int ACCEPT    = 7; // report a match
+
+    // Results of the DFA scans besides a position
+    private static final int DFA_NONE  = -1;
+    private static final int DFA_SPLIT = -2;
+    private static final int DFA_FULL  = -3;
+
+    /** Upper bound of the size of a program. */
+    private static final int MAX_INSTRUCTIONS = 10000;
+
+    /**
+     * Upper bound of the number of cached states of one DFA, beyond which
+     * the cache is flushed.  A scan that fills the cache again within this
+     * number of characters is left to the Pike VM.
+     */
+    private static final int MAX_STATES = 4096;
+
+    /** Unbounded repetition count. */
+    private static final int INFINITY = -1;
+
+    /** The program with capturing groups and assertions. */
+    private final Program program;
+
+    /** True if the pattern starts with a \A or non-multiline ^ anchor. */
+    private final boolean anchored;
+
+    /** Number of capturing groups including group 0. */
+    private final int groupCount;
+
+    /**
+     * The minimum length of a match, as the root of the backtracking
+     * engine knows it: a search tries no start index after the end of the
+     * region minus this length.
+     */
+    private final int minLength;
+
+    /** Leftmost-first DFA for find and lookingAt. */
+    private final DFA firstDFA;
+
+    /** Full match DFA for matches. */
+    private final DFA fullDFA;
+
+    /** Longest match DFA for the reversed pattern. */
+    private final DFA reverseDFA;
+
+    private LinearMatcher(Expr expr, boolean anchored, int groupCount,
+                          int minLength) {
+        this.program = new Builder(true).build(expr, groupCount);
+        this.anchored = anchored;
+        this.groupCount = groupCount;
+        this.minLength = minLength;
+        if (program.hasAsserts) {
+            firstDFA = fullDFA = reverseDFA = null;
+        } else {
+            firstDFA = new DFA(program, true);
+            fullDFA = new DFA(program, false);
+            reverseDFA = new DFA(new Builder(false).build(expr, 0), false);
+        }
+    }
+
+    /**
+     * Compiles the given pattern for linear-time matching, or returns
+     * null if the pattern or the flags use a construct that is not
+     * supported. The pattern must already have been compiled successfully
+     * by {@link Pattern} into the given root, so syntax errors do not need
+     * to be reported.
+     */
+    static LinearMatcher compile(String regex, int flags, int groupCount,
+                                 Pattern.Node root) {
+        if ((flags & (Pattern.COMMENTS | Pattern.UNICODE_CASE |
+                      Pattern.CANON_EQ | Pattern.UNICODE_CHARACTER_CLASS)) != 0)
+            return null;
+        try {
+            Parser parser = new Parser(regex, flags);
+            Expr expr = parser.parse();
+            if (parser.groups != groupCount)
+                return null;
+            boolean anchored = false;
+            if (expr.kind == Expr.CONCAT && expr.subs.length > 0 &&
+                expr.subs[0].node instanceof Pattern.Begin) {
+                expr = new Expr(Expr.CONCAT,
+                                Arrays.copyOfRange(expr.subs, 1, expr.subs.length));
+                anchored = true;
+            } else if (expr.node instanceof Pattern.Begin) {
+                expr = new Expr(Expr.CONCAT, new Expr[0]);
+                anchored = true;
+            }
+            int minLength = 0;
+            if (root instanceof Pattern.Start)
+                minLength = ((Pattern.Start)root).minLength;
+            else if (root instanceof Pattern.BnM)
+                minLength = ((Pattern.BnM)root).buffer.length;
+            return new LinearMatcher(expr, anchored, groupCount, minLength);
+        } catch (Unsupported e) {
+            return null;
+        }
+    }
+
+    /**
+     * Searches for the pattern in the region of the matcher starting at
+     * the given index, like {@link Matcher#search}.
+     */
+    int search(Matcher matcher, int from) {
+        return run(matcher, from, true, false);
+    }
+
+    /**
+     * Matches the pattern at the given index, like {@link Matcher#match}.
+     */
+    int match(Matcher matcher, int from, int anchor) {
+        return run(matcher, from, false, anchor == Matcher.ENDANCHOR);
+    }
+
+    private int run(Matcher matcher, int from, boolean search, boolean endAnchor) {
+        CharSequence seq = matcher.text;
+        int to = matcher.to;
+        boolean unanchored = search;
+        if (anchored) {
+            int fromIndex = matcher.anchoringBounds ? matcher.from : 0;
+            if (from != fromIndex)
+                return NO_MATCH;
+            unanchored = false;
+        }
+        if (unanchored && from > to - minLength) {
+            // like the search of the backtracking engine
+            matcher.hitEnd = true;
+            return NO_MATCH;
+        }
+        if (firstDFA != null) {
+            int start = from;
+            int end;
+            // requireEnd is only set by boundary matchers, which patterns
+            // matched by the DFAs do not have
+            if (endAnchor)
+                end = fullDFA.scanFull(matcher, seq, from, to);
+            else
+                end = firstDFA.scanFirst(matcher, seq, from, to, unanchored);
+            if (end == DFA_SPLIT)
+                return fallback(matcher, from);
+            if (end != DFA_FULL) {
+                if (end == DFA_NONE) {
+                    // a failed search always hits the end
+                    if (unanchored)
+                        matcher.hitEnd = true;
+                    return NO_MATCH;
+                }
+                if (unanchored) {
+                    start = reverseDFA.scanReverse(seq, from, end);
+                    if (start < 0)
+                        return pike(matcher, seq, from, to, true, false);
+                }
+                if (groupCount == 1) {
+                    matcher.first = matcher.groups[0] = start;
+                    matcher.last = matcher.groups[1] = end;
+                    return MATCH;
+                }
+                return pike(matcher, seq, start, to, false, endAnchor);
+            }
+        }
+        return pike(matcher, seq, from, to, unanchored, endAnchor);
+    }
+
+    /**
+     * Undoes the side effects of a partial match before the backtracking
+     * engine takes over.
+     */
+    private static int fallback(Matcher matcher, int from) {
+        matcher.hitEnd = false;
+        matcher.requireEnd = false;
+        matcher.first = from;
+        matcher.groups[0] = -1;
+        matcher.groups[1] = -1;
+        return FALLBACK;
+    }
+
+    /**
+     * Returns the code point at index i as the backtracking engine reads
+     * it, or -1 if it is a surrogate pair split by the end of the region.
+     */
+    private static int codePointAt(CharSequence seq, int i, int to) {
+        char c = seq.charAt(i);
+        if (Character.isHighSurrogate(c) && i + 1 < seq.length()) {
+            char d = seq.charAt(i + 1);
+            if (Character.isLowSurrogate(d))
+                return i + 1 < to ? Character.toCodePoint(c, d) : -1;
+        }
+        return c;
+    }
+
+    /**
+     * Runs the Pike VM over the region and stores the match with the
+     * highest priority in the matcher. A thread that reads a surrogate
+     * pair is carried over the index of its second half, where only a
+     * thread that starts there reads that half on its own.
+     *
+     * <p> The backtracking engine would only have tried the paths of
+     * higher priority than the match, so only the threads of higher
+     * priority than the match contribute to hitEnd and requireEnd. Each
+     * thread carries the effects of its own path and of the threads of
+     * higher priority that ended before it, in the same order. Like the
+     * backtracking engine, a search starts no thread after the end of the
+     * region minus the minimum length of a match, and hits the end if it
+     * fails.
+     */
+    private int pike(Matcher matcher, CharSequence seq, int from, int to,
+                     boolean unanchored, boolean endAnchor) {
+        Program p = program;
+        PikeVM vm = matcher.pikeVM;
+        if (vm == null || vm.p != p) {
+            vm = new PikeVM(p, matcher);
+            matcher.pikeVM = vm;
+        }
+        vm.reset(seq);
+        Threads clist = vm.clist;
+        Threads nlist = vm.nlist;
+        int[] init = vm.init;
+        vm.nextStamp();
+        vm.addThread(clist, 0, init, 0, from);
+        int[] matched = null;
+        for (int i = from; ; i++) {
+            vm.nextStamp();
+            vm.ended = 0;
+            nlist.size = 0;
+            int c = -1;
+            for (int k = 0; k < clist.size; k++) {
+                int pc = clist.pcs[k];
+                int effects = clist.effects[k] | vm.ended;
+                if (pc < 0) {
+                    // read the second half of a surrogate pair
+                    vm.addThread(nlist, ~pc + 1, clist.regs[k], effects, i + 1);
+                    continue;
+                }
+                if (p.op[pc] == ACCEPT) {
+                    if (endAnchor && i != to) {
+                        vm.end(effects);
+                        continue;
+                    }
+                    // Threads of lower priority are cut off
+                    matched = clist.regs[k];
+                    vm.matched = true;
+                    vm.matchEffects = effects;
+                    break;
+                }
+                if (i >= to) {
+                    vm.end(effects | HIT_END);
+                    continue;
+                }
+                if (c < 0) {
+                    c = codePointAt(seq, i, to);
+                    if (c < 0)
+                        return fallback(matcher, from);
+                }
+                if (!p.sets[p.x[pc]].contains(c)) {
+                    vm.end(effects);
+                } else if (c < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                    vm.addThread(nlist, pc + 1, clist.regs[k], effects, i + 1);
+                } else {
+                    nlist.pcs[nlist.size] = ~pc;
+                    nlist.regs[nlist.size] = clist.regs[k];
+                    nlist.effects[nlist.size++] = effects;
+                }
+            }
+            if (i >= to)
+                break;
+            if (matched == null && unanchored && i + 1 <= to - minLength)
+                vm.addThread(nlist, 0, init, vm.ended, i + 1);
+            else if (nlist.size == 0)
+                break;
+            Threads t = clist;
+            clist = nlist;
+            nlist = t;
+        }
+        int effects = vm.matched ? vm.matchEffects : vm.allEffects;
+        if (matched == null && unanchored)
+            effects |= HIT_END;
+        if ((effects & HIT_END) != 0)
+            matcher.hitEnd = true;
+        if ((effects & REQUIRE_END) != 0)
+            matcher.requireEnd = true;
+        if (matched == null)
+            return NO_MATCH;
+        for (int i = 0; i < groupCount * 2; i++)
+            matcher.groups[i] = matched[i];
+        matcher.first = matched[0];
+        matcher.last = matched[1];
+        return MATCH;
+    }
+
+    // Effects of a thread on the matcher
+    private static final int HIT_END     = 1;
+    private static final int REQUIRE_END = 2;
+
+    /**
+     * The control flow of a Pike VM run. Threads are added in priority
+     * order; an instruction that is already on a list is not added again,
+     * so a higher priority thread always shadows a lower priority one.
+     *
+     * <p> A Pike VM is allocated by the first run of a matcher and kept
+     * by the matcher for its later runs, as its arrays grow with the
+     * number of loops that can match the empty string.
+     */
+    static final class PikeVM {
+        final Program p;
+        final Matcher matcher;
+        final int[] seen;
+        final int[] listed;
+        final int[] stackKeys;
+        final int[][] stackRegs;
+        final int[] stackEffects;
+        final Threads clist;
+        final Threads nlist;
+
+        /** The registers of a thread that starts a match. */
+        final int[] init;
+
+        /** The input of the current run. */
+        CharSequence seq;
+
+        /** The stamp of the current index in seen and listed. */
+        int stamp;
+
+        /** Effects of the threads that ended at the current index. */
+        int ended;
+
+        /** Effects of all the threads that ended. */
+        int allEffects;
+
+        /** True if a match was found. */
+        boolean matched;
+
+        /** Effects of the threads of higher priority than the match. */
+        int matchEffects;
+
+        PikeVM(Program p, Matcher matcher) {
+            this.p = p;
+            this.matcher = matcher;
+            seen = new int[p.size << p.loops];
+            listed = new int[p.size];
+            stackKeys = new int[seen.length * 2 + 2];
+            stackRegs = new int[seen.length * 2 + 2][];
+            stackEffects = new int[seen.length * 2 + 2];
+            clist = new Threads(p.size * 2);
+            nlist = new Threads(p.size * 2);
+            init = new int[p.slots];
+            Arrays.fill(init, -1);
+        }
+
+        /**
+         * Prepares a run over the given input.
+         */
+        void reset(CharSequence seq) {
+            this.seq = seq;
+            clist.size = 0;
+            nlist.size = 0;
+            ended = 0;
+            allEffects = 0;
+            matched = false;
+            matchEffects = 0;
+        }
+
+        /**
+         * Moves on to the next index, which no instruction has been seen
+         * at yet.
+         */
+        void nextStamp() {
+            if (++stamp == 0) {
+                // the stamps of earlier runs could come round again
+                Arrays.fill(seen, 0);
+                Arrays.fill(listed, 0);
+                stamp = 1;
+            }
+        }
+
+        /**
+         * Records the effects of a thread that ended. All the threads of
+         * lower priority at the current index see them, and so does the
+         * match, as any thread that is still running has a higher priority.
+         */
+        void end(int effects) {
+            ended |= effects;
+            allEffects |= effects;
+            if (matched)
+                matchEffects |= effects;
+        }
+
+        /**
+         * Evaluates a boundary matcher and returns its effects, or -1 if
+         * it does not match.
+         */
+        int test(Pattern.Node node, int pos) {
+            boolean hitEnd = matcher.hitEnd;
+            boolean requireEnd = matcher.requireEnd;
+            matcher.hitEnd = false;
+            matcher.requireEnd = false;
+            boolean result = node.match(matcher, pos, seq);
+            int effects = (matcher.hitEnd ? HIT_END : 0) |
+                (matcher.requireEnd ? REQUIRE_END : 0);
+            matcher.hitEnd = hitEnd;
+            matcher.requireEnd = requireEnd;
+            return result ? effects : ~effects;
+        }
+
+        void addThread(Threads list, int pc0, int[] regs0, int effects0,
+                       int pos) {
+            int[] op = p.op, x = p.x, y = p.y;
+            int loops = p.loops;
+            int sp = 0;
+            stackKeys[sp] = pc0 << loops;
+            stackEffects[sp] = effects0;
+            stackRegs[sp++] = regs0;
+            while (sp > 0) {
+                int key = stackKeys[--sp];
+                int effects = stackEffects[sp] | ended;
+                int[] regs = stackRegs[sp];
+                stackRegs[sp] = null;
+                if (seen[key] == stamp) {
+                    end(effects);
+                    continue;
+                }
+                seen[key] = stamp;
+                int pc = key >>> loops;
+                int mask = key - (pc << loops);
+                switch (op[pc]) {
+                case JMP:
+                    stackKeys[sp] = x[pc] << loops | mask;
+                    stackEffects[sp] = effects;
+                    stackRegs[sp++] = regs;
+                    break;
+                case SPLIT:
+                    stackKeys[sp] = y[pc] << loops | mask;
+                    stackEffects[sp] = effects;
+                    stackRegs[sp++] = regs;
+                    stackKeys[sp] = x[pc] << loops | mask;
+                    stackEffects[sp] = effects;
+                    stackRegs[sp++] = regs;
+                    break;
+                case SAVE:
+                    regs = regs.clone();
+                    regs[x[pc]] = pos;
+                    stackKeys[sp] = (pc + 1) << loops | (mask | p.loopBit(x[pc]));
+                    stackEffects[sp] = effects;
+                    stackRegs[sp++] = regs;
+                    break;
+                case LOOP:
+                case LAZY_LOOP: {
+                    int bit = p.loopBit(x[pc]);
+                    int exit = (pc + 1) << loops | (mask & ~bit);
+                    if ((mask & bit) == 0) {
+                        boolean greedy = op[pc] == LOOP;
+                        int back = y[pc] << loops | mask;
+                        stackKeys[sp] = greedy ? exit : back;
+                        stackEffects[sp] = effects;
+                        stackRegs[sp++] = regs;
+                        stackKeys[sp] = greedy ? back : exit;
+                        stackEffects[sp] = effects;
+                        stackRegs[sp++] = regs;
+                    } else {
+                        stackKeys[sp] = exit;
+                        stackEffects[sp] = effects;
+                        stackRegs[sp++] = regs;
+                    }
+                    break;
+                }
+                case ASSERT: {
+                    int e = test(p.asserts[x[pc]], pos);
+                    if (e < 0) {
+                        end(effects | ~e);
+                    } else {
+                        stackKeys[sp] = (pc + 1) << loops | mask;
+                        stackEffects[sp] = effects | e;
+                        stackRegs[sp++] = regs;
+                    }
+                    break;
+                }
+                default:
+                    if (listed[pc] != stamp) {
+                        listed[pc] = stamp;
+                        list.pcs[list.size] = pc;
+                        list.regs[list.size] = regs;
+                        list.effects[list.size++] = effects;
+                    } else {
+                        end(effects);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * An ordered list of Pike VM threads. The complement of the pc of an
+     * instruction that read the first half of a surrogate pair stands for
+     * a thread that is yet to read the second half.
+     */
+    private static final class Threads {
+        final int[] pcs;
+        final int[][] regs;
+        final int[] effects;
+        int size;
+
+        Threads(int n) {
+            pcs = new int[n];
+            regs = new int[n][];
+            effects = new int[n];
+        }
+    }
+
+    /**
+     * A lazily built DFA. Each state is the ordered list of the consuming
+     * instructions reachable at a position. Transitions are computed on
+     * first use and cached in the states; the states themselves are
+     * immutable and interned in a concurrent map, so a DFA may be used by
+     * several threads at once.  When the map is full it is replaced by an
+     * empty one, and the states of the old map are dropped once no scan
+     * uses them.
+     */
+    private static final class DFA {
+        final Program p;
+        final boolean leftmostFirst;
+        final AtomicReference<StateCache> cache = new AtomicReference<>();
+
+        DFA(Program p, boolean leftmostFirst) {
+            this.p = p;
+            this.leftmostFirst = leftmostFirst;
+            cache.set(new StateCache(this));
+        }
+
+        /**
+         * Returns the end of the leftmost-first match that starts at from,
+         * or anywhere after from if unanchored is true.
+         */
+        int scanFirst(Matcher matcher, CharSequence seq, int from, int to,
+                      boolean unanchored) {
+            StateCache sc = cache.get();
+            State s = unanchored ? sc.startUnanchored : sc.start;
+            int end = s.match ? from : DFA_NONE;
+            int i = from;
+            int flushed = from - MAX_STATES;
+            while (i < to) {
+                if (s.insts.length == 0 && !s.unanchored)
+                    break;
+                int c = codePointAt(seq, i, to);
+                if (c < 0)
+                    return DFA_SPLIT;
+                State t;
+                if (c < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                    t = next(s, c);
+                } else if (s.unanchored) {
+                    // a match may also start at the second half of the
+                    // pair; such transitions are not cached
+                    t = step(s, c, seq.charAt(i + 1), true);
+                } else {
+                    t = next(s, c);
+                }
+                if (t == null) {
+                    if (i - flushed < MAX_STATES)
+                        return DFA_FULL;
+                    flushed = i;
+                    flush();
+                    continue;
+                }
+                s = t;
+                i += Character.charCount(c);
+                if (s.match)
+                    end = i;
+            }
+            matcher.hitEnd = i == to && (s.insts.length != 0 || s.unanchored);
+            return end;
+        }
+
+        /**
+         * Returns to if the whole region from from to to matches.
+         */
+        int scanFull(Matcher matcher, CharSequence seq, int from, int to) {
+            State s = cache.get().start;
+            int flushed = from - MAX_STATES;
+            for (int i = from; i < to; ) {
+                if (s.insts.length == 0)
+                    return DFA_NONE;
+                int c = codePointAt(seq, i, to);
+                if (c < 0)
+                    return DFA_SPLIT;
+                State t = next(s, c);
+                if (t == null) {
+                    if (i - flushed < MAX_STATES)
+                        return DFA_FULL;
+                    flushed = i;
+                    flush();
+                    continue;
+                }
+                s = t;
+                i += Character.charCount(c);
+            }
+            matcher.hitEnd = s.hitEnd;
+            return s.match ? to : DFA_NONE;
+        }
+
+        /**
+         * Scans backwards from end and returns the smallest index not
+         * below lowest at which a match of the reversed pattern ends.
+         */
+        int scanReverse(CharSequence seq, int lowest, int end) {
+            State s = cache.get().start;
+            int begin = s.match ? end : DFA_NONE;
+            int flushed = end + MAX_STATES;
+            for (int i = end; i > lowest; ) {
+                if (s.insts.length == 0)
+                    break;
+                char c = seq.charAt(i - 1);
+                State t;
+                int n = 1;
+                if (Character.isLowSurrogate(c) && i - 2 >= lowest &&
+                    Character.isHighSurrogate(seq.charAt(i - 2))) {
+                    // a match that starts at the second half of the pair
+                    // reads it on its own
+                    t = next(s, c);
+                    if (t != null) {
+                        if (t.match)
+                            begin = i - 1;
+                        t = next(s, Character.toCodePoint(seq.charAt(i - 2), c));
+                        n = 2;
+                    }
+                } else {
+                    t = next(s, c);
+                }
+                if (t == null) {
+                    if (flushed - i < MAX_STATES)
+                        return DFA_FULL;
+                    flushed = i;
+                    flush();
+                    continue;
+                }
+                s = t;
+                i -= n;
+                if (s.match)
+                    begin = i;
+            }
+            return begin;
+        }
+
+        private State next(State s, int c) {
+            int cls = c < 128 ? c : 128 + p.classOf(c);
+            State t = s.next[cls];
+            if (t == null) {
+                t = step(s, c, -1, s.unanchored);
+                if (t == null)
+                    return null;
+                // A racy update is harmless, states are immutable
+                s.next[cls] = t;
+            }
+            return t;
+        }
+
+        /**
+         * Replaces the cache by an empty one if it is full.  A state of the
+         * old cache still leads to the states of the new one.
+         */
+        private void flush() {
+            StateCache sc = cache.get();
+            if (sc.states.size() >= MAX_STATES)
+                cache.compareAndSet(sc, new StateCache(this));
+        }
+
+        /**
+         * Computes the state that follows s on the code point c, or the
+         * start state if s is null. If low is not -1, c is a surrogate pair
+         * whose second half low is also read by a match that starts there.
+         * Returns null if the cache is full.
+         */
+        private State step(State s, int c, int low, boolean unanchored) {
+            return intern(cache.get(), closure(s, c, low, unanchored));
+        }
+
+        private State closure(State s, int c, int low, boolean unanchored) {
+            Closure cl = new Closure(p, leftmostFirst);
+            if (s == null) {
+                cl.add(0);
+            } else {
+                for (int pc : s.insts) {
+                    if (p.sets[p.x[pc]].contains(c) && cl.add(pc + 1))
+                        break;
+                }
+                if (low >= 0 && !cl.match) {
+                    for (int pc : cache.get().start.insts) {
+                        if (p.sets[p.x[pc]].contains(low) && cl.add(pc + 1))
+                            break;
+                    }
+                }
+                if (unanchored && !cl.match)
+                    cl.add(0);
+            }
+            boolean hitEnd = (cl.match ? cl.matchAt : cl.count) > 0;
+            return new State(Arrays.copyOf(cl.insts, cl.count), cl.match,
+                             unanchored && !cl.match, hitEnd,
+                             128 + p.classCount());
+        }
+
+        /**
+         * Returns the state of the cache equal to t, adding t if there is
+         * none, or null if the cache is full.
+         */
+        private static State intern(StateCache sc, State t) {
+            State u = sc.states.get(t);
+            if (u != null)
+                return u;
+            if (sc.states.size() >= MAX_STATES)
+                return null;
+            u = sc.states.putIfAbsent(t, t);
+            return u != null ? u : t;
+        }
+    }
+
+    /**
+     * The states of a DFA added since its cache was last flushed, with its
+     * start states. Transitions lead to states of the same cache or of a
+     * newer one, never of an older one.
+     */
+    private static final class StateCache {
+        final ConcurrentHashMap<State, State> states = new ConcurrentHashMap<>();
+        final State start;
+        final State startUnanchored;
+
+        StateCache(DFA dfa) {
+            start = DFA.intern(this, dfa.closure(null, 0, -1, false));
+            startUnanchored = dfa.leftmostFirst ?
+                DFA.intern(this, dfa.closure(null, 0, -1, true)) : null;
+        }
+    }
+
+    /**
+     * Computes the ordered set of consuming instructions reachable from a
+     * set of instructions without consuming input.
+     */
+    private static final class Closure {
+        final Program p;
+        final boolean leftmostFirst;
+        final boolean[] seen;
+        final boolean[] listed;
+        final int[] stack;
+        final int[] insts;
+        int count;
+        boolean match;
+        // the number of instructions of higher priority than the match
+        int matchAt;
+
+        Closure(Program p, boolean leftmostFirst) {
+            this.p = p;
+            this.leftmostFirst = leftmostFirst;
+            seen = new boolean[p.size << p.loops];
+            listed = new boolean[p.size];
+            stack = new int[seen.length * 2 + 2];
+            insts = new int[p.size];
+        }
+
+        /**
+         * Adds the closure of pc; returns true if a match was reached and
+         * threads of lower priority are to be cut off.
+         */
+        boolean add(int pc0) {
+            int[] op = p.op, x = p.x, y = p.y;
+            int loops = p.loops;
+            int sp = 0;
+            stack[sp++] = pc0 << loops;
+            while (sp > 0) {
+                int key = stack[--sp];
+                if (seen[key])
+                    continue;
+                seen[key] = true;
+                int pc = key >>> loops;
+                int mask = key - (pc << loops);
+                switch (op[pc]) {
+                case JMP:
+                    stack[sp++] = x[pc] << loops | mask;
+                    break;
+                case SPLIT:
+                    stack[sp++] = y[pc] << loops | mask;
+                    stack[sp++] = x[pc] << loops | mask;
+                    break;
+                case SAVE:
+                    stack[sp++] = (pc + 1) << loops | (mask | p.loopBit(x[pc]));
+                    break;
+                case LOOP:
+                case LAZY_LOOP: {
+                    int bit = p.loopBit(x[pc]);
+                    int exit = (pc + 1) << loops | (mask & ~bit);
+                    if ((mask & bit) == 0) {
+                        boolean greedy = op[pc] == LOOP;
+                        int back = y[pc] << loops | mask;
+                        stack[sp++] = greedy ? exit : back;
+                        stack[sp++] = greedy ? back : exit;
+                    } else {
+                        stack[sp++] = exit;
+                    }
+                    break;
+                }
+                case ACCEPT:
+                    if (!match)
+                        matchAt = count;
+                    match = true;
+                    if (leftmostFirst)
+                        return true;
+                    break;
+                default:
+                    if (!listed[pc]) {
+                        listed[pc] = true;
+                        insts[count++] = pc;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A DFA state. If the input ends in a state whose hitEnd is true, the
+     * backtracking engine would have tried to read past the end before it
+     * found the match, or failed.
+     */
+    private static final class State {
+        final int[] insts;
+        final boolean match;
+        final boolean unanchored;
+        final boolean hitEnd;
+        final State[] next;
+        final int hash;
+
+        State(int[] insts, boolean match, boolean unanchored, boolean hitEnd,
+              int classes) {
+            this.insts = insts;
+            this.match = match;
+            this.unanchored = unanchored;
+            this.hitEnd = hitEnd;
+            this.next = new State[classes];
+            this.hash = Arrays.hashCode(insts) * 8 + (hitEnd ? 4 : 0) +
+                (match ? 2 : 0) + (unanchored ? 1 : 0);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof State))
+                return false;
+            State s = (State)o;
+            return match == s.match && unanchored == s.unanchored &&
+                hitEnd == s.hitEnd && Arrays.equals(insts, s.insts);
+        }
+    }
+
+    /**
+     * A compiled NFA program.
+     */
+    private static final class Program {
+        final int size;
+        final int[] op;
+        final int[] x;
+        final int[] y;
+        final CharSet[] sets;
+        final Pattern.Node[] asserts;
+        final int slots;
+        final boolean hasAsserts;
+
+        /**
+         * The number of loops whose body can match the empty string. Their
+         * registers follow the group slots; whether a register was set at
+         * the current position is tracked as a bit of a mask.
+         */
+        final int loops;
+        final int loopBase;
+
+        /**
+         * The starts of the intervals of non-ASCII code points that no set
+         * can tell apart, used to index the DFA transition tables.
+         */
+        final int[] classStarts;
+
+        Program(int size, int[] op, int[] x, int[] y, CharSet[] sets,
+                Pattern.Node[] asserts, int slots, int loopBase) {
+            this.size = size;
+            this.op = op;
+            this.x = x;
+            this.y = y;
+            this.sets = sets;
+            this.asserts = asserts;
+            this.slots = slots;
+            this.hasAsserts = asserts.length > 0;
+            this.loopBase = loopBase;
+            this.loops = Math.max(slots - loopBase, 0);
+            if (loops > 8 || (size << loops) > 1 << 16)
+                throw new Unsupported();
+            int[] starts = new int[1];
+            int n = 1;
+            starts[0] = 128;
+            for (CharSet set : sets) {
+                for (int i = 0; i < set.ranges.length; i++) {
+                    int b = set.ranges[i] + (i & 1);
+                    if (b > 128 && b <= Character.MAX_CODE_POINT) {
+                        if (n == starts.length)
+                            starts = Arrays.copyOf(starts, n * 2);
+                        starts[n++] = b;
+                    }
+                }
+            }
+            Arrays.sort(starts, 0, n);
+            int k = 1;
+            for (int i = 1; i < n; i++) {
+                if (starts[i] != starts[k - 1])
+                    starts[k++] = starts[i];
+            }
+            classStarts = Arrays.copyOf(starts, k);
+        }
+
+        int loopBit(int slot) {
+            return slot < loopBase ? 0 : 1 << (slot - loopBase);
+        }
+
+        int classCount() {
+            return classStarts.length;
+        }
+
+        int classOf(int c) {
+            int i = Arrays.binarySearch(classStarts, c);
+            return i >= 0 ? i : -i - 2;
+        }
+    }
+
+    /**
+     * Translates a parsed pattern into a program. The forward program
+     * records the capturing groups and the loop registers; the reverse
+     * program matches the reversed language and records nothing.
+     */
+    private static final class Builder {
+        final boolean forward;
+        int[] op = new int[16];
+        int[] x = new int[16];
+        int[] y = new int[16];
+        int size;
+        final ArrayList<CharSet> sets = new ArrayList<>();
+        final ArrayList<Pattern.Node> asserts = new ArrayList<>();
+        int slots;
+
+        Builder(boolean forward) {
+            this.forward = forward;
+        }
+
+        Program build(Expr expr, int groupCount) {
+            slots = Math.max(groupCount * 2, 2);
+            int base = slots;
+            emit(SAVE, 0, 0);
+            gen(expr);
+            emit(SAVE, 1, 0);
+            emit(ACCEPT, 0, 0);
+            return new Program(size, op, x, y,
+                               sets.toArray(new CharSet[sets.size()]),
+                               asserts.toArray(new Pattern.Node[asserts.size()]),
+                               slots, base);
+        }
+
+        private int emit(int opcode, int a, int b) {
+            if (size == MAX_INSTRUCTIONS)
+                throw new Unsupported();
+            if (size == op.length) {
+                op = Arrays.copyOf(op, size * 2);
+                x = Arrays.copyOf(x, size * 2);
+                y = Arrays.copyOf(y, size * 2);
+            }
+            op[size] = opcode;
+            x[size] = a;
+            y[size] = b;
+            return size++;
+        }
+
+        private void gen(Expr e) {
+            switch (e.kind) {
+            case Expr.CHARS:
+                sets.add(e.set);
+                emit(SET, sets.size() - 1, 0);
+                break;
+            case Expr.CONCAT:
+                if (forward) {
+                    for (Expr sub : e.subs)
+                        gen(sub);
+                } else {
+                    for (int i = e.subs.length - 1; i >= 0; i--)
+                        gen(e.subs[i]);
+                }
+                break;
+            case Expr.ALTERNATE: {
+                int[] jumps = new int[e.subs.length - 1];
+                for (int i = 0; i < jumps.length; i++) {
+                    int split = emit(SPLIT, size + 1, 0);
+                    gen(e.subs[i]);
+                    jumps[i] = emit(JMP, 0, 0);
+                    y[split] = size;
+                }
+                gen(e.subs[jumps.length]);
+                for (int jump : jumps)
+                    x[jump] = size;
+                break;
+            }
+            case Expr.GROUP:
+                if (forward && e.group > 0) {
+                    emit(SAVE, e.group * 2, 0);
+                    gen(e.subs[0]);
+                    emit(SAVE, e.group * 2 + 1, 0);
+                } else {
+                    gen(e.subs[0]);
+                }
+                break;
+            case Expr.ASSERTION:
+                asserts.add(e.node);
+                emit(ASSERT, asserts.size() - 1, 0);
+                break;
+            case Expr.REPEAT:
+                genRepeat(e);
+                break;
+            }
+        }
+
+        private void genRepeat(Expr e) {
+            Expr sub = e.subs[0];
+            for (int i = 0; i < e.min; i++)
+                gen(sub);
+            if (e.max == INFINITY) {
+                // X* is (X+)?; an iteration of X+ that matches the empty
+                // string ends the loop as in the backtracking engine
+                int split = emit(SPLIT, 0, 0);
+                int body = size;
+                int reg = -1;
+                if (forward && sub.nullable()) {
+                    reg = slots++;
+                    emit(SAVE, reg, 0);
+                }
+                gen(sub);
+                if (reg >= 0)
+                    emit(e.greedy ? LOOP : LAZY_LOOP, reg, body);
+                else if (e.greedy)
+                    emit(SPLIT, body, size + 1);
+                else
+                    emit(SPLIT, size + 1, body);
+                setSplit(split, body, size, e.greedy);
+            } else {
+                int[] splits = new int[e.max - e.min];
+                for (int i = 0; i < splits.length; i++) {
+                    splits[i] = emit(SPLIT, 0, 0);
+                    gen(sub);
+                }
+                for (int split : splits)
+                    setSplit(split, split + 1, size, e.greedy);
+            }
+        }
+
+        private void setSplit(int split, int body, int exit, boolean greedy) {
+            x[split] = greedy ? body : exit;
+            y[split] = greedy ? exit : body;
+        }
+    }
+
+    /**
+     * A node of the parsed pattern.
+     */
+    private static final class Expr {
+        static final int CHARS     = 0;
+        static final int CONCAT    = 1;
+        static final int ALTERNATE = 2;
+        static final int GROUP     = 3;
+        static final int REPEAT    = 4;
+        static final int ASSERTION = 5;
+
+        final int kind;
+        Expr[] subs;
+        CharSet set;
+        Pattern.Node node;
+        int group;
+        int min;
+        int max;
+        boolean greedy;
+
+        Expr(int kind, Expr[] subs) {
+            this.kind = kind;
+            this.subs = subs;
+        }
+
+        Expr(CharSet set) {
+            this.kind = CHARS;
+            this.set = set;
+        }
+
+        Expr(Pattern.Node node) {
+            this.kind = ASSERTION;
+            this.node = node;
+            node.next = SUCCEED;
+        }
+
+        boolean nullable() {
+            switch (kind) {
+            case CHARS:
+                return false;
+            case CONCAT:
+                for (Expr sub : subs) {
+                    if (!sub.nullable())
+                        return false;
+                }
+                return true;
+            case ALTERNATE:
+                for (Expr sub : subs) {
+                    if (sub.nullable())
+                        return true;
+                }
+                return false;
+            case GROUP:
+                return subs[0].nullable();
+            case REPEAT:
+                return min == 0 || subs[0].nullable();
+            default:
+                return true;
+            }
+        }
+    }
+
+    /**
+     * The continuation of the boundary matcher nodes.
+     */
+    private static final Pattern.Node SUCCEED = new Pattern.Node() {
+        boolean match(Matcher matcher, int i, CharSequence seq) {
+            return true;
+        }
+    };
+
+    /**
+     * Signals that a pattern uses a construct this engine does not
+     * support.
+     */
+    private static final class Unsupported extends RuntimeException {
+        private static final long serialVersionUID = 6403437925536553402L;
+
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * A recursive descent parser for the supported subset of the pattern
+     * syntax. The rules follow those of {@link Pattern}; any construct
+     * outside the subset throws {@link Unsupported}.
+     */
+    private static final class Parser {
+        final int[] p;
+        final int flags;
+        int cursor;
+        int groups = 1;
+        boolean quoting;
+
+        Parser(String regex, int flags) {
+            p = new int[regex.length()];
+            for (int i = 0; i < p.length; i++) {
+                char c = regex.charAt(i);
+                if (Character.isSurrogate(c))
+                    throw new Unsupported();
+                p[i] = c;
+            }
+            this.flags = flags;
+        }
+
+        boolean has(int f) {
+            return (flags & f) != 0;
+        }
+
+        int peek() {
+            return cursor < p.length ? p[cursor] : -1;
+        }
+
+        int read() {
+            if (cursor >= p.length)
+                throw new Unsupported();
+            return p[cursor++];
+        }
+
+        Expr parse() {
+            Expr e;
+            if (has(Pattern.LITERAL)) {
+                Expr[] subs = new Expr[p.length];
+                for (int i = 0; i < p.length; i++)
+                    subs[i] = single(p[i]);
+                e = new Expr(Expr.CONCAT, subs);
+                cursor = p.length;
+            } else {
+                e = alternation();
+            }
+            if (cursor != p.length)
+                throw new Unsupported();
+            return e;
+        }
+
+        Expr alternation() {
+            ArrayList<Expr> alts = new ArrayList<>();
+            alts.add(sequence());
+            while (!quoting && peek() == '|') {
+                cursor++;
+                alts.add(sequence());
+            }
+            if (alts.size() == 1)
+                return alts.get(0);
+            return new Expr(Expr.ALTERNATE, alts.toArray(new Expr[alts.size()]));
+        }
+
+        Expr sequence() {
+            ArrayList<Expr> items = new ArrayList<>();
+            for (;;) {
+                Expr atom;
+                if (quoting) {
+                    if (cursor >= p.length)
+                        break;
+                    atom = single(p[cursor++]);
+                    if (peek() == '\\' && cursor + 1 < p.length &&
+                        p[cursor + 1] == 'E') {
+                        cursor += 2;
+                        quoting = false;
+                    }
+                    if (!quoting)
+                        atom = closure(atom);
+                    items.add(atom);
+                    continue;
+                }
+                int ch = peek();
+                if (ch == -1 || ch == '|' || ch == ')')
+                    break;
+                atom = atom();
+                if (atom != null)
+                    items.add(closure(atom));
+            }
+            if (items.size() == 1)
+                return items.get(0);
+            return new Expr(Expr.CONCAT, items.toArray(new Expr[items.size()]));
+        }
+
+        Expr atom() {
+            int ch = read();
+            switch (ch) {
+            case '(':
+                return group();
+            case '[':
+                return new Expr(clazz());
+            case '.': {
+                CharSetBuilder b = new CharSetBuilder();
+                if (!has(Pattern.DOTALL)) {
+                    b.add('\n');
+                    if (!has(Pattern.UNIX_LINES)) {
+                        b.add('\r');
+                        b.add('\u0085');
+                        b.add(0x2028, 0x2029);
+                    }
+                }
+                return new Expr(b.build(true));
+            }
+            case '^':
+                if (has(Pattern.MULTILINE)) {
+                    if (has(Pattern.UNIX_LINES))
+                        return new Expr(new Pattern.UnixCaret());
+                    return new Expr(new Pattern.Caret());
+                }
+                return new Expr(new Pattern.Begin());
+            case '$':
+                if (has(Pattern.UNIX_LINES))
+                    return new Expr(new Pattern.UnixDollar(has(Pattern.MULTILINE)));
+                return new Expr(new Pattern.Dollar(has(Pattern.MULTILINE)));
+            case '\\':
+                return escape();
+            case '*':
+            case '+':
+            case '?':
+            case '{':
+                throw new Unsupported();
+            default:
+                return single(ch);
+            }
+        }
+
+        Expr group() {
+            int group = 0;
+            if (peek() == '?') {
+                cursor++;
+                int ch = read();
+                if (ch == '<' && ASCII.isAlpha(peek())) {
+                    while (ASCII.isAlnum(peek()))
+                        cursor++;
+                    if (read() != '>')
+                        throw new Unsupported();
+                    group = groups++;
+                } else if (ch != ':') {
+                    throw new Unsupported();
+                }
+            } else {
+                group = groups++;
+            }
+            Expr body = alternation();
+            if (read() != ')')
+                throw new Unsupported();
+            Expr e = new Expr(Expr.GROUP, new Expr[] { body });
+            e.group = group;
+            return e;
+        }
+
+        Expr closure(Expr atom) {
+            int min, max;
+            switch (peek()) {
+            case '?':
+                min = 0;
+                max = 1;
+                break;
+            case '*':
+                min = 0;
+                max = INFINITY;
+                break;
+            case '+':
+                min = 1;
+                max = INFINITY;
+                break;
+            case '{':
+                cursor++;
+                min = number();
+                max = min;
+                if (peek() == ',') {
+                    cursor++;
+                    max = peek() == '}' ? INFINITY : number();
+                }
+                if (peek() != '}')
+                    throw new Unsupported();
+                break;
+            default:
+                return atom;
+            }
+            cursor++;
+            if (atom.kind == Expr.ASSERTION || peek() == '+')
+                throw new Unsupported();
+            // An empty iteration ends a loop even if it has not reached
+            // its minimum count
+            if (atom.nullable() && (min > 1 || (max > 1 && max != INFINITY)))
+                throw new Unsupported();
+            boolean greedy = true;
+            if (peek() == '?') {
+                cursor++;
+                greedy = false;
+            }
+            Expr e = new Expr(Expr.REPEAT, new Expr[] { atom });
+            e.min = min;
+            e.max = max;
+            e.greedy = greedy;
+            return e;
+        }
+
+        int number() {
+            if (!ASCII.isDigit(peek()))
+                throw new Unsupported();
+            int n = 0;
+            while (ASCII.isDigit(peek())) {
+                n = n * 10 + (read() - '0');
+                if (n > MAX_INSTRUCTIONS)
+                    throw new Unsupported();
+            }
+            return n;
+        }
+
+        /**
+         * Parses an escape sequence outside a character class. Returns
+         * null for the start of a quotation.
+         */
+        Expr escape() {
+            int ch = read();
+            switch (ch) {
+            case 'A':
+                return new Expr(new Pattern.Begin());
+            case 'Z':
+                if (has(Pattern.UNIX_LINES))
+                    return new Expr(new Pattern.UnixDollar(false));
+                return new Expr(new Pattern.Dollar(false));
+            case 'z':
+                return new Expr(new Pattern.End());
+            case 'b':
+                return new Expr(new Pattern.Bound(Pattern.Bound.BOTH, false));
+            case 'B':
+                return new Expr(new Pattern.Bound(Pattern.Bound.NONE, false));
+            case 'Q':
+                quoting = true;
+                return null;
+            default:
+                CharSetBuilder b = new CharSetBuilder();
+                if (predefined(ch, b))
+                    return new Expr(b.build(false));
+                return single(escapedChar(ch));
+            }
+        }
+
+        /**
+         * Adds the predefined character class named by ch to b and returns
+         * true, or returns false if ch does not name one.
+         */
+        boolean predefined(int ch, CharSetBuilder b) {
+            switch (ch) {
+            case 'd':
+            case 'D':
+                b.add('0', '9');
+                break;
+            case 's':
+            case 'S':
+                b.add('\t', '\r');
+                b.add(' ');
+                break;
+            case 'w':
+            case 'W':
+                b.add('a', 'z');
+                b.add('A', 'Z');
+                b.add('0', '9');
+                b.add('_');
+                break;
+            case 'h':
+            case 'H':
+                b.add('\t');
+                b.add(' ');
+                b.add(0x00a0);
+                b.add(0x1680);
+                b.add(0x180e);
+                b.add(0x2000, 0x200a);
+                b.add(0x202f);
+                b.add(0x205f);
+                b.add(0x3000);
+                break;
+            case 'v':
+            case 'V':
+                b.add('\n', '\r');
+                b.add('\u0085');
+                b.add(0x2028, 0x2029);
+                break;
+            default:
+                return false;
+            }
+            if (ASCII.isUpper(ch))
+                b.negate();
+            return true;
+        }
+
+        /**
+         * Returns the char denoted by an escape sequence that is not a
+         * character class or a boundary matcher.
+         */
+        int escapedChar(int ch) {
+            int c;
+            switch (ch) {
+            case '0':
+                c = octal();
+                break;
+            case 'a':
+                return '\007';
+            case 'c':
+                return read() ^ 64;
+            case 'e':
+                return '\033';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                c = hex(4);
+                break;
+            case 'x':
+                if (peek() == '{') {
+                    cursor++;
+                    c = 0;
+                    while (peek() != '}') {
+                        c = c * 16 + hexDigit(read());
+                        if (c > 0xFFFF)
+                            throw new Unsupported();
+                    }
+                    cursor++;
+                } else {
+                    c = hex(2);
+                }
+                break;
+            default:
+                if (ASCII.isAlnum(ch))
+                    throw new Unsupported();
+                return ch;
+            }
+            if (c > 0xFFFF || Character.isSurrogate((char)c))
+                throw new Unsupported();
+            return c;
+        }
+
+        int octal() {
+            int n = read() - '0';
+            if (n < 0 || n > 7)
+                throw new Unsupported();
+            int m = peek() - '0';
+            if (m < 0 || m > 7)
+                return n;
+            cursor++;
+            int o = peek() - '0';
+            if (o < 0 || o > 7 || n > 3)
+                return n * 8 + m;
+            cursor++;
+            return n * 64 + m * 8 + o;
+        }
+
+        int hex(int digits) {
+            int c = 0;
+            for (int i = 0; i < digits; i++)
+                c = c * 16 + hexDigit(read());
+            return c;
+        }
+
+        int hexDigit(int ch) {
+            int d = Character.digit(ch, 16);
+            if (d < 0 || ch > 0x7F)
+                throw new Unsupported();
+            return d;
+        }
+
+        /**
+         * Parses a character class without nested classes or
+         * intersections.
+         */
+        CharSet clazz() {
+            CharSetBuilder b = new CharSetBuilder();
+            boolean negate = false;
+            if (peek() == '^') {
+                cursor++;
+                negate = true;
+            }
+            boolean first = true;
+            for (;;) {
+                int ch = read();
+                if (ch == ']') {
+                    if (first)
+                        throw new Unsupported();
+                    break;
+                }
+                if (ch == '[' || (ch == '&' && peek() == '&'))
+                    throw new Unsupported();
+                first = false;
+                if (ch == '\\') {
+                    ch = read();
+                    if (ch == 'v' && peek() == '-') {
+                        ch = '\013';
+                    } else {
+                        CharSetBuilder pb = new CharSetBuilder();
+                        if (predefined(ch, pb)) {
+                            b.addAll(pb);
+                            continue;
+                        }
+                        if (ch == 'Q')
+                            throw new Unsupported();
+                        ch = escapedChar(ch);
+                    }
+                }
+                if (peek() == '-' && cursor + 1 < p.length &&
+                    p[cursor + 1] != ']') {
+                    if (p[cursor + 1] == '[')
+                        throw new Unsupported();
+                    cursor++;
+                    int m = read();
+                    if (m == '\\') {
+                        m = read();
+                        if (predefined(m, new CharSetBuilder()) || m == 'Q')
+                            throw new Unsupported();
+                        m = escapedChar(m);
+                    }
+                    if (m < ch)
+                        throw new Unsupported();
+                    b.add(ch, m);
+                    if (has(Pattern.CASE_INSENSITIVE)) {
+                        for (int u = 'A'; u <= 'Z'; u++) {
+                            int l = u + ('a' - 'A');
+                            if ((u >= ch && u <= m) || (l >= ch && l <= m)) {
+                                b.add(u);
+                                b.add(l);
+                            }
+                        }
+                    }
+                } else {
+                    addSingle(b, ch);
+                }
+            }
+            return b.build(negate);
+        }
+
+        Expr single(int ch) {
+            CharSetBuilder b = new CharSetBuilder();
+            addSingle(b, ch);
+            return new Expr(b.build(false));
+        }
+
+        void addSingle(CharSetBuilder b, int ch) {
+            if (Character.isSurrogate((char)ch))
+                throw new Unsupported();
+            b.add(ch);
+            if (has(Pattern.CASE_INSENSITIVE) && ASCII.isAlpha(ch)) {
+                b.add(ASCII.toLower(ch));
+                b.add(ASCII.toUpper(ch));
+            }
+        }
+    }
+
+    /**
+     * Accumulates the ranges of a character set.
+     */
+    private static final class CharSetBuilder {
+        int[] ranges = new int[8];
+        int size;
+        boolean negated;
+
+        void add(int c) {
+            add(c, c);
+        }
+
+        void add(int lo, int hi) {
+            if (size == ranges.length)
+                ranges = Arrays.copyOf(ranges, size * 2);
+            ranges[size++] = lo;
+            ranges[size++] = hi;
+        }
+
+        void addAll(CharSetBuilder b) {
+            int[] r = b.normalize(b.negated);
+            for (int i = 0; i < r.length; i += 2)
+                add(r[i], r[i + 1]);
+        }
+
+        void negate() {
+            negated = !negated;
+        }
+
+        CharSet build(boolean negate) {
+            return new CharSet(normalize(negate ^ negated));
+        }
+
+        /**
+         * Returns the sorted, disjoint ranges of this set, or of its
+         * complement among the code points.
+         */
+        int[] normalize(boolean complement) {
+            int n = size / 2;
+            long[] pairs = new long[n];
+            for (int i = 0; i < n; i++)
+                pairs[i] = ((long)ranges[2 * i] << 32) | ranges[2 * i + 1];
+            Arrays.sort(pairs);
+            int[] merged = new int[size];
+            int k = 0;
+            for (long pair : pairs) {
+                int lo = (int)(pair >>> 32);
+                int hi = (int)pair;
+                if (k > 0 && lo <= merged[k - 1] + 1) {
+                    merged[k - 1] = Math.max(merged[k - 1], hi);
+                } else {
+                    merged[k++] = lo;
+                    merged[k++] = hi;
+                }
+            }
+            if (!complement)
+                return Arrays.copyOf(merged, k);
+            int[] comp = new int[k + 2];
+            int j = 0;
+            int next = 0;
+            for (int i = 0; i < k; i += 2) {
+                if (merged[i] > next) {
+                    comp[j++] = next;
+                    comp[j++] = merged[i] - 1;
+                }
+                next = merged[i + 1] + 1;
+            }
+            if (next <= Character.MAX_CODE_POINT) {
+                comp[j++] = next;
+                comp[j++] = Character.MAX_CODE_POINT;
+            }
+            return Arrays.copyOf(comp, j);
+        }
+    }
+
+    /**
+     * An immutable set of code points, with a bitmap for the ASCII range.
+     */
+    private static final class CharSet {
+        final long low;
+        final long high;
+        final int[] ranges;
+
+        CharSet(int[] ranges) {
+            this.ranges = ranges;
+            long lo = 0, hi = 0;
+            for (int i = 0; i < ranges.length; i += 2) {
+                for (int c = ranges[i]; c <= ranges[i + 1] && c < 128; c++) {
+                    if (c < 64)
+                        lo |= 1L << c;
+                    else
+                        hi |= 1L << c;
+                }
+            }
+            low = lo;
+            high = hi;
+        }
+
+        boolean contains(int c) {
+            if (c < 64)
+                return (low & (1L << c)) != 0;
+            if (c < 128)
+                return (high & (1L << c)) != 0;
+            int lo = 0, hi = ranges.length / 2 - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (c < ranges[2 * mid])
+                    hi = mid - 1;
+                else if (c > ranges[2 * mid + 1])
+                    lo = mid + 1;
+                else
+                    return true;
+            }
+            return false;
+        }
+    }
+}
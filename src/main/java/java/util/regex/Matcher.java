@@ -207,6 +207,12 @@ public final class Matcher implements MatchResult {
      */
     boolean anchoringBounds = true;
 
+    /**
+     * The Pike VM of the linear-time engine, allocated by its first run
+     * and reused by the later match operations of this matcher.
+     */
+    LinearMatcher.PikeVM pikeVM;
+
     /**
      * No default constructor.
      */
@@ -279,6 +285,7 @@ public final class Matcher implements MatchResult {
         int parentGroupCount = Math.max(newPattern.capturingGroupCount, 10);
         groups = new int[parentGroupCount * 2];
         locals = new int[newPattern.localCount];
+        pikeVM = null;
         for (int i = 0; i < groups.length; i++)
             groups[i] = -1;
         for (int i = 0; i < locals.length; i++)
@@ -1245,7 +1252,11 @@ public final class Matcher implements MatchResult {
         for (int i = 0; i < groups.length; i++)
             groups[i] = -1;
         acceptMode = NOANCHOR;
-        boolean result = parentPattern.root.match(this, from, text);
+        LinearMatcher lm = parentPattern.linearMatcher;
+        int linear = (lm == null) ? LinearMatcher.FALLBACK : lm.search(this, from);
+        boolean result = (linear == LinearMatcher.FALLBACK)
+            ? parentPattern.root.match(this, from, text)
+            : linear == LinearMatcher.MATCH;
         if (!result)
             this.first = -1;
         this.oldLast = this.last;
@@ -1267,7 +1278,11 @@ public final class Matcher implements MatchResult {
         for (int i = 0; i < groups.length; i++)
             groups[i] = -1;
         acceptMode = anchor;
-        boolean result = parentPattern.matchRoot.match(this, from, text);
+        LinearMatcher lm = parentPattern.linearMatcher;
+        int linear = (lm == null) ? LinearMatcher.FALLBACK : lm.match(this, from, anchor);
+        boolean result = (linear == LinearMatcher.FALLBACK)
+            ? parentPattern.matchRoot.match(this, from, text)
+            : linear == LinearMatcher.MATCH;
         if (!result)
             this.first = -1;
         this.oldLast = this.last;
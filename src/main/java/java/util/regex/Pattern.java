@@ -917,6 +917,36 @@ public final class Pattern
      */
     public static final int UNICODE_CHARACTER_CLASS = 0x100;
 
+    /**
+     * Enables linear-time matching.
+     *
+     * <p> When this flag is specified, a pattern that consists only of
+     * literal characters, character classes without nesting or
+     * intersection, the predefined character classes, capturing and
+     * non-capturing groups, alternation, greedy and reluctant quantifiers
+     * and the boundary matchers <tt>^</tt>, <tt>$</tt>, <tt>\b</tt>,
+     * <tt>\B</tt>, <tt>\A</tt>, <tt>\Z</tt> and <tt>\z</tt> is matched
+     * by an automaton rather than by backtracking.  The time taken by the
+     * {@link Matcher#find() find}, {@link Matcher#matches() matches} and
+     * {@link Matcher#lookingAt() lookingAt} operations then grows linearly
+     * with the length of the input, whatever the pattern.  Patterns without
+     * boundary matchers and capturing groups are matched by deterministic
+     * automata that are built lazily and cached by the pattern.  A
+     * capturing group within a repeated group reports the input that it
+     * matched in the last iteration that took part in the match.
+     *
+     * <p> Other patterns, such as those that use back references,
+     * lookaround, independent groups, possessive quantifiers, embedded flags
+     * or Unicode properties, and patterns compiled together with the
+     * {@link #COMMENTS}, {@link #UNICODE_CASE}, {@link #CANON_EQ} or
+     * {@link #UNICODE_CHARACTER_CLASS} flags, are matched as if this flag
+     * was not specified.  The same applies to a match operation whose
+     * region ends between the two halves of a surrogate pair.
+     *
+     * <p> There is no embedded flag character for this mode. </p>
+     */
+    public static final int DFA = 0x200;
+
     /* Pattern has only two serialized components: The pattern string
      * and the flags, which are all that is needed to recompile the pattern
      * when it is deserialized.
@@ -963,6 +993,12 @@ public final class Pattern
      */
     transient Node matchRoot;
 
+    /**
+     * The linear-time matching engine, or null if the DFA flag is not
+     * specified or the pattern cannot be matched in linear time.
+     */
+    transient LinearMatcher linearMatcher;
+
     /**
      * Temporary storage used by parsing pattern slice.
      */
@@ -1039,8 +1075,8 @@ public final class Pattern
      *         Match flags, a bit mask that may include
      *         {@link #CASE_INSENSITIVE}, {@link #MULTILINE}, {@link #DOTALL},
      *         {@link #UNICODE_CASE}, {@link #CANON_EQ}, {@link #UNIX_LINES},
-     *         {@link #LITERAL}, {@link #UNICODE_CHARACTER_CLASS}
-     *         and {@link #COMMENTS}
+     *         {@link #LITERAL}, {@link #UNICODE_CHARACTER_CLASS},
+     *         {@link #DFA} and {@link #COMMENTS}
      *
      * @return the given regular expression compiled into a pattern with the given flags
      * @throws  IllegalArgumentException
@@ -1718,6 +1754,10 @@ loop:   for(int x=0, offset=0; x<nCodePoints; x++, offset+=len) {
             root = hasSupplementary ? new StartS(matchRoot) : new Start(matchRoot);
         }
 
+        if (has(DFA))
+            linearMatcher = LinearMatcher.compile(pattern, flags,
+                                                  capturingGroupCount, root);
+
         // Release temporary storage
         temp = null;
         buffer = null;
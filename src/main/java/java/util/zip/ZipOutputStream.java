@@ -29,6 +29,7 @@ import java.io.OutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.Vector;
 import java.util.HashSet;
 import static java.util.zip.ZipConstants64.*;
@@ -79,8 +80,30 @@ class ZipOutputStream extends DeflaterOutputStream implements ZipConstants {
 
     private boolean closed = false;
 
+    // the central directory of the ZIP file being appended to, if any,
+    // and the number of records in it
+    private byte[] appendCen;
+    private int appendCount;
+
     private final ZipCoder zc;
 
+    static {
+        sun.misc.SharedSecrets.setJavaUtilZipOutputStreamAccess(
+            new sun.misc.JavaUtilZipOutputStreamAccess() {
+                public void writeDeflatedEntry(ZipOutputStream zos, ZipEntry e,
+                                               byte[] b, int off, int len)
+                    throws IOException
+                {
+                    zos.writeDeflatedEntry(e, b, off, len);
+                }
+                public void append(ZipOutputStream zos, long offset, byte[] cen,
+                                   int count, Collection<String> names) {
+                    zos.append(offset, cen, count, names);
+                }
+            }
+        );
+    }
+
     private static int version(ZipEntry e) throws ZipException {
         switch (e.method) {
         case DEFLATED: return 20;
@@ -303,6 +326,39 @@ class ZipOutputStream extends DeflaterOutputStream implements ZipConstants {
         }
     }
 
+    /*
+     * Writes an entry whose data has already been compressed by a Deflater
+     * in nowrap mode, with its size, compressed size and crc-32 in the LOC
+     * header.
+     */
+    private void writeDeflatedEntry(ZipEntry e, byte[] b, int off, int len)
+        throws IOException
+    {
+        if (e.method != DEFLATED || e.size == -1 || e.crc == -1 || e.csize != len) {
+            throw new ZipException(
+                "deflated entry missing size or crc-32, or wrong compressed size");
+        }
+        putNextEntry(e);
+        writeBytes(b, off, len);
+        current = null;
+    }
+
+    /*
+     * Prepares this stream to append entries to an existing ZIP file; the
+     * underlying stream must be positioned at the start of its central
+     * directory, at offset. The existing central directory records are
+     * written ahead of those of the new entries.
+     */
+    private void append(long offset, byte[] cen, int count, Collection<String> names) {
+        if (written != 0 || !xentries.isEmpty()) {
+            throw new IllegalStateException("entries already written");
+        }
+        written = offset;
+        appendCen = cen;
+        appendCount = count;
+        this.names.addAll(names);
+    }
+
     /**
      * Writes an array of bytes to the current ZIP entry data. This method
      * will block until all the bytes are written.
@@ -361,6 +417,8 @@ class ZipOutputStream extends DeflaterOutputStream implements ZipConstants {
         }
         // write central directory
         long off = written;
+        if (appendCen != null)
+            writeBytes(appendCen, 0, appendCen.length);
         for (XEntry xentry : xentries)
             writeCEN(xentry);
         writeEND(off, written - off);
@@ -600,8 +658,9 @@ class ZipOutputStream extends DeflaterOutputStream implements ZipConstants {
             xoff = ZIP64_MAGICVAL;
             hasZip64 = true;
         }
-        int count = xentries.size();
-        if (count >= ZIP64_MAGICCOUNT) {
+        long total = xentries.size() + appendCount;
+        int count = (int)total;
+        if (total >= ZIP64_MAGICCOUNT) {
             hasZip64 |= !inhibitZip64;
             if (hasZip64) {
                 count = ZIP64_MAGICCOUNT;
@@ -616,8 +675,8 @@ class ZipOutputStream extends DeflaterOutputStream implements ZipConstants {
             writeShort(45);                // version needed to extract
             writeInt(0);                   // number of this disk
             writeInt(0);                   // central directory start disk
-            writeLong(xentries.size());    // number of directory entires on disk
-            writeLong(xentries.size());    // number of directory entires
+            writeLong(total);              // number of directory entires on disk
+            writeLong(total);              // number of directory entires
             writeLong(len);                // length of central directory
             writeLong(off);                // offset of central directory
 
@@ -0,0 +1,379 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  This particular file is
+ * subject to the "Classpath" exception as provided in the LICENSE file
+ * that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package sun.misc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/*
+ * ClassPathIndex maps each package (directory) of the JAR files on a class
+ * path to the positions, in the search order of the class path, of the
+ * loaders that may contain it. URLClassPath consults it to probe only those
+ * JAR files that contain the package of a class or resource, rather than
+ * every JAR file that precedes it on the class path.
+ *
+ * Loaders whose content cannot be indexed (directories, remote URLs and JAR
+ * files with an INDEX.LIST) are searched for every name. The index is built
+ * once, by opening every loader of the class path, and is saved to a file
+ * named after a hash of the class path. A saved index is used only if the
+ * class path is unchanged, none of its JAR files has been modified since
+ * the index was built, and none of the JAR files that could not be opened
+ * then has appeared since. URLClassPath discards it if the loaders opened
+ * do not match those recorded.
+ *
+ * The on-disk representation is a binary file: a header, the original class
+ * path, the loaders in search order with the size and modification time of
+ * their JAR files, the files that were missing, and the packages with the
+ * positions of their loaders.
+ */
+final class ClassPathIndex {
+    private static final int MAGIC = 0x43504958;    // "CPIX"
+    private static final int VERSION = 2;
+
+    // original class path
+    private final String[] path;
+
+    // base URL, JAR file, and whether searched for all names of each loader
+    private final String[] urls;
+    private final String[] files;
+    private final long[] sizes;
+    private final long[] lastModified;
+    private final boolean[] searchAll;
+
+    // files of the class path that did not exist when the index was built
+    private final String[] missing;
+
+    // package name to positions of the loaders that may contain it
+    private final Map<String,int[]> packages;
+
+    // positions of the loaders that are searched for all names
+    private final int[] searchAllPositions;
+
+    private ClassPathIndex(String[] path,
+                           String[] urls,
+                           String[] files,
+                           long[] sizes,
+                           long[] lastModified,
+                           boolean[] searchAll,
+                           String[] missing,
+                           Map<String,int[]> packages)
+    {
+        this.path = path;
+        this.urls = urls;
+        this.files = files;
+        this.sizes = sizes;
+        this.lastModified = lastModified;
+        this.searchAll = searchAll;
+        this.missing = missing;
+
+        int n = 0;
+        for (boolean b : searchAll) {
+            if (b) n++;
+        }
+        searchAllPositions = new int[n];
+        n = 0;
+        for (int i = 0; i < searchAll.length; i++) {
+            if (searchAll[i]) searchAllPositions[n++] = i;
+        }
+
+        // merge the loaders that are searched for all names into the
+        // positions of each package
+        this.packages = new HashMap<>(packages.size() * 4 / 3 + 1);
+        for (Map.Entry<String,int[]> e : packages.entrySet()) {
+            this.packages.put(e.getKey(), merge(e.getValue(), searchAllPositions));
+        }
+    }
+
+    private static int[] merge(int[] a, int[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[n++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[n++] = b[j++];
+            } else {
+                result[n++] = a[i++];
+                j++;
+            }
+        }
+        return (n == result.length) ? result : Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Returns the positions, in strictly ascending order, of the loaders
+     * that may contain the resource of the given name.
+     */
+    int[] lookup(String name) {
+        String pkg = name.substring(0, name.lastIndexOf('/') + 1);
+        int[] positions = packages.get(pkg);
+        return (positions != null) ? positions : searchAllPositions;
+    }
+
+    /**
+     * Returns true if the index records the given base URL for the loader
+     * at the given position.
+     */
+    boolean matches(int position, String url) {
+        return position < urls.length && urls[position].equals(url);
+    }
+
+    /**
+     * Returns the name of the file of the index for the given class path.
+     */
+    static String fileName(String[] path) {
+        return "cp-" + Integer.toHexString(Arrays.hashCode(path)) + ".idx";
+    }
+
+    /**
+     * Incrementally records the loaders of a class path in search order.
+     */
+    static final class Builder {
+        private final String[] path;
+        private final List<String> urls = new ArrayList<>();
+        private final List<File> files = new ArrayList<>();
+        private final List<Boolean> searchAll = new ArrayList<>();
+        private final List<String> missing = new ArrayList<>();
+        private final Map<String,List<Integer>> packages = new HashMap<>();
+
+        Builder(String[] path) {
+            this.path = path;
+        }
+
+        /**
+         * Adds a loader whose content is not indexed.
+         */
+        void addSearchAll(String url) {
+            urls.add(url);
+            files.add(null);
+            searchAll.add(Boolean.TRUE);
+        }
+
+        /**
+         * Adds a JAR file loader with the given entry names.
+         */
+        void addJar(String url, File file, Iterable<String> entries) {
+            Integer position = urls.size();
+            urls.add(url);
+            files.add(file);
+            searchAll.add(Boolean.FALSE);
+
+            Set<String> pkgs = new TreeSet<>();
+            for (String name : entries) {
+                pkgs.add(name.substring(0, name.lastIndexOf('/') + 1));
+            }
+            for (String pkg : pkgs) {
+                List<Integer> positions = packages.get(pkg);
+                if (positions == null) {
+                    positions = new ArrayList<>(1);
+                    packages.put(pkg, positions);
+                }
+                positions.add(position);
+            }
+        }
+
+        /**
+         * Adds a file of the class path that could not be opened.
+         */
+        void addMissing(File file) {
+            missing.add(file.getPath());
+        }
+
+        ClassPathIndex build() {
+            int n = urls.size();
+            String[] fileNames = new String[n];
+            long[] sizes = new long[n];
+            long[] lastModified = new long[n];
+            boolean[] all = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                File f = files.get(i);
+                fileNames[i] = (f != null) ? f.getPath() : "";
+                sizes[i] = (f != null) ? f.length() : -1L;
+                lastModified[i] = (f != null) ? f.lastModified() : -1L;
+                all[i] = searchAll.get(i);
+            }
+            Map<String,int[]> map = new HashMap<>(packages.size() * 4 / 3 + 1);
+            for (Map.Entry<String,List<Integer>> e : packages.entrySet()) {
+                List<Integer> list = e.getValue();
+                int[] positions = new int[list.size()];
+                for (int i = 0; i < positions.length; i++) {
+                    positions[i] = list.get(i);
+                }
+                map.put(e.getKey(), positions);
+            }
+            return new ClassPathIndex(path, urls.toArray(new String[n]),
+                                      fileNames, sizes, lastModified, all,
+                                      missing.toArray(new String[missing.size()]),
+                                      map);
+        }
+    }
+
+    /**
+     * Reads the index from the given file. Returns null if the file does
+     * not exist, cannot be read, or is out of date for the given class path.
+     */
+    static ClassPathIndex load(File file, String[] expectedPath) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                 new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            String[] path = new String[in.readInt()];
+            for (int i = 0; i < path.length; i++) {
+                path[i] = in.readUTF();
+            }
+            if (!Arrays.equals(path, expectedPath)) {
+                return null;
+            }
+
+            int n = in.readInt();
+            String[] urls = new String[n];
+            String[] files = new String[n];
+            long[] sizes = new long[n];
+            long[] lastModified = new long[n];
+            boolean[] searchAll = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                urls[i] = in.readUTF();
+                files[i] = in.readUTF();
+                sizes[i] = in.readLong();
+                lastModified[i] = in.readLong();
+                searchAll[i] = in.readBoolean();
+                if (files[i].length() > 0) {
+                    File f = new File(files[i]);
+                    if (f.length() != sizes[i] ||
+                        f.lastModified() != lastModified[i]) {
+                        return null;
+                    }
+                }
+            }
+
+            String[] missing = new String[in.readInt()];
+            for (int i = 0; i < missing.length; i++) {
+                missing[i] = in.readUTF();
+                if (new File(missing[i]).exists()) {
+                    return null;
+                }
+            }
+
+            int count = in.readInt();
+            Map<String,int[]> packages = new HashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                String pkg = in.readUTF();
+                int[] positions = new int[in.readInt()];
+                for (int j = 0; j < positions.length; j++) {
+                    positions[j] = in.readInt();
+                    if (positions[j] < 0 || positions[j] >= n) {
+                        return null;
+                    }
+                }
+                packages.put(pkg, positions);
+            }
+            return new ClassPathIndex(path, urls, files, sizes, lastModified,
+                                      searchAll, missing, packages);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the index to the given file. The index is written to a
+     * temporary file first so that a partially written index is never read.
+     */
+    void save(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        File tmp = File.createTempFile("cp-", ".tmp", dir);
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(path.length);
+                for (String s : path) {
+                    out.writeUTF(s);
+                }
+                out.writeInt(urls.length);
+                for (int i = 0; i < urls.length; i++) {
+                    out.writeUTF(urls[i]);
+                    out.writeUTF(files[i]);
+                    out.writeLong(sizes[i]);
+                    out.writeLong(lastModified[i]);
+                    out.writeBoolean(searchAll[i]);
+                }
+                out.writeInt(missing.length);
+                for (String s : missing) {
+                    out.writeUTF(s);
+                }
+                // the merged positions are not written, the loaders that
+                // are searched for all names are merged again when read
+                Map<String,int[]> own = new HashMap<>();
+                for (Map.Entry<String,int[]> e : packages.entrySet()) {
+                    own.put(e.getKey(), withoutSearchAll(e.getValue()));
+                }
+                out.writeInt(own.size());
+                for (Map.Entry<String,int[]> e : own.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    int[] positions = e.getValue();
+                    out.writeInt(positions.length);
+                    for (int p : positions) {
+                        out.writeInt(p);
+                    }
+                }
+            }
+            if (!tmp.renameTo(file)) {
+                file.delete();
+                if (!tmp.renameTo(file)) {
+                    throw new IOException("Cannot rename " + tmp + " to " + file);
+                }
+            }
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    private int[] withoutSearchAll(int[] positions) {
+        int n = 0;
+        int[] result = new int[positions.length];
+        for (int p : positions) {
+            if (!searchAll[p]) result[n++] = p;
+        }
+        return (n == result.length) ? result : Arrays.copyOf(result, n);
+    }
+}
@@ -25,6 +25,7 @@
 
 package sun.misc;
 
+import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.regex.*;
 
@@ -59,6 +60,7 @@ public class FloatingDecimal{
     static final int    SINGLE_MAX_NDIGITS = 200;
 
     static final int    INT_DECIMAL_DIGITS = 9;
+    static final int    LONG_DECIMAL_DIGITS = 19;
 
     /**
      * Converts a double precision floating point value to a <code>String</code>.
@@ -999,6 +1001,121 @@ public class FloatingDecimal{
 
     }
 
+    /**
+     * Decimal to binary conversion after Eisel and Lemire: multiplies the
+     * decimal significand by a 128-bit truncated power of five and rounds
+     * the high bits directly. The approximation is accepted only when its
+     * error provably cannot change the rounded result; otherwise the caller
+     * falls back to the exact <code>FDBigInteger</code> path, so the value
+     * returned is always the correctly rounded one.
+     */
+    private static class EiselLemire {
+        private static final int MIN_EXP10 = -342;
+        private static final int MAX_EXP10 = 308;
+
+        // High and low 64 bits of the normalized 128-bit 5^q.
+        private static final long[] POW5_HI = new long[MAX_EXP10 - MIN_EXP10 + 1];
+        private static final long[] POW5_LO = new long[MAX_EXP10 - MIN_EXP10 + 1];
+
+        static {
+            BigInteger five = BigInteger.valueOf(5);
+            for (int q = MIN_EXP10; q <= MAX_EXP10; q++) {
+                BigInteger c;
+                if (q >= 0) {
+                    c = five.pow(q);
+                    int shift = c.bitLength() - 128;
+                    c = (shift < 0) ? c.shiftLeft(-shift) : c.shiftRight(shift);
+                } else {
+                    // Reciprocal of 5^-q, rounded up.
+                    BigInteger p = five.pow(-q);
+                    int z = p.bitLength();
+                    int b = (q >= -27) ? z + 127 : 2 * z + 128;
+                    c = BigInteger.ONE.shiftLeft(b).divide(p).add(BigInteger.ONE);
+                    int shift = c.bitLength() - 128;
+                    if (shift > 0) {
+                        c = c.shiftRight(shift);
+                    }
+                }
+                POW5_HI[q - MIN_EXP10] = c.shiftRight(64).longValue();
+                POW5_LO[q - MIN_EXP10] = c.longValue();
+            }
+        }
+
+        private static long unsignedMultiplyHigh(long x, long y) {
+            long x0 = x & 0xFFFFFFFFL;
+            long x1 = x >>> 32;
+            long y0 = y & 0xFFFFFFFFL;
+            long y1 = y >>> 32;
+            long p01 = x0 * y1;
+            long middle = x1 * y0 + ((x0 * y0) >>> 32) + (p01 & 0xFFFFFFFFL);
+            return x1 * y1 + (middle >>> 32) + (p01 >>> 32);
+        }
+
+        /**
+         * Returns the raw bits of the floating point value nearest to
+         * <code>w * 10^q</code>, or -1 if that cannot be decided cheaply
+         * or the result is subnormal or overflows.
+         *
+         * @param w the decimal significand, non-zero, as an unsigned long
+         * @param q the decimal exponent
+         * @param sigBits the significand width, including the implicit bit
+         * @param expBias the exponent bias
+         * @param maxBiasedExp the biased exponent of infinity
+         */
+        static long toBits(long w, int q, int sigBits, int expBias, int maxBiasedExp) {
+            if (q < MIN_EXP10 || q > MAX_EXP10) {
+                return -1;
+            }
+            int lz = Long.numberOfLeadingZeros(w);
+            w <<= lz;
+            // floor(q * log2(10)) + 64, biased and adjusted for normalization
+            long exp2 = ((217706L * q) >> 16) + 64 + expBias - lz;
+            int shift = 64 - sigBits - 2;
+            long mask = (1L << shift) - 1;
+
+            long hi5 = POW5_HI[q - MIN_EXP10];
+            long xHi = unsignedMultiplyHigh(w, hi5);
+            long xLo = w * hi5;
+            if ((xHi & mask) == mask && Long.compareUnsigned(xLo + w, w) < 0) {
+                // The truncated product is too close to call; bring in
+                // the low half of the power of five.
+                long lo5 = POW5_LO[q - MIN_EXP10];
+                long yHi = unsignedMultiplyHigh(w, lo5);
+                long yLo = w * lo5;
+                long mergedHi = xHi;
+                long mergedLo = xLo + yHi;
+                if (Long.compareUnsigned(mergedLo, xLo) < 0) {
+                    mergedHi++;
+                }
+                if ((mergedHi & mask) == mask && mergedLo + 1 == 0
+                        && Long.compareUnsigned(yLo + w, w) < 0) {
+                    return -1;
+                }
+                xHi = mergedHi;
+                xLo = mergedLo;
+            }
+
+            int msb = (int) (xHi >>> 63);
+            long m = xHi >>> (msb + shift);
+            exp2 -= 1 ^ msb;
+            if (xLo == 0 && (xHi & mask) == 0 && (m & 3) == 1) {
+                // Possibly exactly halfway between two values.
+                return -1;
+            }
+            // Round half to even, dropping the extra bit.
+            m += m & 1;
+            m >>>= 1;
+            if ((m >>> sigBits) != 0) {
+                m >>>= 1;
+                exp2++;
+            }
+            if (exp2 <= 0 || exp2 >= maxBiasedExp) {
+                return -1;
+            }
+            return (exp2 << (sigBits - 1)) | (m & ((1L << (sigBits - 1)) - 1));
+        }
+    }
+
     /**
      * A <code>ASCIIToBinaryConverter</code> container for a <code>double</code>.
      */
@@ -1129,6 +1246,26 @@ public class FloatingDecimal{
                 }
             }
 
+            if (nDigits <= LONG_DECIMAL_DIGITS) {
+                //
+                // All the digits fit in an unsigned long, so try the
+                // Eisel-Lemire approximation before falling back to
+                // big integer arithmetic. It either produces the
+                // correctly rounded result or declines.
+                //
+                long wValue = lValue;
+                for (int i = kDigits; i < nDigits; i++) {
+                    wValue = wValue * 10L + (long) ((int) digits[i] - (int) '0');
+                }
+                long bits = EiselLemire.toBits(wValue, decExponent - nDigits,
+                        DoubleConsts.SIGNIFICAND_WIDTH, DoubleConsts.EXP_BIAS,
+                        DoubleConsts.MAX_EXPONENT + DoubleConsts.EXP_BIAS + 1);
+                if (bits >= 0) {
+                    double rValue = Double.longBitsToDouble(bits);
+                    return (isNegative) ? -rValue : rValue;
+                }
+            }
+
             //
             // Harder cases:
             // The sum of digits plus exponent is greater than
@@ -1488,6 +1625,24 @@ public class FloatingDecimal{
                 return (isNegative) ? -fValue : fValue;
 
             }
+            if (nDigits <= LONG_DECIMAL_DIGITS) {
+                //
+                // Same as in doubleValue(): the Eisel-Lemire approximation
+                // rounds straight to single precision, so there is no
+                // double rounding to worry about.
+                //
+                long wValue = (long) iValue;
+                for (int i = kDigits; i < nDigits; i++) {
+                    wValue = wValue * 10L + (long) ((int) digits[i] - (int) '0');
+                }
+                long bits = EiselLemire.toBits(wValue, decExponent - nDigits,
+                        FloatConsts.SIGNIFICAND_WIDTH, FloatConsts.EXP_BIAS,
+                        FloatConsts.MAX_EXPONENT + FloatConsts.EXP_BIAS + 1);
+                if (bits >= 0) {
+                    fValue = Float.intBitsToFloat((int) bits);
+                    return (isNegative) ? -fValue : fValue;
+                }
+            }
             //
             // Harder cases:
             // The sum of digits plus exponent is greater than
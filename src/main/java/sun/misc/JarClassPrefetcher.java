@@ -0,0 +1,309 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  This particular file is
+ * subject to the "Classpath" exception as provided in the LICENSE file
+ * that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package sun.misc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/*
+ * JarClassPrefetcher reads and inflates, on background threads, the class
+ * files of a package of a JAR file once the first class of that package has
+ * been looked up, so that the classes a loader goes on to define from the
+ * same package are already in memory when it asks for their bytes.
+ *
+ * The entries of the JAR file are grouped by package on the first request.
+ * Signed JAR files are not prefetched, since the signers of an entry are only
+ * known to the JarEntry whose stream was read. Prefetched bytes are handed
+ * out at most once and the total held by all prefetchers is bounded. Bytes
+ * that are not asked for within MAX_AGE are dropped, and the oldest are
+ * dropped early to make room for new ones, so that classes which are never
+ * loaded do not hold on to the budget; dropped classes, and classes that do
+ * not fit, are simply read on demand.
+ */
+final class JarClassPrefetcher {
+
+    // total number of prefetched bytes held by all prefetchers
+    private static final AtomicLong buffered = new AtomicLong();
+
+    // the class files prefetched by all prefetchers, oldest first; entries
+    // stay after their bytes have been taken, until they come up for eviction
+    private static final ConcurrentLinkedQueue<Prefetched> prefetched =
+        new ConcurrentLinkedQueue<>();
+
+    // how long prefetched bytes are kept for the loader to ask for them
+    private static final long MAX_AGE = TimeUnit.SECONDS.toNanos(10);
+
+    private final JarFile jar;
+
+    // package directory to its class entries, null until first scanned
+    private Map<String,List<JarEntry>> packages;
+    private boolean signed;
+
+    // packages that have been scheduled, names of classes already asked for
+    private final Set<String> requested = ConcurrentHashMap.newKeySet();
+    private final Set<String> taken = ConcurrentHashMap.newKeySet();
+
+    private final Map<String,byte[]> classes = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    JarClassPrefetcher(JarFile jar) {
+        this.jar = jar;
+    }
+
+    /*
+     * Schedules the classes in the package of the given class file to be
+     * prefetched, unless that package already has been.
+     */
+    void prefetch(final String name) {
+        int i = name.lastIndexOf('/');
+        final String pkg = (i == -1) ? "" : name.substring(0, i + 1);
+        if (closed || !requested.add(pkg)) {
+            return;
+        }
+        evictExpired(System.nanoTime());
+        try {
+            Executor.INSTANCE.execute(new Runnable() {
+                public void run() {
+                    prefetchPackage(pkg, name);
+                }
+            });
+        } catch (RuntimeException e) {
+            // rejected, the classes are read on demand
+        }
+    }
+
+    /*
+     * Returns the prefetched bytes of the given class file, or null if they
+     * have not been prefetched, in which case they never will be.
+     */
+    byte[] take(String name) {
+        taken.add(name);
+        byte[] b = classes.remove(name);
+        if (b != null) {
+            buffered.addAndGet(-b.length);
+        }
+        evictExpired(System.nanoTime());
+        return b;
+    }
+
+    void close() {
+        closed = true;
+        for (String name : classes.keySet()) {
+            byte[] b = classes.remove(name);
+            if (b != null) {
+                buffered.addAndGet(-b.length);
+            }
+        }
+    }
+
+    private void prefetchPackage(String pkg, String trigger) {
+        List<JarEntry> entries;
+        synchronized (this) {
+            if (packages == null) {
+                try {
+                    scan();
+                } catch (RuntimeException e) {
+                    // the JAR file was closed
+                    packages = new HashMap<>();
+                }
+            }
+            if (signed) {
+                return;
+            }
+            entries = packages.get(pkg);
+        }
+        if (entries == null) {
+            return;
+        }
+        for (JarEntry entry : entries) {
+            String name = entry.getName();
+            if (closed) {
+                return;
+            }
+            if (name.equals(trigger) || taken.contains(name)) {
+                continue;
+            }
+            long size = entry.getSize();
+            if (size < 0 || size > Integer.MAX_VALUE) {
+                continue;
+            }
+            if (!reserve(size)) {
+                return;
+            }
+            byte[] b = null;
+            try {
+                b = read(entry, (int)size);
+            } catch (IOException | RuntimeException e) {
+                // not readable here, leave it to the loader
+            }
+            if (b == null) {
+                buffered.addAndGet(-size);
+                continue;
+            }
+            classes.put(name, b);
+            prefetched.add(new Prefetched(this, name, System.nanoTime()));
+            // the class may have been asked for while it was being read
+            if ((taken.contains(name) || closed) && classes.remove(name) != null) {
+                buffered.addAndGet(-size);
+            }
+        }
+    }
+
+    /*
+     * Reserves room for the given number of bytes in the budget shared by
+     * all prefetchers, dropping the oldest prefetched bytes if needed.
+     * Returns false if there is no room even with nothing prefetched.
+     */
+    private static boolean reserve(long size) {
+        evictExpired(System.nanoTime());
+        while (buffered.addAndGet(size) > URLClassPath.PREFETCH_LIMIT) {
+            buffered.addAndGet(-size);
+            Prefetched p = prefetched.poll();
+            if (p == null) {
+                return false;
+            }
+            p.release();
+        }
+        return true;
+    }
+
+    /*
+     * Drops the prefetched bytes that have not been asked for within MAX_AGE.
+     */
+    private static void evictExpired(long now) {
+        Prefetched p;
+        while ((p = prefetched.peek()) != null && now - p.time > MAX_AGE) {
+            if (prefetched.remove(p)) {
+                p.release();
+            }
+        }
+    }
+
+    /*
+     * A class file prefetched at the given time.
+     */
+    private static final class Prefetched {
+        final JarClassPrefetcher owner;
+        final String name;
+        final long time;
+
+        Prefetched(JarClassPrefetcher owner, String name, long time) {
+            this.owner = owner;
+            this.name = name;
+            this.time = time;
+        }
+
+        // drops the bytes unless they have been taken already
+        void release() {
+            byte[] b = owner.classes.remove(name);
+            if (b != null) {
+                buffered.addAndGet(-b.length);
+            }
+        }
+    }
+
+    private void scan() {
+        Map<String,List<JarEntry>> map = new HashMap<>();
+        Enumeration<JarEntry> e = jar.entries();
+        while (e.hasMoreElements()) {
+            JarEntry entry = e.nextElement();
+            String name = entry.getName();
+            if (name.startsWith("META-INF/")) {
+                String upper = name.toUpperCase(java.util.Locale.ENGLISH);
+                if (upper.endsWith(".SF") || upper.endsWith(".DSA") ||
+                    upper.endsWith(".RSA") || upper.endsWith(".EC")) {
+                    signed = true;
+                }
+            } else if (name.endsWith(".class") && !entry.isDirectory()) {
+                int i = name.lastIndexOf('/');
+                String pkg = (i == -1) ? "" : name.substring(0, i + 1);
+                List<JarEntry> list = map.get(pkg);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    map.put(pkg, list);
+                }
+                list.add(entry);
+            }
+        }
+        packages = map;
+    }
+
+    private byte[] read(JarEntry entry, int size) throws IOException {
+        byte[] b = new byte[size];
+        try (InputStream in = jar.getInputStream(entry)) {
+            int pos = 0;
+            while (pos < size) {
+                int n = in.read(b, pos, size - pos);
+                if (n < 0) {
+                    return null;
+                }
+                pos += n;
+            }
+            if (in.read() != -1) {
+                return null;
+            }
+        }
+        return b;
+    }
+
+    /*
+     * The threads prefetching for all JAR files; they have no permissions
+     * and exit when idle.
+     */
+    private static class Executor {
+        static final ExecutorService INSTANCE = AccessController.doPrivileged(
+            new PrivilegedAction<ExecutorService>() {
+                public ExecutorService run() {
+                    int n = Math.max(1, Math.min(4,
+                        Runtime.getRuntime().availableProcessors() - 1));
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                        n, n, 10L, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(),
+                        new ThreadFactory() {
+                            public Thread newThread(Runnable r) {
+                                Thread t = InnocuousThread.newSystemThread(
+                                    "Class Prefetcher", r);
+                                t.setDaemon(true);
+                                return t;
+                            }
+                        });
+                    pool.allowCoreThreadTimeOut(true);
+                    return pool;
+                }
+            });
+    }
+}
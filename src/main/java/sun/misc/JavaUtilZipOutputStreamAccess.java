@@ -0,0 +1,43 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  This particular file is
+ * subject to the "Classpath" exception as provided in the LICENSE file
+ * that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package sun.misc;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public interface JavaUtilZipOutputStreamAccess {
+    /**
+     * Writes an entry whose data has already been compressed by a
+     * Deflater in nowrap mode. The entry must have its size, compressed
+     * size and crc-32 set.
+     */
+    public void writeDeflatedEntry(ZipOutputStream zos, ZipEntry e,
+                                   byte[] b, int off, int len) throws IOException;
+
+    /**
+     * Prepares a new stream to append entries to an existing ZIP file.
+     * The stream must be positioned at the start of the central directory
+     * of the file, at offset; cen holds the central directory, which
+     * has count records for the given entry names.
+     */
+    public void append(ZipOutputStream zos, long offset, byte[] cen, int count,
+                       Collection<String> names);
+}
@@ -56,6 +56,7 @@ public class SharedSecrets {
     private static JavaSecurityProtectionDomainAccess javaSecurityProtectionDomainAccess;
     private static JavaSecurityAccess javaSecurityAccess;
     private static JavaUtilZipFileAccess javaUtilZipFileAccess;
+    private static JavaUtilZipOutputStreamAccess javaUtilZipOutputStreamAccess;
     private static JavaAWTAccess javaAWTAccess;
     private static JavaOISAccess javaOISAccess;
     private static JavaxCryptoSealedObjectAccess javaxCryptoSealedObjectAccess;
@@ -189,6 +190,16 @@ public class SharedSecrets {
         javaUtilZipFileAccess = access;
     }
 
+    public static JavaUtilZipOutputStreamAccess getJavaUtilZipOutputStreamAccess() {
+        if (javaUtilZipOutputStreamAccess == null)
+            unsafe.ensureClassInitialized(java.util.zip.ZipOutputStream.class);
+        return javaUtilZipOutputStreamAccess;
+    }
+
+    public static void setJavaUtilZipOutputStreamAccess(JavaUtilZipOutputStreamAccess access) {
+        javaUtilZipOutputStreamAccess = access;
+    }
+
     public static void setJavaAWTAccess(JavaAWTAccess jaa) {
         javaAWTAccess = jaa;
     }
@@ -55,6 +55,7 @@ import java.security.PrivilegedExceptionAction;
 import java.security.cert.Certificate;
 import sun.misc.FileURLMapper;
 import sun.net.util.URLUtil;
+import sun.security.action.GetLongAction;
 import sun.security.action.GetPropertyAction;
 
 /**
@@ -72,6 +73,9 @@ public class URLClassPath {
     private static final boolean DISABLE_ACC_CHECKING;
     private static final boolean DISABLE_CP_URL_CHECK;
     private static final boolean DEBUG_CP_URL_CHECK;
+    private static final String CLASS_PATH_INDEX_DIR;
+    private static final boolean PREFETCH_CLASSES;
+    static final long PREFETCH_LIMIT;
 
     static {
         JAVA_VERSION = java.security.AccessController.doPrivileged(
@@ -94,6 +98,20 @@ public class URLClassPath {
 
         DISABLE_CP_URL_CHECK = p != null ? p.equals("true") || p.isEmpty() : false;
         DEBUG_CP_URL_CHECK = "debug".equals(p);
+
+        // Directory of the saved class path indexes, none when not set
+        p = AccessController.doPrivileged(
+            new GetPropertyAction("sun.misc.URLClassPath.indexDir"));
+        CLASS_PATH_INDEX_DIR = (p != null && !p.isEmpty()) ? p : null;
+
+        // Read the classes of a package of a JAR file in the background
+        // once the first one is looked up, within a total number of bytes
+        p = AccessController.doPrivileged(
+            new GetPropertyAction("sun.misc.URLClassPath.prefetchClasses"));
+        PREFETCH_CLASSES = p != null ? p.equals("true") || p.equals("") : false;
+        PREFETCH_LIMIT = AccessController.doPrivileged(
+            new GetLongAction("sun.misc.URLClassPath.prefetchLimit",
+                              32L * 1024 * 1024));
     }
 
     /* The original search path of URLs. */
@@ -197,6 +215,8 @@ public class URLClassPath {
                 // does not consider the newly added url.
                 disableAllLookupCaches();
             }
+            // Likewise for the class path index
+            disableClassPathIndex();
         }
     }
 
@@ -361,6 +381,8 @@ public class URLClassPath {
         } else {
             // This JVM instance does not support lookup cache.
             disableAllLookupCaches();
+            // Use the class path index instead, if configured.
+            classPathIndexEnabled = (CLASS_PATH_INDEX_DIR != null && loader != null);
         }
     }
 
@@ -404,7 +426,7 @@ public class URLClassPath {
      */
     private synchronized int[] getLookupCache(String name) {
         if (lookupCacheURLs == null || !lookupCacheEnabled) {
-            return null;
+            return getClassPathIndex(name);
         }
 
         int[] cache = getLookupCacheForClassLoader(lookupCacheLoader, name);
@@ -440,6 +462,152 @@ public class URLClassPath {
         return true;
     }
 
+    /*
+     * The index of the packages in the JAR files of this class path, used
+     * instead of the lookup cache when it is not supported. It is read from,
+     * or built and saved to, CLASS_PATH_INDEX_DIR on first use. Null if not
+     * yet read or built.
+     */
+    private ClassPathIndex classPathIndex;
+    private boolean classPathIndexEnabled;
+
+    /*
+     * The URLs that could not be opened while the class path index is
+     * enabled, recorded so that the index is rebuilt once they exist.
+     */
+    private final List<URL> missingURLs = new ArrayList<>();
+
+    private synchronized void disableClassPathIndex() {
+        if (classPathIndexEnabled && (DEBUG || DEBUG_LOOKUP_CACHE)) {
+            System.out.println("WARNING: class path index disabled");
+        }
+        classPathIndexEnabled = false;
+        classPathIndex = null;
+    }
+
+    /**
+     * Returns an array of the index to loaders that may contain the
+     * specified resource, in strictly ascending order, according to the
+     * class path index. Returns null if there is no class path index and
+     * the lookup should search the entire classpath.
+     */
+    private int[] getClassPathIndex(String name) {
+        assert Thread.holdsLock(this);
+        if (!classPathIndexEnabled) {
+            return null;
+        }
+        if (classPathIndex == null) {
+            classPathIndex = AccessController.doPrivileged(
+                new PrivilegedAction<ClassPathIndex>() {
+                    public ClassPathIndex run() {
+                        return loadClassPathIndex();
+                    }
+                });
+            if (classPathIndex == null) {
+                disableClassPathIndex();
+                return null;
+            }
+        }
+
+        int[] cache = classPathIndex.lookup(name);
+        if (cache.length > 0) {
+            int maxindex = cache[cache.length - 1];
+            if (loaders.size() <= maxindex) {
+                // Open all Loaders up to, and including, maxindex. The
+                // index is disabled if the loaders do not match.
+                if (getLoader(maxindex) == null) {
+                    disableClassPathIndex();
+                }
+                if (!classPathIndexEnabled) {
+                    return null;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /*
+     * Reads the class path index, or builds and saves it if there is no
+     * saved index or it is out of date.
+     */
+    private ClassPathIndex loadClassPathIndex() {
+        String[] pathStrings;
+        synchronized (urls) {
+            pathStrings = new String[path.size()];
+            for (int i = 0; i < pathStrings.length; i++) {
+                pathStrings[i] = URLUtil.urlNoFragString(path.get(i));
+            }
+        }
+        File file = new File(CLASS_PATH_INDEX_DIR,
+                             ClassPathIndex.fileName(pathStrings));
+        ClassPathIndex index = ClassPathIndex.load(file, pathStrings);
+        if (index != null) {
+            if (DEBUG || DEBUG_LOOKUP_CACHE) {
+                System.out.println("Read class path index " + file);
+            }
+            return index;
+        }
+
+        // Open all loaders and record their content
+        getLoader(Integer.MAX_VALUE - 1);
+        if (closed) {
+            return null;
+        }
+        ClassPathIndex.Builder builder = new ClassPathIndex.Builder(pathStrings);
+        for (Loader loader : loaders) {
+            // record the URL the loader was opened for, as validated by
+            // validateClassPathIndex, not the jar: base URL of a JarLoader
+            URL base = (loader instanceof JarLoader) ?
+                ((JarLoader)loader).csu : loader.getBaseURL();
+            String url = URLUtil.urlNoFragString(base);
+            if (loader instanceof JarLoader) {
+                JarLoader jl = (JarLoader)loader;
+                File jarFile = jl.getLocalFile();
+                JarFile jar = (jarFile != null && jl.getIndex() == null) ?
+                    jl.getJarFile() : null;
+                if (jar != null) {
+                    List<String> names = new ArrayList<>();
+                    Enumeration<JarEntry> entries = jar.entries();
+                    while (entries.hasMoreElements()) {
+                        names.add(entries.nextElement().getName());
+                    }
+                    builder.addJar(url, jarFile, names);
+                    continue;
+                }
+            }
+            builder.addSearchAll(url);
+        }
+        for (URL url : missingURLs) {
+            if ("file".equals(url.getProtocol())) {
+                builder.addMissing(new File(new FileURLMapper(url).getPath()));
+            }
+        }
+        index = builder.build();
+        try {
+            index.save(file);
+            if (DEBUG || DEBUG_LOOKUP_CACHE) {
+                System.out.println("Saved class path index " + file);
+            }
+        } catch (IOException | SecurityException e) {
+            if (DEBUG || DEBUG_LOOKUP_CACHE) {
+                System.out.println("WARNING: cannot save class path index "
+                                   + file + ": " + e);
+            }
+        }
+        return index;
+    }
+
+    /*
+     * Validates that the URL of the Loader at the given index matches the
+     * class path index, otherwise the class path index is disabled.
+     */
+    private void validateClassPathIndex(int index, String urlNoFragString) {
+        if (classPathIndex != null &&
+            !classPathIndex.matches(index, urlNoFragString)) {
+            disableClassPathIndex();
+        }
+    }
+
     /*
      * The CLASS-PATH attribute was expanded by the VM when building
      * the resource lookup cache in the same order as the getLoader
@@ -535,6 +703,9 @@ public class URLClassPath {
                 }
             } catch (IOException e) {
                 // Silently ignore for now...
+                if (classPathIndexEnabled) {
+                    missingURLs.add(url);
+                }
                 continue;
             } catch (SecurityException se) {
                 // Always silently ignore. The context, if there is one, that
@@ -547,6 +718,7 @@ public class URLClassPath {
             }
             // Finally, add the Loader to the search path.
             validateLookupCache(loaders.size(), urlNoFragString);
+            validateClassPathIndex(loaders.size(), urlNoFragString);
             loaders.add(loader);
             lmap.put(urlNoFragString, loader);
         }
@@ -807,6 +979,7 @@ public class URLClassPath {
         private final HashMap<String, Loader> lmap;
         private final AccessControlContext acc;
         private boolean closed = false;
+        private volatile JarClassPrefetcher prefetcher;
         private static final sun.misc.JavaUtilZipFileAccess zipAccess =
                 sun.misc.SharedSecrets.getJavaUtilZipFileAccess();
 
@@ -860,6 +1033,9 @@ public class URLClassPath {
                 closed = true;
                 // in case not already open.
                 ensureOpen();
+                if (prefetcher != null) {
+                    prefetcher.close();
+                }
                 jar.close();
             }
         }
@@ -868,6 +1044,18 @@ public class URLClassPath {
             return jar;
         }
 
+        /*
+         * Returns the local JAR file of this loader, or null if the URL
+         * does not refer to a local file.
+         */
+        File getLocalFile() {
+            if (!isOptimizable(csu)) {
+                return null;
+            }
+            FileURLMapper p = new FileURLMapper(csu);
+            return p.exists() ? new File(p.getPath()) : null;
+        }
+
         private boolean isOptimizable(URL url) {
             return "file".equals(url.getProtocol());
         }
@@ -995,9 +1183,31 @@ public class URLClassPath {
                     { return entry.getCertificates(); };
                 public CodeSigner[] getCodeSigners()
                     { return entry.getCodeSigners(); };
+                public byte[] getBytes() throws IOException {
+                    JarClassPrefetcher p = prefetcher;
+                    byte[] b = (p != null) ? p.take(name) : null;
+                    return (b != null) ? b : super.getBytes();
+                }
             };
         }
 
+        /*
+         * Starts prefetching the classes in the package of the given class
+         * file, which has been found in this JAR file.
+         */
+        private void prefetchPackage(String name) {
+            JarClassPrefetcher p = prefetcher;
+            if (p == null) {
+                synchronized (this) {
+                    p = prefetcher;
+                    if (p == null) {
+                        prefetcher = p = new JarClassPrefetcher(jar);
+                    }
+                }
+            }
+            p.prefetch(name);
+        }
+
 
         /*
          * Returns true iff atleast one resource in the jar file has the same
@@ -1052,8 +1262,12 @@ public class URLClassPath {
                 throw new InternalError(e);
             }
             final JarEntry entry = jar.getJarEntry(name);
-            if (entry != null)
+            if (entry != null) {
+                if (PREFETCH_CLASSES && name.endsWith(".class")) {
+                    prefetchPackage(name);
+                }
                 return checkResource(name, check, entry);
+            }
 
             if (index == null)
                 return null;
@@ -168,6 +168,21 @@ public class VM {
         return booted;
     }
 
+    private static volatile boolean systemLoaderInited = false;
+
+    // Invoked by ClassLoader.initSystemClassLoader once the system class
+    // loader has been set.  java.lang.invoke resolves the types named in
+    // its method descriptors against that loader and cannot be used
+    // before then.
+    //
+    public static void systemLoaderInited() {
+        systemLoaderInited = true;
+    }
+
+    public static boolean isSystemLoaderInited() {
+        return systemLoaderInited;
+    }
+
     // Waits until VM completes initialization
     //
     // This method is invoked by the Finalizer thread
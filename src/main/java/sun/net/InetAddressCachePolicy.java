@@ -41,6 +41,13 @@ public final class InetAddressCachePolicy {
     private static final String negativeCachePolicyPropFallback =
         "sun.net.inetaddr.negative.ttl";
 
+    // Controls how long expired successful lookups may still be used
+    // while they are refreshed in the background
+    private static final String staleCachePolicyProp =
+        "networkaddress.cache.stale.ttl";
+    private static final String staleCachePolicyPropFallback =
+        "sun.net.inetaddr.stale.ttl";
+
     public static final int FOREVER = -1;
     public static final int NEVER = 0;
 
@@ -56,7 +63,7 @@ public final class InetAddressCachePolicy {
      * caching. For security reasons, this caching is made forever when
      * a security manager is set.
      */
-    private static int cachePolicy = FOREVER;
+    private static volatile int cachePolicy = FOREVER;
 
     /* The Java-level namelookup cache policy for negative lookups:
      *
@@ -66,7 +73,17 @@ public final class InetAddressCachePolicy {
      * default value is 0. It can be set to some other value for
      * performance reasons.
      */
-    private static int negativeCachePolicy = NEVER;
+    private static volatile int negativeCachePolicy = NEVER;
+
+    /* The Java-level namelookup cache policy for stale successful lookups:
+     *
+     * any positive value: the number of seconds that an expired address
+     * may still be returned while it is being looked up again
+     *
+     * default value is 0, an expired address is looked up before it is
+     * returned. It has no effect when successful lookups are cached forever.
+     */
+    private static final int staleCachePolicy;
 
     /*
      * Whether or not the cache policy for successful lookups was set
@@ -154,16 +171,46 @@ public final class InetAddressCachePolicy {
             }
             propertyNegativeSet = true;
         }
+        tmp = java.security.AccessController.doPrivileged (
+          new PrivilegedAction<Integer>() {
+            public Integer run() {
+                try {
+                    String tmpString = Security.getProperty(staleCachePolicyProp);
+                    if (tmpString != null) {
+                        return Integer.valueOf(tmpString);
+                    }
+                } catch (NumberFormatException ignored) {
+                    // Ignore
+                }
+
+                try {
+                    String tmpString = System.getProperty(staleCachePolicyPropFallback);
+                    if (tmpString != null) {
+                        return Integer.decode(tmpString);
+                    }
+                } catch (NumberFormatException ignored) {
+                    // Ignore
+                }
+                return null;
+            }
+          });
+
+        staleCachePolicy = (tmp != null && tmp.intValue() > 0) ?
+            tmp.intValue() : NEVER;
     }
 
-    public static synchronized int get() {
+    public static int get() {
         return cachePolicy;
     }
 
-    public static synchronized int getNegative() {
+    public static int getNegative() {
         return negativeCachePolicy;
     }
 
+    public static int getStale() {
+        return staleCachePolicy;
+    }
+
     /**
      * Sets the cache policy for successful lookups if the user has not
      * already specified a cache policy for it using a
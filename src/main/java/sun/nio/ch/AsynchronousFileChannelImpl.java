@@ -250,4 +250,58 @@ abstract class AsynchronousFileChannelImpl
             throw new NullPointerException("'handler' is null");
         implWrite(src, position, attachment, handler);
     }
+
+    // -- scattering reads and gathering writes --
+
+    abstract <A> Future<Long> implRead(ByteBuffer[] dsts,
+                                       long position,
+                                       A attachment,
+                                       CompletionHandler<Long,? super A> handler);
+
+    @Override
+    public final Future<Long> read(ByteBuffer[] dsts, long position) {
+        return implRead(dsts, position, null, null);
+    }
+
+    @Override
+    public final <A> void read(ByteBuffer[] dsts,
+                               int offset,
+                               int length,
+                               long position,
+                               A attachment,
+                               CompletionHandler<Long,? super A> handler)
+    {
+        if ((offset < 0) || (length < 0) || (offset > dsts.length - length))
+            throw new IndexOutOfBoundsException();
+        if (handler == null)
+            throw new NullPointerException("'handler' is null");
+        implRead(Util.subsequence(dsts, offset, length), position,
+                 attachment, handler);
+    }
+
+    abstract <A> Future<Long> implWrite(ByteBuffer[] srcs,
+                                        long position,
+                                        A attachment,
+                                        CompletionHandler<Long,? super A> handler);
+
+    @Override
+    public final Future<Long> write(ByteBuffer[] srcs, long position) {
+        return implWrite(srcs, position, null, null);
+    }
+
+    @Override
+    public final <A> void write(ByteBuffer[] srcs,
+                                int offset,
+                                int length,
+                                long position,
+                                A attachment,
+                                CompletionHandler<Long,? super A> handler)
+    {
+        if ((offset < 0) || (length < 0) || (offset > srcs.length - length))
+            throw new IndexOutOfBoundsException();
+        if (handler == null)
+            throw new NullPointerException("'handler' is null");
+        implWrite(Util.subsequence(srcs, offset, length), position,
+                  attachment, handler);
+    }
 }
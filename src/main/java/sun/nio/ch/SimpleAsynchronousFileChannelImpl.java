@@ -27,24 +27,60 @@ package sun.nio.ch;
 
 import java.nio.channels.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.nio.ByteBuffer;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.io.FileDescriptor;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import sun.security.action.GetIntegerAction;
 
 /**
  * "Portable" implementation of AsynchronousFileChannel for use on operating
  * systems that don't support asynchronous file I/O.
+ *
+ * Read and write requests are queued to the channel and serviced by a bounded
+ * number of tasks running on the executor. Each task takes a batch of queued
+ * requests, sorts them by file position, and services adjacent requests of the
+ * same kind with a single positional read or write through a temporary direct
+ * buffer. Scattering reads and gathering writes are serviced in the same way.
  */
 
 public class SimpleAsynchronousFileChannelImpl
     extends AsynchronousFileChannelImpl
 {
-    // lazy initialization of default thread pool for file I/O
+    // lazy initialization of default thread pool for file I/O, a fixed
+    // thread pool of the given size is used when the property is set
     private static class DefaultExecutorHolder {
-        static final ExecutorService defaultExecutor =
-            ThreadPool.createDefault().executor();
+        static final ExecutorService defaultExecutor = createExecutor();
+
+        private static ExecutorService createExecutor() {
+            int nThreads = AccessController.doPrivileged(
+                new GetIntegerAction("sun.nio.ch.fileIoThreads", 0));
+            ThreadPool pool = (nThreads > 0) ?
+                ThreadPool.create(nThreads, ThreadPool.defaultThreadFactory()) :
+                ThreadPool.createDefault();
+            return pool.executor();
+        }
+    }
+
+    // maximum number of tasks servicing the requests to a file at a time
+    private static final int MAX_PARALLELISM = getIntProperty(
+        "sun.nio.ch.fileIoParallelism", Runtime.getRuntime().availableProcessors());
+
+    // maximum number of bytes transferred by a coalesced read or write
+    private static final int MAX_COALESCED_SIZE = getIntProperty(
+        "sun.nio.ch.fileIoMaxCoalescedSize", 256*1024);
+
+    // maximum number of requests taken from the queue at a time
+    private static final int MAX_BATCH_SIZE = 64;
+
+    private static int getIntProperty(String name, int def) {
+        int value = AccessController.doPrivileged(new GetIntegerAction(name, def));
+        return (value > 0) ? value : def;
     }
 
     // Used to make native read and write calls
@@ -53,6 +89,13 @@ public class SimpleAsynchronousFileChannelImpl
     // Thread-safe set of IDs of native threads, for signalling
     private final NativeThreadSet threads = new NativeThreadSet(2);
 
+    // read and write requests waiting to be serviced
+    private final ConcurrentLinkedQueue<IoRequest<?,?>> pending =
+        new ConcurrentLinkedQueue<>();
+
+    // number of tasks servicing the pending requests
+    private final AtomicInteger workers = new AtomicInteger();
+
 
     SimpleAsynchronousFileChannelImpl(FileDescriptor fdObj,
                                       boolean reading,
@@ -306,38 +349,9 @@ public class SimpleAsynchronousFileChannelImpl
             return null;
         }
 
-        final PendingFuture<Integer,A> result = (handler == null) ?
-            new PendingFuture<Integer,A>(this) : null;
-        Runnable task = new Runnable() {
-            public void run() {
-                int n = 0;
-                Throwable exc = null;
-
-                int ti = threads.add();
-                try {
-                    begin();
-                    do {
-                        n = IOUtil.read(fdObj, dst, position, nd);
-                    } while ((n == IOStatus.INTERRUPTED) && isOpen());
-                    if (n < 0 && !isOpen())
-                        throw new AsynchronousCloseException();
-                } catch (IOException x) {
-                    if (!isOpen())
-                        x = new AsynchronousCloseException();
-                    exc = x;
-                } finally {
-                    end();
-                    threads.remove(ti);
-                }
-                if (handler == null) {
-                    result.setResult(n, exc);
-                } else {
-                    Invoker.invokeUnchecked(handler, attachment, n, exc);
-                }
-            }
-        };
-        executor.execute(task);
-        return result;
+        return submit(new IoRequest<Integer,A>(true, new ByteBuffer[] { dst },
+                                               position, false,
+                                               attachment, handler));
     }
 
     @Override
@@ -360,37 +374,399 @@ public class SimpleAsynchronousFileChannelImpl
             return null;
         }
 
-        final PendingFuture<Integer,A> result = (handler == null) ?
-            new PendingFuture<Integer,A>(this) : null;
-        Runnable task = new Runnable() {
-            public void run() {
-                int n = 0;
-                Throwable exc = null;
+        return submit(new IoRequest<Integer,A>(false, new ByteBuffer[] { src },
+                                               position, false,
+                                               attachment, handler));
+    }
 
-                int ti = threads.add();
+    @Override
+    <A> Future<Long> implRead(ByteBuffer[] dsts,
+                              long position,
+                              A attachment,
+                              CompletionHandler<Long,? super A> handler)
+    {
+        if (position < 0)
+            throw new IllegalArgumentException("Negative position");
+        if (!reading)
+            throw new NonReadableChannelException();
+        long remaining = 0L;
+        for (ByteBuffer dst: dsts) {
+            if (dst.isReadOnly())
+                throw new IllegalArgumentException("Read-only buffer");
+            remaining += dst.remaining();
+        }
+
+        // complete immediately if channel closed or no space remaining
+        if (!isOpen() || (remaining == 0L)) {
+            Throwable exc = (isOpen()) ? null : new ClosedChannelException();
+            if (handler == null)
+                return CompletedFuture.withResult(0L, exc);
+            Invoker.invokeIndirectly(handler, attachment, 0L, exc, executor);
+            return null;
+        }
+
+        return submit(new IoRequest<Long,A>(true, dsts.clone(), position, true,
+                                            attachment, handler));
+    }
+
+    @Override
+    <A> Future<Long> implWrite(ByteBuffer[] srcs,
+                               long position,
+                               A attachment,
+                               CompletionHandler<Long,? super A> handler)
+    {
+        if (position < 0)
+            throw new IllegalArgumentException("Negative position");
+        if (!writing)
+            throw new NonWritableChannelException();
+        long remaining = 0L;
+        for (ByteBuffer src: srcs)
+            remaining += src.remaining();
+
+        // complete immediately if channel is closed or no bytes remaining
+        if (!isOpen() || (remaining == 0L)) {
+            Throwable exc = (isOpen()) ? null : new ClosedChannelException();
+            if (handler == null)
+                return CompletedFuture.withResult(0L, exc);
+            Invoker.invokeIndirectly(handler, attachment, 0L, exc, executor);
+            return null;
+        }
+
+        return submit(new IoRequest<Long,A>(false, srcs.clone(), position, true,
+                                            attachment, handler));
+    }
+
+    /**
+     * A queued read or write request.
+     */
+    private class IoRequest<V,A> {
+        final boolean isRead;
+        final ByteBuffer[] bufs;
+        final long position;
+        // bytes remaining in the buffers when the request was queued
+        final long size;
+        // true if the result is a Long (scattering read or gathering write)
+        final boolean isVector;
+        final A attachment;
+        final CompletionHandler<V,? super A> handler;
+        final PendingFuture<V,A> result;
+
+        IoRequest(boolean isRead,
+                  ByteBuffer[] bufs,
+                  long position,
+                  boolean isVector,
+                  A attachment,
+                  CompletionHandler<V,? super A> handler)
+        {
+            long size = 0L;
+            for (ByteBuffer buf: bufs)
+                size += buf.remaining();
+            this.isRead = isRead;
+            this.bufs = bufs;
+            this.position = position;
+            this.size = size;
+            this.isVector = isVector;
+            this.attachment = attachment;
+            this.handler = handler;
+            this.result = (handler == null) ?
+                new PendingFuture<V,A>(SimpleAsynchronousFileChannelImpl.this) : null;
+        }
+
+        // true if the next request can be serviced by the same read or write
+        boolean isAdjacent(IoRequest<?,?> next, long total) {
+            return next.isRead == isRead &&
+                   next.position == position + size &&
+                   total + next.size <= MAX_COALESCED_SIZE;
+        }
+
+        // completes the request, the handler is invoked on a thread of the
+        // executor so that it cannot fail or hold up the rest of the batch
+        @SuppressWarnings("unchecked")
+        void complete(long n, Throwable exc) {
+            V value = (isVector) ? (V)Long.valueOf(n) : (V)Integer.valueOf((int)n);
+            if (handler == null) {
+                result.setResult(value, exc);
+                return;
+            }
+            try {
+                Invoker.invokeIndirectly(handler, attachment, value, exc, executor);
+            } catch (ShutdownChannelGroupException x) {
+                // executor shutdown, invoke the handler directly
                 try {
-                    begin();
+                    Invoker.invokeUnchecked(handler, attachment, value, exc);
+                } catch (Throwable ignore) { }
+            }
+        }
+    }
+
+    private static final Comparator<IoRequest<?,?>> BY_POSITION =
+        new Comparator<IoRequest<?,?>>() {
+            @Override
+            public int compare(IoRequest<?,?> r1, IoRequest<?,?> r2) {
+                if (r1.isRead != r2.isRead)
+                    return (r1.isRead) ? -1 : 1;
+                return Long.compare(r1.position, r2.position);
+            }
+        };
+
+    /**
+     * Queues the given request and starts a task to service the queue if
+     * the number of tasks is below the limit.
+     */
+    private <V,A> Future<V> submit(IoRequest<V,A> request) {
+        pending.add(request);
+        if (tryAddWorker()) {
+            boolean executed = false;
+            try {
+                executor.execute(drainer);
+                executed = true;
+            } finally {
+                if (!executed) {
+                    // rollback
+                    workers.decrementAndGet();
+                    pending.remove(request);
+                }
+            }
+        }
+        return request.result;
+    }
+
+    private boolean tryAddWorker() {
+        for (;;) {
+            int n = workers.get();
+            if (n >= MAX_PARALLELISM)
+                return false;
+            if (workers.compareAndSet(n, n + 1))
+                return true;
+        }
+    }
+
+    // services the pending requests until the queue is empty
+    private final Runnable drainer = new Runnable() {
+        public void run() {
+            do {
+                try {
+                    List<IoRequest<?,?>> batch;
+                    while (!(batch = takeBatch()).isEmpty())
+                        service(batch);
+                } finally {
+                    workers.decrementAndGet();
+                }
+                // re-check the queue as a request may have been queued
+                // after the queue was found empty
+            } while (!pending.isEmpty() && tryAddWorker());
+        }
+    };
+
+    private List<IoRequest<?,?>> takeBatch() {
+        List<IoRequest<?,?>> batch = new ArrayList<>();
+        IoRequest<?,?> request;
+        while (batch.size() < MAX_BATCH_SIZE && (request = pending.poll()) != null)
+            batch.add(request);
+        return batch;
+    }
+
+    /**
+     * Services a batch of requests, adjacent requests are serviced with a
+     * single read or write.
+     */
+    private void service(List<IoRequest<?,?>> batch) {
+        if (batch.size() > 1)
+            batch.sort(BY_POSITION);
+        int i = 0;
+        while (i < batch.size()) {
+            IoRequest<?,?> first = batch.get(i);
+            long total = first.size;
+            int j = i + 1;
+            while (j < batch.size() && batch.get(j-1).isAdjacent(batch.get(j), total)) {
+                total += batch.get(j).size;
+                j++;
+            }
+            if (j - i == 1) {
+                if (first.isVector) {
+                    transferVector(first);
+                } else {
+                    transfer(first);
+                }
+            } else {
+                transfer(batch.subList(i, j), total);
+            }
+            i = j;
+        }
+    }
+
+    /**
+     * Reads or writes a single buffer.
+     */
+    private void transfer(IoRequest<?,?> request) {
+        ByteBuffer buf = request.bufs[0];
+        int n = 0;
+        Throwable exc = null;
+
+        int ti = threads.add();
+        try {
+            begin();
+            do {
+                n = (request.isRead) ?
+                    IOUtil.read(fdObj, buf, request.position, nd) :
+                    IOUtil.write(fdObj, buf, request.position, nd);
+            } while ((n == IOStatus.INTERRUPTED) && isOpen());
+            if (n < 0 && !isOpen())
+                throw new AsynchronousCloseException();
+        } catch (IOException x) {
+            if (!isOpen())
+                x = new AsynchronousCloseException();
+            exc = x;
+        } finally {
+            end();
+            threads.remove(ti);
+        }
+        request.complete(n, exc);
+    }
+
+    /**
+     * Services a scattering read or gathering write on its own. Direct
+     * buffers are read or written in place, other buffers are transferred
+     * at most MAX_COALESCED_SIZE bytes at a time, so that the temporary
+     * direct buffer never needs to be as large as the request. The
+     * transfer stops at the first short read or write.
+     */
+    private void transferVector(IoRequest<?,?> request) {
+        long position = request.position;
+        long total = 0L;
+        int n = 0;
+        Throwable exc = null;
+
+        int ti = threads.add();
+        try {
+            begin();
+            transfer:
+            for (ByteBuffer buf: request.bufs) {
+                while (buf.hasRemaining()) {
+                    ByteBuffer chunk = buf;
+                    if (!buf.isDirect() && buf.remaining() > MAX_COALESCED_SIZE) {
+                        chunk = buf.duplicate();
+                        chunk.limit(chunk.position() + MAX_COALESCED_SIZE);
+                    }
+                    int len = chunk.remaining();
                     do {
-                        n = IOUtil.write(fdObj, src, position, nd);
+                        n = (request.isRead) ?
+                            IOUtil.read(fdObj, chunk, position, nd) :
+                            IOUtil.write(fdObj, chunk, position, nd);
                     } while ((n == IOStatus.INTERRUPTED) && isOpen());
                     if (n < 0 && !isOpen())
                         throw new AsynchronousCloseException();
-                } catch (IOException x) {
-                    if (!isOpen())
-                        x = new AsynchronousCloseException();
-                    exc = x;
-                } finally {
-                    end();
-                    threads.remove(ti);
+                    if (n <= 0)
+                        break transfer;
+                    if (chunk != buf)
+                        buf.position(buf.position() + n);
+                    position += n;
+                    total += n;
+                    if (n < len)
+                        break transfer;
                 }
-                if (handler == null) {
-                    result.setResult(n, exc);
+            }
+        } catch (IOException x) {
+            if (!isOpen())
+                x = new AsynchronousCloseException();
+            exc = x;
+        } finally {
+            end();
+            threads.remove(ti);
+        }
+        request.complete((total == 0L && n < 0) ? n : total, exc);
+    }
+
+    /**
+     * Reads or writes the given adjacent requests through a temporary
+     * direct buffer. Requests that are not reached by a short read or
+     * write are serviced again individually.
+     */
+    private void transfer(List<IoRequest<?,?>> requests, long total) {
+        IoRequest<?,?> first = requests.get(0);
+        boolean isRead = first.isRead;
+        // requests are only coalesced up to MAX_COALESCED_SIZE bytes
+        int size = (int)total;
+        long[] results = new long[requests.size()];
+        int n = 0;
+        Throwable exc = null;
+
+        ByteBuffer bb = Util.getTemporaryDirectBuffer(size);
+        int ti = threads.add();
+        try {
+            if (!isRead) {
+                // gather the bytes without consuming the source buffers
+                for (IoRequest<?,?> request: requests) {
+                    for (ByteBuffer src: request.bufs) {
+                        int pos = src.position();
+                        int rem = Math.min(src.remaining(), bb.remaining());
+                        ByteBuffer dup = src.duplicate();
+                        dup.limit(pos + rem);
+                        bb.put(dup);
+                    }
+                }
+                bb.flip();
+            } else {
+                bb.limit(size);
+            }
+            begin();
+            do {
+                n = (isRead) ?
+                    IOUtil.read(fdObj, bb, first.position, nd) :
+                    IOUtil.write(fdObj, bb, first.position, nd);
+            } while ((n == IOStatus.INTERRUPTED) && isOpen());
+            if (n < 0 && !isOpen())
+                throw new AsynchronousCloseException();
+
+            // distribute the bytes read or written to each request
+            for (int k = 0; k < results.length; k++) {
+                IoRequest<?,?> request = requests.get(k);
+                if (n < 0) {
+                    results[k] = n;
+                    continue;
+                }
+                int pos = (int)(request.position - first.position);
+                int portion = (int)Math.max(0L, Math.min(request.size, n - pos));
+                results[k] = portion;
+                if (portion == 0)
+                    continue;
+                for (ByteBuffer buf: request.bufs) {
+                    int len = Math.min(buf.remaining(), portion);
+                    if (isRead) {
+                        bb.limit(pos + len).position(pos);
+                        buf.put(bb);
+                    } else {
+                        buf.position(buf.position() + len);
+                    }
+                    pos += len;
+                    portion -= len;
+                    if (portion == 0)
+                        break;
+                }
+            }
+        } catch (IOException x) {
+            if (!isOpen())
+                x = new AsynchronousCloseException();
+            exc = x;
+        } finally {
+            end();
+            threads.remove(ti);
+            Util.offerFirstTemporaryDirectBuffer(bb);
+        }
+
+        boolean retry = (exc == null && results.length > 1);
+        for (int k = 0; k < results.length; k++) {
+            IoRequest<?,?> request = requests.get(k);
+            if (retry && results[k] == 0) {
+                // not reached by a short read or write
+                if (request.isVector) {
+                    transferVector(request);
                 } else {
-                    Invoker.invokeUnchecked(handler, attachment, n, exc);
+                    transfer(request);
                 }
+            } else {
+                request.complete(results[k], exc);
             }
-        };
-        executor.execute(task);
-        return result;
+        }
     }
 }
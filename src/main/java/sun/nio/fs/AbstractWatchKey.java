@@ -26,7 +26,9 @@
 package sun.nio.fs;
 
 import java.nio.file.*;
+import java.security.AccessController;
 import java.util.*;
+import sun.security.action.GetIntegerAction;
 
 /**
  * Base implementation class for watch keys.
@@ -35,9 +37,16 @@ import java.util.*;
 abstract class AbstractWatchKey implements WatchKey {
 
     /**
-     * Maximum size of event list (in the future this may be tunable)
+     * Maximum size of event list, tunable with the
+     * {@code sun.nio.fs.watchservice.maxEvents} system property.
      */
-    static final int MAX_EVENT_LIST_SIZE    = 512;
+    static final int MAX_EVENT_LIST_SIZE    = maxEventListSize();
+
+    private static int maxEventListSize() {
+        int size = AccessController.doPrivileged(
+            new GetIntegerAction("sun.nio.fs.watchservice.maxEvents", 512));
+        return (size > 0) ? size : 512;
+    }
 
     /**
      * Special event to signal overflow
@@ -26,11 +26,14 @@
 package sun.nio.fs;
 
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
 import java.io.IOException;
+import com.sun.nio.file.ExtendedWatchEventModifier;
 import sun.misc.Unsafe;
+import sun.security.action.GetIntegerAction;
 
 import static sun.nio.fs.UnixNativeDispatcher.*;
 import static sun.nio.fs.UnixConstants.*;
@@ -42,6 +45,15 @@ import static sun.nio.fs.UnixConstants.*;
  * mechanism. Requests to add or remove a watch, or close the watch service,
  * cause the thread to wakeup and process the request. Events are processed
  * by the thread which causes it to signal/queue the corresponding watch keys.
+ *
+ * A directory registered with the FILE_TREE modifier is watched by adding an
+ * inotify watch for each of its sub-directories. All of these watches map to
+ * the same key and the context of each event is the path of the entry
+ * relative to the registered directory. Sub-directories that are created or
+ * moved into the tree are watched as they appear. A directory may be both in
+ * a file tree and registered itself (or in several trees); inotify has one
+ * watch per directory, so its mask is the union of what each key requires and
+ * its events are delivered to each of the keys.
  */
 
 class LinuxWatchService
@@ -104,17 +116,46 @@ class LinuxWatchService
         private final int ifd;
         // watch descriptor
         private volatile int wd;
-
-        LinuxWatchKey(UnixPath dir, LinuxWatchService watcher, int ifd, int wd) {
+        // events requested at registration (inotify mask)
+        private int mask;
+        // maps watch descriptor to the relative path of each sub-directory
+        // when registered with the FILE_TREE modifier, otherwise null
+        private final Map<Integer,UnixPath> subdirs;
+
+        LinuxWatchKey(UnixPath dir,
+                      LinuxWatchService watcher,
+                      int ifd,
+                      int wd,
+                      int mask,
+                      boolean fileTree)
+        {
             super(dir, watcher);
             this.ifd = ifd;
             this.wd = wd;
+            this.mask = mask;
+            this.subdirs = (fileTree) ? new HashMap<Integer,UnixPath>() : null;
         }
 
         int descriptor() {
             return wd;
         }
 
+        int mask() {
+            return mask;
+        }
+
+        void setMask(int mask) {
+            this.mask = mask;
+        }
+
+        boolean isFileTree() {
+            return subdirs != null;
+        }
+
+        Map<Integer,UnixPath> subdirs() {
+            return subdirs;
+        }
+
         void invalidate(boolean remove) {
             if (remove) {
                 try {
@@ -123,6 +164,8 @@ class LinuxWatchService
                     // ignore
                 }
             }
+            if (subdirs != null)
+                subdirs.clear();
             wd = -1;
         }
 
@@ -170,8 +213,23 @@ class LinuxWatchService
         private static final int IN_Q_OVERFLOW      = 0x00004000;
         private static final int IN_IGNORED         = 0x00008000;
 
-        // sizeof buffer for when polling inotify
-        private static final int BUFFER_SIZE = 8192;
+        private static final int IN_MASK_ADD        = 0x20000000;
+        private static final int IN_ISDIR           = 0x40000000;
+
+        // additional events needed to track the sub-directories of a file tree
+        private static final int FILE_TREE_MASK =
+            IN_CREATE | IN_MOVED_TO | IN_MOVED_FROM;
+
+        // sizeof buffer for when polling inotify, large enough to drain
+        // bursts of events with few reads
+        private static final int BUFFER_SIZE = bufferSize();
+
+        private static int bufferSize() {
+            int size = AccessController.doPrivileged(
+                new GetIntegerAction("sun.nio.fs.inotify.bufferSize", 64*1024));
+            // must be large enough for at least one event with a maximal name
+            return Math.max(size, 8192);
+        }
 
         private final UnixFileSystem fs;
         private final LinuxWatchService watcher;
@@ -182,6 +240,9 @@ class LinuxWatchService
         private final int socketpair[];
         // maps watch descriptor to Key
         private final Map<Integer,LinuxWatchKey> wdToKey;
+        // maps watch descriptor of a sub-directory to the file tree keys
+        // that it is part of
+        private final Map<Integer,List<LinuxWatchKey>> wdToTreeKeys;
         // address of read buffer
         private final long address;
 
@@ -191,6 +252,7 @@ class LinuxWatchService
             this.ifd = ifd;
             this.socketpair = sp;
             this.wdToKey = new HashMap<Integer,LinuxWatchKey>();
+            this.wdToTreeKeys = new HashMap<Integer,List<LinuxWatchKey>>();
             this.address = unsafe.allocateMemory(BUFFER_SIZE);
         }
 
@@ -212,6 +274,7 @@ class LinuxWatchService
             UnixPath dir = (UnixPath)obj;
 
             int mask = 0;
+            boolean fileTree = false;
             for (WatchEvent.Kind<?> event: events) {
                 if (event == StandardWatchEventKinds.ENTRY_CREATE) {
                     mask |= IN_CREATE | IN_MOVED_TO;
@@ -227,11 +290,15 @@ class LinuxWatchService
                 }
             }
 
-            // no modifiers supported at this time
+            // FILE_TREE is the only modifier supported at this time
             if (modifiers.length > 0) {
                 for (WatchEvent.Modifier modifier: modifiers) {
                     if (modifier == null)
                         return new NullPointerException();
+                    if (modifier == ExtendedWatchEventModifier.FILE_TREE) {
+                        fileTree = true;
+                        continue;
+                    }
                     if (modifier instanceof com.sun.nio.file.SensitivityWatchEventModifier)
                         continue; // ignore
                     return new UnsupportedOperationException("Modifier not supported");
@@ -249,16 +316,15 @@ class LinuxWatchService
                 return new NotDirectoryException(dir.getPathForExceptionMessage());
             }
 
-            // register with inotify (replaces existing mask if already registered)
+            // register with inotify; the mask is added to the existing mask
+            // first, as the directory may be watched as part of a file tree
+            int required = (fileTree) ? (mask | FILE_TREE_MASK) : mask;
             int wd = -1;
             try {
-                NativeBuffer buffer =
-                    NativeBuffers.asNativeBuffer(dir.getByteArrayForSysCalls());
-                try {
-                    wd = inotifyAddWatch(ifd, buffer.address(), mask);
-                } finally {
-                    buffer.release();
-                }
+                wd = addWatch(dir, required | IN_MASK_ADD);
+                // replace existing mask if only registered by itself
+                if (wdToKey.containsKey(wd) && !wdToTreeKeys.containsKey(wd))
+                    addWatch(dir, required);
             } catch (UnixException x) {
                 if (x.errno() == ENOSPC) {
                     return new IOException("User limit of inotify watches reached");
@@ -268,20 +334,191 @@ class LinuxWatchService
 
             // ensure watch descriptor is in map
             LinuxWatchKey key = wdToKey.get(wd);
-            if (key == null) {
-                key = new LinuxWatchKey(dir, watcher, ifd, wd);
-                wdToKey.put(wd, key);
+            if (key != null && key.isFileTree() == fileTree) {
+                // re-registration, the mask of sub-directories is extended too
+                key.setMask(mask);
+                if (fileTree) {
+                    for (UnixPath relative: key.subdirs().values()) {
+                        try {
+                            addWatch(resolve(key, relative),
+                                     required | IN_MASK_ADD);
+                        } catch (UnixException x) {
+                            // ignore, IN_IGNORED will follow if deleted
+                        }
+                    }
+                }
+                return key;
+            }
+            if (key != null) {
+                // registered as a different kind of key
+                removeKey(key, false);
+                key.signal();
+            }
+            key = new LinuxWatchKey(dir, watcher, ifd, wd, mask, fileTree);
+            wdToKey.put(wd, key);
+
+            if (fileTree) {
+                try {
+                    addSubtree(key, dir);
+                } catch (IOException x) {
+                    removeKey(key, true);
+                    return x;
+                }
             }
             return key;
         }
 
+        /**
+         * Adds an inotify watch for the given directory and returns the
+         * watch descriptor.
+         */
+        private int addWatch(UnixPath dir, int mask) throws UnixException {
+            NativeBuffer buffer =
+                NativeBuffers.asNativeBuffer(dir.getByteArrayForSysCalls());
+            try {
+                return inotifyAddWatch(ifd, buffer.address(), mask);
+            } finally {
+                buffer.release();
+            }
+        }
+
+        /**
+         * Returns the path of a directory in the tree of the given key.
+         */
+        private static UnixPath resolve(LinuxWatchKey key, UnixPath relative) {
+            UnixPath root = (UnixPath)key.watchable();
+            return (relative == null) ? root : root.resolve(relative);
+        }
+
+        /**
+         * Adds watches for the given directory, and all its sub-directories,
+         * to the file tree of the given key. Directories that cannot be
+         * watched, because they have been removed or are not accessible, are
+         * skipped. Directories that are already watched, by this or another
+         * key, keep their mask and have the mask of this key added.
+         */
+        private void addSubtree(final LinuxWatchKey key, UnixPath start)
+            throws IOException
+        {
+            final int mask = key.mask() | FILE_TREE_MASK | IN_MASK_ADD;
+            final UnixPath root = (UnixPath)key.watchable();
+            Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir,
+                                                         BasicFileAttributes attrs)
+                    throws IOException
+                {
+                    // registered directory is already watched
+                    if (dir.equals(root))
+                        return FileVisitResult.CONTINUE;
+                    UnixPath child = (UnixPath)dir;
+                    int subwd;
+                    try {
+                        subwd = addWatch(child, mask);
+                    } catch (UnixException x) {
+                        if (x.errno() == ENOSPC)
+                            throw new IOException("User limit of inotify watches reached");
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    if (subwd != key.descriptor())
+                        addSubdir(key, subwd, root.relativize(child));
+                    return FileVisitResult.CONTINUE;
+                }
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        /**
+         * Removes the watches for the sub-directories of the given key that
+         * are in, or below, the given relative directory.
+         */
+        private void removeSubtree(LinuxWatchKey key, UnixPath relative) {
+            Iterator<Map.Entry<Integer,UnixPath>> i =
+                key.subdirs().entrySet().iterator();
+            while (i.hasNext()) {
+                Map.Entry<Integer,UnixPath> entry = i.next();
+                if (entry.getValue().startsWith(relative)) {
+                    int subwd = entry.getKey();
+                    i.remove();
+                    removeSubdir(key, subwd);
+                    releaseWatch(subwd);
+                }
+            }
+        }
+
+        /**
+         * Records that the given watch descriptor is a sub-directory in the
+         * file tree of the given key.
+         */
+        private void addSubdir(LinuxWatchKey key, int subwd, UnixPath relative) {
+            key.subdirs().put(subwd, relative);
+            List<LinuxWatchKey> keys = wdToTreeKeys.get(subwd);
+            if (keys == null) {
+                keys = new ArrayList<LinuxWatchKey>(1);
+                wdToTreeKeys.put(subwd, keys);
+            }
+            if (!keys.contains(key))
+                keys.add(key);
+        }
+
+        /**
+         * Removes the given key from the file tree keys of the given watch
+         * descriptor. The caller removes the descriptor from the key.
+         */
+        private void removeSubdir(LinuxWatchKey key, int subwd) {
+            List<LinuxWatchKey> keys = wdToTreeKeys.get(subwd);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty())
+                    wdToTreeKeys.remove(subwd);
+            }
+        }
+
+        /**
+         * Removes the inotify watch for the given watch descriptor unless it
+         * is still used by a key.
+         */
+        private void releaseWatch(int wd) {
+            if (wdToKey.containsKey(wd) || wdToTreeKeys.containsKey(wd))
+                return;
+            try {
+                inotifyRmWatch(ifd, wd);
+            } catch (UnixException x) {
+                // ignore
+            }
+        }
+
+        /**
+         * Removes all watch descriptors of the given key from the maps,
+         * releasing the watches that are no longer used, and invalidates
+         * the key. The watch for the registered directory is only removed
+         * if {@code remove} is true.
+         */
+        private void removeKey(LinuxWatchKey key, boolean remove) {
+            int wd = key.descriptor();
+            wdToKey.remove(wd);
+            if (key.isFileTree()) {
+                for (Integer subwd: key.subdirs().keySet())
+                    removeSubdir(key, subwd);
+                for (Integer subwd: key.subdirs().keySet())
+                    releaseWatch(subwd);
+            }
+            key.invalidate(remove && !wdToTreeKeys.containsKey(wd));
+        }
+
         // cancel single key
         @Override
         void implCancelKey(WatchKey obj) {
             LinuxWatchKey key = (LinuxWatchKey)obj;
             if (key.isValid()) {
-                wdToKey.remove(key.descriptor());
-                key.invalidate(true);
+                removeKey(key, true);
             }
         }
 
@@ -293,6 +530,7 @@ class LinuxWatchService
                 entry.getValue().invalidate(true);
             }
             wdToKey.clear();
+            wdToTreeKeys.clear();
 
             // free resources
             unsafe.freeMemory(address);
@@ -330,29 +568,9 @@ class LinuxWatchService
                         int mask = unsafe.getInt(event + OFFSETOF_MASK);
                         int len = unsafe.getInt(event + OFFSETOF_LEN);
 
-                        // file name
-                        UnixPath name = null;
-                        if (len > 0) {
-                            int actual = len;
-
-                            // null-terminated and maybe additional null bytes to
-                            // align the next event
-                            while (actual > 0) {
-                                long last = event + OFFSETOF_NAME + actual - 1;
-                                if (unsafe.getByte(last) != 0)
-                                    break;
-                                actual--;
-                            }
-                            if (actual > 0) {
-                                byte[] buf = new byte[actual];
-                                unsafe.copyMemory(null, event + OFFSETOF_NAME,
-                                    buf, Unsafe.ARRAY_BYTE_BASE_OFFSET, actual);
-                                name = new UnixPath(fs, buf);
-                            }
-                        }
-
-                        // process event
-                        processEvent(wd, mask, name);
+                        // process event, the file name is decoded only when
+                        // the event is delivered to a key
+                        processEvent(wd, mask, event, len);
 
                         offset += (SIZEOF_INOTIFY_EVENT + len);
                     }
@@ -395,10 +613,33 @@ class LinuxWatchService
             return null;
         }
 
+        /**
+         * Decodes the file name of the event at the given address, returns
+         * null if the event has no name.
+         */
+        private UnixPath decodeName(long event, int len) {
+            int actual = len;
+
+            // null-terminated and maybe additional null bytes to
+            // align the next event
+            while (actual > 0) {
+                long last = event + OFFSETOF_NAME + actual - 1;
+                if (unsafe.getByte(last) != 0)
+                    break;
+                actual--;
+            }
+            if (actual == 0)
+                return null;
+            byte[] buf = new byte[actual];
+            unsafe.copyMemory(null, event + OFFSETOF_NAME,
+                buf, Unsafe.ARRAY_BYTE_BASE_OFFSET, actual);
+            return new UnixPath(fs, buf);
+        }
+
         /**
          * Process event from inotify
          */
-        private void processEvent(int wd, int mask, final UnixPath name) {
+        private void processEvent(int wd, int mask, long event, int len) {
             // overflow - signal all keys
             if ((mask & IN_Q_OVERFLOW) > 0) {
                 for (Map.Entry<Integer,LinuxWatchKey> entry: wdToKey.entrySet()) {
@@ -408,27 +649,100 @@ class LinuxWatchService
                 return;
             }
 
-            // lookup wd to get key
+            // lookup wd to get the registered key and the file tree keys
             LinuxWatchKey key = wdToKey.get(wd);
-            if (key == null)
+            List<LinuxWatchKey> treeKeys = wdToTreeKeys.get(wd);
+            if (key == null && treeKeys == null)
                 return; // should not happen
 
             // file deleted
             if ((mask & IN_IGNORED) > 0) {
-                wdToKey.remove(wd);
-                key.invalidate(false);
-                key.signal();
+                if (key != null) {
+                    removeKey(key, false);
+                    key.signal();
+                }
+                if (treeKeys != null) {
+                    // sub-directory of file tree deleted
+                    for (LinuxWatchKey treeKey: treeKeys)
+                        treeKey.subdirs().remove(wd);
+                    wdToTreeKeys.remove(wd);
+                }
                 return;
             }
 
             // event for directory itself
-            if (name == null)
+            if (len == 0)
                 return;
 
+            // the name is decoded once, if the event is wanted by any key
+            UnixPath name = null;
+            if (key != null && isWanted(key, mask)) {
+                name = decodeName(event, len);
+                if (name == null)
+                    return;
+                signalEvent(key, wd, mask, name);
+            }
+            if (treeKeys != null) {
+                // copy as tracking sub-directories may update the list
+                LinuxWatchKey[] keys =
+                    treeKeys.toArray(new LinuxWatchKey[treeKeys.size()]);
+                for (LinuxWatchKey treeKey: keys) {
+                    if (!isWanted(treeKey, mask))
+                        continue;
+                    if (name == null) {
+                        name = decodeName(event, len);
+                        if (name == null)
+                            return;
+                    }
+                    signalEvent(treeKey, wd, mask, name);
+                }
+            }
+        }
+
+        /**
+         * Returns true if an event with the given mask is requested by the
+         * given key, or is needed to track the sub-directories of its tree.
+         */
+        private static boolean isWanted(LinuxWatchKey key, int mask) {
+            return (mask & key.mask()) != 0 ||
+                   (key.isFileTree() && (mask & IN_ISDIR) != 0);
+        }
+
+        /**
+         * Queues an event for the entry with the given name in the watched
+         * directory with the given watch descriptor to the given key.
+         */
+        private void signalEvent(LinuxWatchKey key, int wd, int mask,
+                                 UnixPath name)
+        {
+            // context is relative to the registered directory
+            UnixPath context = name;
+            if (key.isFileTree()) {
+                UnixPath parent = (wd == key.descriptor()) ?
+                    null : key.subdirs().get(wd);
+                if (parent != null)
+                    context = parent.resolve(name);
+
+                // track sub-directories created in or moved into/out of tree
+                if ((mask & IN_ISDIR) != 0) {
+                    if ((mask & (IN_CREATE | IN_MOVED_TO)) != 0) {
+                        try {
+                            addSubtree(key, resolve(key, context));
+                        } catch (IOException x) {
+                            // user limit reached, directory not watched
+                        }
+                    } else if ((mask & IN_MOVED_FROM) != 0) {
+                        removeSubtree(key, context);
+                    }
+                }
+                if ((mask & key.mask()) == 0)
+                    return;
+            }
+
             // map to event and queue to key
             WatchEvent.Kind<?> kind = maskToEventKind(mask);
             if (kind != null) {
-                key.signalEvent(kind, name);
+                key.signalEvent(kind, context);
             }
         }
     }
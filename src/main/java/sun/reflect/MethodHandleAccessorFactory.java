@@ -0,0 +1,198 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  This particular file is
+ * subject to the "Classpath" exception as provided in the LICENSE file
+ * that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package sun.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import sun.invoke.util.Wrapper;
+import sun.reflect.misc.ReflectUtil;
+
+/** Creates MethodAccessors and ConstructorAccessors backed by direct
+    method handles. Unlike the accessors produced by
+    MethodAccessorGenerator these are fast from the first invocation,
+    define no classes of their own (and therefore no
+    DelegatingClassLoaders), and share their LambdaForms with every
+    other method of the same erased shape, since each target is
+    adapted to the generic (Object, Object[])Object type. */
+
+final class MethodHandleAccessorFactory {
+    private MethodHandleAccessorFactory() {}
+
+    private static final MethodType METHOD_TYPE =
+        MethodType.methodType(Object.class, Object.class, Object[].class);
+    private static final MethodType CONSTRUCTOR_TYPE =
+        MethodType.methodType(Object.class, Object[].class);
+
+    // Lazily fetched; null until the first accessor is requested and
+    // left null if the trusted lookup is unavailable.
+    private static volatile MethodHandles.Lookup implLookup;
+    private static volatile boolean implLookupFailed;
+
+    /** Returns a method accessor for the given method, or null if the
+        method cannot (or should not) be invoked through a method handle,
+        in which case the caller falls back to the native accessor. */
+    static MethodAccessorImpl newMethodAccessor(Method method) {
+        if (!isSupported(method.getDeclaringClass())) {
+            return null;
+        }
+        // Caller-sensitive methods would observe the lookup class rather
+        // than the real caller; leave them to the native accessor, which
+        // is skipped by Reflection.getCallerClass().
+        if (Reflection.isCallerSensitive(method)) {
+            return null;
+        }
+        MethodHandles.Lookup lookup = implLookup();
+        if (lookup == null) {
+            return null;
+        }
+        try {
+            Class<?>[] ptypes = method.getParameterTypes();
+            MethodHandle target = lookup.unreflect(method);
+            boolean isStatic = Modifier.isStatic(method.getModifiers());
+            if (isStatic) {
+                target = MethodHandles.dropArguments(target, 0, Object.class);
+            }
+            target = target.asSpreader(Object[].class, ptypes.length)
+                           .asType(METHOD_TYPE);
+            return new MethodHandleMethodAccessorImpl(method.getDeclaringClass(),
+                                                      ptypes,
+                                                      isStatic,
+                                                      target);
+        } catch (IllegalAccessException | IllegalArgumentException |
+                 WrongMethodTypeException e) {
+            // Inaccessible or not adaptable (e.g. too many parameters to
+            // spread); the native accessor still handles it.
+            return null;
+        }
+    }
+
+    /** Returns a constructor accessor for the given constructor, or
+        null if the native accessor should be used instead. */
+    static ConstructorAccessorImpl newConstructorAccessor(Constructor<?> c) {
+        if (!isSupported(c.getDeclaringClass())) {
+            return null;
+        }
+        MethodHandles.Lookup lookup = implLookup();
+        if (lookup == null) {
+            return null;
+        }
+        try {
+            Class<?>[] ptypes = c.getParameterTypes();
+            MethodHandle target = lookup.unreflectConstructor(c)
+                                        .asSpreader(Object[].class, ptypes.length)
+                                        .asType(CONSTRUCTOR_TYPE);
+            return new MethodHandleConstructorAccessorImpl(c.getDeclaringClass(),
+                                                           ptypes,
+                                                           target);
+        } catch (IllegalAccessException | IllegalArgumentException |
+                 WrongMethodTypeException e) {
+            return null;
+        }
+    }
+
+    /** Checks the argument array against the formal parameter types
+        the way the generated accessors do, returning an array whose
+        primitive arguments have been widened to the exact wrapper
+        type of the corresponding parameter. Once this returns, the
+        adapted method handle cannot fail before reaching the target,
+        so anything it throws belongs to the invoked method. */
+    static Object[] checkArguments(Class<?>[] ptypes, Object[] args)
+        throws IllegalArgumentException
+    {
+        int count = (args == null) ? 0 : args.length;
+        if (count != ptypes.length) {
+            throw new IllegalArgumentException("wrong number of arguments");
+        }
+        Object[] result = args;
+        for (int i = 0; i < count; i++) {
+            Class<?> ptype = ptypes[i];
+            Object arg = args[i];
+            if (ptype.isPrimitive()) {
+                if (arg == null || !Wrapper.isWrapperType(arg.getClass())) {
+                    throw new IllegalArgumentException("argument type mismatch");
+                }
+                Wrapper dst = Wrapper.forPrimitiveType(ptype);
+                Wrapper src = Wrapper.forWrapperType(arg.getClass());
+                if (src != dst) {
+                    if (src == Wrapper.VOID || !dst.isConvertibleFrom(src)) {
+                        throw new IllegalArgumentException("argument type mismatch");
+                    }
+                    if (result == args) {
+                        result = args.clone();
+                    }
+                    result[i] = dst.wrap(arg);
+                }
+            } else if (arg != null && !ptype.isInstance(arg)) {
+                throw new IllegalArgumentException("argument type mismatch");
+            }
+        }
+        return result;
+    }
+
+    // The java.lang.invoke implementation uses reflection itself while
+    // bootstrapping, and cannot bootstrap until the system class loader
+    // is set; until then, and for its own classes (and vm-anonymous
+    // classes, which cannot be resolved by name), the native accessors
+    // are used.
+    private static boolean isSupported(Class<?> declaringClass) {
+        if (!sun.misc.VM.isSystemLoaderInited()) {
+            return false;
+        }
+        if (ReflectUtil.isVMAnonymousClass(declaringClass)) {
+            return false;
+        }
+        String name = declaringClass.getName();
+        return !name.startsWith("java.lang.invoke.") &&
+               !name.startsWith("sun.invoke.");
+    }
+
+    private static MethodHandles.Lookup implLookup() {
+        MethodHandles.Lookup lookup = implLookup;
+        if (lookup != null || implLookupFailed) {
+            return lookup;
+        }
+        lookup = AccessController.doPrivileged(
+            new PrivilegedAction<MethodHandles.Lookup>() {
+                public MethodHandles.Lookup run() {
+                    try {
+                        Field f = MethodHandles.Lookup.class
+                            .getDeclaredField("IMPL_LOOKUP");
+                        f.setAccessible(true);
+                        return (MethodHandles.Lookup) f.get(null);
+                    } catch (ReflectiveOperationException e) {
+                        return null;
+                    }
+                }
+            });
+        if (lookup == null) {
+            implLookupFailed = true;
+        } else {
+            implLookup = lookup;
+        }
+        return lookup;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  This particular file is
+ * subject to the "Classpath" exception as provided in the LICENSE file
+ * that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package sun.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
+import sun.misc.Unsafe;
+
+/** ConstructorAccessor backed by a direct method handle adapted to
+    (Object[])Object. See MethodHandleAccessorFactory. */
+
+class MethodHandleConstructorAccessorImpl extends ConstructorAccessorImpl {
+    private static final Unsafe unsafe = Unsafe.getUnsafe();
+
+    private final Class<?> declaringClass;
+    private final Class<?>[] parameterTypes;
+    private final MethodHandle target;
+    // true until the declaring class is known to be initialized
+    private volatile boolean checkInit = true;
+
+    MethodHandleConstructorAccessorImpl(Class<?> declaringClass,
+                                        Class<?>[] parameterTypes,
+                                        MethodHandle target) {
+        this.declaringClass = declaringClass;
+        this.parameterTypes = parameterTypes;
+        this.target = target;
+    }
+
+    public Object newInstance(Object[] args)
+        throws InstantiationException,
+               IllegalArgumentException,
+               InvocationTargetException
+    {
+        args = MethodHandleAccessorFactory.checkArguments(parameterTypes, args);
+        if (checkInit) {
+            ensureInitialized();
+        }
+        try {
+            return target.invokeExact(args);
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    // See MethodHandleMethodAccessorImpl.ensureInitialized
+    private void ensureInitialized() {
+        unsafe.ensureClassInitialized(declaringClass);
+        if (!unsafe.shouldBeInitialized(declaringClass)) {
+            checkInit = false;
+        }
+    }
+}
@@ -88,6 +88,13 @@ public class ReflectionFactory {
     private static boolean noInflation        = false;
     private static int     inflationThreshold = 15;
 
+    // Direct method handles avoid both the JNI entry points and the
+    // per-method generated classes once the system is far enough along
+    // to use java.lang.invoke. They are opt-in for now:
+    // "-Dsun.reflect.useMethodHandleAccessors=true" uses them in place
+    // of the inflation scheme above.
+    private static boolean useMethodHandleAccessors = false;
+
     private ReflectionFactory() {}
 
     /**
@@ -159,6 +166,14 @@ public class ReflectionFactory {
     public MethodAccessor newMethodAccessor(Method method) {
         checkInitted();
 
+        if (useMethodHandleAccessors) {
+            MethodAccessorImpl acc =
+                MethodHandleAccessorFactory.newMethodAccessor(method);
+            if (acc != null) {
+                return acc;
+            }
+        }
+
         if (noInflation && !ReflectUtil.isVMAnonymousClass(method.getDeclaringClass())) {
             return new MethodAccessorGenerator().
                 generateMethod(method.getDeclaringClass(),
@@ -196,6 +211,14 @@ public class ReflectionFactory {
             return new BootstrapConstructorAccessorImpl(c);
         }
 
+        if (useMethodHandleAccessors) {
+            ConstructorAccessorImpl acc =
+                MethodHandleAccessorFactory.newConstructorAccessor(c);
+            if (acc != null) {
+                return acc;
+            }
+        }
+
         if (noInflation && !ReflectUtil.isVMAnonymousClass(c.getDeclaringClass())) {
             return new MethodAccessorGenerator().
                 generateConstructor(c.getDeclaringClass(),
@@ -676,6 +699,9 @@ public class ReflectionFactory {
                         }
                     }
 
+                    val = System.getProperty("sun.reflect.useMethodHandleAccessors");
+                    useMethodHandleAccessors = "true".equals(val);
+
                     initted = true;
                     return null;
                 }
@@ -34,7 +34,14 @@ import java.util.jar.*;
 import java.util.jar.Pack200.*;
 import java.util.jar.Manifest;
 import java.text.MessageFormat;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import sun.misc.JarIndex;
+import sun.misc.JavaUtilZipOutputStreamAccess;
+import sun.misc.SharedSecrets;
 import static sun.misc.JarIndex.INDEX_NAME;
 import static java.util.jar.JarFile.MANIFEST_NAME;
 import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
@@ -92,6 +99,43 @@ class Main {
     private static final boolean useExtractionTime =
         Boolean.getBoolean("sun.tools.jar.useExtractionTime");
 
+    /**
+     * The number of threads used to deflate the files added to a jar file.
+     * With more than one, files are read and deflated concurrently ahead
+     * of the ZIP output stream, and their entries written in the usual
+     * order but without data descriptors, so the jar file differs from
+     * the one written with a single thread.  It is the same for any number
+     * of threads above one.
+     */
+    private static final int compressThreads =
+        Integer.getInteger("sun.tools.jar.compressThreads", 1);
+
+    /**
+     * Files larger than this are deflated by the ZIP output stream, not
+     * ahead of it, so as to bound the memory held by pending entries.
+     */
+    private static final long maxDeflateAhead = 16 * 1024 * 1024;
+
+    /**
+     * The total size of the files being deflated ahead of the ZIP output
+     * stream, above which entries are written before more are submitted,
+     * whatever the number of threads.
+     */
+    private static final long maxBytesAhead = 4 * maxDeflateAhead;
+
+    /**
+     * If true, an update that only adds entries appends them to the jar
+     * file in place, rewriting only its central directory, rather than
+     * copying every entry to a new jar file.  The central directory is
+     * overwritten first: it is restored if the update fails, but a crash
+     * while the new entries are written leaves the jar file unreadable.
+     */
+    private static final boolean updateInPlace =
+        Boolean.getBoolean("sun.tools.jar.updateInPlace");
+
+    private static final JavaUtilZipOutputStreamAccess zipAccess =
+        SharedSecrets.getJavaUtilZipOutputStreamAccess();
+
     /**
      * Initialize ResourceBundle
      */
@@ -252,40 +296,42 @@ class Main {
                     }
                 }
             } else if (uflag) {
-                File inputFile = null, tmpFile = null;
-                FileInputStream in;
-                FileOutputStream out;
-                if (fname != null) {
-                    inputFile = new File(fname);
-                    tmpFile = createTempFileInSameDirectoryAs(inputFile);
-                    in = new FileInputStream(inputFile);
-                    out = new FileOutputStream(tmpFile);
-                } else {
-                    in = new FileInputStream(FileDescriptor.in);
-                    out = new FileOutputStream(FileDescriptor.out);
-                    vflag = false;
-                }
-                InputStream manifest = (!Mflag && (mname != null)) ?
-                    (new FileInputStream(mname)) : null;
                 expand(null, files, true);
-                boolean updateOk = update(in, new BufferedOutputStream(out),
-                                          manifest, null);
-                if (ok) {
-                    ok = updateOk;
-                }
-                in.close();
-                out.close();
-                if (manifest != null) {
-                    manifest.close();
-                }
-                if (ok && fname != null) {
-                    // on Win32, we need this delete
-                    inputFile.delete();
-                    if (!tmpFile.renameTo(inputFile)) {
+                if (!appendInPlace()) {
+                    File inputFile = null, tmpFile = null;
+                    FileInputStream in;
+                    FileOutputStream out;
+                    if (fname != null) {
+                        inputFile = new File(fname);
+                        tmpFile = createTempFileInSameDirectoryAs(inputFile);
+                        in = new FileInputStream(inputFile);
+                        out = new FileOutputStream(tmpFile);
+                    } else {
+                        in = new FileInputStream(FileDescriptor.in);
+                        out = new FileOutputStream(FileDescriptor.out);
+                        vflag = false;
+                    }
+                    InputStream manifest = (!Mflag && (mname != null)) ?
+                        (new FileInputStream(mname)) : null;
+                    boolean updateOk = update(in, new BufferedOutputStream(out),
+                                              manifest, null);
+                    if (ok) {
+                        ok = updateOk;
+                    }
+                    in.close();
+                    out.close();
+                    if (manifest != null) {
+                        manifest.close();
+                    }
+                    if (ok && fname != null) {
+                        // on Win32, we need this delete
+                        inputFile.delete();
+                        if (!tmpFile.renameTo(inputFile)) {
+                            tmpFile.delete();
+                            throw new IOException(getMsg("error.write.file"));
+                        }
                         tmpFile.delete();
-                        throw new IOException(getMsg("error.write.file"));
                     }
-                    tmpFile.delete();
                 }
             } else if (tflag) {
                 replaceFSC(files);
@@ -541,9 +587,7 @@ class Main {
             manifest.write(zos);
             zos.closeEntry();
         }
-        for (File file: entries) {
-            addFile(zos, file);
-        }
+        addFiles(zos, entries);
         zos.close();
     }
 
@@ -644,9 +688,7 @@ class Main {
         }
 
         // add the remaining new files
-        for (File f: entries) {
-            addFile(zos, f);
-        }
+        addFiles(zos, entries);
         if (!foundManifest) {
             if (newManifest != null) {
                 Manifest m = new Manifest(newManifest);
@@ -667,6 +709,133 @@ class Main {
         return updateOk;
     }
 
+    // ZIP format constants, for reading the central directory of a jar
+    // file to be updated in place
+    private static final long ENDSIG = 0x06054b50L;
+    private static final long CENSIG = 0x02014b50L;
+    private static final int ENDHDR = 22;
+    private static final int CENHDR = 46;
+
+    private static int get16(byte[] b, int off) {
+        return (b[off] & 0xff) | ((b[off + 1] & 0xff) << 8);
+    }
+
+    private static long get32(byte[] b, int off) {
+        return (get16(b, off) | ((long) get16(b, off + 2) << 16)) & 0xffffffffL;
+    }
+
+    /**
+     * Updates the jar file in place, if the update only adds entries and
+     * leaves the manifest alone: the new entries are written over the
+     * central directory, which is then written again followed by the
+     * records of the new entries. Directories already in the jar file are
+     * left as they are. Returns false, having changed nothing, if the jar
+     * file has to be rewritten instead.
+     */
+    private boolean appendInPlace() throws IOException {
+        if (!updateInPlace || !ok || fname == null
+                || mname != null || ename != null || Mflag) {
+            return false;
+        }
+        RandomAccessFile raf = new RandomAccessFile(fname, "rw");
+        try {
+            // jar files have no comment, so END is expected at the very
+            // end, right after a central directory without ZIP64 records
+            long length = raf.length();
+            if (length < ENDHDR) {
+                return false;
+            }
+            byte[] end = new byte[ENDHDR];
+            raf.seek(length - ENDHDR);
+            raf.readFully(end);
+            int count = get16(end, 10);
+            long cenLen = get32(end, 12);
+            long cenOff = get32(end, 16);
+            if (get32(end, 0) != ENDSIG || get16(end, 20) != 0
+                    || count == 0xFFFF || cenOff + cenLen != length - ENDHDR) {
+                return false;
+            }
+            byte[] cen = new byte[(int) cenLen];
+            raf.seek(cenOff);
+            raf.readFully(cen);
+            Set<String> names = new HashSet<String>();
+            int pos = 0;
+            for (int i = 0; i < count; i++) {
+                if (pos + CENHDR > cen.length || get32(cen, pos) != CENSIG) {
+                    return false;
+                }
+                int nlen = get16(cen, pos + 28);
+                int elen = get16(cen, pos + 30);
+                int clen = get16(cen, pos + 32);
+                names.add(new String(cen, pos + CENHDR, nlen, "UTF-8"));
+                pos += CENHDR + nlen + elen + clen;
+            }
+            if (pos != cen.length) {
+                return false;
+            }
+
+            List<File> added = new ArrayList<File>();
+            for (File f: entries) {
+                String name = f.getPath();
+                boolean isDir = f.isDirectory();
+                if (isDir && !name.endsWith(File.separator)) {
+                    name = name + File.separator;
+                }
+                if (names.contains(entryName(name))) {
+                    if (isDir) {
+                        continue;
+                    }
+                    // replacing an entry requires the jar file to be rewritten
+                    return false;
+                }
+                added.add(f);
+            }
+
+            boolean appended = false;
+            try {
+                raf.seek(cenOff);
+                ZipOutputStream zos = new ZipOutputStream(
+                    new BufferedOutputStream(new RandomAccessFileOutputStream(raf)));
+                zipAccess.append(zos, cenOff, cen, count, names);
+                addFiles(zos, added);
+                zos.close();
+                raf.setLength(raf.getFilePointer());
+                appended = true;
+            } finally {
+                if (!appended) {
+                    // restore the central directory
+                    raf.seek(cenOff);
+                    raf.write(cen);
+                    raf.write(end);
+                    raf.setLength(length);
+                }
+            }
+            return true;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * An OutputStream that writes to a RandomAccessFile at its file
+     * pointer, and leaves the file open when closed.
+     */
+    private static class RandomAccessFileOutputStream extends OutputStream {
+        private final RandomAccessFile raf;
+
+        RandomAccessFileOutputStream(RandomAccessFile raf) {
+            this.raf = raf;
+        }
+
+        public void write(int b) throws IOException {
+            raf.write(b);
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            raf.write(b, off, len);
+        }
+    }
+
     private void addIndex(JarIndex index, ZipOutputStream zos)
         throws IOException
     {
@@ -800,10 +969,162 @@ class Main {
         return false;
     }
 
+    /**
+     * Adds new file entries to the ZIP output stream, in order.
+     */
+    void addFiles(ZipOutputStream zos, Collection<File> files) throws IOException {
+        if (compressThreads <= 1 || flag0) {
+            for (File file: files) {
+                addFile(zos, file);
+            }
+            return;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(compressThreads);
+        try {
+            // keep a bounded number of bytes being deflated ahead of the stream
+            Deque<PendingFile> pending = new ArrayDeque<PendingFile>();
+            long pendingBytes = 0;
+            for (final File file: files) {
+                long size = deflatedAheadSize(file);
+                if (size > 0) {
+                    while (pendingBytes + size > maxBytesAhead) {
+                        PendingFile p = pending.remove();
+                        pendingBytes -= p.size;
+                        addPendingFile(zos, p);
+                    }
+                    Future<DeflatedFile> deflated =
+                        pool.submit(new Callable<DeflatedFile>() {
+                            public DeflatedFile call() throws IOException {
+                                return deflate(file);
+                            }
+                        });
+                    pending.add(new PendingFile(file, size, deflated));
+                    pendingBytes += size;
+                } else {
+                    pending.add(new PendingFile(file, 0, null));
+                }
+            }
+            while (!pending.isEmpty()) {
+                addPendingFile(zos, pending.remove());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * A file to be added, and the file deflated ahead of the ZIP output
+     * stream, if it is, with the size of the file read for it.
+     */
+    private static class PendingFile {
+        final File file;
+        final long size;
+        final Future<DeflatedFile> deflated;
+
+        PendingFile(File file, long size, Future<DeflatedFile> deflated) {
+            this.file = file;
+            this.size = size;
+            this.deflated = deflated;
+        }
+    }
+
+    /**
+     * The data of a file, deflated in nowrap mode, with its size and crc-32.
+     */
+    private static class DeflatedFile {
+        final byte[] data;
+        final int len;
+        final long size;
+        final long crc;
+
+        DeflatedFile(byte[] data, int len, long size, long crc) {
+            this.data = data;
+            this.len = len;
+            this.size = size;
+            this.crc = crc;
+        }
+    }
+
+    private void addPendingFile(ZipOutputStream zos, PendingFile p)
+        throws IOException
+    {
+        DeflatedFile deflated = null;
+        if (p.deflated != null) {
+            try {
+                deflated = p.deflated.get();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException)
+                    throw (IOException) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw new IOException(cause);
+            }
+        }
+        addFile(zos, p.file, deflated);
+    }
+
+    /**
+     * Returns the size of a file if it is deflated ahead of the ZIP output
+     * stream: a non-empty regular file, not too large, that is not skipped
+     * by addFile. Otherwise returns 0.
+     */
+    private long deflatedAheadSize(File file) {
+        if (!file.isFile()) {
+            return 0;
+        }
+        long size = file.length();
+        if (size == 0 || size > maxDeflateAhead) {
+            return 0;
+        }
+        String name = entryName(file.getPath());
+        if (name.equals(zname) || name.equals(MANIFEST_NAME)) {
+            return 0;
+        }
+        return size;
+    }
+
+    /**
+     * Reads and deflates a file, as the ZIP output stream would.
+     */
+    private static DeflatedFile deflate(File file) throws IOException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        Deflater def = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            def.setInput(data);
+            def.finish();
+            byte[] buf = new byte[data.length / 2 + 64];
+            int len = 0;
+            while (!def.finished()) {
+                if (len == buf.length) {
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                }
+                len += def.deflate(buf, len, buf.length - len);
+            }
+            return new DeflatedFile(buf, len, data.length, crc.getValue());
+        } finally {
+            def.end();
+        }
+    }
+
     /**
      * Adds a new file entry to the ZIP output stream.
      */
     void addFile(ZipOutputStream zos, File file) throws IOException {
+        addFile(zos, file, null);
+    }
+
+    /**
+     * Adds a new file entry to the ZIP output stream, with the data of the
+     * file given already deflated, unless deflated is null.
+     */
+    private void addFile(ZipOutputStream zos, File file, DeflatedFile deflated)
+        throws IOException
+    {
         String name = file.getPath();
         boolean isDir = file.isDirectory();
         if (isDir) {
@@ -829,18 +1150,26 @@ class Main {
         }
         ZipEntry e = new ZipEntry(name);
         e.setTime(file.lastModified());
-        if (size == 0) {
-            e.setMethod(ZipEntry.STORED);
-            e.setSize(0);
-            e.setCrc(0);
-        } else if (flag0) {
-            crc32File(e, file);
-        }
-        zos.putNextEntry(e);
-        if (!isDir) {
-            copy(file, zos);
+        if (deflated != null) {
+            e.setMethod(ZipEntry.DEFLATED);
+            e.setSize(deflated.size);
+            e.setCompressedSize(deflated.len);
+            e.setCrc(deflated.crc);
+            zipAccess.writeDeflatedEntry(zos, e, deflated.data, 0, deflated.len);
+        } else {
+            if (size == 0) {
+                e.setMethod(ZipEntry.STORED);
+                e.setSize(0);
+                e.setCrc(0);
+            } else if (flag0) {
+                crc32File(e, file);
+            }
+            zos.putNextEntry(e);
+            if (!isDir) {
+                copy(file, zos);
+            }
+            zos.closeEntry();
         }
-        zos.closeEntry();
         /* report how much compression occurred. */
         if (vflag) {
             size = e.getSize();
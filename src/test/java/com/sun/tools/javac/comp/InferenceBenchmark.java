@@ -0,0 +1,113 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.sun.tools.javac.comp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the time taken to compile code that is dominated by overload
+ * resolution and inference: nested generic method calls with lambdas and
+ * method references as arguments, some of them to overloaded methods.
+ * The source is generated, and compiled repeatedly in this virtual
+ * machine; the first compilations only warm up the compiler.
+ *
+ * <pre>
+ * java com.sun.tools.javac.comp.InferenceBenchmark [-runs N] [-methods N]
+ * </pre>
+ */
+public class InferenceBenchmark {
+    /** The statements of each generated method, each a nested call. */
+    private static final String[] STATEMENTS = {
+        "Map<String, List<Integer>> m = Stream.of(\"a\", \"bb\").collect(Collectors.groupingBy(" +
+            "s -> s.substring(0, 1), Collectors.mapping(String::length, Collectors.toList())));",
+        "List<List<String>> l = Arrays.asList(Arrays.asList(\"a\"), " +
+            "Collections.singletonList(String.valueOf(Math.max(1, 2))));",
+        "Optional<Integer> o = Optional.of(\"x\").map(s -> s.length()).flatMap(n -> Optional.of(n + 1));",
+        "Comparator<String> c = Comparator.comparing(String::length).thenComparing(Function.identity());",
+        "Object r = p(Arrays.asList(id(id(1))), id(\"x\"));",
+        "Future<Integer> f = exec.submit(() -> Stream.of(1, 2).reduce(0, Integer::sum));",
+        "Set<Map.Entry<String, Long>> e = Stream.of(\"a\").collect(" +
+            "Collectors.groupingBy(Function.identity(), Collectors.counting())).entrySet();",
+        "int s = IntStream.range(0, 10).boxed().map(i -> i * 2).filter(i -> i > 3).mapToInt(i -> i).sum();",
+    };
+
+    public static void main(String... args) throws IOException {
+        int runs = 10;
+        int methods = 200;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-runs"))
+                runs = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-methods"))
+                methods = Integer.parseInt(args[++i]);
+        }
+
+        File dir = Files.createTempDirectory("bench").toFile();
+        File src = new File(dir, "Inference.java");
+        Files.write(src.toPath(), source(methods).getBytes("UTF-8"));
+        List<String> args1 = Arrays.asList("-proc:none", "-d", dir.getPath(), src.getPath());
+
+        long[] times = new long[runs];
+        for (int run = -runs / 2; run < runs; run++) {
+            long t = compile(args1);
+            if (run >= 0)
+                times[run] = t;
+        }
+        Arrays.sort(times);
+        System.out.printf("%d methods, %d statements, %d runs%n",
+                methods, methods * STATEMENTS.length, runs);
+        System.out.printf("median %6d ms  min %6d ms%n",
+                times[runs / 2] / 1000000, times[0] / 1000000);
+    }
+
+    static String source(int methods) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("import java.util.*;\n")
+          .append("import java.util.concurrent.*;\n")
+          .append("import java.util.function.*;\n")
+          .append("import java.util.stream.*;\n")
+          .append("class Inference {\n")
+          .append("    static <T> T id(T t) { return t; }\n")
+          .append("    static String p(List<String> l, Integer i) { return null; }\n")
+          .append("    static Integer p(List<Integer> l, String s) { return null; }\n");
+        for (int i = 0; i < methods; i++) {
+            sb.append("    void m").append(i).append("(ExecutorService exec) {\n");
+            for (String s : STATEMENTS)
+                sb.append("        ").append(s).append("\n");
+            sb.append("    }\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    static long compile(List<String> args) {
+        StringWriter log = new StringWriter();
+        long start = System.nanoTime();
+        int rc = com.sun.tools.javac.Main.compile(args.toArray(new String[args.size()]),
+                                                  new PrintWriter(log));
+        long time = System.nanoTime() - start;
+        if (rc != 0)
+            throw new Error("compilation failed:\n" + log);
+        return time;
+    }
+}
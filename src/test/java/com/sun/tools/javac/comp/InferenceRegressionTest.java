@@ -0,0 +1,189 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.sun.tools.javac.comp;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+import com.sun.tools.javac.api.JavacTool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the types inferred for nested and overloaded generic method
+ * calls, which exercise the reuse of speculative attribution and the
+ * incremental incorporation of bounds. The expected types are those
+ * inferred by javac without either.
+ */
+public class InferenceRegressionTest {
+    private static final String IMPORTS =
+        "import java.util.*;\n" +
+        "import java.util.concurrent.*;\n" +
+        "import java.util.function.*;\n" +
+        "import java.util.stream.*;\n";
+
+    /** Declarations shared by the test cases. */
+    private static final String DECLS =
+        "    static <T> T id(T t) { return t; }\n" +
+        "    static String m(List<String> l) { return null; }\n" +
+        "    static Integer m(Set<String> s) { return null; }\n" +
+        "    static String p(List<String> l, Integer i) { return null; }\n" +
+        "    static Integer p(List<Integer> l, String s) { return null; }\n" +
+        "    static String q(Supplier<String> s) { return null; }\n" +
+        "    static Integer q(Runnable r) { return null; }\n" +
+        "    static String f(Object o) { return null; }\n" +
+        "    static Integer f(Number n) { return null; }\n" +
+        "    static void g(Function<String, Integer> f) { }\n" +
+        "    static void g(ToIntFunction<String> f) { }\n";
+
+    @Test
+    public void nestedCalls() throws IOException {
+        assertType("java.util.List<java.util.List<java.lang.String>>",
+                   "Object r = Collections.singletonList(Arrays.asList(\"a\", \"b\"));");
+        assertType("java.util.List<java.util.List<java.util.List<java.lang.Integer>>>",
+                   "Object r = Arrays.asList(Arrays.asList(Arrays.asList(1)));");
+        assertType("java.util.List<java.util.Set<java.lang.Number>>",
+                   "List<Set<Number>> r = Collections.singletonList(Collections.emptySet());");
+        assertType("java.util.List<java.lang.String>",
+                   "Object r = Arrays.asList(id(id(\"a\")), id(\"b\"));");
+        assertType("java.lang.Integer",
+                   "Object r = Optional.of(\"x\").map(String::length).orElseGet(() -> 0);");
+    }
+
+    @Test
+    public void nestedCallsWithLambdas() throws IOException {
+        assertType("java.util.List<java.lang.Integer>",
+                   "Object r = Stream.of(\"a\", \"bb\").map(s -> s.length()).collect(Collectors.toList());");
+        assertType("java.util.Map<java.lang.Integer,java.lang.Long>",
+                   "Object r = Stream.of(\"a\", \"bb\").collect(Collectors.groupingBy(String::length, Collectors.counting()));");
+        assertType("java.util.Map<java.lang.String,java.util.List<java.lang.Integer>>",
+                   "Object r = Stream.of(\"a\", \"bb\").collect(Collectors.groupingBy(s -> s.substring(0, 1), " +
+                   "Collectors.mapping(String::length, Collectors.toList())));");
+        assertType("java.util.Comparator<java.lang.String>",
+                   "Object r = Comparator.comparing(String::length).thenComparing(Function.identity());");
+    }
+
+    @Test
+    public void overloadedCalls() throws IOException {
+        assertType("java.lang.String", "Object r = m(Collections.emptyList());");
+        assertType("java.lang.Integer", "Object r = m(Collections.emptySet());");
+        assertType("java.lang.Integer", "Object r = f(id(1));");
+        assertType("java.lang.String", "Object r = f(id(\"a\"));");
+        assertType("java.lang.String", "Object r = q(() -> \"x\");");
+        assertType("java.lang.Integer", "Object r = q(() -> System.out.println());");
+        assertType("java.util.concurrent.Future<java.lang.Integer>",
+                   "Object r = Executors.newSingleThreadExecutor().submit(() -> 1);");
+        assertType("java.util.concurrent.Future<capture of ?>",
+                   "Object r = Executors.newSingleThreadExecutor().submit(() -> { });");
+    }
+
+    /**
+     * The same nested generic call is attributed speculatively against
+     * the parameter types of both overloads, which differ, and only one
+     * of them must be applicable.
+     */
+    @Test
+    public void overloadedCallsWithNestedGenericArguments() throws IOException {
+        assertType("java.lang.Integer", "Object r = p(Arrays.asList(id(1)), \"x\");");
+        assertType("java.lang.String", "Object r = p(Arrays.asList(id(\"a\")), 1);");
+        assertType("java.lang.Integer", "Object r = p(Collections.singletonList(id(id(1))), id(\"x\"));");
+        assertType("java.lang.String", "Object r = m(new ArrayList<>(Arrays.asList(id(\"a\"))));");
+    }
+
+    @Test
+    public void errors() throws IOException {
+        assertError("compiler.err.ref.ambiguous", "g(s -> s.length());");
+        assertError("compiler.err.prob.found.req", "List<String> r = Arrays.asList(1);");
+        assertError("compiler.err.cant.apply.symbols", "Object r = p(Arrays.asList(id(1)), 1);");
+    }
+
+    /** Check the type of the initializer of the variable declared by a statement. */
+    private static void assertType(String expected, String statement) throws IOException {
+        Result r = attribute(statement);
+        assertEquals(statement + "\n" + r.diagnostics, "[]", r.diagnostics.toString());
+        assertEquals(statement, expected, r.type);
+    }
+
+    /** Check that a statement is rejected with the given error. */
+    private static void assertError(String code, String statement) throws IOException {
+        Result r = attribute(statement);
+        assertEquals(statement, "[" + code + "]", r.diagnostics.toString());
+    }
+
+    private static class Result {
+        final List<String> diagnostics = new ArrayList<>();
+        String type;
+    }
+
+    private static Result attribute(String statement) throws IOException {
+        final String src = IMPORTS +
+            "class T {\n" + DECLS +
+            "    void test() {\n" +
+            "        " + statement + "\n" +
+            "    }\n" +
+            "}\n";
+        JavaFileObject file =
+            new SimpleJavaFileObject(URI.create("string:///T.java"), JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return src;
+                }
+            };
+        DiagnosticCollector<JavaFileObject> dc = new DiagnosticCollector<>();
+        JavacTask task = JavacTool.create().getTask(null, null, dc,
+                Arrays.asList("-proc:none"), null, Arrays.asList(file));
+        Iterable<? extends CompilationUnitTree> units = task.parse();
+        task.analyze();
+
+        final Result result = new Result();
+        for (Diagnostic<? extends JavaFileObject> d : dc.getDiagnostics()) {
+            if (d.getKind() == Diagnostic.Kind.ERROR)
+                result.diagnostics.add(d.getCode());
+        }
+        final Trees trees = Trees.instance(task);
+        for (CompilationUnitTree unit : units) {
+            new TreePathScanner<Void, Void>() {
+                @Override
+                public Void visitVariable(VariableTree tree, Void p) {
+                    if (tree.getName().contentEquals("r") && tree.getInitializer() != null) {
+                        TreePath path = new TreePath(getCurrentPath(), tree.getInitializer());
+                        // captured variables are numbered in the order they are created
+                        result.type = String.valueOf(trees.getTypeMirror(path))
+                                .replaceAll("capture#[0-9]+ of ", "capture of ");
+                    }
+                    return super.visitVariable(tree, p);
+                }
+            }.scan(unit, null);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.sun.tools.javac.main;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares the time taken to compile a set of source files with the
+ * default compile policy, {@code bytodo}, and with the parallel policy.
+ * The compilations run in this virtual machine, alternating between the
+ * policies, and the first runs only warm up the compiler.
+ *
+ * <pre>
+ * java com.sun.tools.javac.main.ParallelCompileBenchmark
+ *     [-runs N] [-warmup N] [-threads N] [javac options] files-or-directories
+ * </pre>
+ *
+ * Other options are passed to javac, which must find the compiled
+ * classes under test before those of the JDK.
+ */
+public class ParallelCompileBenchmark {
+    public static void main(String... args) throws IOException {
+        int runs = 10;
+        int warmup = 5;
+        String threads = null;
+        List<String> options = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-runs"))
+                runs = Integer.parseInt(args[++i]);
+            else if (arg.equals("-warmup"))
+                warmup = Integer.parseInt(args[++i]);
+            else if (arg.equals("-threads"))
+                threads = args[++i];
+            else if (arg.startsWith("-"))
+                options.add(arg);
+            else
+                addSourceFiles(new File(arg), files);
+        }
+        if (files.isEmpty()) {
+            System.err.println("no source files");
+            System.exit(2);
+        }
+
+        File out = Files.createTempDirectory("bench").toFile();
+        String[] policies = { "bytodo", "parallel" };
+        long[][] times = new long[policies.length][runs];
+        for (int run = -warmup; run < runs; run++) {
+            for (int p = 0; p < policies.length; p++) {
+                List<String> args1 = new ArrayList<>(options);
+                args1.add("-XDcompilePolicy=" + policies[p]);
+                if (threads != null)
+                    args1.add("-XDparallelThreads=" + threads);
+                args1.addAll(Arrays.asList("-proc:none", "-d", out.getPath()));
+                args1.addAll(files);
+                long t = compile(args1);
+                if (run >= 0)
+                    times[p][run] = t;
+            }
+        }
+
+        System.out.printf("%d files, %d runs, %d processors%n",
+                files.size(), runs, Runtime.getRuntime().availableProcessors());
+        for (int p = 0; p < policies.length; p++) {
+            long[] t = times[p];
+            Arrays.sort(t);
+            System.out.printf("%-10s median %6d ms  min %6d ms%n",
+                    policies[p], t[t.length / 2] / 1000000, t[0] / 1000000);
+        }
+    }
+
+    static long compile(List<String> args) {
+        StringWriter log = new StringWriter();
+        long start = System.nanoTime();
+        int rc = com.sun.tools.javac.Main.compile(args.toArray(new String[args.size()]),
+                                                  new PrintWriter(log));
+        long time = System.nanoTime() - start;
+        if (rc != 0)
+            throw new Error("compilation failed: " + args + "\n" + log);
+        return time;
+    }
+
+    static void addSourceFiles(File f, List<String> files) {
+        if (f.isDirectory()) {
+            File[] children = f.listFiles();
+            Arrays.sort(children);
+            for (File c : children)
+                addSourceFiles(c, files);
+        } else if (f.getName().endsWith(".java")) {
+            files.add(f.getPath());
+        }
+    }
+}
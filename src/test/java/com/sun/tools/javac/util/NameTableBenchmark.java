@@ -0,0 +1,152 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.sun.tools.javac.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the time taken to enter the identifiers of a set of source
+ * files into a name table, as the scanner does, with the default
+ * SharedNameTable and with the ConcurrentNameTable. The concurrent table
+ * is measured on the thread that created it, which the compiler does
+ * unless it parses on worker threads, on another thread, and on several
+ * threads at once.
+ *
+ * <pre>
+ * java com.sun.tools.javac.util.NameTableBenchmark
+ *     [-runs N] [-threads N] files-or-directories
+ * </pre>
+ */
+public class NameTableBenchmark {
+    public static void main(String... args) throws Exception {
+        int runs = 20;
+        int threads = 4;
+        List<char[]> sources = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-runs"))
+                runs = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-threads"))
+                threads = Integer.parseInt(args[++i]);
+            else
+                addSources(new File(args[i]), sources);
+        }
+        final char[][] idents = identifiers(sources);
+        final Names names = Names.instance(new Context());
+
+        String[] kinds = { "shared", "concurrent", "concurrent, other thread",
+                           "concurrent, " + threads + " threads" };
+        long[][] times = new long[kinds.length][runs];
+        for (int run = -runs / 2; run < runs; run++) {
+            for (int k = 0; k < kinds.length; k++) {
+                long t;
+                switch (k) {
+                case 0:
+                    t = enter(new SharedNameTable(names), idents);
+                    break;
+                case 1:
+                    t = enter(new ConcurrentNameTable(names), idents);
+                    break;
+                case 2:
+                    t = enterOnThreads(new ConcurrentNameTable(names), idents, 1);
+                    break;
+                default:
+                    t = enterOnThreads(new ConcurrentNameTable(names), idents, threads);
+                    break;
+                }
+                if (run >= 0)
+                    times[k][run] = t;
+            }
+        }
+
+        System.out.printf("%d identifiers, %d runs, %d processors%n",
+                idents.length, runs, Runtime.getRuntime().availableProcessors());
+        for (int k = 0; k < kinds.length; k++) {
+            long[] t = times[k];
+            Arrays.sort(t);
+            System.out.printf("%-28s median %5.1f ns/name  min %5.1f ns/name%n", kinds[k],
+                    (double) t[t.length / 2] / idents.length, (double) t[0] / idents.length);
+        }
+    }
+
+    /** Enter all the identifiers into a table, returning the time taken.
+     */
+    static long enter(Name.Table table, char[][] idents) {
+        long start = System.nanoTime();
+        for (char[] id : idents)
+            table.fromChars(id, 0, id.length);
+        return System.nanoTime() - start;
+    }
+
+    /** Enter all the identifiers into a table from each of a number of
+     *  threads, none of which created the table, and return the time
+     *  taken per thread.
+     */
+    static long enterOnThreads(final Name.Table table, final char[][] idents, int n)
+            throws InterruptedException {
+        Thread[] workers = new Thread[n];
+        for (int i = 0; i < n; i++) {
+            workers[i] = new Thread() {
+                @Override
+                public void run() {
+                    enter(table, idents);
+                }
+            };
+        }
+        long start = System.nanoTime();
+        for (Thread w : workers)
+            w.start();
+        for (Thread w : workers)
+            w.join();
+        return (System.nanoTime() - start) / n;
+    }
+
+    /** Split the sources into identifiers, in the order in which they occur.
+     */
+    static char[][] identifiers(List<char[]> sources) {
+        List<char[]> idents = new ArrayList<>();
+        for (char[] src : sources) {
+            int i = 0;
+            while (i < src.length) {
+                if (Character.isJavaIdentifierStart(src[i])) {
+                    int start = i;
+                    while (i < src.length && Character.isJavaIdentifierPart(src[i]))
+                        i++;
+                    idents.add(Arrays.copyOfRange(src, start, i));
+                } else {
+                    i++;
+                }
+            }
+        }
+        return idents.toArray(new char[idents.size()][]);
+    }
+
+    static void addSources(File f, List<char[]> sources) throws IOException {
+        if (f.isDirectory()) {
+            File[] children = f.listFiles();
+            Arrays.sort(children);
+            for (File c : children)
+                addSources(c, sources);
+        } else if (f.getName().endsWith(".java")) {
+            sources.add(new String(Files.readAllBytes(f.toPath()), "UTF-8").toCharArray());
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package sun.net;
+
+import java.lang.reflect.Field;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import sun.net.spi.nameservice.NameService;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks the lookups of InetAddress.getAllByNameAsync and the background
+ * refresh of expired cache entries, against a name service that answers
+ * for hosts ending in ".test" and can be held to simulate a slow server.
+ * The classes under test must be on the boot class path.
+ */
+public class InetAddressLookupTest {
+    static {
+        // read once, when the cache policy is initialized
+        Security.setProperty("networkaddress.cache.ttl", "1");
+        Security.setProperty("networkaddress.cache.stale.ttl", "60");
+    }
+
+    private static final byte[] ADDRESS = { 10, 0, 0, 1 };
+
+    private static final TestNameService nameService = new TestNameService();
+
+    @BeforeClass
+    public static void installNameService() throws Exception {
+        Field f = InetAddress.class.getDeclaredField("nameServices");
+        f.setAccessible(true);
+        List<NameService> list = new ArrayList<NameService>();
+        list.add(nameService);
+        f.set(null, list);
+    }
+
+    @Test
+    public void concurrentLookupsShareOneQuery() throws Exception {
+        String host = "slow.test";
+        nameService.hold();
+        List<CompletableFuture<InetAddress[]>> futures =
+            new ArrayList<CompletableFuture<InetAddress[]>>();
+        for (int i = 0; i < 100; i++)
+            futures.add(InetAddress.getAllByNameAsync(host));
+        nameService.awaitQueries(host, 1);
+        try {
+            for (CompletableFuture<InetAddress[]> future: futures)
+                assertFalse(future.isDone());
+            // the lookups wait on the query in progress, not on threads
+            assertTrue(resolverThreads() <= 8);
+        } finally {
+            nameService.release();
+        }
+        for (CompletableFuture<InetAddress[]> future: futures)
+            assertArrayEquals(ADDRESS, future.get(10, TimeUnit.SECONDS)[0].getAddress());
+        assertEquals(1, nameService.queries(host));
+    }
+
+    @Test
+    public void distinctHostsUseBoundedThreads() throws Exception {
+        nameService.hold();
+        List<CompletableFuture<InetAddress[]>> futures =
+            new ArrayList<CompletableFuture<InetAddress[]>>();
+        try {
+            for (int i = 0; i < 50; i++)
+                futures.add(InetAddress.getAllByNameAsync("host" + i + ".test"));
+            nameService.awaitQueries("host0.test", 1);
+            assertTrue(resolverThreads() <= 8);
+        } finally {
+            nameService.release();
+        }
+        for (CompletableFuture<InetAddress[]> future: futures)
+            assertArrayEquals(ADDRESS, future.get(10, TimeUnit.SECONDS)[0].getAddress());
+    }
+
+    @Test
+    public void unknownHostCompletesExceptionally() throws Exception {
+        CompletableFuture<InetAddress[]> future =
+            InetAddress.getAllByNameAsync("unknown.invalid");
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("lookup of unknown host succeeded");
+        } catch (ExecutionException x) {
+            assertTrue(x.getCause() instanceof UnknownHostException);
+        }
+    }
+
+    @Test
+    public void literalIsNotLookedUp() throws Exception {
+        CompletableFuture<InetAddress[]> future =
+            InetAddress.getAllByNameAsync("127.0.0.1");
+        assertTrue(future.isDone());
+        assertEquals("127.0.0.1", future.get()[0].getHostAddress());
+    }
+
+    @Test
+    public void expiredEntryIsRefreshedInBackground() throws Exception {
+        assumeTrue(InetAddressCachePolicy.get() == 1 &&
+                   InetAddressCachePolicy.getStale() == 60);
+        String host = "stale.test";
+        InetAddress.getAllByName(host);
+        assertEquals(1, nameService.queries(host));
+        Thread.sleep(1500);
+
+        // the expired entry is used while the name service is held
+        nameService.hold();
+        try {
+            assertArrayEquals(ADDRESS, InetAddress.getAllByName(host)[0].getAddress());
+            assertArrayEquals(ADDRESS,
+                InetAddress.getAllByNameAsync(host).get(1, TimeUnit.SECONDS)[0].getAddress());
+            nameService.awaitQueries(host, 2);
+        } finally {
+            nameService.release();
+        }
+        assertEquals(2, nameService.queries(host));
+    }
+
+    private static int resolverThreads() {
+        int n = 0;
+        for (Thread t: Thread.getAllStackTraces().keySet()) {
+            if (t.getName().equals("InetAddress Resolver"))
+                n++;
+        }
+        return n;
+    }
+
+    /**
+     * Resolves hosts ending in ".test" to 10.0.0.1 and counts the queries
+     * of each host. While held, queries block until released.
+     */
+    private static class TestNameService implements NameService {
+        private final Map<String, AtomicInteger> queries =
+            new ConcurrentHashMap<String, AtomicInteger>();
+        private volatile CountDownLatch held = new CountDownLatch(0);
+
+        void hold() {
+            held = new CountDownLatch(1);
+        }
+
+        void release() {
+            held.countDown();
+        }
+
+        int queries(String host) {
+            AtomicInteger n = queries.get(host);
+            return (n == null) ? 0 : n.get();
+        }
+
+        void awaitQueries(String host, int n) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (queries(host) < n) {
+                if (System.nanoTime() > deadline)
+                    fail("no query of " + host);
+                Thread.sleep(10);
+            }
+        }
+
+        public InetAddress[] lookupAllHostAddr(String host)
+            throws UnknownHostException
+        {
+            if (!host.endsWith(".test"))
+                throw new UnknownHostException(host);
+            AtomicInteger n = queries.get(host);
+            if (n == null) {
+                queries.putIfAbsent(host, new AtomicInteger());
+                n = queries.get(host);
+            }
+            n.incrementAndGet();
+            try {
+                held.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException x) {
+                throw new UnknownHostException(host);
+            }
+            return new InetAddress[] { InetAddress.getByAddress(host, ADDRESS) };
+        }
+
+        public String getHostByAddr(byte[] addr) throws UnknownHostException {
+            throw new UnknownHostException();
+        }
+    }
+}